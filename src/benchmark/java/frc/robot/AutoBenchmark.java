@@ -0,0 +1,312 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.constSimulation;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.StateMachine.RobotState;
+import frc.robot.utils.GamePieceSim;
+
+/**
+ * Runs our autos headless in simulation with simulated notes, and scores each
+ * one by notes scored, time per cycle and time spent waiting to be ready to
+ * shoot.
+ *
+ * <p>
+ * The HAL simulation is one per process, so every run is its own JVM. The
+ * parent process starts one run per auto and seed, as many at a time as there
+ * are cores, and combines their results. Each seed removes a different random
+ * set of centerline notes.
+ * </p>
+ *
+ * Run with: AUTO_BENCHMARK="Centerline :3,Wing Only Down" AUTO_BENCHMARK_SEEDS=50
+ * ./gradlew benchmark (AUTO_BENCHMARK=all runs every auto in the chooser)
+ */
+public final class AutoBenchmark {
+  private static final String RESULT_PREFIX = "AUTO_BENCHMARK_RESULT\t";
+  private static final String CHILD_ENV = "AUTO_BENCHMARK_CHILD";
+  private static final String LIST_AUTOS = "--list";
+  private static final Path OUTPUT_DIRECTORY = Path.of("build", "auto-benchmark");
+
+  private AutoBenchmark() {
+  }
+
+  /**
+   * The result of one auto with one seed.
+   */
+  private static final class Result {
+    final String autoName;
+    final long seed;
+    final int notesScored;
+    final int notesShot;
+    final double averageCycleTime;
+    final double waitingTime;
+
+    Result(String autoName, long seed, int notesScored, int notesShot, double averageCycleTime,
+        double waitingTime) {
+      this.autoName = autoName;
+      this.seed = seed;
+      this.notesScored = notesScored;
+      this.notesShot = notesShot;
+      this.averageCycleTime = averageCycleTime;
+      this.waitingTime = waitingTime;
+    }
+
+    String toLine() {
+      return autoName + "\t" + seed + "\t" + notesScored + "\t" + notesShot + "\t" + averageCycleTime + "\t"
+          + waitingTime;
+    }
+
+    static Result fromLine(String line) {
+      String[] values = line.split("\t");
+      return new Result(values[0], Long.parseLong(values[1]), Integer.parseInt(values[2]),
+          Integer.parseInt(values[3]), Double.parseDouble(values[4]), Double.parseDouble(values[5]));
+    }
+  }
+
+  /**
+   * @return If this process is one run started by the benchmark
+   */
+  public static boolean isChild() {
+    return System.getenv(CHILD_ENV) != null;
+  }
+
+  /**
+   * Starts every run and prints a summary of each auto.
+   *
+   * @param autoNames The autos to run, separated by commas, or "all"
+   * @param seeds     How many seeds to run each auto with
+   */
+  public static void run(String autoNames, int seeds) {
+    List<String> autos = new ArrayList<String>();
+    if (autoNames.equalsIgnoreCase("all")) {
+      autos.addAll(startChild(LIST_AUTOS));
+    } else {
+      for (String autoName : autoNames.split(",")) {
+        autos.add(autoName.trim());
+      }
+    }
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    System.out.println("Running " + autos.size() + " autos with " + seeds + " seeds each, " + cores + " at a time");
+
+    ExecutorService executor = Executors.newFixedThreadPool(cores);
+    List<Future<List<String>>> runs = new ArrayList<Future<List<String>>>();
+    for (String autoName : autos) {
+      for (int seed = 1; seed <= seeds; seed++) {
+        String child = autoName + "\t" + seed;
+        runs.add(executor.submit(() -> startChild(child)));
+      }
+    }
+
+    List<Result> results = new ArrayList<Result>();
+    for (Future<List<String>> run : runs) {
+      try {
+        for (String line : run.get()) {
+          results.add(Result.fromLine(line));
+        }
+      } catch (Exception e) {
+        System.out.println("A benchmark run failed: " + e.getMessage());
+      }
+    }
+    executor.shutdown();
+
+    printSummary(autos, results);
+    writeResults(results);
+  }
+
+  /**
+   * Starts a new JVM running this robot code as one benchmark run, and waits for
+   * its results.
+   */
+  private static List<String> startChild(String child) {
+    List<String> command = new ArrayList<String>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(Benchmarks.class.getName());
+
+    ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+    builder.environment().put(CHILD_ENV, child);
+    // Don't open a sim GUI for every run
+    builder.environment().remove("HALSIM_EXTENSIONS");
+
+    List<String> results = new ArrayList<String>();
+    try {
+      Process process = builder.start();
+      try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+        String line;
+        while ((line = output.readLine()) != null) {
+          if (line.startsWith(RESULT_PREFIX)) {
+            results.add(line.substring(RESULT_PREFIX.length()));
+          }
+        }
+      }
+      process.waitFor();
+    } catch (IOException | InterruptedException e) {
+      System.out.println("Could not run " + child + ": " + e.getMessage());
+    }
+    return results;
+  }
+
+  /**
+   * Runs one auto with one seed in this process. Called by Benchmarks in the
+   * JVMs started by {@link #run(String, int)}.
+   */
+  public static void runChild() {
+    String[] child = System.getenv(CHILD_ENV).split("\t");
+
+    if (!HAL.initialize(500, 0)) {
+      throw new IllegalStateException("Failed to initialize the HAL");
+    }
+
+    // Every run would otherwise try to host NetworkTables on the same port
+    NetworkTableInstance.getDefault().startLocal();
+    DataLogManager.start(OUTPUT_DIRECTORY.resolve("logs").toString(),
+        child[0].equals(LIST_AUTOS) ? "list.wpilog" : (child[0] + " " + child[1]).replaceAll("[^A-Za-z0-9]+", "_")
+            + ".wpilog");
+
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.notifyNewData();
+
+    Robot robot = new Robot();
+    Thread robotThread = new Thread(robot::startCompetition, "Benchmark Robot");
+    robotThread.setDaemon(true);
+    robotThread.start();
+    SimHooks.waitForProgramStart();
+
+    // Let robotInit() and a few disabled loops run, so the alliance is set
+    for (int i = 0; i < 10; i++) {
+      SimHooks.stepTiming(robot.getPeriod());
+    }
+
+    RobotContainer robotContainer = robot.getRobotContainer();
+    if (child[0].equals(LIST_AUTOS)) {
+      for (String autoName : robotContainer.getAutoNames()) {
+        System.out.println(RESULT_PREFIX + autoName);
+      }
+    } else {
+      Result result = runAuto(robot, robotContainer, child[0], Long.parseLong(child[1]));
+      System.out.println(RESULT_PREFIX + result.toLine());
+    }
+
+    robot.endCompetition();
+    robot.close();
+  }
+
+  private static Result runAuto(Robot robot, RobotContainer robotContainer, String autoName, long seed) {
+    GamePieceSim gamePieceSim = robotContainer.getGamePieceSim();
+    robotContainer.selectAuto(autoName);
+    gamePieceSim.reset(new Random(seed));
+    robotContainer.getVisionSim().setSeed(seed);
+
+    // The simulated mechanisms start against their hard stops
+    Shooter.hasZeroed = true;
+    Elevator.hasZeroed = true;
+
+    DriverStationSim.setAutonomous(true);
+    DriverStationSim.setEnabled(true);
+    DriverStationSim.notifyNewData();
+
+    double startTime = Timer.getFPGATimestamp();
+    double waitingTime = 0;
+    int loops = (int) Math.ceil(constSimulation.AUTO_LENGTH.in(Units.Seconds) / robot.getPeriod());
+    for (int i = 0; i < loops; i++) {
+      SimHooks.stepTiming(robot.getPeriod());
+
+      // ShootSequence holds PREP_VISION until we are ready to shoot
+      if (RobotContainer.subStateMachine.getRobotState() == RobotState.PREP_VISION) {
+        waitingTime += robot.getPeriod();
+      }
+    }
+
+    DriverStationSim.setEnabled(false);
+    DriverStationSim.notifyNewData();
+    SimHooks.stepTiming(robot.getPeriod());
+
+    // The first cycle starts at the beginning of auto
+    int notesShot = gamePieceSim.getNotesShot();
+    double averageCycleTime = (notesShot > 0)
+        ? (gamePieceSim.getShotTime(notesShot - 1) - startTime) / notesShot
+        : 0;
+
+    return new Result(autoName, seed, gamePieceSim.getNotesScored(), notesShot, averageCycleTime, waitingTime);
+  }
+
+  private static void printSummary(List<String> autos, List<Result> results) {
+    System.out.println(String.format("%-28s %5s %8s %8s %8s %10s %10s",
+        "Auto", "Runs", "Scored", "Min", "Max", "Cycle (s)", "Wait (s)"));
+
+    for (String autoName : autos) {
+      int runs = 0;
+      int minScored = Integer.MAX_VALUE;
+      int maxScored = 0;
+      double totalScored = 0;
+      double totalCycleTime = 0;
+      double totalWaitingTime = 0;
+
+      for (Result result : results) {
+        if (!result.autoName.equals(autoName)) {
+          continue;
+        }
+        runs++;
+        minScored = Math.min(minScored, result.notesScored);
+        maxScored = Math.max(maxScored, result.notesScored);
+        totalScored += result.notesScored;
+        totalCycleTime += result.averageCycleTime;
+        totalWaitingTime += result.waitingTime;
+      }
+
+      if (runs == 0) {
+        System.out.println(String.format("%-28s %5d", autoName, 0));
+        continue;
+      }
+      System.out.println(String.format("%-28s %5d %8.2f %8d %8d %10.2f %10.2f", autoName, runs,
+          totalScored / runs, minScored, maxScored, totalCycleTime / runs, totalWaitingTime / runs));
+    }
+  }
+
+  private static void writeResults(List<Result> results) {
+    Path resultsFile = OUTPUT_DIRECTORY.resolve("results.tsv");
+    try {
+      Files.createDirectories(OUTPUT_DIRECTORY);
+      try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(resultsFile))) {
+        writer.println("auto\tseed\tscored\tshot\taverage cycle time\twaiting time");
+        for (Result result : results) {
+          writer.println(result.toLine());
+        }
+      }
+      System.out.println("Wrote every run to " + resultsFile);
+    } catch (IOException e) {
+      System.out.println("Could not write " + resultsFile + ": " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,90 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.utils.AutoCache;
+
+/**
+ * Runs one of our benchmarks or log tools on a desktop, chosen by environment
+ * variable. None of these are deployed to the robot.
+ *
+ * <p>
+ * ./gradlew benchmark runs this as its only test, so it gets the same native
+ * libraries as our tests do. Benchmarks that start their own JVMs run
+ * {@link #main(String...)} in them.
+ * </p>
+ *
+ * Run with: LOOP_BENCHMARK=all ./gradlew benchmark
+ */
+public final class Benchmarks {
+  public static void main(String... args) {
+    run();
+    // The HAL and NetworkTables leave threads running
+    System.exit(0);
+  }
+
+  @Test
+  void runFromGradle() {
+    run();
+  }
+
+  private static void run() {
+    // One run started by AutoBenchmark
+    if (AutoBenchmark.isChild()) {
+      AutoBenchmark.runChild();
+      return;
+    }
+    String autoBenchmark = System.getenv("AUTO_BENCHMARK");
+    if (autoBenchmark != null) {
+      String seeds = System.getenv("AUTO_BENCHMARK_SEEDS");
+      AutoBenchmark.run(autoBenchmark,
+          (seeds != null) ? Integer.parseInt(seeds) : Constants.constSimulation.AUTO_BENCHMARK_DEFAULT_SEEDS);
+      return;
+    }
+
+    String pathBenchmark = System.getenv("PATH_BENCHMARK");
+    if (pathBenchmark != null) {
+      String trials = System.getenv("PATH_BENCHMARK_TRIALS");
+      PathBenchmark.run(pathBenchmark,
+          (trials != null) ? Integer.parseInt(trials) : Constants.constSimulation.PATH_BENCHMARK_DEFAULT_TRIALS);
+      return;
+    }
+
+    // Compare following PathPlanner's trajectories with our pre-generated ones
+    // (see AutoCache.measureFollowingCost())
+    String followingBenchmark = System.getenv("FOLLOWING_BENCHMARK");
+    if (followingBenchmark != null) {
+      System.out.println(AutoCache.measureFollowingCost(Integer.parseInt(followingBenchmark)));
+      return;
+    }
+
+    String replayLog = System.getenv("REPLAY_LOG");
+    if (replayLog != null) {
+      String replayOutput = System.getenv("REPLAY_OUTPUT");
+      ReplayRunner.run(Path.of(replayLog), (replayOutput != null) ? Path.of(replayOutput) : null);
+      return;
+    }
+
+    String visionEval = System.getenv("VISION_EVAL");
+    if (visionEval != null) {
+      VisionEvaluator.run(Path.of(visionEval));
+      return;
+    }
+
+    String loopBenchmark = System.getenv("LOOP_BENCHMARK");
+    if (loopBenchmark != null) {
+      String baseline = System.getenv("LOOP_BENCHMARK_BASELINE");
+      LoopBenchmark.run(loopBenchmark, (baseline != null) ? Path.of(baseline) : null);
+      return;
+    }
+
+    System.out.println("Set AUTO_BENCHMARK, PATH_BENCHMARK, FOLLOWING_BENCHMARK, REPLAY_LOG, VISION_EVAL or "
+        + "LOOP_BENCHMARK to choose what to run");
+  }
+}
@@ -0,0 +1,338 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.interpolation.InterpolatingDoubleTreeMap;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.constField;
+import frc.robot.Constants.constField.FieldElement;
+import frc.robot.Constants.constShooter;
+import frc.robot.Constants.constSimulation;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.StateMachine;
+import frc.robot.subsystems.StateMachine.RobotState;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.ShotSolver;
+import frc.robot.utils.ShotTable;
+import frc.robot.utils.ShotTable.Interpolation;
+
+/**
+ * Measures how long each of our hot paths takes and how much it allocates, so
+ * that a performance change can be compared against a baseline instead of
+ * argued about by feel.
+ *
+ * <p>
+ * Each benchmark is run like JMH would: warmup iterations, then timed
+ * iterations of a fixed length. It reports its average time per operation
+ * with the standard deviation across iterations, and how many bytes it
+ * allocates per operation (what JMH's -prof gc reports as gc.alloc.rate.norm).
+ * Every operation writes its result to a sink, so the JIT compiler can't
+ * remove the work. The subsystems need the HAL simulation, so this runs in the
+ * simulation process with the robot loop paused.
+ * </p>
+ *
+ * <p>
+ * Results are written to build/loop-benchmark/results.tsv. Passing an earlier
+ * results file as the baseline prints the change from it.
+ * </p>
+ *
+ * Run with: LOOP_BENCHMARK="Drive.execute,DISTANCE_MAP.get"
+ * LOOP_BENCHMARK_BASELINE=path/to/results.tsv ./gradlew benchmark
+ * (LOOP_BENCHMARK=all runs every benchmark)
+ */
+public final class LoopBenchmark {
+  private static final Path OUTPUT_DIRECTORY = Path.of("build", "loop-benchmark");
+  // How many operations run between checks of the clock
+  private static final int OPERATIONS_PER_BATCH = 100;
+
+  // Written to by every operation, so that their work can't be optimized away
+  private static Object objectSink;
+  private static double doubleSink;
+
+  private LoopBenchmark() {
+  }
+
+  /**
+   * One operation of a benchmark.
+   */
+  private interface Operation {
+    /**
+     * @param index How many operations have run before this one, for
+     *              benchmarks that vary their input
+     */
+    void run(long index);
+  }
+
+  /**
+   * The result of one benchmark.
+   */
+  private static final class Result {
+    final String name;
+    // <b>Units:</b> Nanoseconds per operation
+    final double time;
+    final double timeError;
+    // <b>Units:</b> Bytes per operation
+    final double allocation;
+
+    Result(String name, double time, double timeError, double allocation) {
+      this.name = name;
+      this.time = time;
+      this.timeError = timeError;
+      this.allocation = allocation;
+    }
+
+    /**
+     * @return How fast this benchmark allocates. <b>Units:</b> Megabytes per
+     *         second
+     */
+    double getAllocationRate() {
+      return (time > 0) ? allocation / time * 1e3 : 0;
+    }
+  }
+
+  /**
+   * Runs the given benchmarks and prints their results.
+   *
+   * @param benchmarkNames The benchmarks to run, separated by commas, or "all"
+   * @param baselinePath   An earlier results file to compare with. May be null
+   */
+  public static void run(String benchmarkNames, Path baselinePath) {
+    if (!HAL.initialize(500, 0)) {
+      throw new IllegalStateException("Failed to initialize the HAL");
+    }
+
+    NetworkTableInstance.getDefault().startLocal();
+    DataLogManager.start(OUTPUT_DIRECTORY.resolve("logs").toString(), "benchmark.wpilog");
+
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.notifyNewData();
+
+    Robot robot = new Robot();
+    Thread robotThread = new Thread(robot::startCompetition, "Benchmark Robot");
+    robotThread.setDaemon(true);
+    robotThread.start();
+    SimHooks.waitForProgramStart();
+
+    // Let robotInit() and a few disabled loops run, so the alliance is set.
+    // Timing stays paused afterwards, so the robot loop can't run alongside us
+    for (int i = 0; i < 10; i++) {
+      SimHooks.stepTiming(robot.getPeriod());
+    }
+
+    Map<String, Operation> benchmarks = createBenchmarks(robot.getRobotContainer());
+    List<String> names = new ArrayList<String>();
+    if (benchmarkNames.equalsIgnoreCase("all")) {
+      names.addAll(benchmarks.keySet());
+    } else {
+      for (String name : benchmarkNames.split(",")) {
+        names.add(name.trim());
+      }
+    }
+
+    if (!LoopProfiler.canCountAllocations()) {
+      System.out.println("This JVM can't count allocations, so every allocation will read as 0");
+    }
+
+    // About as many marks as a teleop loop with a few commands running
+    System.out.println("Loop profiler overhead: " + LoopProfiler.measureOverhead(10000, 20) + "us per loop");
+
+    List<Result> results = new ArrayList<Result>();
+    for (String name : names) {
+      Operation operation = benchmarks.get(name);
+      if (operation == null) {
+        System.out.println("Unknown benchmark " + name + ". Options are: " + benchmarks.keySet());
+        continue;
+      }
+      System.out.println("Running " + name);
+      results.add(runBenchmark(name, operation));
+    }
+
+    Map<String, Result> baseline = (baselinePath != null) ? loadResults(baselinePath) : new HashMap<String, Result>();
+    printResults(results, baseline);
+    writeResults(results);
+
+    robot.endCompetition();
+    robot.close();
+  }
+
+  /**
+   * Every hot path we measure. Anything expensive to set up is created here,
+   * outside of the operation.
+   */
+  private static Map<String, Operation> createBenchmarks(RobotContainer robotContainer) {
+    Drivetrain subDrivetrain = robotContainer.getDrivetrain();
+    StateMachine subStateMachine = RobotContainer.subStateMachine;
+
+    Command drive = subDrivetrain.getDefaultCommand();
+    drive.initialize();
+
+    Pose2d speaker = constField.getField().getPose2d(FieldElement.SPEAKER);
+    Pose2d shootingPose = new Pose2d(3, 5.5, Rotation2d.fromDegrees(180));
+    ChassisSpeeds shootingSpeeds = new ChassisSpeeds(1, 0.5, 0);
+    ShotSolver shotSolver = new ShotSolver();
+    RobotState[] robotStates = RobotState.values();
+
+    Map<String, Operation> benchmarks = new LinkedHashMap<String, Operation>();
+    benchmarks.put("Drive.execute", index -> drive.execute());
+    // The World State and every trigger, like the Triggers time in the LoopProfiler
+    benchmarks.put("Button loop poll", index -> CommandScheduler.getInstance().getDefaultButtonLoop().poll());
+    benchmarks.put("Drivetrain.getAngleToTarget",
+        index -> objectSink = subDrivetrain.getAngleToTarget(speaker));
+    benchmarks.put("Drivetrain.getAngleToTargetDegrees",
+        index -> doubleSink += subDrivetrain.getAngleToTargetDegrees(speaker));
+    benchmarks.put("Drivetrain.getVelocityToChainDegrees",
+        index -> doubleSink += subDrivetrain.getVelocityToChainDegrees());
+    // Finds our pivot angle and flywheel speeds from the distance to the speaker
+    benchmarks.put("ShotSolver.solve", index -> {
+      shotSolver.solve(shootingPose, shootingSpeeds, speaker);
+      doubleSink += shotSolver.getPivotAngle();
+    });
+    benchmarks.put("StateMachine.tryState",
+        index -> objectSink = subStateMachine.tryState(robotStates[(int) (index % robotStates.length)]));
+    benchmarks.put("StateMachine.isGivenStateTargetState",
+        index -> doubleSink += subStateMachine.isGivenStateTargetState(
+            robotStates[(int) (index % robotStates.length)]) ? 1 : 0);
+    benchmarks.put("constField.getField", index -> objectSink = constField.getField().getPose2d(FieldElement.SPEAKER));
+
+    // The InterpolatingDoubleTreeMap our shot table replaced, with the same rows.
+    // Each looks up from 1 to 6 meters, in centimeter steps
+    InterpolatingDoubleTreeMap distanceMap = createDistanceMap(constShooter.SHOT_TABLE);
+    ShotTable linearTable = constShooter.SHOT_TABLE.withInterpolation(Interpolation.LINEAR);
+    ShotTable cubicTable = constShooter.SHOT_TABLE.withInterpolation(Interpolation.MONOTONE_CUBIC);
+    benchmarks.put("DISTANCE_MAP.get",
+        index -> doubleSink += distanceMap.get(1 + (index % 500) / 100.0));
+    benchmarks.put("SHOT_TABLE.get (Linear)",
+        index -> doubleSink += linearTable.getPivotAngle(1 + (index % 500) / 100.0));
+    benchmarks.put("SHOT_TABLE.get (Monotone Cubic)",
+        index -> doubleSink += cubicTable.getPivotAngle(1 + (index % 500) / 100.0));
+    return benchmarks;
+  }
+
+  private static InterpolatingDoubleTreeMap createDistanceMap(ShotTable shotTable) {
+    InterpolatingDoubleTreeMap distanceMap = new InterpolatingDoubleTreeMap();
+    for (int row = 0; row < shotTable.size(); row++) {
+      distanceMap.put(shotTable.getRowDistance(row), shotTable.getRowValue(ShotTable.PIVOT_ANGLE, row));
+    }
+    return distanceMap;
+  }
+
+  private static Result runBenchmark(String name, Operation operation) {
+    int warmupIterations = constSimulation.LOOP_BENCHMARK_WARMUP_ITERATIONS;
+    int iterations = constSimulation.LOOP_BENCHMARK_ITERATIONS;
+    long iterationTime = (long) (constSimulation.LOOP_BENCHMARK_ITERATION_TIME.in(Units.Seconds) * 1e9);
+
+    double[] times = new double[iterations];
+    double totalAllocation = 0;
+    long index = 0;
+
+    for (int iteration = 0; iteration < warmupIterations + iterations; iteration++) {
+      long operations = 0;
+      long startBytes = LoopProfiler.getAllocatedBytes();
+      long startTime = System.nanoTime();
+      long elapsedTime;
+      do {
+        for (int i = 0; i < OPERATIONS_PER_BATCH; i++) {
+          operation.run(index++);
+        }
+        operations += OPERATIONS_PER_BATCH;
+        elapsedTime = System.nanoTime() - startTime;
+      } while (elapsedTime < iterationTime);
+      long allocatedBytes = LoopProfiler.getAllocatedBytes() - startBytes;
+
+      if (iteration >= warmupIterations) {
+        times[iteration - warmupIterations] = (double) elapsedTime / operations;
+        totalAllocation += (double) allocatedBytes / operations;
+      }
+    }
+
+    double meanTime = 0;
+    for (double time : times) {
+      meanTime += time / iterations;
+    }
+    double variance = 0;
+    for (double time : times) {
+      variance += (time - meanTime) * (time - meanTime) / Math.max(iterations - 1, 1);
+    }
+
+    return new Result(name, meanTime, Math.sqrt(variance), totalAllocation / iterations);
+  }
+
+  private static void printResults(List<Result> results, Map<String, Result> baseline) {
+    System.out.println(String.format("%-40s %12s %10s %12s %14s %12s %12s", "Benchmark", "ns/op", "Error",
+        "B/op", "Alloc (MB/s)", "vs ns/op", "vs B/op"));
+    for (Result result : results) {
+      Result baselineResult = baseline.get(result.name);
+      System.out.println(String.format("%-40s %12.2f %10.2f %12.1f %14.1f %12s %12s", result.name,
+          result.time, result.timeError, result.allocation, result.getAllocationRate(),
+          (baselineResult != null) ? formatChange(baselineResult.time, result.time) : "",
+          (baselineResult != null) ? formatChange(baselineResult.allocation, result.allocation) : ""));
+    }
+  }
+
+  private static String formatChange(double before, double after) {
+    if (before == 0) {
+      return (after == 0) ? "0%" : "new";
+    }
+    return String.format("%+.1f%%", (after - before) / before * 100);
+  }
+
+  private static void writeResults(List<Result> results) {
+    Path resultsFile = OUTPUT_DIRECTORY.resolve("results.tsv");
+    try {
+      Files.createDirectories(OUTPUT_DIRECTORY);
+      try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(resultsFile))) {
+        writer.println("benchmark\tns/op\terror\tB/op");
+        for (Result result : results) {
+          writer.println(result.name + "\t" + result.time + "\t" + result.timeError + "\t" + result.allocation);
+        }
+      }
+      System.out.println("Wrote results to " + resultsFile);
+    } catch (IOException e) {
+      System.out.println("Could not write results: " + e.getMessage());
+    }
+  }
+
+  private static Map<String, Result> loadResults(Path resultsFile) {
+    Map<String, Result> results = new HashMap<String, Result>();
+    try {
+      List<String> lines = Files.readAllLines(resultsFile);
+      // The first line is the header
+      for (int i = 1; i < lines.size(); i++) {
+        String[] values = lines.get(i).split("\t");
+        if (values.length < 4) {
+          continue;
+        }
+        results.put(values[0], new Result(values[0], Double.parseDouble(values[1]), Double.parseDouble(values[2]),
+            Double.parseDouble(values[3])));
+      }
+    } catch (IOException | NumberFormatException e) {
+      System.out.println("Could not load baseline " + resultsFile + ": " + e.getMessage());
+    }
+    return results;
+  }
+}
@@ -0,0 +1,284 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.PathPlannerTrajectory;
+import com.pathplanner.lib.util.PIDConstants;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.constDrivetrain;
+import frc.robot.Constants.constSimulation;
+import frc.robot.RobotPreferences.prefDrivetrain;
+
+/**
+ * Follows every PathPlanner path on the desktop with our auto PID constants,
+ * under random wheel slip and pose latency, and reports how long each path
+ * takes to finish and how far from its end pose we finish.
+ *
+ * <p>
+ * This doesn't need the HAL or any subsystems, so every trial runs in this
+ * process on a fork-join pool. The robot is modeled as following the path
+ * follower's speeds exactly, other than the slip, so the results compare paths
+ * with each other rather than predicting the real robot to the millisecond.
+ * Paths are followed on the blue alliance without flipping.
+ * </p>
+ *
+ * Run with: PATH_BENCHMARK="C5ScoreC1.1,PsW1W2W3.2" PATH_BENCHMARK_TRIALS=500
+ * ./gradlew benchmark (PATH_BENCHMARK=all runs every path in the deploy
+ * directory)
+ */
+public final class PathBenchmark {
+  private static final String PATH_EXTENSION = ".path";
+  private static final Path OUTPUT_DIRECTORY = Path.of("build", "path-benchmark");
+  private static final double PERIOD = 0.02;
+
+  private PathBenchmark() {
+  }
+
+  /**
+   * One path, with its trajectory generated once and shared by every trial.
+   */
+  private static final class PathTrials {
+    final String pathName;
+    final PathPlannerTrajectory trajectory;
+    final double[] completionTimes;
+    final double[] translationErrors;
+    final double[] rotationErrors;
+    final boolean[] timedOut;
+
+    PathTrials(String pathName, PathPlannerTrajectory trajectory, int trials) {
+      this.pathName = pathName;
+      this.trajectory = trajectory;
+      this.completionTimes = new double[trials];
+      this.translationErrors = new double[trials];
+      this.rotationErrors = new double[trials];
+      this.timedOut = new boolean[trials];
+    }
+
+    int getTimeouts() {
+      int timeouts = 0;
+      for (boolean trialTimedOut : timedOut) {
+        if (trialTimedOut) {
+          timeouts++;
+        }
+      }
+      return timeouts;
+    }
+  }
+
+  /**
+   * Runs every trial and prints a summary of each path, slowest first.
+   *
+   * @param pathNames The paths to run, separated by commas, or "all"
+   * @param trials    How many trials to run each path with
+   */
+  public static void run(String pathNames, int trials) {
+    List<String> names = new ArrayList<String>();
+    if (pathNames.equalsIgnoreCase("all")) {
+      names.addAll(listPaths());
+    } else {
+      for (String pathName : pathNames.split(",")) {
+        names.add(pathName.trim());
+      }
+    }
+
+    List<PathTrials> paths = new ArrayList<PathTrials>();
+    for (String pathName : names) {
+      try {
+        PathPlannerPath path = PathPlannerPath.fromPathFile(pathName);
+        Rotation2d startingRotation = path.getPreviewStartingHolonomicPose().getRotation();
+        paths.add(new PathTrials(pathName, path.getTrajectory(new ChassisSpeeds(), startingRotation), trials));
+      } catch (RuntimeException e) {
+        System.out.println("Could not load path " + pathName + ": " + e.getMessage());
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool();
+    System.out.println("Running " + paths.size() + " paths with " + trials + " trials each, "
+        + pool.getParallelism() + " at a time");
+
+    long startTime = System.nanoTime();
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (int pathIndex = 0; pathIndex < paths.size(); pathIndex++) {
+      PathTrials pathTrials = paths.get(pathIndex);
+      for (int trial = 0; trial < trials; trial++) {
+        int trialIndex = trial;
+        // Seeded from the path and trial, so a run can be repeated exactly
+        long seed = ((long) pathIndex << 32) | trial;
+        tasks.add(() -> {
+          runTrial(pathTrials, trialIndex, new Random(seed));
+          return null;
+        });
+      }
+    }
+
+    for (Future<Void> task : pool.invokeAll(tasks)) {
+      try {
+        task.get();
+      } catch (Exception e) {
+        System.out.println("A path trial failed: " + e.getMessage());
+      }
+    }
+    pool.shutdown();
+    System.out.println("Finished in " + (System.nanoTime() - startTime) / 1e9 + "s");
+
+    // Slowest paths first, since those are the ones worth fixing
+    paths.sort((a, b) -> Double.compare(mean(b.completionTimes), mean(a.completionTimes)));
+    printSummary(paths);
+    writeResults(paths);
+  }
+
+  /**
+   * @return The name of every path in the deploy directory
+   */
+  private static List<String> listPaths() {
+    List<String> names = new ArrayList<String>();
+    File pathDirectory = new File(Filesystem.getDeployDirectory(), "pathplanner/paths");
+    String[] files = pathDirectory.list();
+    if (files == null) {
+      System.out.println("No paths found in " + pathDirectory);
+      return names;
+    }
+
+    Arrays.sort(files);
+    for (String file : files) {
+      if (file.endsWith(PATH_EXTENSION)) {
+        names.add(file.substring(0, file.length() - PATH_EXTENSION.length()));
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Follows one path from its starting pose until it's finished or timed out,
+   * and records the result in the given trial's slot.
+   */
+  private static void runTrial(PathTrials pathTrials, int trial, Random random) {
+    PathPlannerTrajectory trajectory = pathTrials.trajectory;
+
+    // Each thread needs its own follower, since it keeps PID state
+    PPHolonomicDriveController controller = new PPHolonomicDriveController(
+        new PIDConstants(prefDrivetrain.autoDriveP, prefDrivetrain.autoDriveI, prefDrivetrain.autoDriveD),
+        new PIDConstants(prefDrivetrain.autoSteerP, prefDrivetrain.autoSteerI, prefDrivetrain.autoSteerD),
+        PERIOD,
+        constDrivetrain.THEORETICAL_MAX_DRIVE_SPEED,
+        Math.hypot(constDrivetrain.WHEELBASE / 2, constDrivetrain.TRACK_WIDTH / 2));
+
+    double slip = random.nextDouble() * constSimulation.PATH_MAX_WHEEL_SLIP;
+    int latencyLoops = (int) Math.round(
+        random.nextDouble() * constSimulation.PATH_MAX_LATENCY.in(Units.Seconds) / PERIOD);
+    double totalTime = trajectory.getTotalTimeSeconds();
+    double timeout = totalTime + constSimulation.PATH_END_TIMEOUT.in(Units.Seconds);
+    double translationTolerance = constSimulation.PATH_END_TRANSLATION_TOLERANCE.in(Units.Meters);
+    double rotationTolerance = constSimulation.PATH_END_ROTATION_TOLERANCE.in(Units.Radians);
+
+    Pose2d endPose = trajectory.getEndState().getTargetHolonomicPose();
+    Pose2d pose = trajectory.getInitialTargetHolonomicPose();
+    // The poses the follower sees, oldest first, so it lags by latencyLoops
+    Pose2d[] poseHistory = new Pose2d[latencyLoops + 1];
+    Arrays.fill(poseHistory, pose);
+    controller.reset(pose, new ChassisSpeeds());
+
+    double time = 0;
+    double translationError = 0;
+    double rotationError = 0;
+    while (true) {
+      translationError = pose.getTranslation().getDistance(endPose.getTranslation());
+      rotationError = Math.abs(pose.getRotation().minus(endPose.getRotation()).getRadians());
+      if (time >= totalTime && translationError <= translationTolerance && rotationError <= rotationTolerance) {
+        break;
+      }
+      if (time >= timeout) {
+        pathTrials.timedOut[trial] = true;
+        break;
+      }
+
+      ChassisSpeeds speeds = controller.calculateRobotRelativeSpeeds(poseHistory[0],
+          trajectory.sample(Math.min(time, totalTime)));
+
+      // Slip only ever slows us down
+      double traction = 1 - slip * random.nextDouble();
+      pose = pose.exp(new Twist2d(
+          speeds.vxMetersPerSecond * traction * PERIOD,
+          speeds.vyMetersPerSecond * traction * PERIOD,
+          speeds.omegaRadiansPerSecond * traction * PERIOD));
+
+      System.arraycopy(poseHistory, 1, poseHistory, 0, latencyLoops);
+      poseHistory[latencyLoops] = pose;
+      time += PERIOD;
+    }
+
+    pathTrials.completionTimes[trial] = time;
+    pathTrials.translationErrors[trial] = translationError;
+    pathTrials.rotationErrors[trial] = Math.toDegrees(rotationError);
+  }
+
+  private static double mean(double[] values) {
+    double total = 0;
+    for (double value : values) {
+      total += value;
+    }
+    return (values.length > 0) ? total / values.length : 0;
+  }
+
+  private static double percentile(double[] values, double percentile) {
+    if (values.length == 0) {
+      return 0;
+    }
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * percentile) - 1)];
+  }
+
+  private static void printSummary(List<PathTrials> paths) {
+    System.out.println(String.format("%-20s %8s %8s %8s %10s %10s %8s",
+        "Path", "Path (s)", "Mean (s)", "p90 (s)", "Error (m)", "Error (deg)", "Timeouts"));
+
+    for (PathTrials path : paths) {
+      System.out.println(String.format("%-20s %8.2f %8.2f %8.2f %10.3f %10.2f %8d", path.pathName,
+          path.trajectory.getTotalTimeSeconds(), mean(path.completionTimes), percentile(path.completionTimes, 0.9),
+          mean(path.translationErrors), mean(path.rotationErrors), path.getTimeouts()));
+    }
+  }
+
+  private static void writeResults(List<PathTrials> paths) {
+    Path resultsFile = OUTPUT_DIRECTORY.resolve("results.tsv");
+    try {
+      Files.createDirectories(OUTPUT_DIRECTORY);
+      try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(resultsFile))) {
+        writer.println("path\ttrial\tcompletion time\ttranslation error\trotation error");
+        for (PathTrials path : paths) {
+          for (int trial = 0; trial < path.completionTimes.length; trial++) {
+            writer.println(path.pathName + "\t" + trial + "\t" + path.completionTimes[trial] + "\t"
+                + path.translationErrors[trial] + "\t" + path.rotationErrors[trial]);
+          }
+        }
+      }
+      System.out.println("Wrote every trial to " + resultsFile);
+    } catch (IOException e) {
+      System.out.println("Could not write " + resultsFile + ": " + e.getMessage());
+    }
+  }
+}
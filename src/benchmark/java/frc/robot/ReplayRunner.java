@@ -0,0 +1,142 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.RobotMap.mapControllers;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.LogReplay;
+
+/**
+ * Runs a match log back through our robot code on a desktop, as fast as the
+ * code can run instead of one loop every 20ms.
+ *
+ * <p>
+ * Every subsystem input, the Driver Station state and our controllers come from
+ * the log (see {@link InputLog}), and simulated time is stepped by one loop for
+ * each loop in the log. Anything published to the dashboard or the new DataLog
+ * during the replay shows what our current code would have done with the same
+ * inputs.
+ * </p>
+ *
+ * <p>
+ * Setting REPLAY_OUTPUT writes what our commands asked the mechanisms to do in
+ * every loop to that file, so two replays can be compared line by line.
+ * </p>
+ *
+ * Run with: REPLAY_LOG=path/to/log.wpilog ./gradlew benchmark
+ */
+public final class ReplayRunner {
+  private static final Path OUTPUT_DIRECTORY = Path.of("build", "replay");
+
+  private ReplayRunner() {
+  }
+
+  /**
+   * @param logPath    The match log to replay
+   * @param outputPath Where to write each loop's outputs. May be null
+   */
+  public static void run(Path logPath, Path outputPath) {
+    LogReplay replay;
+    try {
+      replay = LogReplay.load(logPath);
+    } catch (IOException e) {
+      System.out.println("Could not load replay log: " + e.getMessage());
+      return;
+    }
+
+    if (!HAL.initialize(500, 0)) {
+      throw new IllegalStateException("Failed to initialize the HAL");
+    }
+
+    // Before robotInit() starts the log next to our match logs
+    DataLogManager.start(OUTPUT_DIRECTORY.resolve("logs").toString(),
+        logPath.getFileName().toString().replace(".wpilog", "") + "_replay.wpilog");
+
+    InputLog.startReplay(replay);
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+
+    Robot robot = new Robot();
+    Thread robotThread = new Thread(robot::startCompetition, "Replay Robot");
+    robotThread.setDaemon(true);
+    robotThread.start();
+    SimHooks.waitForProgramStart();
+
+    PrintWriter output = null;
+    if (outputPath != null) {
+      try {
+        output = new PrintWriter(Files.newBufferedWriter(outputPath));
+      } catch (IOException e) {
+        System.out.println("Could not write replay outputs: " + e.getMessage());
+      }
+    }
+
+    System.out.println("Replaying " + replay.getLoopCount() + " loops from " + logPath);
+    long startTime = System.nanoTime();
+
+    while (replay.nextLoop()) {
+      DriverStationSim.setEnabled(replay.getBoolean(InputLog.LOG_PREFIX + "DriverStation/Enabled", false));
+      DriverStationSim.setAutonomous(replay.getBoolean(InputLog.LOG_PREFIX + "DriverStation/Autonomous", false));
+      DriverStationSim.setTest(replay.getBoolean(InputLog.LOG_PREFIX + "DriverStation/Test", false));
+      DriverStationSim.setAllianceStationId(
+          replay.getBoolean(InputLog.LOG_PREFIX + "DriverStation/Red Alliance", false)
+              ? AllianceStationID.Red1
+              : AllianceStationID.Blue1);
+      for (int port : mapControllers.ALL_USB) {
+        setJoystick(replay, port);
+      }
+      DriverStationSim.notifyNewData();
+
+      SimHooks.stepTiming(robot.getPeriod());
+
+      if (output != null) {
+        output.println(replay.getLoopIndex() + "\t" + robot.getRobotContainer().getOutputLine());
+      }
+    }
+    if (output != null) {
+      output.close();
+    }
+
+    double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+    System.out.println("Replayed " + replay.getLoopCount() + " loops in " + elapsedSeconds + "s ("
+        + (replay.getLoopCount() / elapsedSeconds) + " loops per second)");
+
+    robot.endCompetition();
+    robot.close();
+  }
+
+  /**
+   * Sends the Driver Station the controller on the given port, as it was logged
+   * by {@link InputLog#addJoystick(int)} this loop.
+   */
+  private static void setJoystick(LogReplay replay, int port) {
+    String prefix = InputLog.LOG_PREFIX + InputLog.getJoystickKey(port);
+
+    int axisCount = (int) replay.getInteger(prefix + "Axis Count", 0);
+    DriverStationSim.setJoystickAxisCount(port, axisCount);
+    for (int axis = 0; axis < Math.min(axisCount, InputLog.MAX_JOYSTICK_AXES); axis++) {
+      DriverStationSim.setJoystickAxis(port, axis, replay.getDouble(prefix + "Axis " + axis, 0));
+    }
+
+    DriverStationSim.setJoystickButtonCount(port, (int) replay.getInteger(prefix + "Button Count", 0));
+    DriverStationSim.setJoystickButtons(port, (int) replay.getInteger(prefix + "Buttons", 0));
+
+    int povCount = (int) replay.getInteger(prefix + "POV Count", 0);
+    DriverStationSim.setJoystickPOVCount(port, povCount);
+    for (int pov = 0; pov < Math.min(povCount, InputLog.MAX_JOYSTICK_POVS); pov++) {
+      DriverStationSim.setJoystickPOV(port, pov, (int) replay.getInteger(prefix + "POV " + pov, -1));
+    }
+  }
+}
@@ -0,0 +1,260 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.wpi.first.units.Units;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.util.datalog.DataLogRecord.StartRecordData;
+import frc.robot.Constants.constLimelight;
+import frc.robot.subsystems.Limelight;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.VisionScorer;
+
+/**
+ * Tunes the {@link VisionScorer} weights on the desktop, from the vision
+ * measurements and poses recorded in a match log.
+ *
+ * <p>
+ * Each logged measurement is compared with our pose estimate from the loop
+ * closest to when its frame was captured. Every combination of weights is
+ * scored by how likely those errors are under the standard deviations it
+ * would have given each measurement (lower is better), with the base standard
+ * deviation for each MegaTag fitted to the errors. The pose estimate already
+ * includes vision, so logs with long stretches of good odometry make the best
+ * reference.
+ * </p>
+ *
+ * Run with: VISION_EVAL=path/to/log.wpilog ./gradlew benchmark
+ */
+public final class VisionEvaluator {
+  private static final String POSE_X_KEY = InputLog.LOG_PREFIX + "Drivetrain/Pose/X";
+  private static final String POSE_Y_KEY = InputLog.LOG_PREFIX + "Drivetrain/Pose/Y";
+  private static final int RESULTS_TO_PRINT = 10;
+
+  private static final double[] DISTANCE_WEIGHTS = { 0, 0.025, 0.05, 0.1, 0.2, 0.4, 0.8 };
+  private static final double[] AREA_WEIGHTS = { 0, 0.025, 0.05, 0.1, 0.2 };
+  private static final double[] ROTATION_RATE_WEIGHTS = { 0, 0.5, 1, 2, 4 };
+  private static final double[] AMBIGUITY_WEIGHTS = { 0, 1, 2, 4, 8 };
+
+  /**
+   * One logged measurement, and how far it was from our pose estimate.
+   */
+  private static final class Measurement {
+    final int tagCount;
+    final double avgTagDist;
+    final double avgTagArea;
+    final double ambiguity;
+    final double rotationRate;
+    final boolean megaTag2;
+    // <b>Units:</b> Meters Squared
+    final double squaredError;
+
+    Measurement(double[] values, double squaredError) {
+      this.tagCount = (int) values[3];
+      this.avgTagDist = values[4];
+      this.avgTagArea = values[5];
+      this.ambiguity = values[6];
+      this.rotationRate = values[7];
+      this.megaTag2 = values[8] != 0;
+      this.squaredError = squaredError;
+    }
+  }
+
+  /**
+   * One frame from {@link Limelight#VISION_LOG_KEY}, at the time it was
+   * captured.
+   */
+  private static final class LoggedEstimate {
+    final long timestamp;
+    final double[] values;
+
+    LoggedEstimate(long timestamp, double[] values) {
+      this.timestamp = timestamp;
+      this.values = values;
+    }
+  }
+
+  /**
+   * One combination of weights and how well it fit the log.
+   */
+  private static final class Result {
+    final double[] weights;
+    final double score;
+    final double megaTag1StdDevs;
+    final double megaTag2StdDevs;
+
+    Result(double[] weights, double score, double megaTag1StdDevs, double megaTag2StdDevs) {
+      this.weights = weights;
+      this.score = score;
+      this.megaTag1StdDevs = megaTag1StdDevs;
+      this.megaTag2StdDevs = megaTag2StdDevs;
+    }
+  }
+
+  private VisionEvaluator() {
+  }
+
+  public static void run(Path logPath) {
+    List<Measurement> measurements;
+    try {
+      measurements = load(logPath);
+    } catch (IOException e) {
+      System.out.println("Could not load vision log: " + e.getMessage());
+      return;
+    }
+    if (measurements.isEmpty()) {
+      System.out.println(logPath + " has no vision measurements with tags. Was it recorded with "
+          + Limelight.VISION_LOG_KEY + "?");
+      return;
+    }
+    System.out.println("Evaluating " + measurements.size() + " vision measurements from " + logPath);
+
+    List<Result> results = new ArrayList<Result>();
+    VisionScorer scorer = new VisionScorer(0, 0, 0, 0);
+    for (double distanceWeight : DISTANCE_WEIGHTS) {
+      for (double areaWeight : AREA_WEIGHTS) {
+        for (double rotationRateWeight : ROTATION_RATE_WEIGHTS) {
+          for (double ambiguityWeight : AMBIGUITY_WEIGHTS) {
+            scorer.setWeights(distanceWeight, areaWeight, rotationRateWeight, ambiguityWeight);
+            results.add(evaluate(scorer, measurements,
+                new double[] { distanceWeight, areaWeight, rotationRateWeight, ambiguityWeight }));
+          }
+        }
+      }
+    }
+
+    // The first result has every weight at 0, so only the tag count matters
+    Result unweighted = results.get(0);
+    results.sort((a, b) -> Double.compare(a.score, b.score));
+
+    System.out.println(String.format("%-10s %-10s %-14s %-10s %-10s %-12s %-12s", "Distance", "Area",
+        "Rotation Rate", "Ambiguity", "Score", "MT1 Std Dev", "MT2 Std Dev"));
+    for (int i = 0; i < Math.min(RESULTS_TO_PRINT, results.size()); i++) {
+      printResult(results.get(i));
+    }
+    System.out.println("Unweighted:");
+    printResult(unweighted);
+  }
+
+  private static void printResult(Result result) {
+    System.out.println(String.format("%-10.3f %-10.3f %-14.3f %-10.3f %-10.4f %-12.4f %-12.4f",
+        result.weights[0], result.weights[1], result.weights[2], result.weights[3], result.score,
+        result.megaTag1StdDevs, result.megaTag2StdDevs));
+  }
+
+  /**
+   * Reads every vision measurement that we would have accepted out of a log,
+   * paired with its error from the pose estimate closest to its capture time.
+   */
+  private static List<Measurement> load(Path logPath) throws IOException {
+    DataLogReader reader = new DataLogReader(logPath.toString());
+    if (!reader.isValid()) {
+      throw new IOException(logPath + " is not a valid .wpilog file");
+    }
+
+    HashMap<Integer, String> entryNames = new HashMap<Integer, String>();
+    TreeMap<Long, double[]> poses = new TreeMap<Long, double[]>();
+    // Not keyed by timestamp, since both cameras can capture a frame at the same
+    // time
+    List<LoggedEstimate> estimates = new ArrayList<LoggedEstimate>();
+
+    for (DataLogRecord record : reader) {
+      if (record.isStart()) {
+        StartRecordData startData = record.getStartData();
+        entryNames.put(startData.entry, startData.name);
+        continue;
+      }
+      if (record.isControl()) {
+        continue;
+      }
+
+      String name = entryNames.get(record.getEntry());
+      if (Limelight.VISION_LOG_KEY.equals(name)) {
+        double[] values = record.getDoubleArray();
+        if (values.length >= Limelight.VISION_LOG_LENGTH) {
+          estimates.add(new LoggedEstimate(record.getTimestamp(), values));
+        }
+      } else if (POSE_X_KEY.equals(name)) {
+        poses.computeIfAbsent(record.getTimestamp(), timestamp -> new double[2])[0] = record.getDouble();
+      } else if (POSE_Y_KEY.equals(name)) {
+        poses.computeIfAbsent(record.getTimestamp(), timestamp -> new double[2])[1] = record.getDouble();
+      }
+    }
+
+    double maxRotationRate = constLimelight.MAX_ANGULAR_VELOCITY.in(Units.DegreesPerSecond);
+    List<Measurement> measurements = new ArrayList<Measurement>();
+    for (LoggedEstimate estimate : estimates) {
+      double[] values = estimate.values;
+      if (values[3] < 1 || Math.abs(values[7]) > maxRotationRate) {
+        continue;
+      }
+
+      double[] pose = findClosestPose(poses, estimate.timestamp);
+      if (pose == null) {
+        continue;
+      }
+      double xError = values[0] - pose[0];
+      double yError = values[1] - pose[1];
+      measurements.add(new Measurement(values, xError * xError + yError * yError));
+    }
+    return measurements;
+  }
+
+  private static double[] findClosestPose(TreeMap<Long, double[]> poses, long timestamp) {
+    Map.Entry<Long, double[]> before = poses.floorEntry(timestamp);
+    Map.Entry<Long, double[]> after = poses.ceilingEntry(timestamp);
+    if (before == null) {
+      return (after == null) ? null : after.getValue();
+    }
+    if (after == null || timestamp - before.getKey() <= after.getKey() - timestamp) {
+      return before.getValue();
+    }
+    return after.getValue();
+  }
+
+  /**
+   * Scores one combination of weights by the average negative log likelihood
+   * of every error, treating X and Y as independent with the same standard
+   * deviation. Each MegaTag gets the base standard deviation that fits it best.
+   */
+  private static Result evaluate(VisionScorer scorer, List<Measurement> measurements, double[] weights) {
+    // Per MegaTag: count, sum of log(scale), sum of error^2 / scale^2
+    double[] counts = new double[2];
+    double[] logScales = new double[2];
+    double[] normalizedErrors = new double[2];
+
+    for (Measurement measurement : measurements) {
+      int megaTag = measurement.megaTag2 ? 1 : 0;
+      double scale = scorer.getScale(measurement.tagCount, measurement.avgTagDist, measurement.avgTagArea,
+          measurement.ambiguity, measurement.rotationRate);
+      counts[megaTag]++;
+      logScales[megaTag] += Math.log(scale);
+      normalizedErrors[megaTag] += measurement.squaredError / (scale * scale);
+    }
+
+    double score = 0;
+    double[] baseStdDevs = new double[2];
+    for (int megaTag = 0; megaTag < 2; megaTag++) {
+      if (counts[megaTag] == 0) {
+        continue;
+      }
+      // The base variance that fits best, per axis
+      double baseVariance = Math.max(normalizedErrors[megaTag] / (2 * counts[megaTag]), 1e-9);
+      baseStdDevs[megaTag] = Math.sqrt(baseVariance);
+      score += counts[megaTag] * Math.log(baseVariance) + 2 * logScales[megaTag] + counts[megaTag];
+    }
+
+    return new Result(weights, score / (counts[0] + counts[1]), baseStdDevs[0], baseStdDevs[1]);
+  }
+}
@@ -4,11 +4,12 @@
 
 package frc.robot;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Supplier;
 
 import com.ctre.phoenix.led.RainbowAnimation;
 import com.ctre.phoenix.led.StrobeAnimation;
@@ -29,9 +30,10 @@ import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.geometry.Translation3d;
-import edu.wpi.first.math.interpolation.InterpolatingDoubleTreeMap;
 import edu.wpi.first.units.Distance;
+import edu.wpi.first.units.Mass;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Time;
 import edu.wpi.first.units.Angle;
@@ -44,6 +46,8 @@ import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import frc.robot.Constants.constShooter.ShooterPositionGroup;
 import frc.robot.subsystems.StateMachine.RobotState;
 import frc.robot.subsystems.StateMachine.TargetState;
+import frc.robot.utils.ShotTable;
+import frc.robot.utils.ShotTable.Interpolation;
 
 public final class Constants {
   public static final Measure<Voltage> MAX_VOLTAGE = Units.Volts.of(12);
@@ -58,6 +62,20 @@ public final class Constants {
 
   public static final boolean ENABLE_PDH_LOGGING = true;
 
+  /**
+   * When true, every status signal on our "rio" bus motors that isn't listed in
+   * a subsystem's status signal rates is turned off. Set to false to compare bus
+   * usage against the Phoenix defaults.
+   */
+  public static final boolean OPTIMIZE_CAN_BUS_UTILIZATION = true;
+
+  /**
+   * When true, our triggers and commands share one WorldState snapshot per
+   * loop. Set to false to evaluate each of their predicates separately, to
+   * compare loop times.
+   */
+  public static final boolean SHARE_WORLD_STATE = true;
+
   public static class constControllers {
     public static final double DRIVER_LEFT_STICK_DEADBAND = 0.05;
     public static final boolean SILENCE_JOYSTICK_WARNINGS = true;
@@ -122,6 +140,31 @@ public final class Constants {
 
     public static final Measure<Angle> AT_ROTATION_TOLERANCE = Units.Degrees.of(5);
 
+    /**
+     * How many poses to keep for latency compensation. About a second of
+     * odometry samples at 250Hz
+     */
+    public static final int POSE_HISTORY_SIZE = 256;
+
+    // -- Trajectories --
+    /**
+     * How far apart in time the samples of a pre-generated trajectory are. Should
+     * match our loop time, so following one never interpolates across more than
+     * one sample
+     */
+    public static final Measure<Time> TRAJECTORY_SAMPLE_PERIOD = Units.Seconds.of(0.02);
+
+    /**
+     * How close the robot has to get to an event marker for its command to run.
+     * This is PathPlanner's default minimum trigger distance
+     */
+    public static final Measure<Distance> EVENT_MARKER_TRIGGER_DISTANCE = Units.Meters.of(0.5);
+
+    /**
+     * A path that ends slower than this stops the drivetrain when it finishes
+     */
+    public static final Measure<Velocity<Distance>> TRAJECTORY_STOP_VELOCITY = Units.MetersPerSecond.of(0.1);
+
     public static final boolean DRIVE_ENABLE_CURRENT_LIMITING = true;
     public static final double DRIVE_CURRENT_LIMIT = 90;
     public static final double DRIVE_CURRENT_TIME_THRESH = 0.5;
@@ -136,6 +179,25 @@ public final class Constants {
     public static final double STEER_CURRENT_THRESH = 60;
     public static final double STEER_CURRENT_TIME_THRESH = 0.2;
 
+    // -- Status Signals --
+    /**
+     * The rate of the drive motor currents we put on the dashboard. The rest of
+     * the module signals are read by SuperCORE, so they are left at their
+     * defaults. <b>Units:</b> Hertz
+     */
+    public static final double DRIVE_CURRENT_FREQUENCY = 10;
+
+    // -- Odometry Thread --
+    /**
+     * How often the odometry thread samples the modules and Pigeon. <b>Units:</b>
+     * Hertz
+     */
+    public static final double ODOMETRY_FREQUENCY = 250;
+    /**
+     * How many samples the odometry thread can hold before the main loop uses
+     * them. At 250 Hz, this is enough for a loop that takes over 100ms.
+     */
+    public static final int ODOMETRY_BUFFER_SIZE = 32;
   }
 
   public static class constField {
@@ -143,6 +205,69 @@ public final class Constants {
 
     public static Measure<Distance> FIELD_LENGTH = Units.Meters.of(16.541);
 
+    /**
+     * The field elements we care about, each of which has one position per
+     * alliance.
+     */
+    public enum FieldElement {
+      SPEAKER, AMP, SOURCE, LEFT_STAGE, CENTER_STAGE, RIGHT_STAGE, SUBWOOFER, SHUFFLE
+    }
+
+    /**
+     * The positions of every field element for one alliance, converted to every
+     * type we use up front so that reading them never allocates. All
+     * coordinates are in meters and are relative to the blue alliance.
+     */
+    public static final class FieldModel {
+      private final Pose3d[] poses3d;
+      private final Pose2d[] poses2d;
+      private final Translation2d[] translations;
+      private final List<Pose2d> chainPositions;
+
+      private FieldModel(Pose3d speaker, Pose3d amp, Pose3d source, Pose3d leftStage, Pose3d centerStage,
+          Pose3d rightStage, Pose3d subwoofer, Pose3d shuffle) {
+        poses3d = new Pose3d[] { speaker, amp, source, leftStage, centerStage, rightStage, subwoofer, shuffle };
+        poses2d = new Pose2d[poses3d.length];
+        translations = new Translation2d[poses3d.length];
+        for (int i = 0; i < poses3d.length; i++) {
+          poses2d[i] = poses3d[i].toPose2d();
+          translations[i] = poses2d[i].getTranslation();
+        }
+        chainPositions = List.of(getPose2d(FieldElement.RIGHT_STAGE), getPose2d(FieldElement.CENTER_STAGE),
+            getPose2d(FieldElement.LEFT_STAGE));
+      }
+
+      public Pose3d getPose3d(FieldElement element) {
+        return poses3d[element.ordinal()];
+      }
+
+      public Pose2d getPose2d(FieldElement element) {
+        return poses2d[element.ordinal()];
+      }
+
+      public Translation2d getTranslation(FieldElement element) {
+        return translations[element.ordinal()];
+      }
+
+      /**
+       * @return The positions of each chain
+       */
+      public List<Pose2d> getChainPositions() {
+        return chainPositions;
+      }
+    }
+
+    private static final FieldModel BLUE_FIELD = new FieldModel(blueConstants.SPEAKER_CENTER, blueConstants.AMP,
+        blueConstants.SOURCE, blueConstants.LEFT_STAGE, blueConstants.CENTER_STAGE, blueConstants.RIGHT_STAGE,
+        blueConstants.SUBWOOFER, blueConstants.SHUFFLE);
+    private static final FieldModel RED_FIELD = new FieldModel(redConstants.SPEAKER_CENTER, redConstants.AMP,
+        redConstants.SOURCE, redConstants.LEFT_STAGE, redConstants.CENTER_STAGE, redConstants.RIGHT_STAGE,
+        redConstants.SUBWOOFER, redConstants.SHUFFLE);
+
+    // Swapped in one write when the alliance changes, so readers never see a
+    // mix of alliances
+    private static volatile FieldModel field = BLUE_FIELD;
+
     /**
      * Boolean that controls when the path will be mirrored for the red
      * alliance. This will flip the path being followed to the red side of the
@@ -161,47 +286,52 @@ public final class Constants {
     };
 
     /**
-     * Gets the positions of all of the necessary field elements on the field. All
-     * coordinates are in meters and are relative to the blue alliance.
+     * Updates our alliance, and swaps in the field model for it if it changed.
+     * Should be called every disabled loop, since the alliance can change until
+     * the match starts.
+     */
+    public static void setAlliance(Optional<Alliance> alliance) {
+      ALLIANCE = alliance;
+      FieldModel allianceField = isRedAlliance() ? RED_FIELD : BLUE_FIELD;
+      if (field != allianceField) {
+        field = allianceField;
+      }
+    }
+
+    /**
+     * Gets the positions of all of the necessary field elements for our
+     * alliance. All coordinates are in meters and are relative to the blue
+     * alliance.
      * 
      * @see <a href=
      *      https://docs.wpilib.org/en/stable/docs/software/basic-programming/coordinate-system.html#always-blue-origin">
      *      Robot Coordinate Systems</a>
-     * @return An array of field element positions. Your Speaker, Amp, Source, Left
-     *         Stage, Center Stage, Right Stage, Subwoofer, Shuffle
+     * @return The field model for our alliance. Blue if no alliance is found
      */
-    public static Supplier<Pose3d[]> getFieldPositions() {
-      if (ALLIANCE.isPresent() && ALLIANCE.get().equals(Alliance.Red)) {
-        return () -> new Pose3d[] { redConstants.SPEAKER_CENTER, redConstants.AMP, redConstants.SOURCE,
-            redConstants.LEFT_STAGE,
-            redConstants.CENTER_STAGE, redConstants.RIGHT_STAGE, redConstants.SUBWOOFER, redConstants.SHUFFLE };
-
-      }
-      return () -> new Pose3d[] { blueConstants.SPEAKER_CENTER, blueConstants.AMP, blueConstants.SOURCE,
-          blueConstants.LEFT_STAGE,
-          blueConstants.CENTER_STAGE, blueConstants.RIGHT_STAGE, blueConstants.SUBWOOFER, blueConstants.SHUFFLE };
+    public static FieldModel getField() {
+      return field;
     }
 
     /**
-     * @return A list containing only the chain positions
+     * @param currentPosition Our current pose
+     * @return How far we are from entering our wing. Zero if we're already in
+     *         it
      */
-    public static List<Pose2d> getChainPositions() {
-      if (ALLIANCE.isPresent() && ALLIANCE.get().equals(Alliance.Red)) {
-        return List.of(redConstants.RIGHT_STAGE.toPose2d(), redConstants.CENTER_STAGE.toPose2d(),
-            redConstants.LEFT_STAGE.toPose2d());
+    public static Measure<Distance> getDistanceToWing(Pose2d currentPosition) {
+      if (isRedAlliance()) {
+        return Units.Meters.of(Math.max(redConstants.WING_LINE_X.in(Units.Meters) - currentPosition.getX(), 0));
       } else {
-        return List.of(blueConstants.RIGHT_STAGE.toPose2d(), blueConstants.CENTER_STAGE.toPose2d(),
-            blueConstants.LEFT_STAGE.toPose2d());
+        return Units.Meters.of(Math.max(currentPosition.getX() - blueConstants.WING_LINE_X.in(Units.Meters), 0));
       }
     }
 
     public static boolean enableVisionSnapping(Pose2d currentPosition) {
-      Measure<Distance> currentX = Units.Meters.of(currentPosition.getX());
+      double currentX = currentPosition.getX();
 
       if (isRedAlliance()) {
-        return currentX.gte(redConstants.WING_LINE_X);
+        return currentX >= redConstants.WING_LINE_X.in(Units.Meters);
       } else {
-        return currentX.lte(blueConstants.WING_LINE_X);
+        return currentX <= blueConstants.WING_LINE_X.in(Units.Meters);
       }
     }
 
@@ -264,6 +394,22 @@ public final class Constants {
 
       private static final Measure<Distance> WING_LINE_X = FIELD_LENGTH.minus(Units.Meters.of(6.3));
     }
+
+    /**
+     * Where every note starts the match, in meters and relative to the blue
+     * alliance. Blue wing notes, then the centerline, then red wing notes.
+     */
+    public static final Translation2d[] NOTE_POSITIONS = {
+        new Translation2d(2.8956, 4.1051), new Translation2d(2.8956, 5.5479), new Translation2d(2.8956, 7.0049),
+        new Translation2d(8.2706, 0.7529), new Translation2d(8.2706, 2.4293), new Translation2d(8.2706, 4.1057),
+        new Translation2d(8.2706, 5.7821), new Translation2d(8.2706, 7.4585),
+        new Translation2d(13.6454, 4.1051), new Translation2d(13.6454, 5.5479), new Translation2d(13.6454, 7.0049) };
+
+    /**
+     * The indexes in NOTE_POSITIONS of the centerline notes
+     */
+    public static final int FIRST_CENTERLINE_NOTE = 3;
+    public static final int LAST_CENTERLINE_NOTE = 7;
   }
 
   public static class constShooter {
@@ -354,6 +500,39 @@ public final class Constants {
     public static final double MANUAL_PIVOT_PERCENTAGE = 0.2;
 
     public static final Measure<Velocity<Angle>> UP_TO_SPEED_TOLERANCE = Units.RotationsPerSecond.of(0.5);
+
+    /**
+     * If we start feeding a note before the shooter is ready, when it will be
+     * ready by the time the note reaches the flywheels. Flip to compare shot
+     * latency against waiting for readyToShoot()
+     */
+    public static final boolean PREDICT_READINESS = true;
+
+    /**
+     * How many loops of flywheel acceleration to average when predicting when
+     * the flywheels will be up to speed
+     */
+    public static final int ACCELERATION_FILTER_TAPS = 5;
+
+    // - Pre-Spool -
+    /**
+     * If the flywheels keep spinning while we're holding a note, instead of
+     * spinning up from a stop for every shot. Flip to compare Time to Ready and
+     * Pre-Spool Energy against the flywheels resting
+     */
+    public static final boolean PRE_SPOOL_ENABLED = true;
+
+    /**
+     * How fast the flywheels spin while we're holding a note far from the wing
+     */
+    public static final Measure<Velocity<Angle>> PRE_SPOOL_IDLE_VELOCITY = Units.RotationsPerSecond.of(15);
+
+    /**
+     * How far outside of the wing the flywheels start ramping from their idle
+     * velocity toward the velocity we expect to shoot at. They reach it at the
+     * wing line
+     */
+    public static final Measure<Distance> PRE_SPOOL_RAMP_DISTANCE = Units.Meters.of(3);
     public static final Measure<Dimensionless> PREP_TO_AMP_SPEED = Units.Percent.of(0.2);
     public static final Measure<Angle> TRANSFER_TO_AMPER_ANGLE = Units.Degrees.of(110);
 
@@ -433,40 +612,91 @@ public final class Constants {
     public static final ShooterPositionGroup CLIMBING = new ShooterPositionGroup(Units.Degrees.of(115),
         Units.RotationsPerSecond.of(-30), Units.RotationsPerSecond.of(-30), constElevator.FORWARD_LIMIT);
 
+    /**
+     * How the shot table interpolates between our calibrated shots.
+     * MONOTONE_CUBIC is smoother, but hasn't been checked on the field yet.
+     */
+    public static final Interpolation SHOT_TABLE_INTERPOLATION = Interpolation.LINEAR;
+
     /**
      * <p>
-     * Determines the necessary angle for the shooter depending on the distance from
-     * the SPEAKER.
+     * Determines the necessary angle and flywheel velocities for the shooter
+     * depending on the distance from the SPEAKER. The velocities all match
+     * PREP_VISION for now.
      * </p>
-     * <b>KEY:</b> The distance (in meters) of the center of the shooter to the
-     * SPEAKER
-     * <br>
-     * <br>
-     * <b>VALUE:</b> The angle (in degrees) for the pivot to go up by
+     * <b>COLUMNS:</b> The distance (in meters) of the center of the shooter to
+     * the SPEAKER, the angle (in degrees) for the pivot to go up by, and the left
+     * and right flywheel velocities (in rotations per second)
      * 
      */
-    public static final InterpolatingDoubleTreeMap DISTANCE_MAP = new InterpolatingDoubleTreeMap();
+    public static final ShotTable SHOT_TABLE = new ShotTable(SHOT_TABLE_INTERPOLATION, new double[][] {
+        { 1.2827, 42.0, 60, 45 },
+        { 1.5875, 40.0, 60, 45 },
+        { 1.8923, 34.0, 60, 45 },
+        { 2.1971, 28.5, 60, 45 },
+        { 2.5019, 27.5, 60, 45 },
+        { 2.8067, 25.0, 60, 45 },
+        { 3.1115, 23.0, 60, 45 },
+        { 3.4163, 19.0, 60, 45 },
+        { 3.7211, 18.5, 60, 45 },
+        { 4.0259, 18.0, 60, 45 },
+        { 4.3307, 16.5, 60, 45 },
+        { 4.6355, 16.0, 60, 45 },
+        { 4.9403, 15.0, 60, 45 },
+        { 5.2451, 14.0, 60, 45 },
+        { 5.5499, 13.5, 60, 45 },
+        { 5.8547, 13.5, 60, 45 },
+        { 6.1595, 12.5, 60, 45 } });
+
+    // -- Shooting on the Move --
+    /**
+     * The range and spacing of the dense table the ShotSolver builds from the
+     * SHOT_TABLE. The range covers a little past both ends of the SHOT_TABLE,
+     * which is clamped anyway.
+     */
+    public static final Measure<Distance> SHOT_TABLE_MIN_DISTANCE = Units.Meters.of(1);
+    public static final Measure<Distance> SHOT_TABLE_MAX_DISTANCE = Units.Meters.of(7);
+    public static final Measure<Distance> SHOT_TABLE_RESOLUTION = Units.Centimeters.of(1);
 
-    static {
-      DISTANCE_MAP.put(1.2827, 42.0);
-      DISTANCE_MAP.put(1.5875, 40.0);
-      DISTANCE_MAP.put(1.8923, 34.0);
-      DISTANCE_MAP.put(2.1971, 28.5);
-      DISTANCE_MAP.put(2.5019, 27.5);
-      DISTANCE_MAP.put(2.8067, 25.0);
-      DISTANCE_MAP.put(3.1115, 23.0);
-      DISTANCE_MAP.put(3.4163, 19.0);
-      DISTANCE_MAP.put(3.7211, 18.5);
-      DISTANCE_MAP.put(4.0259, 18.0);
-      DISTANCE_MAP.put(4.3307, 16.5);
-      DISTANCE_MAP.put(4.6355, 16.0);
-      DISTANCE_MAP.put(4.9403, 15.0);
-      DISTANCE_MAP.put(5.2451, 14.0);
-      DISTANCE_MAP.put(5.5499, 13.5);
-      DISTANCE_MAP.put(5.8547, 13.5);
-      DISTANCE_MAP.put(6.1595, 12.5);
-    }
+    /**
+     * How fast a note leaves the shooter at our PREP_VISION flywheel velocities.
+     * Only used to estimate how long a note is in the air.
+     */
+    public static final Measure<Velocity<Distance>> NOTE_EXIT_VELOCITY = Units.MetersPerSecond.of(14);
+
+    /**
+     * The solver stops once the time of flight changes by less than this between
+     * iterations, or after the max number of iterations.
+     */
+    public static final Measure<Time> SHOT_SOLVER_TOLERANCE = Units.Milliseconds.of(1);
+    public static final int SHOT_SOLVER_MAX_ITERATIONS = 5;
+
+    // -- Status Signals --
+    // How often each signal we read is sent over CAN. Anything not listed here is
+    // turned off by optimizeBusUtilization(). Units: Hertz
+    public static final double FLYWHEEL_VELOCITY_FREQUENCY = 100;
+    public static final double PIVOT_POSITION_FREQUENCY = 100;
+    public static final double CURRENT_FREQUENCY = 10;
+    public static final double PIVOT_TEMPERATURE_FREQUENCY = 4;
+
+    // -- Simulation --
+    /**
+     * The moment of inertia of one flywheel, estimated from the left flywheel's
+     * kA. <b>Units:</b> Kilogram square meters
+     */
+    public static final double FLYWHEEL_MOI = 0.0022;
 
+    /**
+     * The distance from the pivot to the end of the shooter. Only used to
+     * simulate the pivot.
+     */
+    public static final Measure<Distance> PIVOT_SIM_LENGTH = Units.Meters.of(0.3);
+
+    /**
+     * The mass of everything that the pivot moves, picked so that the simulated
+     * pivot needs about PIVOT_PID.kG to hold horizontal.
+     */
+    public static final Measure<Mass> PIVOT_SIM_MASS = Units.Kilograms.of(7.5);
   }
 
   public static class constStateMachine {
@@ -487,6 +717,69 @@ public final class Constants {
       TARGET_TO_ROBOT_STATE.put(TargetState.PREP_WING, RobotState.PREP_WING);
     }
 
+    /**
+     * Every RobotState that is also a TargetState
+     */
+    public static final EnumSet<RobotState> TARGET_ROBOT_STATES = EnumSet.copyOf(TARGET_TO_ROBOT_STATE.values());
+
+    /**
+     * <p>
+     * Returns the states that we are allowed to be in when trying to go to the
+     * given state.
+     * </p>
+     * <b>KEY:</b> The desired state
+     * <br>
+     * <br>
+     * <b>VALUE:</b> The current states that can transition to it
+     * 
+     * @see <a
+     *      href=https://www.tldraw.com/ro/DX06u039erL_iV6q0ARSn?d=v-1103.-1504.5212.2506.page>
+     *      Our State Machine Diagram
+     *      </a>
+     */
+    public static final EnumMap<RobotState, EnumSet<RobotState>> ALLOWED_TRANSITIONS = new EnumMap<RobotState, EnumSet<RobotState>>(
+        RobotState.class);
+
+    static {
+      EnumSet<RobotState> allPreps = EnumSet.of(RobotState.PREP_NONE, RobotState.PREP_AMP,
+          RobotState.PREP_AMP_SHOOTER, RobotState.PREP_SHUFFLE, RobotState.PREP_SPEAKER, RobotState.PREP_VISION,
+          RobotState.PREP_SPIKE, RobotState.PREP_WING, RobotState.PREP_SUB_BACKWARDS);
+
+      ALLOWED_TRANSITIONS.put(RobotState.NONE, EnumSet.of(RobotState.NONE, RobotState.INTAKING,
+          RobotState.INTAKE_SOURCE, RobotState.EJECTING, RobotState.SHOOTING));
+      ALLOWED_TRANSITIONS.put(RobotState.INTAKING,
+          EnumSet.of(RobotState.NONE, RobotState.INTAKE_SOURCE, RobotState.SHOOTING));
+      ALLOWED_TRANSITIONS.put(RobotState.INTAKE_SOURCE, EnumSet.of(RobotState.NONE, RobotState.INTAKE_SOURCE));
+
+      EnumSet<RobotState> toStoreFeeder = EnumSet.of(RobotState.STORE_FEEDER, RobotState.INTAKING,
+          RobotState.INTAKE_SOURCE);
+      toStoreFeeder.addAll(allPreps);
+      ALLOWED_TRANSITIONS.put(RobotState.STORE_FEEDER, toStoreFeeder);
+
+      // No more climber :(
+      ALLOWED_TRANSITIONS.put(RobotState.CLIMBING, EnumSet.noneOf(RobotState.class));
+
+      EnumSet<RobotState> toEjecting = EnumSet.of(RobotState.NONE, RobotState.INTAKING, RobotState.INTAKE_SOURCE,
+          RobotState.STORE_FEEDER);
+      toEjecting.addAll(allPreps);
+      ALLOWED_TRANSITIONS.put(RobotState.EJECTING, toEjecting);
+
+      EnumSet<RobotState> toShooting = EnumSet.of(RobotState.CLIMBING, RobotState.SHOOTING);
+      toShooting.addAll(allPreps);
+      ALLOWED_TRANSITIONS.put(RobotState.SHOOTING, toShooting);
+
+      // -- PREPS --
+      // Any prep can go to any other prep. PREP_AMP and PREP_SHUFFLE can't be
+      // re-entered from themselves
+      for (RobotState prep : allPreps) {
+        EnumSet<RobotState> toPrep = EnumSet.of(RobotState.NONE, RobotState.STORE_FEEDER);
+        toPrep.addAll(allPreps);
+        ALLOWED_TRANSITIONS.put(prep, toPrep);
+      }
+      ALLOWED_TRANSITIONS.get(RobotState.PREP_AMP).remove(RobotState.PREP_AMP);
+      ALLOWED_TRANSITIONS.get(RobotState.PREP_SHUFFLE).remove(RobotState.PREP_SHUFFLE);
+    }
+
     /**
      * Returns the associated shooter pivot angle and flywheel speeds for the given
      * preset TargetState
@@ -616,6 +909,25 @@ public final class Constants {
     public static final double DRAINPIPE_CURRENT_LIMIT = 30;
     public static final double DRAINPIPE_CURRENT_THRESH = 40;
     public static final double DRAINPIPE_CURRENT_TIME_THRESH = 0.1;
+
+    // -- Status Signals --
+    // How often each signal we read is sent over CAN. Anything not listed here is
+    // turned off by optimizeBusUtilization(). Units: Hertz
+    public static final double POSITION_FREQUENCY = 100;
+    public static final double CURRENT_FREQUENCY = 10;
+
+    // -- Simulation --
+    /**
+     * The mass of the elevator carriage, picked so that the simulated elevator
+     * needs about prefElevator.elevatorG to hold its position.
+     */
+    public static final Measure<Mass> ELEVATOR_SIM_MASS = Units.Kilograms.of(1.6);
+
+    /**
+     * The moment of inertia of the drainpipe rollers. <b>Units:</b> Kilogram
+     * square meters
+     */
+    public static final double DRAINPIPE_MOI = 0.0005;
   }
 
   public static class constIntake {
@@ -629,6 +941,13 @@ public final class Constants {
     public static final double CURRENT_LIMIT = 30;
     public static final double CURRENT_THRESH = 35;
     public static final double CURRENT_TIME_THRESH = 0.1;
+
+    // -- Status Signals --
+    /**
+     * How often the roller currents are sent over CAN. Anything else is turned off
+     * by optimizeBusUtilization(). <b>Units:</b> Hertz
+     */
+    public static final double CURRENT_FREQUENCY = 10;
   }
 
   public static class constTransfer {
@@ -647,14 +966,32 @@ public final class Constants {
 
     public static final double SHOOTING_SPEED = 1;
 
+    /**
+     * How long a note takes to reach the flywheels after the feeder starts
+     * shooting it
+     */
+    public static final Measure<Time> FEED_TO_CONTACT_TIME = Units.Seconds.of(0.06);
+
     // -- Current Limiting --
     public static final boolean ENABLE_CURRENT_LIMITING = true;
     public static final double CURRENT_LIMIT = 30;
     public static final double CURRENT_THRESH = 40;
     public static final double CURRENT_TIME_THRESH = 0.1;
+
+    // -- Status Signals --
+    /**
+     * How often the feeder currents are sent over CAN. Anything else is turned off
+     * by optimizeBusUtilization(). <b>Units:</b> Hertz
+     */
+    public static final double CURRENT_FREQUENCY = 10;
   }
 
   public static class constLimelight {
+    /**
+     * The NetworkTables table name of each of our Limelights. Add a name (and a
+     * transform to ROBOT_TO_LIMELIGHTS) for each camera
+     */
+    public static final String[] LIMELIGHT_NAMES = { "limelight" };
 
     /**
      * <p>
@@ -669,7 +1006,19 @@ public final class Constants {
      */
     public static final double AREA_THRESHOLD = 0.1;
 
-    // The below values are accounted for in the limelight interface, NOT in code
+    /**
+     * How many frames to keep between loops. The Limelight publishes at up to
+     * 90Hz, so only a few ever arrive in one loop
+     */
+    public static final int FRAME_QUEUE_SIZE = 10;
+
+    /**
+     * How long all of our Limelights may take to ingest their frames each loop,
+     * per camera
+     */
+    public static final Measure<Time> INGEST_TIME_BUDGET = Units.Milliseconds.of(0.5);
+
+    // The below values are measured the way the Limelight interface shows them
     public static final Measure<Distance> LL_FORWARD = Units.Inches.of(11.875);
     public static final Measure<Distance> LL_RIGHT = Units.Inches.of(0);
     public static final Measure<Distance> LL_UP = Units.Inches.of(7.0);
@@ -677,6 +1026,122 @@ public final class Constants {
     public static final Measure<Angle> LL_ROLL = Units.Degrees.of(0);
     public static final Measure<Angle> LL_PITCH = Units.Degrees.of(20);
     public static final Measure<Angle> LL_YAW = Units.Degrees.of(0);
+
+    /**
+     * Where each Limelight in LIMELIGHT_NAMES is on the robot (Robot
+     * Coordinates). These are sent to the Limelights when we start, so they
+     * don't need to be entered in the Limelight interface.
+     *
+     * @see <a href=
+     *      "https://docs.wpilib.org/en/stable/docs/software/basic-programming/coordinate-system.html">Robot
+     *      Coordinate System</a>
+     */
+    public static final Transform3d[] ROBOT_TO_LIMELIGHTS = {
+        new Transform3d(
+            new Translation3d(LL_FORWARD.in(Units.Meters), -LL_RIGHT.in(Units.Meters), LL_UP.in(Units.Meters)),
+            new Rotation3d(LL_ROLL.in(Units.Radians), -LL_PITCH.in(Units.Radians), LL_YAW.in(Units.Radians))) };
+  }
+
+  public static class constSimulation {
+    // -- Game Pieces --
+    /**
+     * How close the center of the robot needs to be to a note to pick it up
+     * while the intake is running
+     */
+    public static final Measure<Distance> INTAKE_RADIUS = Units.Meters.of(0.6);
+
+    /**
+     * How long a note takes to go from the intake to the transfer's LaserCAN
+     */
+    public static final Measure<Time> INTAKE_TO_TRANSFER_TIME = Units.Seconds.of(0.2);
+
+    /**
+     * How long a note takes to leave the shooter once the transfer feeds it
+     */
+    public static final Measure<Time> SHOT_TIME = Units.Seconds.of(0.1);
+
+    /**
+     * Flywheels slower than this just spit the note out instead of shooting it
+     */
+    public static final Measure<Velocity<Angle>> MIN_SHOT_VELOCITY = Units.RotationsPerSecond.of(10);
+
+    // -- Auto Benchmark --
+    /**
+     * The chance that each centerline note was already taken by the other
+     * alliance, for randomized runs
+     */
+    public static final double CENTERLINE_NOTE_MISSING_CHANCE = 0.25;
+
+    public static final Measure<Time> AUTO_LENGTH = Units.Seconds.of(15);
+    public static final int AUTO_BENCHMARK_DEFAULT_SEEDS = 20;
+
+    // -- Path Benchmark --
+    public static final int PATH_BENCHMARK_DEFAULT_TRIALS = 200;
+
+    /**
+     * The most our drive speeds can be cut by wheel slip, as a fraction of the
+     * commanded speed. Each trial picks a random amount of slip up to this, and
+     * each loop slips a random amount up to that
+     */
+    public static final double PATH_MAX_WHEEL_SLIP = 0.15;
+
+    /**
+     * The most our pose can lag behind the robot when the path follower uses
+     * it. Each trial picks a random latency up to this
+     */
+    public static final Measure<Time> PATH_MAX_LATENCY = Units.Seconds.of(0.06);
+
+    /**
+     * A path is finished once its time is up and the robot is this close to its
+     * end pose
+     */
+    public static final Measure<Distance> PATH_END_TRANSLATION_TOLERANCE = Units.Meters.of(0.05);
+    public static final Measure<Angle> PATH_END_ROTATION_TOLERANCE = Units.Degrees.of(3);
+
+    /**
+     * How long past the end of a path to keep following it before the trial
+     * counts as timed out
+     */
+    public static final Measure<Time> PATH_END_TIMEOUT = Units.Seconds.of(1.5);
+
+    // -- Loop Benchmark --
+    /**
+     * Iterations run before measuring, so the JIT compiler has settled
+     */
+    public static final int LOOP_BENCHMARK_WARMUP_ITERATIONS = 5;
+    public static final int LOOP_BENCHMARK_ITERATIONS = 10;
+    public static final Measure<Time> LOOP_BENCHMARK_ITERATION_TIME = Units.Seconds.of(0.5);
+
+    // -- Vision --
+    /**
+     * How often each simulated Limelight captures a frame
+     */
+    public static final Measure<Time> VISION_FRAME_PERIOD = Units.Milliseconds.of(33);
+
+    /**
+     * How long after capturing a frame each simulated Limelight publishes it.
+     * Should be less than VISION_FRAME_PERIOD
+     */
+    public static final Measure<Time> VISION_LATENCY = Units.Milliseconds.of(30);
+
+    public static final Measure<Angle> LIMELIGHT_HORIZONTAL_FOV = Units.Degrees.of(62.5);
+
+    /**
+     * Tags further than this from a simulated Limelight aren't seen
+     */
+    public static final Measure<Distance> VISION_MAX_TAG_DISTANCE = Units.Meters.of(5);
+
+    /**
+     * How much noise a simulated pose estimate has for each meter to its tags.
+     * <b>Units:</b> Meters (and Radians) per Meter
+     */
+    public static final double VISION_NOISE_PER_METER = 0.02;
+
+    /**
+     * The area of a tag one meter from a simulated Limelight. <b>Units:</b>
+     * Percent of the image
+     */
+    public static final double VISION_TAG_AREA_AT_ONE_METER = 1.0;
   }
 
   public static class constLEDs {
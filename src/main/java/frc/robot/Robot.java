@@ -4,12 +4,14 @@
 
 package frc.robot;
 
+import com.ctre.phoenix6.CANBus;
+import com.pathplanner.lib.auto.NamedCommands;
 import com.frcteam3255.preferences.SN_Preferences;
 
 import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.TimedRobot;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Commands;
@@ -18,6 +20,12 @@ import frc.robot.subsystems.Elevator;
 import frc.robot.subsystems.Shooter;
 import frc.robot.subsystems.StateMachine.RobotState;
 import frc.robot.subsystems.StateMachine.TargetState;
+import frc.robot.utils.AutoCache;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SignalCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
 
 public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
@@ -27,11 +35,17 @@ public class Robot extends TimedRobot {
   private boolean hasAutonomousRun = false;
   private boolean bothSubsystemsZeroed = false;
 
+  // -- Boot Metrics --
+  private double robotInitTime = 0;
+  private long autonomousInitStartTime = 0;
+  private double autoScheduleLatency = 0;
+
   @Override
   public void robotInit() {
-    m_robotContainer = new RobotContainer();
+    long robotInitStartTime = System.nanoTime();
 
-    // Set out log file to be in its own folder
+    // Set out log file to be in its own folder. First, so anything the AutoCache
+    // logs while we boot is in it
     if (Robot.isSimulation()) {
       DataLogManager.start("src/main");
     } else {
@@ -43,14 +57,79 @@ public class Robot extends TimedRobot {
     DriverStation.startDataLog(DataLogManager.getLog(), true);
     DriverStation.silenceJoystickConnectionWarning(Constants.constControllers.SILENCE_JOYSTICK_WARNINGS);
 
+    // Logged so a replay can recreate the Driver Station
+    InputLog.addBoolean("DriverStation/Enabled", () -> DriverStation.isEnabled());
+    InputLog.addBoolean("DriverStation/Autonomous", () -> DriverStation.isAutonomous());
+    InputLog.addBoolean("DriverStation/Test", () -> DriverStation.isTest());
+    InputLog.addBoolean("DriverStation/Red Alliance",
+        () -> DriverStation.getAlliance().isPresent() && DriverStation.getAlliance().get() == Alliance.Red);
+    for (int port : RobotMap.mapControllers.ALL_USB) {
+      InputLog.addJoystick(port);
+    }
+
+    // Paths build their event commands while they are parsed, so these have to
+    // be registered before the AutoCache starts. The lambdas don't touch
+    // RobotContainer (and construct its subsystems) until they run
+    NamedCommands.registerCommand("Intaking", Commands.deferredProxy(
+        () -> RobotContainer.subStateMachine.tryState(RobotState.INTAKING))
+        .until(() -> RobotContainer.isGamePieceStored()));
+
+    // Parses our paths while the subsystems are configured
+    AutoCache.start();
+    m_robotContainer = new RobotContainer();
+
     SN_Preferences.useDefaults();
+
+    // After the RobotContainer, so that every button binding is timed
+    LoopProfiler.start();
+
+    Telemetry.addString("ALLIANCE", Tier.DIAGNOSTIC, () -> constField.ALLIANCE.toString());
+    Telemetry.addNumber("CAN/Signal Count", Tier.DIAGNOSTIC, () -> SignalCache.getSignalCount());
+    Telemetry.addNumber("CAN/Signal Refresh Count", Tier.DIAGNOSTIC, () -> SignalCache.getRefreshCount());
+    Telemetry.addNumber("CAN/Signal Refresh Time (ms)", Tier.CONTROL, () -> SignalCache.getLastRefreshTime());
+    Telemetry.addNumber("CAN/Optimized Devices", Tier.DIAGNOSTIC, () -> SignalCache.getOptimizedDeviceCount());
+    Telemetry.addNumber("CAN/Signal Updates Per Second", Tier.DIAGNOSTIC,
+        () -> SignalCache.getSignalUpdateRate());
+    Telemetry.addNumber("CAN/rio Bus Utilization", Tier.DIAGNOSTIC,
+        () -> CANBus.getStatus("rio").BusUtilization);
+    Telemetry.addNumber("Boot/robotInit Time (ms)", Tier.DIAGNOSTIC, () -> robotInitTime);
+    Telemetry.addNumber("Boot/Auto Schedule Latency (ms)", Tier.DIAGNOSTIC, () -> autoScheduleLatency);
+
+    robotInitTime = (System.nanoTime() - robotInitStartTime) / 1e6;
+  }
+
+  @Override
+  public void simulationPeriodic() {
+    // While replaying, the notes and vision are already in the logged values
+    if (!InputLog.isReplaying()) {
+      m_robotContainer.getGamePieceSim().update();
+      m_robotContainer.getVisionSim().update();
+    }
+  }
+
+  RobotContainer getRobotContainer() {
+    return m_robotContainer;
   }
 
   @Override
   public void robotPeriodic() {
+    LoopProfiler.beginLoop();
+    SignalCache.refreshAll();
+    LoopProfiler.mark("Signal Cache");
+    InputLog.update();
+    LoopProfiler.mark("Inputs");
     CommandScheduler.getInstance().run();
-    RobotContainer.AddVisionMeasurement().schedule();
-    RobotContainer.logPDHValues();
+    LoopProfiler.mark("Scheduler");
+    Telemetry.update();
+    LoopProfiler.mark("Telemetry");
+    LoopProfiler.endLoop();
+
+    // From autonomousInit() through the auto's first loop, including its
+    // initialize()
+    if (autonomousInitStartTime != 0) {
+      autoScheduleLatency = (System.nanoTime() - autonomousInitStartTime) / 1e6;
+      autonomousInitStartTime = 0;
+    }
   }
 
   @Override
@@ -70,8 +149,10 @@ public class Robot extends TimedRobot {
 
   @Override
   public void disabledPeriodic() {
-    constField.ALLIANCE = DriverStation.getAlliance();
-    SmartDashboard.putString("ALLIANCE", constField.ALLIANCE.toString());
+    constField.setAlliance(DriverStation.getAlliance());
+    if (constField.ALLIANCE.isPresent()) {
+      AutoCache.generateNextTrajectory();
+    }
     m_robotContainer.setZeroedLEDs();
   }
 
@@ -82,6 +163,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void autonomousInit() {
+    autonomousInitStartTime = System.nanoTime();
     m_robotContainer.setMegaTag2(true);
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
     bothSubsystemsZeroed = Shooter.hasZeroed && Elevator.hasZeroed;
@@ -4,15 +4,16 @@
 
 package frc.robot;
 
+import java.util.LinkedHashMap;
+import java.util.Set;
 import java.util.function.BooleanSupplier;
 import java.util.function.DoubleSupplier;
 
 import com.frcteam3255.joystick.SN_Extreme3DStick;
-import com.pathplanner.lib.auto.NamedCommands;
 
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.units.Units;
 import edu.wpi.first.wpilibj.GenericHID.RumbleType;
 import edu.wpi.first.wpilibj.PowerDistribution;
@@ -24,12 +25,12 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants.constControllers;
 import frc.robot.Constants.constElevator;
 import frc.robot.Constants.constField;
+import frc.robot.Constants.constField.FieldElement;
 import frc.robot.Constants.constLEDs;
 import frc.robot.Constants.constShooter;
 import frc.robot.RobotMap.mapControllers;
-import frc.robot.RobotPreferences.prefVision;
-import frc.robot.commands.AddVisionMeasurement;
 import frc.robot.commands.Drive;
+import frc.robot.commands.PreSpool;
 import frc.robot.commands.Autos.Centerline;
 import frc.robot.commands.Autos.PreloadOnly;
 import frc.robot.commands.Autos.PreloadTaxi;
@@ -49,6 +50,12 @@ import frc.robot.subsystems.StateMachine;
 import frc.robot.subsystems.Transfer;
 import frc.robot.subsystems.StateMachine.RobotState;
 import frc.robot.subsystems.Limelight;
+import frc.robot.utils.AutoCache;
+import frc.robot.utils.GamePieceSim;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
+import frc.robot.utils.VisionSim;
+import frc.robot.utils.WorldState;
 
 public class RobotContainer {
 
@@ -61,46 +68,72 @@ public class RobotContainer {
   private final static LEDs subLEDs = new LEDs();
   private final static Shooter subShooter = new Shooter();
   private final static Transfer subTransfer = new Transfer();
-  private final static Limelight subLimelight = new Limelight();
+  private final static Limelight subLimelight = new Limelight(subDrivetrain);
   public final static StateMachine subStateMachine = new StateMachine(subClimber, subDrivetrain,
       subElevator, subIntake, subLEDs, subTransfer, subShooter);
 
   private final Trigger falseTrigger = new Trigger(() -> false);
-  private final Trigger gamePieceStoredTrigger = new Trigger(() -> subTransfer.getGamePieceStored());
+  private final Trigger gamePieceStoredTrigger = new Trigger(() -> WorldState.isGamePieceStored());
   private final Trigger gamePieceCollectedTrigger = falseTrigger;
 
-  private final BooleanSupplier readyToShootOperator = (() -> (subDrivetrain.isDrivetrainFacingSpeaker()
-      || subDrivetrain.isDrivetrainFacingShuffle())
-      && subShooter.readyToShoot() && subStateMachine.isCurrentStateTargetState()
-      && subTransfer.getGamePieceStored());
+  // These all read the WorldState, so each predicate is only evaluated once per
+  // loop
+  private final BooleanSupplier readyToShootOperator = (() -> (WorldState.isFacingSpeaker()
+      || WorldState.isFacingShuffle())
+      && WorldState.isReadyToShoot() && subStateMachine.isCurrentStateTargetState()
+      && WorldState.isGamePieceStored());
 
-  private final BooleanSupplier readyToShootDriver = (() -> subShooter.readyToShoot()
-      && subStateMachine.isCurrentStateTargetState() && subTransfer.getGamePieceStored());
+  private final BooleanSupplier readyToShootDriver = (() -> WorldState.isReadyToShoot()
+      && subStateMachine.isCurrentStateTargetState() && WorldState.isGamePieceStored());
 
-  private final BooleanSupplier readyToShootAuto = (() -> (subDrivetrain.isDrivetrainFacingSpeaker()
-      || subDrivetrain.isDrivetrainFacingShuffle())
-      && subShooter.readyToShoot());
+  // Our autos wait for these before shooting. With PREDICT_READINESS, the note
+  // can start feeding before we're ready to shoot
+  private final BooleanSupplier readyToFeedOperator = (() -> (WorldState.isFacingSpeaker()
+      || WorldState.isFacingShuffle())
+      && WorldState.isReadyToFeed() && subStateMachine.isCurrentStateTargetState()
+      && WorldState.isGamePieceStored());
 
-  private final BooleanSupplier readyToShootSpeakerLEDs = (() -> subDrivetrain.isDrivetrainFacingSpeaker()
-      && subShooter.readyToShoot() && subStateMachine.getRobotState() == RobotState.PREP_VISION
-      && subTransfer.getGamePieceStored());
+  private final BooleanSupplier readyToFeedAuto = (() -> (WorldState.isFacingSpeaker()
+      || WorldState.isFacingShuffle())
+      && WorldState.isReadyToFeed());
 
-  private final BooleanSupplier readyToShootShuffleLEDs = (() -> subDrivetrain.isDrivetrainFacingShuffle()
-      && subShooter.readyToShoot() && subStateMachine.getRobotState() == RobotState.PREP_SHUFFLE
-      && subTransfer.getGamePieceStored());
+  private final BooleanSupplier readyToShootSpeakerLEDs = (() -> WorldState.isFacingSpeaker()
+      && WorldState.isReadyToShoot() && subStateMachine.getRobotState() == RobotState.PREP_VISION
+      && WorldState.isGamePieceStored());
+
+  private final BooleanSupplier readyToShootShuffleLEDs = (() -> WorldState.isFacingShuffle()
+      && WorldState.isReadyToShoot() && subStateMachine.getRobotState() == RobotState.PREP_SHUFFLE
+      && WorldState.isGamePieceStored());
 
   private final IntakeSource comIntakeSource = new IntakeSource(subStateMachine, subShooter, subTransfer);
 
   SendableChooser<Command> autoChooser = new SendableChooser<>();
+  // The same autos as the chooser, so they can be picked by name
+  private final LinkedHashMap<String, Command> autoOptions = new LinkedHashMap<String, Command>();
+  private Command selectedAuto = null;
+
+  // Only used in simulation
+  GamePieceSim gamePieceSim;
+  VisionSim visionSim;
 
   private static PowerDistribution PDH = new PowerDistribution(1, ModuleType.kRev);
 
   public RobotContainer() {
-    
+    // Nothing can be composed while the AutoCache is parsing, and our autos need
+    // its paths anyway
+    AutoCache.awaitLoaded();
+
+    // Has to be bound before our triggers, so it's taken before they're polled
+    WorldState.start(subDrivetrain, subShooter, subTransfer);
+
     subDrivetrain.setDefaultCommand(
         new Drive(subDrivetrain, subStateMachine, conDriver.getYAxis(), conDriver.getXAxis(), conDriver.getTwistAxis(),
              falseTrigger, falseTrigger, falseTrigger, falseTrigger, falseTrigger, falseTrigger, falseTrigger, falseTrigger));
 
+    if (constShooter.PRE_SPOOL_ENABLED) {
+      subShooter.setDefaultCommand(new PreSpool(subShooter, subStateMachine, subTransfer, subDrivetrain));
+    }
+
     // - Manual Triggers -
     gamePieceStoredTrigger
         .onTrue(Commands
@@ -139,20 +172,22 @@ public class RobotContainer {
 
     subDrivetrain.resetModulesToAbsolute();
 
-    NamedCommands.registerCommand("Intaking", Commands.deferredProxy(
-        () -> subStateMachine.tryState(RobotState.INTAKING))
-        .until(gamePieceStoredTrigger));
-
     SmartDashboard.putNumber("Preload Only Delay", 0);
 
     configureDriverBindings(conDriver);
     configureAutoSelector();
+    configurePDHTelemetry();
+
+    if (Robot.isSimulation()) {
+      gamePieceSim = new GamePieceSim(subDrivetrain, subIntake, subTransfer, subShooter);
+      visionSim = new VisionSim(subDrivetrain);
+    }
   }
 
   private void configureDriverBindings(SN_Extreme3DStick controller) {
     // Reset Pose
     controller.btn_1.onTrue(
-        Commands.runOnce(() -> subDrivetrain.resetPoseToPose(constField.getFieldPositions().get()[6].toPose2d())));
+        Commands.runOnce(() -> subDrivetrain.resetPoseToPose(constField.getField().getPose2d(FieldElement.SUBWOOFER))));
 
     // Intake from source
     controller.btn_2.whileTrue(Commands.deferredProxy(() -> subStateMachine.tryState(RobotState.INTAKE_SOURCE)))
@@ -164,33 +199,125 @@ public class RobotContainer {
     DoubleSupplier preloadDelay = () -> SmartDashboard.getNumber("Preload Only Auto", 0);
 
     // -- Preload Sub --
-    autoChooser.addOption("Preload Only Amp-Side", new PreloadOnly(subStateMachine, subClimber, subDrivetrain,
+    addAutoOption("Preload Only Amp-Side", new PreloadOnly(subStateMachine, subClimber, subDrivetrain,
         subElevator, subIntake, subLEDs, subShooter, subTransfer, 0, preloadDelay));
-    autoChooser.setDefaultOption("Preload Only Center",
+    addAutoOption("Preload Only Center",
         new PreloadOnly(subStateMachine, subClimber, subDrivetrain, subElevator,
             subIntake, subLEDs, subShooter, subTransfer,
             1, preloadDelay));
-    autoChooser.addOption("Preload Only Source-Side", new PreloadOnly(subStateMachine, subClimber, subDrivetrain,
+    autoChooser.setDefaultOption("Preload Only Center", autoOptions.get("Preload Only Center"));
+    addAutoOption("Preload Only Source-Side", new PreloadOnly(subStateMachine, subClimber, subDrivetrain,
         subElevator, subIntake, subLEDs, subShooter, subTransfer, 2, preloadDelay));
 
-    autoChooser.addOption("Preload Taxi",
+    addAutoOption("Preload Taxi",
         new PreloadTaxi(subStateMachine, subClimber, subDrivetrain, subElevator,
             subIntake, subLEDs, subShooter, subTransfer));
-    autoChooser.addOption("Wing Only Down", new WingOnly(subStateMachine,
+    addAutoOption("Wing Only Down", new WingOnly(subStateMachine,
         subClimber, subDrivetrain, subElevator,
-        subIntake, subLEDs, subTransfer, subShooter, readyToShootOperator, true));
-    autoChooser.addOption("Wing Only Up", new WingOnly(subStateMachine,
+        subIntake, subLEDs, subTransfer, subShooter, readyToFeedOperator, true));
+    addAutoOption("Wing Only Up", new WingOnly(subStateMachine,
         subClimber, subDrivetrain, subElevator,
-        subIntake, subLEDs, subTransfer, subShooter, readyToShootOperator, false));
+        subIntake, subLEDs, subTransfer, subShooter, readyToFeedOperator, false));
 
-    autoChooser.addOption("Centerline :3", new Centerline(subStateMachine,
+    addAutoOption("Centerline :3", new Centerline(subStateMachine,
         subClimber, subDrivetrain, subElevator,
-        subIntake, subLEDs, subTransfer, subShooter, readyToShootAuto, false));
+        subIntake, subLEDs, subTransfer, subShooter, readyToFeedAuto, false));
     SmartDashboard.putData(autoChooser);
   }
 
+  private void addAutoOption(String name, Command auto) {
+    autoChooser.addOption(name, auto);
+    autoOptions.put(name, auto);
+  }
+
   public Command getAutonomousCommand() {
-    return autoChooser.getSelected();
+    return (selectedAuto != null) ? selectedAuto : autoChooser.getSelected();
+  }
+
+  /**
+   * @return The name of every auto in the chooser, in the order they were added
+   */
+  public Set<String> getAutoNames() {
+    return autoOptions.keySet();
+  }
+
+  /**
+   * Runs the given auto instead of the one picked in the chooser. Used when
+   * there is no dashboard, like in the AutoBenchmark.
+   *
+   * @param name The name of the auto, as shown in the chooser
+   */
+  public void selectAuto(String name) {
+    selectedAuto = autoOptions.get(name);
+    if (selectedAuto == null) {
+      throw new IllegalArgumentException("There is no auto named " + name);
+    }
+  }
+
+  /**
+   * @return If the transfer is holding a game piece. Used by our NamedCommands,
+   *         which are registered before this class is constructed
+   */
+  public static boolean isGamePieceStored() {
+    return subTransfer.getGamePieceStored();
+  }
+
+  /**
+   * @return The Drivetrain, for benchmarks and tests
+   */
+  Drivetrain getDrivetrain() {
+    return subDrivetrain;
+  }
+
+  /**
+   * @return The Shooter, for tests
+   */
+  Shooter getShooter() {
+    return subShooter;
+  }
+
+  /**
+   * @return The Elevator, for tests
+   */
+  Elevator getElevator() {
+    return subElevator;
+  }
+
+  /**
+   * @return The Transfer, for tests
+   */
+  Transfer getTransfer() {
+    return subTransfer;
+  }
+
+  /**
+   * @return What our commands asked the mechanisms to do this loop, as one
+   *         tab-separated line. Used to compare replays of the same log
+   */
+  String getOutputLine() {
+    StringBuilder line = new StringBuilder()
+        .append(subStateMachine.getRobotState()).append('\t')
+        .append(subStateMachine.getTargetState()).append('\t')
+        .append(subTransfer.getFeederSpeed()).append('\t')
+        .append(subIntake.getRollerSpeed());
+    for (SwerveModuleState state : subDrivetrain.getDesiredModuleStates()) {
+      line.append('\t').append(state.speedMetersPerSecond).append('\t').append(state.angle.getDegrees());
+    }
+    return line.toString();
+  }
+
+  /**
+   * @return The simulated notes. Null when running on the robot.
+   */
+  public GamePieceSim getGamePieceSim() {
+    return gamePieceSim;
+  }
+
+  /**
+   * @return The simulated Limelights. Null when running on the robot.
+   */
+  public VisionSim getVisionSim() {
+    return visionSim;
   }
 
   /**
@@ -216,43 +343,31 @@ public class RobotContainer {
     return new ManualZeroShooterPivot(subShooter).alongWith(new ManualZeroElevator(subElevator)).ignoringDisable(true);
   }
 
-  public static Command AddVisionMeasurement() {
-    return new AddVisionMeasurement(subDrivetrain, subLimelight)
-        .withInterruptBehavior(Command.InterruptionBehavior.kCancelIncoming).ignoringDisable(true);
-  }
-
+  /**
+   * Switches between MegaTag 1 and 2. The Limelight scores each measurement
+   * from the matching base standard deviations in prefVision.
+   */
   public void setMegaTag2(boolean setMegaTag2) {
-
-    if (setMegaTag2) {
-      subDrivetrain.swervePoseEstimator.setVisionMeasurementStdDevs(VecBuilder.fill(
-          prefVision.megaTag2StdDevsPosition.getValue(),
-          prefVision.megaTag2StdDevsPosition.getValue(),
-          prefVision.megaTag2StdDevsHeading.getValue()));
-    } else {
-      // Use MegaTag 1
-      subDrivetrain.swervePoseEstimator.setVisionMeasurementStdDevs(VecBuilder.fill(
-          prefVision.megaTag1StdDevsPosition.getValue(),
-          prefVision.megaTag1StdDevsPosition.getValue(),
-          prefVision.megaTag1StdDevsHeading.getValue()));
-    }
     subLimelight.setMegaTag2(setMegaTag2);
   }
 
   // -- PDH --
   /**
-   * Updates the values supplied to the PDH to SmartDashboard. Should be called
-   * periodically.
+   * Registers the values supplied by the PDH with our telemetry. They are
+   * published alongside the rest of our telemetry in Robot.robotPeriodic().
    */
-  public static void logPDHValues() {
-    SmartDashboard.putNumber("PDH/Input Voltage", PDH.getVoltage());
-    SmartDashboard.putBoolean("PDH/Is Switchable Channel Powered", PDH.getSwitchableChannel());
-    SmartDashboard.putNumber("PDH/Total Current", PDH.getTotalCurrent());
-    SmartDashboard.putNumber("PDH/Total Power", PDH.getTotalPower());
-    SmartDashboard.putNumber("PDH/Total Energy", PDH.getTotalEnergy());
+  private void configurePDHTelemetry() {
+    Telemetry.addNumber("PDH/Input Voltage", Tier.CURRENT, () -> PDH.getVoltage());
+    Telemetry.addBoolean("PDH/Is Switchable Channel Powered", Tier.DIAGNOSTIC, () -> PDH.getSwitchableChannel());
+    Telemetry.addNumber("PDH/Total Current", Tier.CURRENT, () -> PDH.getTotalCurrent());
+    Telemetry.addNumber("PDH/Total Power", Tier.CURRENT, () -> PDH.getTotalPower());
+    Telemetry.addNumber("PDH/Total Energy", Tier.DIAGNOSTIC, () -> PDH.getTotalEnergy());
 
     if (Constants.ENABLE_PDH_LOGGING) {
       for (int i = 0; i < Constants.PDH_DEVICES.length; i++) {
-        SmartDashboard.putNumber("PDH/" + Constants.PDH_DEVICES[i] + " Current", PDH.getCurrent(i));
+        int channel = i;
+        Telemetry.addNumber("PDH/" + Constants.PDH_DEVICES[i] + " Current", Tier.CURRENT,
+            () -> PDH.getCurrent(channel));
       }
     }
   }
@@ -5,6 +5,9 @@ package frc.robot;
 public class RobotMap {
   public static class mapControllers {
     public static final int DRIVER_USB = 0;
+
+    // Every controller we use, so each is logged and replayed
+    public static final int[] ALL_USB = { DRIVER_USB };
   }
 
   public static class mapDrivetrain {
@@ -95,6 +95,42 @@ public class RobotPreferences {
     public static final SN_DoublePreference megaTag1StdDevsHeading = new SN_DoublePreference(
         "megaTag1StdDevsHeading", 0.1);
 
+    /**
+     * <p>
+     * How much our standard deviations grow with the square of the average tag
+     * distance. Tuned with the VisionEvaluator
+     * </p>
+     * <b>Units:</b> Per Meter Squared
+     */
+    public static final SN_DoublePreference stdDevsDistanceWeight = new SN_DoublePreference(
+        "stdDevsDistanceWeight", 0.1);
+
+    /**
+     * <p>
+     * How much our standard deviations grow for a single tag with a small area
+     * </p>
+     * <b>Units:</b> Percent of the image
+     */
+    public static final SN_DoublePreference stdDevsAreaWeight = new SN_DoublePreference(
+        "stdDevsAreaWeight", 0.05);
+
+    /**
+     * <p>
+     * How much our standard deviations grow at our maximum accepted rotation
+     * rate
+     * </p>
+     */
+    public static final SN_DoublePreference stdDevsRotationRateWeight = new SN_DoublePreference(
+        "stdDevsRotationRateWeight", 1);
+
+    /**
+     * <p>
+     * How much our standard deviations grow for a single, fully ambiguous tag
+     * </p>
+     */
+    public static final SN_DoublePreference stdDevsAmbiguityWeight = new SN_DoublePreference(
+        "stdDevsAmbiguityWeight", 2);
+
   }
 
   public static final class prefIntake {
@@ -7,15 +7,11 @@ package frc.robot.commands.Autos;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
-import com.pathplanner.lib.commands.PathPlannerAuto;
-import com.pathplanner.lib.path.PathPlannerPath;
-
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import frc.robot.Constants.constField;
 import frc.robot.subsystems.Climber;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Elevator;
@@ -25,6 +21,7 @@ import frc.robot.subsystems.Shooter;
 import frc.robot.subsystems.StateMachine;
 import frc.robot.subsystems.Transfer;
 import frc.robot.subsystems.StateMachine.RobotState;
+import frc.robot.utils.AutoCache;
 
 public class Centerline extends SequentialCommandGroup {
   StateMachine subStateMachine;
@@ -68,7 +65,7 @@ public class Centerline extends SequentialCommandGroup {
         Commands.deferredProxy(shootSequence),
 
         // -- C5 --
-        new PathPlannerAuto(determineInitPathName()),
+        AutoCache.getAuto(subDrivetrain, determineInitPathName()),
         Commands.waitSeconds(1),
 
         // We are now at C5
@@ -76,14 +73,14 @@ public class Centerline extends SequentialCommandGroup {
             Commands.sequence(
                 // We got the game piece!
                 // Drive to shoot
-                new PathPlannerAuto(determineScorePathName() + ".1"),
+                AutoCache.getAuto(subDrivetrain, determineScorePathName() + ".1"),
                 Commands.deferredProxy(shootSequence),
                 // Return to centerline (C4)
-                new PathPlannerAuto(determineReturnScorePathName() + ".1")),
+                AutoCache.getAuto(subDrivetrain, determineReturnScorePathName() + ".1")),
 
             Commands.sequence(
                 // It wasnt there :<
-                new PathPlannerAuto(determineHopPathName() + ".1")),
+                AutoCache.getAuto(subDrivetrain, determineHopPathName() + ".1")),
 
             () -> subTransfer.getGamePieceStored()),
 
@@ -94,14 +91,14 @@ public class Centerline extends SequentialCommandGroup {
             Commands.sequence(
                 // We got the game piece!
                 // Drive to shoot
-                new PathPlannerAuto(determineScorePathName() + ".2"),
+                AutoCache.getAuto(subDrivetrain, determineScorePathName() + ".2"),
                 Commands.deferredProxy(shootSequence),
                 // Return to centerline (C4)
-                new PathPlannerAuto(determineReturnScorePathName() + ".2")),
+                AutoCache.getAuto(subDrivetrain, determineReturnScorePathName() + ".2")),
 
             Commands.sequence(
                 // It wasnt there :<
-                new PathPlannerAuto(determineHopPathName() + ".2")),
+                AutoCache.getAuto(subDrivetrain, determineHopPathName() + ".2")),
 
             () -> subTransfer.getGamePieceStored()),
 
@@ -111,14 +108,14 @@ public class Centerline extends SequentialCommandGroup {
             Commands.sequence(
                 // We got the game piece!
                 // Drive to shoot
-                new PathPlannerAuto(determineScorePathName() + ".3"),
+                AutoCache.getAuto(subDrivetrain, determineScorePathName() + ".3"),
                 Commands.deferredProxy(shootSequence),
                 // Return to centerline (C4)
-                new PathPlannerAuto(determineReturnScorePathName() + ".3")),
+                AutoCache.getAuto(subDrivetrain, determineReturnScorePathName() + ".3")),
 
             Commands.sequence(
                 // It wasnt there :<
-                new PathPlannerAuto(determineHopPathName() + ".3")),
+                AutoCache.getAuto(subDrivetrain, determineHopPathName() + ".3")),
 
             () -> subTransfer.getGamePieceStored()),
 
@@ -128,27 +125,25 @@ public class Centerline extends SequentialCommandGroup {
             Commands.sequence(
                 // We got the game piece!
                 // Drive to shoot
-                new PathPlannerAuto(determineScorePathName() + ".4"),
+                AutoCache.getAuto(subDrivetrain, determineScorePathName() + ".4"),
                 Commands.deferredProxy(shootSequence),
                 // Return to centerline (C4)
-                new PathPlannerAuto(determineReturnScorePathName() + ".4")),
+                AutoCache.getAuto(subDrivetrain, determineReturnScorePathName() + ".4")),
 
             Commands.sequence(
                 // It wasnt there :<
-                new PathPlannerAuto(determineHopPathName() + ".4")),
+                AutoCache.getAuto(subDrivetrain, determineHopPathName() + ".4")),
 
             () -> subTransfer.getGamePieceStored()),
 
         // -- CURRENTLY AT C1
         Commands.waitSeconds(0.5),
-        new PathPlannerAuto(determineScorePathName() + ".5"),
+        AutoCache.getAuto(subDrivetrain, determineScorePathName() + ".5"),
         Commands.deferredProxy(shootSequence));
   }
 
   public Supplier<Pose2d> getInitialPose() {
-    return () -> (!constField.isRedAlliance())
-        ? PathPlannerPath.fromPathFile(determineInitPathName()).getPreviewStartingHolonomicPose()
-        : PathPlannerPath.fromPathFile(determineInitPathName()).flipPath().getPreviewStartingHolonomicPose();
+    return () -> AutoCache.getPath(determineInitPathName()).getPreviewStartingHolonomicPose();
   }
 
   public String determineInitPathName() {
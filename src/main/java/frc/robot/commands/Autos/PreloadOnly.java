@@ -23,6 +23,7 @@ import frc.robot.subsystems.StateMachine;
 import frc.robot.subsystems.Transfer;
 import frc.robot.subsystems.StateMachine.RobotState;
 import frc.robot.subsystems.StateMachine.TargetState;
+import frc.robot.utils.WorldState;
 
 // NOTE:  Consider using this command inline, rather than writing a subclass.  For more
 // information, see:
@@ -81,12 +82,12 @@ public class PreloadOnly extends SequentialCommandGroup {
         Commands.deferredProxy(() -> subStateMachine.tryState(RobotState.INTAKING))
             .until(() -> subTransfer.getGamePieceStored()),
 
-        Commands.waitUntil(() -> subShooter.readyToShoot()),
+        Commands.waitUntil(() -> WorldState.isReadyToFeed()),
 
         // Shoot! (Ends when we don't have a game piece anymore)
         Commands.deferredProxy(() -> subStateMachine
-            .tryState(RobotState.SHOOTING)
-            .until(() -> !subTransfer.getGamePieceStored())),
+            .tryState(RobotState.SHOOTING))
+            .until(() -> !subTransfer.getGamePieceStored()),
 
         // Reset subsystems to chill
         Commands.deferredProxy(() -> subStateMachine
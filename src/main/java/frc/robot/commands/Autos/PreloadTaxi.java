@@ -7,9 +7,6 @@ package frc.robot.commands.Autos;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
-import com.pathplanner.lib.commands.PathPlannerAuto;
-import com.pathplanner.lib.path.PathPlannerPath;
-
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.units.Units;
@@ -26,6 +23,8 @@ import frc.robot.subsystems.StateMachine;
 import frc.robot.subsystems.Transfer;
 import frc.robot.subsystems.StateMachine.RobotState;
 import frc.robot.subsystems.StateMachine.TargetState;
+import frc.robot.utils.AutoCache;
+import frc.robot.utils.WorldState;
 
 // NOTE:  Consider using this command inline, rather than writing a subclass.  For more
 // information, see:
@@ -42,8 +41,9 @@ public class PreloadTaxi extends SequentialCommandGroup {
 
   String pathName = "PsTaxi";
 
-  BooleanSupplier readyToShoot = (() -> subDrivetrain.isDrivetrainFacingSpeaker()
-      && subShooter.readyToShoot() && subStateMachine.isCurrentStateTargetState()
+  // Ready to feed, so the note can start moving before we're ready to shoot
+  BooleanSupplier readyToShoot = (() -> WorldState.isFacingSpeaker()
+      && WorldState.isReadyToFeed() && subStateMachine.isCurrentStateTargetState()
       && subTransfer.getGamePieceStored());
 
   SequentialCommandGroup shootSequence = new SequentialCommandGroup(
@@ -51,8 +51,8 @@ public class PreloadTaxi extends SequentialCommandGroup {
       Commands.runOnce(() -> subStateMachine.setTargetState(TargetState.PREP_VISION)),
 
       Commands.deferredProxy(() -> subStateMachine
-          .tryState(RobotState.PREP_VISION)
-          .repeatedly().until(() -> subShooter.readyToShoot())),
+          .tryState(RobotState.PREP_VISION))
+          .repeatedly().until(() -> WorldState.isReadyToFeed()),
 
       Commands.runOnce(() -> subDrivetrain.drive(
           new Translation2d(0, 0),
@@ -61,8 +61,8 @@ public class PreloadTaxi extends SequentialCommandGroup {
 
       // Shoot! (Ends when we don't have a game piece anymore)
       Commands.deferredProxy(() -> subStateMachine
-          .tryState(RobotState.SHOOTING)
-          .until(() -> !subTransfer.getGamePieceStored())),
+          .tryState(RobotState.SHOOTING))
+          .until(() -> !subTransfer.getGamePieceStored()),
 
       // Reset subsystems to chill
       Commands.deferredProxy(() -> subStateMachine
@@ -94,13 +94,13 @@ public class PreloadTaxi extends SequentialCommandGroup {
         Commands.deferredProxy(() -> shootSequence),
 
         // Mooovve outside starting line
-        new PathPlannerAuto(pathName));
+        AutoCache.getAuto(subDrivetrain, pathName));
   }
 
   public Supplier<Pose2d> getInitialPose() {
     return () -> (!constField.isRedAlliance())
-        ? PathPlannerAuto.getStaringPoseFromAutoFile(pathName)
-        : PathPlannerPath.fromPathFile(pathName).flipPath().getPreviewStartingHolonomicPose();
+        ? AutoCache.getAutoStartingPose(pathName)
+        : AutoCache.getPath(pathName).getPreviewStartingHolonomicPose();
   }
 
 }
@@ -52,8 +52,8 @@ public class ShootSequence extends SequentialCommandGroup {
 
             Commands.parallel(
                 Commands.deferredProxy(() -> subStateMachine
-                    .tryState(RobotState.PREP_VISION)
-                    .repeatedly()),
+                    .tryState(RobotState.PREP_VISION))
+                    .repeatedly(),
 
                 Commands.runOnce(() -> subDrivetrain.drive(
                     new Translation2d(0, 0),
@@ -64,8 +64,8 @@ public class ShootSequence extends SequentialCommandGroup {
 
             // Shoot! (Ends when we don't have a game piece anymore)
             Commands.deferredProxy(() -> subStateMachine
-                .tryState(RobotState.SHOOTING)
-                .until(() -> !subTransfer.getGamePieceStored())),
+                .tryState(RobotState.SHOOTING))
+                .until(() -> !subTransfer.getGamePieceStored()),
 
             Commands.waitSeconds(constShooter.AUTO_PREP_NONE_DELAY.in(Units.Seconds)),
 
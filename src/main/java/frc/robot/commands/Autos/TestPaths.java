@@ -7,14 +7,12 @@ package frc.robot.commands.Autos;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
-import com.pathplanner.lib.commands.PathPlannerAuto;
-import com.pathplanner.lib.path.PathPlannerPath;
-
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.Constants.constField;
 import frc.robot.subsystems.Drivetrain;
+import frc.robot.utils.AutoCache;
 
 // NOTE:  Consider using this command inline, rather than writing a subclass.  For more
 // information, see:
@@ -32,13 +30,13 @@ public class TestPaths extends SequentialCommandGroup {
         Commands.runOnce(() -> subDrivetrain.resetPoseToPose(
             getInitialPose().get())),
 
-        new PathPlannerAuto(pathName));
+        AutoCache.getAuto(subDrivetrain, pathName));
   }
 
   public Supplier<Pose2d> getInitialPose() {
     return () -> (!constField.isRedAlliance())
-        ? PathPlannerAuto.getStaringPoseFromAutoFile(pathName)
-        : PathPlannerPath.fromPathFile(pathName).flipPath().getPreviewStartingHolonomicPose();
+        ? AutoCache.getAutoStartingPose(pathName)
+        : AutoCache.getPath(pathName).getPreviewStartingHolonomicPose();
   }
 
 }
@@ -7,16 +7,12 @@ package frc.robot.commands.Autos;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
-import com.pathplanner.lib.commands.PathPlannerAuto;
-import com.pathplanner.lib.path.PathPlannerPath;
-
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.units.Units;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import frc.robot.Constants.constField;
 import frc.robot.subsystems.Climber;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Elevator;
@@ -27,6 +23,7 @@ import frc.robot.subsystems.StateMachine;
 import frc.robot.subsystems.Transfer;
 import frc.robot.subsystems.StateMachine.RobotState;
 import frc.robot.subsystems.StateMachine.TargetState;
+import frc.robot.utils.AutoCache;
 
 // NOTE:  Consider using this command inline, rather than writing a subclass.  For more
 // information, see:
@@ -78,21 +75,21 @@ public class WingOnly extends SequentialCommandGroup {
 
         // -- W1 / W3 --
         // Drive to first note (Intaking is within the path)
-        new PathPlannerAuto(determinePathName() + ".1"),
+        AutoCache.getAuto(subDrivetrain, determinePathName() + ".1"),
         Commands.waitUntil(() -> subTransfer.getGamePieceStored()).withTimeout(2),
         Commands.deferredProxy(shootSequence),
         Commands.runOnce(() -> subStateMachine.setTargetState(TargetState.PREP_VISION)),
 
         // -- W2 --
         // Drive to first note (Intaking is within the path)
-        new PathPlannerAuto(determinePathName() + ".2"),
+        AutoCache.getAuto(subDrivetrain, determinePathName() + ".2"),
         Commands.waitUntil(() -> subTransfer.getGamePieceStored()).withTimeout(2),
         Commands.deferredProxy(shootSequence),
         Commands.runOnce(() -> subStateMachine.setTargetState(TargetState.PREP_VISION)),
 
         // -- W3 / W1 --
         // Drive to first note (Intaking is within the path)
-        new PathPlannerAuto(determinePathName() + ".3"),
+        AutoCache.getAuto(subDrivetrain, determinePathName() + ".3"),
         Commands.waitUntil(() -> subTransfer.getGamePieceStored()).withTimeout(2),
         Commands.deferredProxy(shootSequence));
 
@@ -103,8 +100,6 @@ public class WingOnly extends SequentialCommandGroup {
   }
 
   public Supplier<Pose2d> getInitialPose() {
-    return () -> (!constField.isRedAlliance())
-        ? PathPlannerPath.fromPathFile(determinePathName()).getPreviewStartingHolonomicPose()
-        : PathPlannerPath.fromPathFile(determinePathName()).flipPath().getPreviewStartingHolonomicPose();
+    return () -> AutoCache.getPath(determinePathName()).getPreviewStartingHolonomicPose();
   }
 }
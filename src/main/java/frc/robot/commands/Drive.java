@@ -5,14 +5,11 @@
 package frc.robot.commands;
 
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.units.Angle;
-import edu.wpi.first.units.Distance;
-import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Units;
-import edu.wpi.first.units.Velocity;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants.constField;
+import frc.robot.Constants.constField.FieldElement;
 import frc.robot.RobotPreferences.prefDrivetrain;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.StateMachine;
@@ -25,7 +22,8 @@ public class Drive extends Command {
         double rotationAxis;
   boolean isOpenLoop;
   Trigger slowMode, north, south, east, west, chain, source, amp;
-  Measure<Angle> northYaw, sourceYaw;
+  // Degrees
+  double northYaw, sourceYaw;
   double redAllianceMultiplier = 1;
   double slowMultiplier = 0;
 
@@ -53,11 +51,12 @@ public class Drive extends Command {
 
   @Override
   public void initialize() {
-    northYaw = constField.isRedAlliance() ? Units.Degrees.of(180) : Units.Degrees.of(0);
-    sourceYaw = Units.Radians.of(constField.getFieldPositions().get()[2].getRotation().getZ());
+    northYaw = constField.isRedAlliance() ? 180 : 0;
+    sourceYaw = constField.getField().getPose2d(FieldElement.SOURCE).getRotation().getDegrees();
     redAllianceMultiplier = constField.isRedAlliance() ? -1 : 1;
   }
 
+  // Runs every loop, so this sticks to primitives instead of allocating Measures
   @Override
   public void execute() {
     if (slowMode.getAsBoolean()) {
@@ -70,46 +69,46 @@ public class Drive extends Command {
     double transMultiplier = slowMultiplier * redAllianceMultiplier
         * prefDrivetrain.driveSpeed.getValue();
 
-    Measure<Velocity<Distance>> xVelocity = Units.MetersPerSecond.of(xAxis * transMultiplier);
-    Measure<Velocity<Distance>> yVelocity = Units.MetersPerSecond.of(-yAxis * transMultiplier);
+    // Meters per Second
+    double xVelocity = xAxis * transMultiplier;
+    double yVelocity = -yAxis * transMultiplier;
 
-    Measure<Velocity<Angle>> rVelocity = Units.RadiansPerSecond
-        .of(prefDrivetrain.maxManualTurnSpeed.in(Units.DegreesPerSecond))
-        .times(-rotationAxis);
+    // Radians per Second
+    double rVelocity = prefDrivetrain.maxManualTurnSpeed.in(Units.DegreesPerSecond) * -rotationAxis;
 
     // Requesting snapping ignores any previously calculated rotational speeds
     if (north.getAsBoolean()) {
-      rVelocity = subDrivetrain.getVelocityToSnap(northYaw);
+      rVelocity = snapTo(northYaw);
     } else if (east.getAsBoolean()) {
-      rVelocity = subDrivetrain.getVelocityToSnap(northYaw.plus(Units.Degrees.of(270)));
+      rVelocity = snapTo(northYaw + 270);
     } else if (south.getAsBoolean()) {
-      rVelocity = subDrivetrain.getVelocityToSnap(northYaw.plus(Units.Degrees.of(180)));
+      rVelocity = snapTo(northYaw + 180);
     } else if (west.getAsBoolean()) {
-      rVelocity = subDrivetrain.getVelocityToSnap(northYaw.plus(Units.Degrees.of(90)));
+      rVelocity = snapTo(northYaw + 90);
     } else if (chain.getAsBoolean()) {
-      rVelocity = subDrivetrain.getVelocityToChain();
+      rVelocity = Math.toRadians(subDrivetrain.getVelocityToChainDegrees());
     } else if (source.getAsBoolean()) {
-      rVelocity = subDrivetrain.getVelocityToSnap(sourceYaw);
+      rVelocity = snapTo(sourceYaw);
     } else if (amp.getAsBoolean()) {
       if (constField.isRedAlliance()) {
-        rVelocity = subDrivetrain.getVelocityToSnap(northYaw.plus(Units.Degrees.of(270)));
+        rVelocity = snapTo(northYaw + 270);
       } else {
-        rVelocity = subDrivetrain.getVelocityToSnap(northYaw.plus(Units.Degrees.of(90)));
+        rVelocity = snapTo(northYaw + 90);
       }
     }
 
     // Ignore calculated rotation if a driver rotation is given
-    if (rVelocity.equals(Units.RadiansPerSecond.of(0))) {
+    if (rVelocity == 0) {
       switch (subStateMachine.getRobotState()) {
         case PREP_SHUFFLE:
-          rVelocity = subDrivetrain.getVelocityToSnap(subDrivetrain.getAngleToShuffle());
+          rVelocity = snapTo(subDrivetrain.getAngleToShuffleDegrees());
           break;
         // case PREP_AMP:
-        // rVelocity = subDrivetrain.getVelocityToSnap(Units.Degrees.of(90));
+        // rVelocity = snapTo(90);
         // break;
         case PREP_VISION:
           if (constField.enableVisionSnapping(subDrivetrain.getPose())) {
-            rVelocity = subDrivetrain.getVelocityToSnap(subDrivetrain.getAngleToSpeaker());
+            rVelocity = snapTo(subDrivetrain.getAngleToSpeakerDegrees());
           }
           break;
         default:
@@ -118,8 +117,15 @@ public class Drive extends Command {
 
     }
 
-    subDrivetrain.drive(new Translation2d(xVelocity.in(Units.MetersPerSecond), yVelocity.in(Units.MetersPerSecond)),
-        rVelocity.in(Units.RadiansPerSecond), isOpenLoop);
+    subDrivetrain.drive(new Translation2d(xVelocity, yVelocity), rVelocity, isOpenLoop);
+  }
+
+  /**
+   * @param yaw The yaw to snap to. <b>Units:</b> Degrees
+   * @return The velocity needed to snap. <b>Units:</b> Radians per Second
+   */
+  private double snapTo(double yaw) {
+    return Math.toRadians(subDrivetrain.getVelocityToSnapDegrees(yaw));
   }
 
   @Override
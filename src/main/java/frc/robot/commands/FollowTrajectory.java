@@ -0,0 +1,109 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import com.pathplanner.lib.path.EventMarker;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.Constants.constDrivetrain;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.utils.AutoCache;
+import frc.robot.utils.CompactTrajectory;
+import frc.robot.utils.TrajectoryFollower;
+
+/**
+ * Follows one of our PathPlanner paths using the trajectory that the
+ * {@link AutoCache} already generated for our alliance, running its event
+ * markers the same way PathPlanner does.
+ */
+public class FollowTrajectory extends Command {
+  Drivetrain subDrivetrain;
+  String pathName;
+
+  private final TrajectoryFollower follower = new TrajectoryFollower();
+  private final Timer timer = new Timer();
+  private CompactTrajectory trajectory;
+
+  // Event commands run inside this command, like PathPlanner's
+  private Command[] runningEvents = new Command[0];
+  private int nextEvent = 0;
+
+  public FollowTrajectory(Drivetrain subDrivetrain, String pathName) {
+    this.subDrivetrain = subDrivetrain;
+    this.pathName = pathName;
+
+    addRequirements(subDrivetrain);
+    for (EventMarker marker : AutoCache.getPath(pathName).getEventMarkers()) {
+      addRequirements(marker.getCommand().getRequirements().toArray(new Subsystem[0]));
+    }
+    setName("FollowTrajectory " + pathName);
+  }
+
+  @Override
+  public void initialize() {
+    trajectory = AutoCache.getTrajectory(pathName);
+    if (runningEvents.length != trajectory.getEventCount()) {
+      runningEvents = new Command[trajectory.getEventCount()];
+    }
+    nextEvent = 0;
+
+    follower.reset();
+    timer.restart();
+  }
+
+  @Override
+  public void execute() {
+    double time = timer.get();
+
+    follower.calculate(subDrivetrain.getPose(), trajectory, time);
+    subDrivetrain.drive(new Translation2d(follower.getXSpeed(), follower.getYSpeed()),
+        follower.getRotationSpeed(), false);
+
+    while (nextEvent < trajectory.getEventCount() && trajectory.getEventTime(nextEvent) <= time) {
+      Command event = trajectory.getEventCommand(nextEvent);
+      event.initialize();
+      runningEvents[nextEvent] = event;
+      nextEvent++;
+    }
+
+    for (int i = 0; i < nextEvent; i++) {
+      Command event = runningEvents[i];
+      if (event == null) {
+        continue;
+      }
+      event.execute();
+      if (event.isFinished()) {
+        event.end(false);
+        runningEvents[i] = null;
+      }
+    }
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    timer.stop();
+
+    for (int i = 0; i < nextEvent; i++) {
+      if (runningEvents[i] != null) {
+        runningEvents[i].end(true);
+        runningEvents[i] = null;
+      }
+    }
+
+    if (interrupted
+        || Math.abs(trajectory.getEndVelocity()) < constDrivetrain.TRAJECTORY_STOP_VELOCITY.in(Units.MetersPerSecond)) {
+      subDrivetrain.drive(new Translation2d(), 0, false);
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return timer.hasElapsed(trajectory.getTotalTime());
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.constField;
+import frc.robot.Constants.constShooter;
+import frc.robot.Constants.constShooter.ShooterPositionGroup;
+import frc.robot.Constants.constStateMachine;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.StateMachine;
+import frc.robot.subsystems.StateMachine.RobotState;
+import frc.robot.subsystems.Transfer;
+
+/**
+ * Keeps the flywheels spinning while we're holding a note and not prepping a
+ * shot, so that prepping one doesn't spin them up from a stop.
+ *
+ * <p>
+ * Far from the wing they idle at PRE_SPOOL_IDLE_VELOCITY. Within
+ * PRE_SPOOL_RAMP_DISTANCE of the wing line they ramp toward the velocities of
+ * our target state (or PREP_VISION, if it doesn't spin the flywheels), reaching
+ * them at the wing line. Runs as the Shooter's default command, so anything
+ * else that requires the Shooter takes over from it.
+ * </p>
+ */
+public class PreSpool extends Command {
+  Shooter subShooter;
+  StateMachine subStateMachine;
+  Transfer subTransfer;
+  Drivetrain subDrivetrain;
+
+  private boolean spooling = false;
+
+  public PreSpool(Shooter subShooter, StateMachine subStateMachine, Transfer subTransfer,
+      Drivetrain subDrivetrain) {
+    this.subShooter = subShooter;
+    this.subStateMachine = subStateMachine;
+    this.subTransfer = subTransfer;
+    this.subDrivetrain = subDrivetrain;
+
+    addRequirements(subShooter);
+  }
+
+  @Override
+  public void initialize() {
+    spooling = false;
+  }
+
+  @Override
+  public void execute() {
+    RobotState robotState = subStateMachine.getRobotState();
+    boolean holdingNote = robotState == RobotState.NONE || robotState == RobotState.STORE_FEEDER;
+
+    if (!holdingNote || !subTransfer.getGamePieceStored()) {
+      // Once we're prepping (or doing anything else), that state owns the
+      // flywheels
+      if (spooling && holdingNote) {
+        subShooter.setShootingNeutralOutput();
+      }
+      spooling = false;
+      return;
+    }
+
+    ShooterPositionGroup expectedShot = constStateMachine.TARGET_TO_PRESET_GROUP
+        .get(subStateMachine.getTargetState());
+    if (expectedShot == null || expectedShot.leftVelocity.baseUnitMagnitude() <= 0) {
+      expectedShot = constShooter.PREP_VISION;
+    }
+
+    double rampFraction = MathUtil.clamp(1 - constField.getDistanceToWing(subDrivetrain.getPose()).in(Units.Meters)
+        / constShooter.PRE_SPOOL_RAMP_DISTANCE.in(Units.Meters), 0, 1);
+    double idleVelocity = constShooter.PRE_SPOOL_IDLE_VELOCITY.in(Units.RotationsPerSecond);
+
+    subShooter.setPreSpoolVelocities(
+        MathUtil.interpolate(idleVelocity, expectedShot.leftVelocity.in(Units.RotationsPerSecond), rampFraction),
+        MathUtil.interpolate(idleVelocity, expectedShot.rightVelocity.in(Units.RotationsPerSecond), rampFraction));
+    spooling = true;
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (spooling && subShooter.isPreSpooling()) {
+      subShooter.setShootingNeutralOutput();
+    }
+    spooling = false;
+  }
+}
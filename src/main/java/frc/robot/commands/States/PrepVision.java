@@ -4,37 +4,25 @@
 
 package frc.robot.commands.States;
 
-import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Pose3d;
-import edu.wpi.first.units.Angle;
-import edu.wpi.first.units.Measure;
-import edu.wpi.first.units.Units;
-import edu.wpi.first.units.Velocity;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.Commands;
-import frc.robot.Constants.constField;
-import frc.robot.Constants.constStateMachine;
-import frc.robot.Constants.constShooter.ShooterPositionGroup;
 import frc.robot.subsystems.Drivetrain;
 import frc.robot.subsystems.Shooter;
 import frc.robot.subsystems.StateMachine;
 import frc.robot.subsystems.StateMachine.RobotState;
-import frc.robot.subsystems.StateMachine.TargetState;
+import frc.robot.utils.ShotSolver;
 
 public class PrepVision extends Command {
   StateMachine subStateMachine;
   Shooter subShooter;
   Drivetrain subDrivetrain;
 
-  Measure<Velocity<Angle>> desiredLeftVelocity, desiredRightVelocity;
-  Pose3d[] fieldPoses;
-  Pose2d robotPose = new Pose2d();
+  ShotSolver shotSolver;
 
   public PrepVision(StateMachine subStateMachine, Drivetrain subDrivetrain, Shooter subShooter) {
     this.subStateMachine = subStateMachine;
     this.subShooter = subShooter;
     this.subDrivetrain = subDrivetrain;
+    this.shotSolver = subDrivetrain.getShotSolver();
 
     // Use addRequirements() here to declare subsystem dependencies.
     addRequirements(subStateMachine);
@@ -49,21 +37,25 @@ public class PrepVision extends Command {
       subStateMachine.setRobotState(RobotState.PREP_VISION);
     }
 
-    fieldPoses = constField.getFieldPositions().get();
+    // The Drivetrain's periodic already ran this loop without solving
+    subDrivetrain.setShotSolverActive(true);
+    subDrivetrain.solveShot();
+    applyShotSolution();
+  }
 
-    ShooterPositionGroup desiredShooterPosition = constStateMachine.TARGET_TO_PRESET_GROUP.get(TargetState.PREP_VISION);
-    subShooter.setDesiredVelocities(desiredShooterPosition.leftVelocity, desiredShooterPosition.rightVelocity);
-    Measure<Angle> calculatedAngle = subShooter.getDesiredAngleToLock(robotPose, fieldPoses);
-    subShooter.setPivotPosition(calculatedAngle);
+  /**
+   * Sends the Drivetrain's shot solution (solved earlier this loop) to the
+   * Shooter.
+   */
+  private void applyShotSolution() {
+    subShooter.setDesiredVelocities(shotSolver.getLeftVelocity(), shotSolver.getRightVelocity());
+    subShooter.setPivotPositionDegrees(shotSolver.getPivotAngle());
   }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    robotPose = subDrivetrain.getPose();
-
-    Measure<Angle> calculatedAngle = subShooter.getDesiredAngleToLock(robotPose, fieldPoses);
-    subShooter.setPivotPosition(calculatedAngle);
+    applyShotSolution();
 
     subShooter.getUpToSpeed();
   }
@@ -71,6 +63,7 @@ public class PrepVision extends Command {
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
+    subDrivetrain.setShotSolverActive(false);
   }
 
   // Returns true when the command should end.
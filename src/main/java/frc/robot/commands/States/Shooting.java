@@ -15,6 +15,7 @@ import frc.robot.subsystems.StateMachine;
 import frc.robot.subsystems.Transfer;
 import frc.robot.subsystems.StateMachine.RobotState;
 import frc.robot.subsystems.StateMachine.TargetState;
+import frc.robot.utils.WorldState;
 
 public class Shooting extends Command {
   StateMachine subStateMachine;
@@ -51,8 +52,12 @@ public class Shooting extends Command {
       subStateMachine.setRobotState(RobotState.SHOOTING);
       subTransfer.setGamePieceCollected(false);
     } else {
-      // Otherwise, shoot through the flywheels if they are up to speed
-      if (subShooter.readyToShoot()) {
+      // Otherwise, shoot through the flywheels once they are up to speed, or as
+      // soon as they will be by the time the note reaches them
+      if (WorldState.isReadyToFeed()) {
+        if (subStateMachine.getRobotState() != RobotState.SHOOTING) {
+          subShooter.startedFeeding(constTransfer.FEED_TO_CONTACT_TIME);
+        }
         subTransfer.setFeederSpeed(constTransfer.SHOOTING_SPEED);
         subStateMachine.setRobotState(RobotState.SHOOTING);
         subIntake.setIntakeRollerSpeed(constIntake.INTAKING_SPEED);
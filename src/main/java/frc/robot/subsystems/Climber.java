@@ -13,9 +13,11 @@ import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Units;
 import edu.wpi.first.units.Velocity;
 import edu.wpi.first.units.Voltage;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.constClimber;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
 
 public class Climber extends SubsystemBase {
   TalonFXConfiguration climberConfig = new TalonFXConfiguration();
@@ -29,6 +31,8 @@ public class Climber extends SubsystemBase {
     voltageRequest = new VoltageOut(0);
 
     configure();
+
+    Telemetry.addNumber("Climber/Position", Tier.DIAGNOSTIC, () -> getClimberPosition().in(Units.Meters));
   }
 
   public void configure() {
@@ -102,7 +106,7 @@ public class Climber extends SubsystemBase {
 
   @Override
   public void periodic() {
-    SmartDashboard.putNumber("Climber/Position", getClimberPosition().in(Units.Meters));
-
+    // This method will be called once per scheduler run
+    LoopProfiler.mark("Climber");
   }
 }
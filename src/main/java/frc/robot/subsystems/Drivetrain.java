@@ -6,6 +6,8 @@ package frc.robot.subsystems;
 
 import java.util.List;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.Pigeon2Configuration;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.VoltageOut;
@@ -15,11 +17,17 @@ import com.pathplanner.lib.util.PIDConstants;
 import com.pathplanner.lib.util.ReplanningConfig;
 
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StructArrayPublisher;
 import edu.wpi.first.networktables.StructPublisher;
@@ -27,15 +35,26 @@ import edu.wpi.first.units.Angle;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Units;
 import edu.wpi.first.units.Velocity;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.Robot;
 import frc.robot.Constants.constDrivetrain;
 import frc.robot.Constants.constField;
+import frc.robot.Constants.constField.FieldElement;
 import frc.robot.Constants.constShooter;
 import frc.robot.RobotMap.mapDrivetrain;
 import frc.robot.RobotPreferences.prefDrivetrain;
 import frc.robot.RobotPreferences.prefVision;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.InputLog.DoubleInput;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.OdometryThread;
+import frc.robot.utils.PoseHistory;
+import frc.robot.utils.ShotSolver;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
+import frc.robot.utils.WorldState;
 
 public class Drivetrain extends SN_SuperSwerve {
   private static TalonFXConfiguration driveConfiguration = new TalonFXConfiguration();
@@ -43,6 +62,32 @@ public class Drivetrain extends SN_SuperSwerve {
   private static PIDController yawSnappingController;
   private static String[] moduleNames = { "Front Left", "Front Right", "Back Left", "Back Right" };
   VoltageOut voltageRequest;
+  private double lastAngleToTarget = 0;
+
+  ShotSolver shotSolver = new ShotSolver();
+  // Only solved while a command that uses the solution is running
+  private boolean shotSolverActive = false;
+
+  // Only used on the real robot
+  OdometryThread odometryThread;
+  // Every odometry sample, so vision can use the heading from when a frame was
+  // captured
+  private final PoseHistory poseHistory = new PoseHistory(constDrivetrain.POSE_HISTORY_SIZE);
+  private double lastShotSolveTime = 0;
+
+  // -- Inputs --
+  // Logged at the end of every periodic. While replaying, the pose estimator
+  // doesn't run and the pose comes from the log instead
+  DoubleInput poseXInput, poseYInput, poseRotationInput;
+  DoubleInput fieldSpeedXInput, fieldSpeedYInput, fieldSpeedOmegaInput;
+  DoubleInput gyroRateInput;
+
+  // Module order matches the modules array (FL, FR, BL, BR)
+  private static SwerveDriveKinematics kinematics = new SwerveDriveKinematics(
+      new Translation2d(constDrivetrain.WHEELBASE / 2, constDrivetrain.TRACK_WIDTH / 2),
+      new Translation2d(constDrivetrain.WHEELBASE / 2, -constDrivetrain.TRACK_WIDTH / 2),
+      new Translation2d(-constDrivetrain.WHEELBASE / 2, constDrivetrain.TRACK_WIDTH / 2),
+      new Translation2d(-constDrivetrain.WHEELBASE / 2, -constDrivetrain.TRACK_WIDTH / 2));
 
   StructPublisher<Pose2d> robotPosePublisher = NetworkTableInstance.getDefault()
       .getStructTopic("/SmartDashboard/Drivetrain/Robot Pose", Pose2d.struct).publish();
@@ -51,6 +96,13 @@ public class Drivetrain extends SN_SuperSwerve {
   StructArrayPublisher<SwerveModuleState> actualStatesPublisher = NetworkTableInstance.getDefault()
       .getStructArrayTopic("/SmartDashboard/Drivetrain/Actual States", SwerveModuleState.struct).publish();
 
+  // Read once per loop in periodic(), since SN_SuperSwerve builds new states
+  // every time they're asked for
+  private SwerveModuleState[] desiredModuleStates = new SwerveModuleState[] {
+      new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState() };
+  private SwerveModuleState[] actualModuleStates = new SwerveModuleState[] {
+      new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState() };
+
   private static SN_SwerveModule[] modules = new SN_SwerveModule[] {
       new SN_SwerveModule(0, mapDrivetrain.FRONT_LEFT_DRIVE_CAN, mapDrivetrain.FRONT_LEFT_STEER_CAN,
           mapDrivetrain.FRONT_LEFT_ABSOLUTE_ENCODER_CAN, constDrivetrain.FRONT_LEFT_ABS_ENCODER_OFFSET),
@@ -96,6 +148,85 @@ public class Drivetrain extends SN_SuperSwerve {
 
     voltageRequest = new VoltageOut(0);
 
+    configureInputs();
+
+    if (Robot.isReal() && !InputLog.isReplaying()) {
+      odometryThread = new OdometryThread(modules, pigeon);
+      odometryThread.start();
+    }
+
+    configureTelemetry();
+  }
+
+  private void configureInputs() {
+    poseXInput = new DoubleInput("Drivetrain/Pose/X", () -> super.getPose().getX());
+    poseYInput = new DoubleInput("Drivetrain/Pose/Y", () -> super.getPose().getY());
+    poseRotationInput = new DoubleInput("Drivetrain/Pose/Rotation",
+        () -> super.getPose().getRotation().getDegrees());
+    fieldSpeedXInput = new DoubleInput("Drivetrain/Field Speeds/X",
+        () -> calculateFieldRelativeSpeeds().vxMetersPerSecond);
+    fieldSpeedYInput = new DoubleInput("Drivetrain/Field Speeds/Y",
+        () -> calculateFieldRelativeSpeeds().vyMetersPerSecond);
+    fieldSpeedOmegaInput = new DoubleInput("Drivetrain/Field Speeds/Omega",
+        () -> calculateFieldRelativeSpeeds().omegaRadiansPerSecond);
+    gyroRateInput = InputLog.addDouble("Drivetrain/Gyro Rate", () -> pigeon.getRate());
+  }
+
+  private void configureTelemetry() {
+    for (SN_SwerveModule mod : modules) {
+      String moduleKey = "Drivetrain/Module " + moduleNames[mod.moduleNumber];
+
+      Telemetry.addNumber(moduleKey + "/Desired Speed (FPS)", Tier.CONTROL,
+          () -> Units.Meters.convertFrom(Math.abs(desiredModuleStates[mod.moduleNumber].speedMetersPerSecond),
+              Units.Feet));
+      Telemetry.addNumber(moduleKey + "/Actual Speed (FPS)", Tier.CONTROL,
+          () -> Units.Meters.convertFrom(Math.abs(actualModuleStates[mod.moduleNumber].speedMetersPerSecond),
+              Units.Feet));
+
+      Telemetry.addNumber(moduleKey + "/Desired Angle (Degrees)", Tier.CONTROL,
+          () -> Math.abs(
+              Units.Meters.convertFrom(desiredModuleStates[mod.moduleNumber].angle.getDegrees(), Units.Feet)));
+      Telemetry.addNumber(moduleKey + "/Actual Angle (Degrees)", Tier.CONTROL,
+          () -> Math.abs(
+              Units.Meters.convertFrom(actualModuleStates[mod.moduleNumber].angle.getDegrees(), Units.Feet)));
+
+      Telemetry.addNumber(moduleKey + "/Offset Absolute Encoder Angle (Rotations)", Tier.DIAGNOSTIC,
+          () -> mod.getAbsoluteEncoder());
+      Telemetry.addNumber(moduleKey + "/Absolute Encoder Raw Value (Rotations)", Tier.DIAGNOSTIC,
+          () -> mod.getRawAbsoluteEncoder());
+
+      // getStatorCurrent() looks the signal up in a map every call, so keep
+      // the signal and only refresh it
+      StatusSignal<Double> statorCurrent = mod.driveMotor.getStatorCurrent();
+      StatusSignal<Double> supplyCurrent = mod.driveMotor.getSupplyCurrent();
+      Telemetry.addNumber(moduleKey + "/Stator Current", Tier.CURRENT,
+          () -> statorCurrent.refresh().getValueAsDouble());
+      Telemetry.addNumber(moduleKey + "/Supply Current", Tier.CURRENT,
+          () -> supplyCurrent.refresh().getValueAsDouble());
+    }
+
+    Telemetry.addNumber("Drivetrain Rotation", Tier.CONTROL, () -> getRotation().getDegrees());
+    Telemetry.addBoolean("Drivetrain Facing Speaker", Tier.CONTROL, () -> WorldState.isFacingSpeaker());
+    Telemetry.addBoolean("Drivetrain Facing Shuffle", Tier.CONTROL, () -> WorldState.isFacingShuffle());
+    Telemetry.addNumber("DT ANGLE TO SPEAKER", Tier.CONTROL, () -> lastAngleToTarget);
+
+    if (odometryThread != null) {
+      Telemetry.addNumber("Drivetrain/Odometry/Samples Per Loop", Tier.CONTROL,
+          () -> odometryThread.getLastAppliedSampleCount());
+      Telemetry.addNumber("Drivetrain/Odometry/Total Samples", Tier.DIAGNOSTIC,
+          () -> odometryThread.getSampleCount());
+      Telemetry.addNumber("Drivetrain/Odometry/Dropped Samples", Tier.DIAGNOSTIC,
+          () -> odometryThread.getDroppedSampleCount());
+      Telemetry.addNumber("Drivetrain/Odometry/Failed Waits", Tier.DIAGNOSTIC,
+          () -> odometryThread.getFailedWaitCount());
+    }
+
+    Telemetry.addNumber("DISTANCE_FROM_SPEAKER", Tier.CONTROL, () -> shotSolver.getDistance());
+    Telemetry.addNumber("Shot Solver/Time of Flight", Tier.CONTROL, () -> shotSolver.getTimeOfFlight());
+    Telemetry.addNumber("Shot Solver/Pivot Angle", Tier.CONTROL, () -> shotSolver.getPivotAngle());
+    Telemetry.addNumber("Shot Solver/Iterations", Tier.DIAGNOSTIC, () -> shotSolver.getIterations());
+    Telemetry.addNumber("Shot Solver/Table Size", Tier.DIAGNOSTIC, () -> shotSolver.getTableSize());
+    Telemetry.addNumber("Shot Solver/Solve Time (ms)", Tier.DIAGNOSTIC, () -> lastShotSolveTime);
   }
 
   @Override
@@ -149,6 +280,13 @@ public class Drivetrain extends SN_SuperSwerve {
     yawSnappingController.setTolerance(constDrivetrain.AT_ROTATION_TOLERANCE.in(Units.Degrees));
 
     super.configure();
+
+    // -- Status Signals --
+    // These are on the Swerve CANivore, so they aren't refreshed by the SignalCache
+    for (SN_SwerveModule mod : modules) {
+      BaseStatusSignal.setUpdateFrequencyForAll(constDrivetrain.DRIVE_CURRENT_FREQUENCY,
+          mod.driveMotor.getStatorCurrent(), mod.driveMotor.getSupplyCurrent());
+    }
   }
 
   public void addEventToAutoMap(String key, Command command) {
@@ -156,35 +294,51 @@ public class Drivetrain extends SN_SuperSwerve {
   }
 
   /**
-   * @param desiredYaw The desired yaw to snap to
-   * @return The desired velocity needed to snap.
+   * Calculates the velocity needed to snap without allocating, for commands that
+   * run every loop.
+   *
+   * @param desiredYaw The desired yaw to snap to. <b>Units:</b> Degrees
+   * @return The desired velocity needed to snap. <b>Units:</b> Degrees per
+   *         Second
    */
-  public Measure<Velocity<Angle>> getVelocityToSnap(Rotation2d desiredYaw) {
-    double yawSetpoint = yawSnappingController.calculate(getRotation().getDegrees(),
-        desiredYaw.getDegrees());
+  public double getVelocityToSnapDegrees(double desiredYaw) {
+    double yawSetpoint = yawSnappingController.calculate(getRotation().getDegrees(), desiredYaw);
 
     // limit the PID output to our maximum rotational speed
-    yawSetpoint = MathUtil.clamp(yawSetpoint, -prefDrivetrain.maxTurnSpeed.in(Units.DegreesPerSecond),
-        prefDrivetrain.maxTurnSpeed.in(Units.DegreesPerSecond));
+    double maxTurnSpeed = prefDrivetrain.maxTurnSpeed.in(Units.DegreesPerSecond);
+    return MathUtil.clamp(yawSetpoint, -maxTurnSpeed, maxTurnSpeed);
+  }
 
-    return Units.DegreesPerSecond.of(yawSetpoint);
+  /**
+   * @param desiredYaw The desired yaw to snap to
+   * @return The desired velocity needed to snap.
+   */
+  public Measure<Velocity<Angle>> getVelocityToSnap(Rotation2d desiredYaw) {
+    return Units.DegreesPerSecond.of(getVelocityToSnapDegrees(desiredYaw.getDegrees()));
   }
 
   public Measure<Velocity<Angle>> getVelocityToSnap(Measure<Angle> desiredYaw) {
-    return getVelocityToSnap(Rotation2d.fromDegrees(desiredYaw.in(Units.Degrees)));
+    return Units.DegreesPerSecond.of(getVelocityToSnapDegrees(desiredYaw.in(Units.Degrees)));
   }
 
   public boolean isDrivetrainAtAngle(Rotation2d desiredAngle) {
-    return (Math.abs(getRotation().getDegrees() - desiredAngle.getDegrees()) < constDrivetrain.AT_ROTATION_TOLERANCE
+    return isDrivetrainAtAngleDegrees(desiredAngle.getDegrees());
+  }
+
+  /**
+   * @param desiredAngle <b>Units:</b> Degrees
+   */
+  private boolean isDrivetrainAtAngleDegrees(double desiredAngle) {
+    return (Math.abs(getRotation().getDegrees() - desiredAngle) < constDrivetrain.AT_ROTATION_TOLERANCE
         .in(Units.Degrees));
   }
 
   public boolean isDrivetrainFacingSpeaker() {
-    return isDrivetrainAtAngle(getAngleToSpeaker());
+    return isDrivetrainAtAngleDegrees(getAngleToSpeakerDegrees());
   }
 
   public boolean isDrivetrainFacingShuffle() {
-    return isDrivetrainAtAngle(getAngleToShuffle());
+    return isDrivetrainAtAngleDegrees(getAngleToShuffleDegrees());
   }
 
   /**
@@ -194,32 +348,143 @@ public class Drivetrain extends SN_SuperSwerve {
    * @return The necessary angle, in the Field Coordinate System
    */
   public Rotation2d getAngleToTarget(Pose2d targetPose) {
+    return Rotation2d.fromDegrees(getAngleToTargetDegrees(targetPose));
+  }
+
+  /**
+   * Calculates the angle necessary for the shooter to face a given coordinate,
+   * without allocating.
+   *
+   * @param targetPose The coordinate to face
+   * @return The necessary angle, in the Field Coordinate System. <b>Units:</b>
+   *         Degrees, from -180 to 180
+   */
+  public double getAngleToTargetDegrees(Pose2d targetPose) {
+    return getAngleToTargetDegrees(targetPose.getX(), targetPose.getY(), targetPose.getRotation().getCos(),
+        targetPose.getRotation().getSin());
+  }
+
+  /**
+   * @param targetX   <b>Units:</b> Meters
+   * @param targetY   <b>Units:</b> Meters
+   * @param targetCos The cosine of the target's rotation
+   * @param targetSin The sine of the target's rotation
+   * @see #getAngleToTargetDegrees(Pose2d)
+   */
+  private double getAngleToTargetDegrees(double targetX, double targetY, double targetCos, double targetSin) {
     // Field-relative robot pose
     Pose2d robotPose = getPose();
 
-    // Move the robot pose to be relative to the target
-    Pose2d relativeToTarget = robotPose.relativeTo(targetPose);
+    // Move the robot pose to be relative to the target (the same as
+    // robotPose.relativeTo(targetPose), without the new Pose2d)
+    double deltaX = robotPose.getX() - targetX;
+    double deltaY = robotPose.getY() - targetY;
+    double relativeX = deltaX * targetCos + deltaY * targetSin;
+    double relativeY = -deltaX * targetSin + deltaY * targetCos;
 
     // Get the angle of 0,0 to the shooter pose
-    Rotation2d desiredLockingAngle = new Rotation2d(relativeToTarget.getX(), relativeToTarget.getY());
+    double desiredLockingAngle = Math.toDegrees(Math.atan2(relativeY, relativeX));
 
     // Our shooter is physically mounted 180 degrees from the heading of our
     // drivetrain :o
-    desiredLockingAngle = desiredLockingAngle.plus(constShooter.SHOOTER_TO_ROBOT);
+    desiredLockingAngle = MathUtil.inputModulus(desiredLockingAngle + constShooter.SHOOTER_TO_ROBOT.getDegrees(),
+        -180, 180);
 
-    SmartDashboard.putNumber("DT ANGLE TO SPEAKER", desiredLockingAngle.getDegrees());
+    lastAngleToTarget = desiredLockingAngle;
 
     return desiredLockingAngle;
   }
 
   /**
-   * Calculates the angle necessary for the drivetrain to face the speaker.
+   * Calculates the angle necessary for the drivetrain to face the speaker. While
+   * the shot solver is active, this faces its virtual target, so that the note
+   * lands in the speaker while moving.
    * 
    * @return The necessary angle, in the Field Coordinate System
    */
   public Rotation2d getAngleToSpeaker() {
-    Pose2d speakerPose = constField.getFieldPositions().get()[0].toPose2d();
-    return getAngleToTarget(speakerPose);
+    return Rotation2d.fromDegrees(getAngleToSpeakerDegrees());
+  }
+
+  /**
+   * @return The angle necessary for the drivetrain to face the speaker, in the
+   *         Field Coordinate System. <b>Units:</b> Degrees
+   * @see #getAngleToSpeaker()
+   */
+  public double getAngleToSpeakerDegrees() {
+    if (shotSolverActive) {
+      // The virtual target has no rotation
+      return getAngleToTargetDegrees(shotSolver.getVirtualTargetX(), shotSolver.getVirtualTargetY(), 1, 0);
+    }
+    return getAngleToTargetDegrees(constField.getField().getPose2d(FieldElement.SPEAKER));
+  }
+
+  /**
+   * @return The current velocity of the robot, in the Field Coordinate System
+   */
+  public ChassisSpeeds getFieldRelativeSpeeds() {
+    if (InputLog.isReplaying()) {
+      return new ChassisSpeeds(fieldSpeedXInput.get(), fieldSpeedYInput.get(), fieldSpeedOmegaInput.get());
+    }
+    return calculateFieldRelativeSpeeds();
+  }
+
+  private ChassisSpeeds calculateFieldRelativeSpeeds() {
+    return ChassisSpeeds.fromRobotRelativeSpeeds(kinematics.toChassisSpeeds(getActualModuleStates()),
+        super.getRotation());
+  }
+
+  /**
+   * @return The current pose of the robot. While replaying, this is the pose
+   *         from the log.
+   */
+  @Override
+  public Pose2d getPose() {
+    if (InputLog.isReplaying()) {
+      return new Pose2d(poseXInput.get(), poseYInput.get(), Rotation2d.fromDegrees(poseRotationInput.get()));
+    }
+    return super.getPose();
+  }
+
+  @Override
+  public Rotation2d getRotation() {
+    if (InputLog.isReplaying()) {
+      return Rotation2d.fromDegrees(poseRotationInput.get());
+    }
+    return super.getRotation();
+  }
+
+  /**
+   * @return Our recent poses, for matching measurements to when they were taken
+   */
+  public PoseHistory getPoseHistory() {
+    return poseHistory;
+  }
+
+  /**
+   * @return The shot solver. While it is active, it was solved from this loop's
+   *         pose and velocity
+   */
+  public ShotSolver getShotSolver() {
+    return shotSolver;
+  }
+
+  /**
+   * Solves for a shot from the robot's current pose and velocity. Runs at the
+   * end of every periodic() while the shot solver is active.
+   */
+  public void solveShot() {
+    long startTime = RobotController.getFPGATime();
+    shotSolver.solve(getPose(), getFieldRelativeSpeeds(), constField.getField().getPose2d(FieldElement.SPEAKER));
+    lastShotSolveTime = (RobotController.getFPGATime() - startTime) / 1000.0;
+  }
+
+  /**
+   * Should be set by any command that uses the shot solution while it runs.
+   * While inactive, the drivetrain faces the SPEAKER itself.
+   */
+  public void setShotSolverActive(boolean active) {
+    shotSolverActive = active;
   }
 
   /**
@@ -229,8 +494,15 @@ public class Drivetrain extends SN_SuperSwerve {
    * @return The necessary angle, in the Field Coordinate System
    */
   public Rotation2d getAngleToShuffle() {
-    Pose2d shuffleTarget = constField.getFieldPositions().get()[7].toPose2d();
-    return getAngleToTarget(shuffleTarget);
+    return Rotation2d.fromDegrees(getAngleToShuffleDegrees());
+  }
+
+  /**
+   * @return The angle necessary for the drivetrain to face the shuffle target,
+   *         in the Field Coordinate System. <b>Units:</b> Degrees
+   */
+  public double getAngleToShuffleDegrees() {
+    return getAngleToTargetDegrees(constField.getField().getPose2d(FieldElement.SHUFFLE));
   }
 
   /**
@@ -239,9 +511,29 @@ public class Drivetrain extends SN_SuperSwerve {
    * @return The necessary velocity
    */
   public Measure<Velocity<Angle>> getVelocityToChain() {
-    List<Pose2d> chainPositions = constField.getChainPositions();
-    Pose2d nearestChain = getPose().nearest(chainPositions);
-    return getVelocityToSnap(nearestChain.getRotation());
+    return Units.DegreesPerSecond.of(getVelocityToChainDegrees());
+  }
+
+  /**
+   * @return The velocity needed to snap to the nearest chain. <b>Units:</b>
+   *         Degrees per Second
+   * @see #getVelocityToChain()
+   */
+  public double getVelocityToChainDegrees() {
+    List<Pose2d> chainPositions = constField.getField().getChainPositions();
+    Translation2d robotTranslation = getPose().getTranslation();
+
+    // The same as getPose().nearest(), without its comparator
+    Pose2d nearestChain = chainPositions.get(0);
+    double nearestDistance = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < chainPositions.size(); i++) {
+      double distance = robotTranslation.getDistance(chainPositions.get(i).getTranslation());
+      if (distance < nearestDistance) {
+        nearestChain = chainPositions.get(i);
+        nearestDistance = distance;
+      }
+    }
+    return getVelocityToSnapDegrees(nearestChain.getRotation().getDegrees());
   }
 
   /**
@@ -249,7 +541,7 @@ public class Drivetrain extends SN_SuperSwerve {
    *         per Second
    */
   public double getGyroRate() {
-    return pigeon.getRate();
+    return gyroRateInput.get();
   }
 
   /**
@@ -265,43 +557,86 @@ public class Drivetrain extends SN_SuperSwerve {
     swervePoseEstimator.addVisionMeasurement(estimatedPose, timestamp);
   }
 
+  /**
+   * Adds a vision measurement to the pose estimator, trusting it as much as the
+   * given standard deviations.
+   *
+   * @param estimatedPose The estimated pose measurement generated by vision
+   * @param timestamp     The timestamp of that pose estimate (not necessarily the
+   *                      current timestamp)
+   * @param stdDevs       The standard deviations of the X, Y and heading of the
+   *                      measurement. <b>Units:</b> Meters and Radians
+   */
+  public void addVisionMeasurement(Pose2d estimatedPose, double timestamp, Matrix<N3, N1> stdDevs) {
+    swervePoseEstimator.addVisionMeasurement(estimatedPose, timestamp, stdDevs);
+  }
+
+  /**
+   * Resets the pose, throwing away any odometry samples taken before the reset.
+   */
+  @Override
+  public void resetPoseToPose(Pose2d pose) {
+    poseHistory.clear();
+    if (odometryThread == null) {
+      super.resetPoseToPose(pose);
+      return;
+    }
+
+    odometryThread.getLock().lock();
+    try {
+      odometryThread.clearSamples();
+      super.resetPoseToPose(pose);
+    } finally {
+      odometryThread.getLock().unlock();
+    }
+  }
+
+  /**
+   * Called by SN_SuperSwerve's periodic(). While the odometry thread is running,
+   * its samples replace SN_SuperSwerve's one update per loop. Updating with both
+   * would add an extra sample at the current time after the thread's samples,
+   * out of order with them.
+   */
+  @Override
+  public void updatePoseEstimator() {
+    if (odometryThread == null) {
+      super.updatePoseEstimator();
+    } else {
+      odometryThread.applySamples(swervePoseEstimator, poseHistory);
+    }
+  }
+
   @Override
   public void periodic() {
-    super.periodic();
+    // While replaying, the pose comes from the log, so there is nothing to
+    // estimate
+    if (!InputLog.isReplaying()) {
+      super.periodic();
+    }
 
-    for (SN_SwerveModule mod : modules) {
-      SmartDashboard.putNumber("Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Desired Speed (FPS)",
-          Units.Meters.convertFrom(Math.abs(getDesiredModuleStates()[mod.moduleNumber].speedMetersPerSecond),
-              Units.Feet));
-      SmartDashboard.putNumber("Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Actual Speed (FPS)",
-          Units.Meters.convertFrom(Math.abs(getActualModuleStates()[mod.moduleNumber].speedMetersPerSecond),
-              Units.Feet));
+    // The odometry thread already adds a pose for every sample. One stamped now
+    // would be newer than the samples still to come, which would be ignored
+    if (!InputLog.isReplaying() && odometryThread == null) {
+      poseHistory.add(Timer.getFPGATimestamp(), super.getPose());
+    }
+
+    poseXInput.update();
+    poseYInput.update();
+    poseRotationInput.update();
+    fieldSpeedXInput.update();
+    fieldSpeedYInput.update();
+    fieldSpeedOmegaInput.update();
 
-      SmartDashboard.putNumber("Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Desired Angle (Degrees)",
-          Math.abs(
-              Units.Meters.convertFrom(getDesiredModuleStates()[mod.moduleNumber].angle.getDegrees(), Units.Feet)));
-      SmartDashboard.putNumber("Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Actual Angle (Degrees)",
-          Math.abs(Units.Meters.convertFrom(getActualModuleStates()[mod.moduleNumber].angle.getDegrees(), Units.Feet)));
-
-      SmartDashboard.putNumber(
-          "Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Offset Absolute Encoder Angle (Rotations)",
-          mod.getAbsoluteEncoder());
-      SmartDashboard.putNumber(
-          "Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Absolute Encoder Raw Value (Rotations)",
-          mod.getRawAbsoluteEncoder());
-
-      SmartDashboard.putNumber("Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Stator Current",
-          mod.driveMotor.getStatorCurrent().getValueAsDouble());
-      SmartDashboard.putNumber("Drivetrain/Module " + moduleNames[mod.moduleNumber] + "/Supply Current",
-          mod.driveMotor.getSupplyCurrent().getValueAsDouble());
+    if (shotSolverActive) {
+      solveShot();
     }
 
     robotPosePublisher.set(getPose());
-    desiredStatesPublisher.set(getDesiredModuleStates());
-    actualStatesPublisher.set(getActualModuleStates());
+    desiredModuleStates = getDesiredModuleStates();
+    actualModuleStates = getActualModuleStates();
+    desiredStatesPublisher.set(desiredModuleStates);
+    actualStatesPublisher.set(actualModuleStates);
 
-    SmartDashboard.putNumber("Drivetrain Rotation", getRotation().getDegrees());
-    SmartDashboard.putBoolean("Drivetrain Facing Speaker", isDrivetrainFacingSpeaker());
-    SmartDashboard.putBoolean("Drivetrain Facing Shuffle", isDrivetrainFacingShuffle());
+    LoopProfiler.mark("Drivetrain");
   }
 }
@@ -4,11 +4,15 @@
 
 package frc.robot.subsystems;
 
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.PositionVoltage;
 import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.InvertedValue;
+import com.ctre.phoenix6.sim.TalonFXSimState;
 
+import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.Angle;
 import edu.wpi.first.units.Distance;
 import edu.wpi.first.units.Measure;
@@ -16,11 +20,24 @@ import edu.wpi.first.units.Units;
 import edu.wpi.first.units.Velocity;
 import edu.wpi.first.units.Voltage;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DIOSim;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Robot;
 import frc.robot.Constants.constElevator;
 import frc.robot.RobotMap.mapElevator;
 import frc.robot.RobotPreferences.prefElevator;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.InputLog.BooleanInput;
+import frc.robot.utils.InputLog.DoubleInput;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SignalCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
 
 public class Elevator extends SubsystemBase {
   TalonFX elevatorMotor, drainpipeMotor;
@@ -30,20 +47,51 @@ public class Elevator extends SubsystemBase {
   PositionVoltage positionRequest;
   VoltageOut voltageRequest;
 
+  // Refreshed once per loop by the SignalCache
+  StatusSignal<Double> elevatorPosition, elevatorVelocity, elevatorRotorVelocity, elevatorStatorCurrent;
+
+  // Read by our logic, so these are logged for replay
+  DoubleInput positionInput, velocityInput, rotorVelocityInput, statorCurrentInput;
+  BooleanInput noteSensorInput;
+
   public static boolean attemptingZeroing = false;
   public static boolean hasZeroed = false;
 
+  // -- Time to Position --
+  // Measured from when a different position is requested until the elevator is
+  // at that position
+  private Measure<Distance> lastDesiredPosition = Units.Meters.of(0);
+  private double positionRequestTime = 0;
+  private boolean waitingForPosition = false;
+  private double lastTimeToPosition = 0;
+
+  // Only used in simulation
+  ElevatorSim elevatorSim;
+  FlywheelSim drainpipeSim;
+  DIOSim noteSensorSim;
+
   public Elevator() {
     elevatorMotor = new TalonFX(mapElevator.ELEVATOR_MOTOR_CAN, "rio");
     drainpipeMotor = new TalonFX(mapElevator.DRAINPIPE_MOTOR_CAN, "rio");
     noteSensor = new DigitalInput(mapElevator.NOTE_SENSOR_DIO);
 
+    elevatorPosition = SignalCache.register(elevatorMotor.getPosition());
+    elevatorVelocity = SignalCache.register(elevatorMotor.getVelocity());
+    elevatorRotorVelocity = SignalCache.register(elevatorMotor.getRotorVelocity());
+    elevatorStatorCurrent = SignalCache.register(elevatorMotor.getStatorCurrent());
+
     elevatorConfig = new TalonFXConfiguration();
     drainpipeConfig = new TalonFXConfiguration();
     positionRequest = new PositionVoltage(0).withSlot(0);
     voltageRequest = new VoltageOut(0);
 
     configure();
+    configureInputs();
+    configureTelemetry();
+
+    if (Robot.isSimulation()) {
+      configureSimulation();
+    }
   }
 
   public void configure() {
@@ -80,6 +128,54 @@ public class Elevator extends SubsystemBase {
     drainpipeConfig.Voltage.PeakReverseVoltage = -12.0;
 
     drainpipeMotor.getConfigurator().apply(drainpipeConfig);
+
+    // -- Status Signals --
+    // Nothing is read from the drainpipe motor, so all of its signals are turned off
+    SignalCache.setUpdateFrequency(constElevator.POSITION_FREQUENCY,
+        elevatorPosition, elevatorVelocity, elevatorRotorVelocity);
+    SignalCache.setUpdateFrequency(constElevator.CURRENT_FREQUENCY, elevatorStatorCurrent);
+    SignalCache.optimizeBusUtilization(elevatorMotor, drainpipeMotor);
+  }
+
+  private void configureSimulation() {
+    // MOTOR_ROTATION_TO_METERS already includes the gearbox, so the sim's drum is
+    // one that moves the carriage that far per rotor rotation
+    double drumRadius = (1 / constElevator.MOTOR_ROTATION_TO_METERS) / (2 * Math.PI);
+
+    // The sim stops at the limits, which act as our hard stops
+    elevatorSim = new ElevatorSim(DCMotor.getFalcon500(1), 1,
+        constElevator.ELEVATOR_SIM_MASS.in(Units.Kilograms),
+        drumRadius,
+        constElevator.BACKWARD_LIMIT.in(Units.Meters),
+        constElevator.FORWARD_LIMIT.in(Units.Meters),
+        true,
+        constElevator.BACKWARD_LIMIT.in(Units.Meters));
+    drainpipeSim = new FlywheelSim(DCMotor.getFalcon500(1), 1, constElevator.DRAINPIPE_MOI);
+
+    noteSensorSim = new DIOSim(noteSensor);
+    setSimulatedGamePiece(false);
+  }
+
+  private void configureInputs() {
+    positionInput = InputLog.addDouble("Elevator/Position", () -> elevatorPosition.getValueAsDouble());
+    velocityInput = InputLog.addDouble("Elevator/Velocity", () -> elevatorVelocity.getValueAsDouble());
+    rotorVelocityInput = InputLog.addDouble("Elevator/Rotor Velocity",
+        () -> elevatorRotorVelocity.getValueAsDouble());
+    statorCurrentInput = InputLog.addDouble("Elevator/Stator Current", () -> elevatorStatorCurrent.getValueAsDouble());
+    noteSensorInput = InputLog.addBoolean("Elevator/Note Sensor", () -> noteSensor.get());
+  }
+
+  private void configureTelemetry() {
+    Telemetry.addNumber("Elevator/Position", Tier.CONTROL, () -> getElevatorPositionMeters());
+    Telemetry.addBoolean("Elevator/Safe To Move Shooter", Tier.CONTROL, () -> isSafeToMoveShooterAboveLimit());
+    Telemetry.addNumber("Elevator/Time to Position", Tier.CONTROL, () -> lastTimeToPosition);
+    Telemetry.addNumber("Elevator/Stator Current", Tier.CURRENT,
+        () -> elevatorStatorCurrent.getValueAsDouble());
+    Telemetry.addNumber("Elevator/Rotor Velocity", Tier.DIAGNOSTIC,
+        () -> elevatorRotorVelocity.getValueAsDouble());
+
+    Telemetry.addBoolean("Zeroing/Elevator/Attempting Zeroing", Tier.DIAGNOSTIC, () -> attemptingZeroing);
+    Telemetry.addBoolean("Zeroing/Elevator/Has Zeroed", Tier.DIAGNOSTIC, () -> hasZeroed);
   }
 
   public void setSoftwareLimits(boolean reverse, boolean forward) {
@@ -101,6 +197,13 @@ public class Elevator extends SubsystemBase {
   }
 
   public void setElevatorPosition(Measure<Distance> position) {
+    if (!waitingForPosition && !isElevatorAtPosition(position)
+        && Math.abs(position.minus(lastDesiredPosition).in(Units.Meters)) > constElevator.AT_POSITION_TOLERANCE
+            .in(Units.Meters)) {
+      positionRequestTime = Timer.getFPGATimestamp();
+      waitingForPosition = true;
+    }
+    lastDesiredPosition = position;
     elevatorMotor.setControl(positionRequest.withPosition(position.in(Units.Meters)));
   }
 
@@ -115,19 +218,27 @@ public class Elevator extends SubsystemBase {
    * @return The current position of the elevator in meters
    */
   public Measure<Distance> getElevatorPosition() {
-    return Units.Meters.of(elevatorMotor.getPosition().getValueAsDouble());
+    return Units.Meters.of(positionInput.get());
+  }
+
+  /**
+   * @return The current position of the elevator, without allocating a Measure.
+   *         <b>Units:</b> Meters
+   */
+  public double getElevatorPositionMeters() {
+    return positionInput.get();
   }
 
   public Measure<Velocity<Distance>> getVelocity() {
-    return Units.MetersPerSecond.of(elevatorMotor.getVelocity().getValueAsDouble());
+    return Units.MetersPerSecond.of(velocityInput.get());
   }
 
   public Measure<Velocity<Angle>> getRotorVelocity() {
-    return Units.RotationsPerSecond.of(elevatorMotor.getRotorVelocity().getValueAsDouble());
+    return Units.RotationsPerSecond.of(rotorVelocityInput.get());
   }
 
   public Measure<Voltage> getCurrent() {
-    return Units.Volts.of(elevatorMotor.getStatorCurrent().getValueAsDouble());
+    return Units.Volts.of(statorCurrentInput.get());
   }
 
   /**
@@ -143,24 +254,73 @@ public class Elevator extends SubsystemBase {
   }
 
   public boolean isSafeToMoveShooterAboveLimit() {
-    return getElevatorPosition().gte(constElevator.SHOOTER_ABLE_TO_MOVE_LIMIT);
+    return positionInput.get() >= constElevator.SHOOTER_ABLE_TO_MOVE_LIMIT.in(Units.Meters);
+  }
+
+  /**
+   * @return How long the elevator took to reach the last new position that was
+   *         requested. <b>Units:</b> Seconds
+   */
+  public double getLastTimeToPosition() {
+    return lastTimeToPosition;
   }
 
   public boolean getGamePieceStored() {
-    return (constElevator.NOTE_SENSOR_INVERT) ? !noteSensor.get() : noteSensor.get();
+    return (constElevator.NOTE_SENSOR_INVERT) ? !noteSensorInput.get() : noteSensorInput.get();
+  }
+
+  /**
+   * Sets what the simulated note sensor sees. Only used in simulation.
+   *
+   * @param hasGamePiece If there is a note in the drainpipe
+   */
+  public void setSimulatedGamePiece(boolean hasGamePiece) {
+    noteSensorSim.setValue((constElevator.NOTE_SENSOR_INVERT) ? !hasGamePiece : hasGamePiece);
   }
 
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
+    if (waitingForPosition && isElevatorAtPosition(lastDesiredPosition)) {
+      lastTimeToPosition = Timer.getFPGATimestamp() - positionRequestTime;
+      waitingForPosition = false;
+    }
 
-    SmartDashboard.putNumber("Elevator/Position", getElevatorPosition().in(Units.Meters));
-    SmartDashboard.putBoolean("Elevator/Safe To Move Shooter", isSafeToMoveShooterAboveLimit());
-    SmartDashboard.putNumber("Elevator/Stator Current", elevatorMotor.getStatorCurrent().getValueAsDouble());
-    SmartDashboard.putNumber("Elevator/Rotor Velocity", elevatorMotor.getRotorVelocity().getValueAsDouble());
-
-    SmartDashboard.putBoolean("Zeroing/Elevator/Attempting Zeroing", attemptingZeroing);
-    SmartDashboard.putBoolean("Zeroing/Elevator/Has Zeroed", hasZeroed);
+    LoopProfiler.mark("Elevator");
+  }
 
+  @Override
+  public void simulationPeriodic() {
+    // While replaying, every input comes from the log instead
+    if (InputLog.isReplaying()) {
+      return;
+    }
+
+    TalonFXSimState elevatorSimState = elevatorMotor.getSimState();
+    TalonFXSimState drainpipeSimState = drainpipeMotor.getSimState();
+    elevatorSimState.setSupplyVoltage(RobotController.getBatteryVoltage());
+    drainpipeSimState.setSupplyVoltage(RobotController.getBatteryVoltage());
+
+    // -- Elevator --
+    // The sim state is in the rotor's direction, but up is clockwise for our
+    // motor
+    double direction = (constElevator.MOTOR_INVERT == InvertedValue.Clockwise_Positive) ? -1 : 1;
+
+    elevatorSim.setInputVoltage(direction * elevatorSimState.getMotorVoltage());
+    elevatorSim.update(TimedRobot.kDefaultPeriod);
+
+    elevatorSimState.setRawRotorPosition(
+        direction * elevatorSim.getPositionMeters() * constElevator.MOTOR_ROTATION_TO_METERS);
+    elevatorSimState.setRotorVelocity(
+        direction * elevatorSim.getVelocityMetersPerSecond() * constElevator.MOTOR_ROTATION_TO_METERS);
+
+    // -- Drainpipe --
+    drainpipeSim.setInputVoltage(drainpipeSimState.getMotorVoltage());
+    drainpipeSim.update(TimedRobot.kDefaultPeriod);
+
+    double drainpipeRotorVelocity = Units.RadiansPerSecond.of(drainpipeSim.getAngularVelocityRadPerSec())
+        .in(Units.RotationsPerSecond);
+    drainpipeSimState.setRotorVelocity(drainpipeRotorVelocity);
+    drainpipeSimState.addRotorPosition(drainpipeRotorVelocity * TimedRobot.kDefaultPeriod);
   }
 }
@@ -8,11 +8,19 @@ import edu.wpi.first.units.Dimensionless;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.Units;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.simulation.DIOSim;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Robot;
 import frc.robot.Constants.constIntake;
 import frc.robot.RobotMap.mapIntake;
-
+import frc.robot.utils.InputLog;
+import frc.robot.utils.InputLog.BooleanInput;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SignalCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
+
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.NeutralOut;
 import com.ctre.phoenix6.hardware.TalonFX;
@@ -21,14 +29,35 @@ public class Intake extends SubsystemBase {
   TalonFX rollerMotor;
   DigitalInput noteSensor;
 
+  // Refreshed once per loop by the SignalCache
+  StatusSignal<Double> rollerSupplyCurrent, rollerStatorCurrent;
+
+  // Read by our logic, so this is logged for replay
+  BooleanInput noteSensorInput;
+
   TalonFXConfiguration rollerConfig = new TalonFXConfiguration();
 
+  private double rollerSpeed = 0;
+
+  // Only used in simulation
+  DIOSim noteSensorSim;
+
   /** Creates a new Intake. */
   public Intake() {
     rollerMotor = new TalonFX(mapIntake.ROLLER_CAN, "rio");
     noteSensor = new DigitalInput(mapIntake.NOTE_SENSOR_DIO);
 
+    rollerSupplyCurrent = SignalCache.register(rollerMotor.getSupplyCurrent());
+    rollerStatorCurrent = SignalCache.register(rollerMotor.getStatorCurrent());
+
     configure();
+    noteSensorInput = InputLog.addBoolean("Intake/Note Sensor", () -> noteSensor.get());
+    configureTelemetry();
+
+    if (Robot.isSimulation()) {
+      noteSensorSim = new DIOSim(noteSensor);
+      setSimulatedGamePiece(false);
+    }
   }
 
   public void configure() {
@@ -44,28 +73,54 @@ public class Intake extends SubsystemBase {
     rollerConfig.Voltage.PeakReverseVoltage = -12.0;
 
     rollerMotor.getConfigurator().apply(rollerConfig);
+
+    // -- Status Signals --
+    SignalCache.setUpdateFrequency(constIntake.CURRENT_FREQUENCY, rollerSupplyCurrent, rollerStatorCurrent);
+    SignalCache.optimizeBusUtilization(rollerMotor);
+  }
+
+  private void configureTelemetry() {
+    Telemetry.addBoolean("Game Piece Detected", Tier.CONTROL, () -> getGamePieceCollected());
+    Telemetry.addNumber("Intake/Supply Current", Tier.CURRENT, () -> rollerSupplyCurrent.getValueAsDouble());
+    Telemetry.addNumber("Intake/Stator Current", Tier.CURRENT, () -> rollerStatorCurrent.getValueAsDouble());
   }
 
   public void setIntakeRollerSpeed(Measure<Dimensionless> speed) {
-    rollerMotor.set(speed.in(Units.Percent));
+    rollerSpeed = speed.in(Units.Percent);
+    rollerMotor.set(rollerSpeed);
   }
 
   /**
    * Sets the rollers to neutral.
    */
   public void setRollerNeutralOutput() {
+    rollerSpeed = 0;
     rollerMotor.setControl(new NeutralOut());
   }
 
+  /**
+   * @return The last speed the rollers were set to, from -1 to 1
+   */
+  public double getRollerSpeed() {
+    return rollerSpeed;
+  }
+
+  /**
+   * Sets what the simulated note sensor sees. Only used in simulation.
+   *
+   * @param hasGamePiece If there is a note in the intake
+   */
+  public void setSimulatedGamePiece(boolean hasGamePiece) {
+    noteSensorSim.setValue((constIntake.NOTE_SENSOR_INVERT) ? !hasGamePiece : hasGamePiece);
+  }
+
   public boolean getGamePieceCollected() {
-    return (constIntake.NOTE_SENSOR_INVERT) ? !noteSensor.get() : noteSensor.get();
+    return (constIntake.NOTE_SENSOR_INVERT) ? !noteSensorInput.get() : noteSensorInput.get();
   }
 
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
-    SmartDashboard.putBoolean("Game Piece Detected", getGamePieceCollected());
-    SmartDashboard.putNumber("Intake/Supply Current", rollerMotor.getSupplyCurrent().getValueAsDouble());
-    SmartDashboard.putNumber("Intake/Stator Current", rollerMotor.getStatorCurrent().getValueAsDouble());
+    LoopProfiler.mark("Intake");
   }
 }
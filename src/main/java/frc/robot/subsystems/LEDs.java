@@ -10,6 +10,7 @@ import com.ctre.phoenix.led.CANdle;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.constLEDs;
 import frc.robot.RobotMap.mapLEDs;
+import frc.robot.utils.LoopProfiler;
 
 public class LEDs extends SubsystemBase {
 
@@ -68,5 +69,6 @@ public class LEDs extends SubsystemBase {
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
+    LoopProfiler.mark("LEDs");
   }
 }
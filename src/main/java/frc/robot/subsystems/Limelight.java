@@ -4,20 +4,147 @@
 
 package frc.robot.subsystems;
 
-import com.frcteam3255.utils.LimelightHelpers;
+import java.util.ArrayList;
+
 import com.frcteam3255.utils.LimelightHelpers.PoseEstimate;
 
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
 import edu.wpi.first.units.Angle;
 import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.Units;
 import edu.wpi.first.units.Velocity;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.constLimelight;
+import frc.robot.RobotPreferences.prefVision;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.PoseHistory;
+import frc.robot.utils.VisionScorer;
 
 public class Limelight extends SubsystemBase {
+  /**
+   * How many values each frame is logged with under {@link #VISION_LOG_KEY}:
+   * X, Y, Heading (degrees), Tag Count, Average Tag Distance, Average Tag
+   * Area, Ambiguity, Rotation Rate (degrees per second), 1 for MegaTag 2, and
+   * which camera it came from.
+   */
+  public static final int VISION_LOG_LENGTH = 10;
+  public static final String VISION_LOG_KEY = "/Vision/Estimates";
+
+  // The raw fiducials after the pose are 7 values per tag, ambiguity is last
+  private static final int RAW_FIDUCIALS_START = 11;
+  private static final int RAW_FIDUCIAL_AMBIGUITY = 6;
+
+  /**
+   * One of our Limelights. Its topics are resolved once so that we aren't
+   * looking up its table by name every loop, and its bot pose topics keep every
+   * frame since the last loop so none are missed.
+   */
+  private static final class Camera {
+    final DoubleArrayPublisher robotOrientationPublisher;
+    final DoubleArrayPublisher cameraPosePublisher;
+    final DoubleArraySubscriber megaTag1Subscriber, megaTag2Subscriber;
+    final DoublePublisher ingestTimePublisher;
+    // How old the last frame was when it was published. <b>Units:</b> Seconds
+    double lastFrameLatency = 0;
+
+    Camera(String name, Transform3d robotToCamera) {
+      NetworkTable table = NetworkTableInstance.getDefault().getTable(name);
+      robotOrientationPublisher = table.getDoubleArrayTopic("robot_orientation_set").publish();
+      megaTag1Subscriber = table.getDoubleArrayTopic("botpose_wpiblue")
+          .subscribe(new double[0], PubSubOption.pollStorage(constLimelight.FRAME_QUEUE_SIZE));
+      megaTag2Subscriber = table.getDoubleArrayTopic("botpose_orb_wpiblue")
+          .subscribe(new double[0], PubSubOption.pollStorage(constLimelight.FRAME_QUEUE_SIZE));
+      ingestTimePublisher = NetworkTableInstance.getDefault()
+          .getDoubleTopic("/SmartDashboard/Limelight/" + name + "/Ingest Time (ms)").publish();
+
+      // The Limelight measures side to the right and pitch upwards
+      cameraPosePublisher = table.getDoubleArrayTopic("camerapose_robotspace_set").publish();
+      cameraPosePublisher.set(new double[] {
+          robotToCamera.getX(),
+          -robotToCamera.getY(),
+          robotToCamera.getZ(),
+          Math.toDegrees(robotToCamera.getRotation().getX()),
+          -Math.toDegrees(robotToCamera.getRotation().getY()),
+          Math.toDegrees(robotToCamera.getRotation().getZ()) });
+    }
+  }
+
+  /**
+   * A frame waiting to be added to the pose estimator, so that frames from
+   * every camera can be added in the order they were captured.
+   */
+  private static final class PendingFrame {
+    final PoseEstimate estimate;
+    final double ambiguity;
+    final int cameraIndex;
+
+    PendingFrame(PoseEstimate estimate, double ambiguity, int cameraIndex) {
+      this.estimate = estimate;
+      this.ambiguity = ambiguity;
+      this.cameraIndex = cameraIndex;
+    }
+  }
+
+  Drivetrain subDrivetrain;
+
   PoseEstimate lastEstimate = new PoseEstimate();
   private boolean useMegaTag2 = false;
 
-  public Limelight() {
+  // -- Cameras --
+  private final Camera[] cameras;
+  private final double[] robotOrientation = new double[6];
+  private final ArrayList<PendingFrame> pendingFrames = new ArrayList<PendingFrame>();
+
+  // -- Measurement Scoring --
+  private final VisionScorer scorer = new VisionScorer(0, 0, 0, 0);
+  // Every frame, logged for the VisionEvaluator
+  private DoubleArrayLogEntry estimateEntry;
+  private final double[] estimateLogValues = new double[VISION_LOG_LENGTH];
+
+  // -- Ingestion Telemetry --
+  private long acceptedUpdates = 0;
+  private long rejectedUpdates = 0;
+  IntegerPublisher acceptedUpdatesPublisher = NetworkTableInstance.getDefault()
+      .getIntegerTopic("/SmartDashboard/Limelight/Accepted Updates").publish();
+  IntegerPublisher rejectedUpdatesPublisher = NetworkTableInstance.getDefault()
+      .getIntegerTopic("/SmartDashboard/Limelight/Rejected Updates").publish();
+  DoublePublisher ingestTimePublisher = NetworkTableInstance.getDefault()
+      .getDoubleTopic("/SmartDashboard/Limelight/Ingest Time (ms)").publish();
+  BooleanPublisher overBudgetPublisher = NetworkTableInstance.getDefault()
+      .getBooleanTopic("/SmartDashboard/Limelight/Over Budget").publish();
+  DoublePublisher stdDevsScalePublisher = NetworkTableInstance.getDefault()
+      .getDoubleTopic("/SmartDashboard/Limelight/Std Devs Scale").publish();
+
+  public Limelight(Drivetrain subDrivetrain) {
+    this(subDrivetrain, constLimelight.LIMELIGHT_NAMES, constLimelight.ROBOT_TO_LIMELIGHTS);
+  }
+
+  /**
+   * Reads from the given cameras instead of LIMELIGHT_NAMES, so tests can fuse
+   * more cameras than the robot has.
+   */
+  Limelight(Drivetrain subDrivetrain, String[] names, Transform3d[] robotToCameras) {
+    this.subDrivetrain = subDrivetrain;
+
+    cameras = new Camera[names.length];
+    for (int i = 0; i < cameras.length; i++) {
+      cameras[i] = new Camera(names[i], robotToCameras[i]);
+    }
   }
 
   public PoseEstimate getPoseEstimate() {
@@ -28,22 +155,40 @@ public class Limelight extends SubsystemBase {
     this.useMegaTag2 = useMegaTag2;
   }
 
+  /**
+   * @return How many frames have been added to the pose estimator
+   */
+  long getAcceptedUpdates() {
+    return acceptedUpdates;
+  }
+
   /**
    * Determines if a given pose estimate should be rejected.
-   * 
+   *
    * @param poseEstimate The pose estimate to check
-   * @param gyroRate     The current rate of rotation observed by our gyro. <b>
-   *                     Units: </b> Rotations per second
+   * @param gyroRate     The current rate of rotation observed by our gyro
    * @return True if the estimate should be rejected
    */
   public boolean rejectUpdate(PoseEstimate poseEstimate, Measure<Velocity<Angle>> gyroRate) {
+    return rejectUpdate(poseEstimate, gyroRate.in(Units.DegreesPerSecond));
+  }
+
+  /**
+   * Determines if a given pose estimate should be rejected.
+   *
+   * @param poseEstimate The pose estimate to check
+   * @param gyroRate     The current rate of rotation observed by our gyro. <b>
+   *                     Units: </b> Degrees per second
+   * @return True if the estimate should be rejected
+   */
+  public boolean rejectUpdate(PoseEstimate poseEstimate, double gyroRate) {
     // We only use MegaTag 1 in disabled, so we have full faith in our position
     if (!useMegaTag2 && (poseEstimate.tagCount != 0)) {
       return false;
     }
 
     // Angular velocity is too high to have accurate vision
-    if (gyroRate.compareTo(constLimelight.MAX_ANGULAR_VELOCITY) > 0) {
+    if (Math.abs(gyroRate) > constLimelight.MAX_ANGULAR_VELOCITY.in(Units.DegreesPerSecond)) {
       return true;
     }
 
@@ -52,7 +197,7 @@ public class Limelight extends SubsystemBase {
       return true;
     }
     // 1 Tag with a large area
-    if (poseEstimate.tagCount == 1 && LimelightHelpers.getTA("limelight") > constLimelight.AREA_THRESHOLD) {
+    if (poseEstimate.tagCount == 1 && poseEstimate.avgTagArea > constLimelight.AREA_THRESHOLD) {
       return false;
       // 2 tags
     } else if (poseEstimate.tagCount > 1) {
@@ -62,17 +207,172 @@ public class Limelight extends SubsystemBase {
     return true;
   }
 
-  @Override
-  public void periodic() {
-    PoseEstimate currentEstimate;
-    if (useMegaTag2) {
-      currentEstimate = LimelightHelpers.getBotPoseEstimate_wpiBlue_MegaTag2("limelight");
+  /**
+   * Sends each Limelight our heading (for MegaTag 2) and passes every frame
+   * they have published since the last loop to the Drivetrain, oldest first.
+   *
+   * <p>
+   * A Limelight solves each frame with the last heading it received, so we
+   * send the heading from one frame latency ago rather than our current one.
+   * MegaTag 2 estimates then get their rotation, and are checked against our
+   * turning rate, at the time the frame was captured instead of now.
+   * </p>
+   */
+  private void ingestVisionMeasurements() {
+    PoseHistory poseHistory = subDrivetrain.getPoseHistory();
+    double now = RobotController.getFPGATime() / 1e6;
+
+    pendingFrames.clear();
+    for (int i = 0; i < cameras.length; i++) {
+      long startTime = RobotController.getFPGATime();
+      readFrames(cameras[i], i, poseHistory, now);
+      cameras[i].ingestTimePublisher.set((RobotController.getFPGATime() - startTime) / 1000.0);
+    }
+    if (pendingFrames.isEmpty()) {
+      return;
+    }
+
+    // One camera's frames can be older than another's, and the pose estimator
+    // rewinds past (and drops) newer measurements when given an older one
+    pendingFrames.sort((a, b) -> Double.compare(a.estimate.timestampSeconds, b.estimate.timestampSeconds));
+
+    scorer.setWeights(prefVision.stdDevsDistanceWeight.getValue(), prefVision.stdDevsAreaWeight.getValue(),
+        prefVision.stdDevsRotationRateWeight.getValue(), prefVision.stdDevsAmbiguityWeight.getValue());
+    double positionStdDevs = (useMegaTag2) ? prefVision.megaTag2StdDevsPosition.getValue()
+        : prefVision.megaTag1StdDevsPosition.getValue();
+    double headingStdDevs = (useMegaTag2) ? prefVision.megaTag2StdDevsHeading.getValue()
+        : prefVision.megaTag1StdDevsHeading.getValue();
+
+    for (int i = 0; i < pendingFrames.size(); i++) {
+      PendingFrame frame = pendingFrames.get(i);
+      PoseEstimate currentEstimate = frame.estimate;
+
+      double gyroRate = subDrivetrain.getGyroRate();
+      if (!poseHistory.isEmpty()) {
+        gyroRate = Math.toDegrees(poseHistory.getHeadingRate(currentEstimate.timestampSeconds));
+        if (useMegaTag2) {
+          currentEstimate.pose = new Pose2d(currentEstimate.pose.getTranslation(),
+              new Rotation2d(poseHistory.getHeading(currentEstimate.timestampSeconds)));
+        }
+      }
+
+      logEstimate(currentEstimate, frame.ambiguity, gyroRate, frame.cameraIndex);
+
+      if (rejectUpdate(currentEstimate, gyroRate)) {
+        rejectedUpdates++;
+      } else {
+        double scale = scorer.getScale(currentEstimate.tagCount, currentEstimate.avgTagDist,
+            currentEstimate.avgTagArea, frame.ambiguity, gyroRate);
+        subDrivetrain.addVisionMeasurement(currentEstimate.pose, currentEstimate.timestampSeconds,
+            scorer.getStdDevs(scale, positionStdDevs, headingStdDevs));
+        stdDevsScalePublisher.set(scale);
+        acceptedUpdates++;
+      }
+    }
+    lastEstimate = pendingFrames.get(pendingFrames.size() - 1).estimate;
+  }
+
+  /**
+   * Sends one camera our heading and adds every new frame from it to the
+   * pending frames.
+   */
+  private void readFrames(Camera camera, int cameraIndex, PoseHistory poseHistory, double now) {
+    // MegaTag2 needs the heading of our pose estimate, not the raw gyro, since
+    // they differ once the estimate has been reset or corrected by vision
+    if (poseHistory.isEmpty()) {
+      robotOrientation[0] = subDrivetrain.getPose().getRotation().getDegrees();
     } else {
-      currentEstimate = LimelightHelpers.getBotPoseEstimate_wpiBlue("limelight");
+      robotOrientation[0] = Math.toDegrees(poseHistory.getHeading(now - camera.lastFrameLatency));
+    }
+    camera.robotOrientationPublisher.set(robotOrientation);
+
+    // Only read the queue we're using, but drain both so old frames don't pile up
+    TimestampedDoubleArray[] megaTag1Frames = camera.megaTag1Subscriber.readQueue();
+    TimestampedDoubleArray[] megaTag2Frames = camera.megaTag2Subscriber.readQueue();
+
+    for (TimestampedDoubleArray frame : (useMegaTag2) ? megaTag2Frames : megaTag1Frames) {
+      PoseEstimate estimate = parseFrame(frame);
+      if (estimate == null) {
+        continue;
+      }
+      camera.lastFrameLatency = estimate.latency / 1000.0;
+      pendingFrames.add(new PendingFrame(estimate, getAmbiguity(frame.value, estimate.tagCount), cameraIndex));
+    }
+  }
+
+  /**
+   * @return The ambiguity of the only tag in a frame, or 0 if there are more (or
+   *         the frame has no raw fiducials)
+   */
+  private static double getAmbiguity(double[] values, int tagCount) {
+    int index = RAW_FIDUCIALS_START + RAW_FIDUCIAL_AMBIGUITY;
+    if (tagCount != 1 || values.length <= index) {
+      return 0;
     }
+    return values[index];
+  }
 
-    if (currentEstimate != null) {
-      lastEstimate = currentEstimate;
+  /**
+   * Logs a frame with what it was scored on, at the time it was captured.
+   */
+  private void logEstimate(PoseEstimate estimate, double ambiguity, double rotationRate, int cameraIndex) {
+    if (estimateEntry == null) {
+      estimateEntry = new DoubleArrayLogEntry(DataLogManager.getLog(), VISION_LOG_KEY);
     }
+    estimateLogValues[0] = estimate.pose.getX();
+    estimateLogValues[1] = estimate.pose.getY();
+    estimateLogValues[2] = estimate.pose.getRotation().getDegrees();
+    estimateLogValues[3] = estimate.tagCount;
+    estimateLogValues[4] = estimate.avgTagDist;
+    estimateLogValues[5] = estimate.avgTagArea;
+    estimateLogValues[6] = ambiguity;
+    estimateLogValues[7] = rotationRate;
+    estimateLogValues[8] = (useMegaTag2) ? 1 : 0;
+    estimateLogValues[9] = cameraIndex;
+    estimateEntry.append(estimateLogValues, (long) (estimate.timestampSeconds * 1e6));
+  }
+
+  /**
+   * Turns one bot pose frame into a pose estimate, the same way LimelightHelpers
+   * does, but timestamped from when this frame arrived rather than the latest
+   * one.
+   *
+   * @param frame A frame from one of the bot pose topics
+   * @return The pose estimate, or null if the frame is empty
+   */
+  private static PoseEstimate parseFrame(TimestampedDoubleArray frame) {
+    double[] values = frame.value;
+    if (values.length < 11) {
+      return null;
+    }
+
+    PoseEstimate estimate = new PoseEstimate();
+    estimate.pose = new Pose2d(values[0], values[1], Rotation2d.fromDegrees(values[5]));
+    estimate.latency = values[6];
+    estimate.tagCount = (int) values[7];
+    estimate.tagSpan = values[8];
+    estimate.avgTagDist = values[9];
+    estimate.avgTagArea = values[10];
+    estimate.timestampSeconds = (frame.timestamp / 1e6) - (estimate.latency / 1000.0);
+    return estimate;
+  }
+
+  @Override
+  public void periodic() {
+    long startTime = RobotController.getFPGATime();
+
+    // While replaying, the pose already includes every vision measurement
+    if (!InputLog.isReplaying()) {
+      ingestVisionMeasurements();
+    }
+
+    acceptedUpdatesPublisher.set(acceptedUpdates);
+    rejectedUpdatesPublisher.set(rejectedUpdates);
+    double ingestTime = (RobotController.getFPGATime() - startTime) / 1000.0;
+    ingestTimePublisher.set(ingestTime);
+    overBudgetPublisher.set(
+        ingestTime > constLimelight.INGEST_TIME_BUDGET.in(Units.Milliseconds) * cameras.length);
+
+    LoopProfiler.mark("Limelight");
   }
 }
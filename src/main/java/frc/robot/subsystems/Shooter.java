@@ -5,6 +5,7 @@
 package frc.robot.subsystems;
 
 import com.ctre.phoenix6.SignalLogger;
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.MotionMagicVelocityVoltage;
 import com.ctre.phoenix6.controls.MotionMagicVoltage;
@@ -14,22 +15,38 @@ import com.ctre.phoenix6.controls.PositionVoltage;
 import com.ctre.phoenix6.controls.VelocityVoltage;
 import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.sim.TalonFXSimState;
 
-import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.Angle;
 import edu.wpi.first.units.Dimensionless;
 import edu.wpi.first.units.Measure;
+import edu.wpi.first.units.MutableMeasure;
+import edu.wpi.first.units.Time;
 import edu.wpi.first.units.Units;
 import edu.wpi.first.units.Velocity;
 import edu.wpi.first.units.Voltage;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
+import frc.robot.Robot;
 import frc.robot.Constants.constShooter;
 import frc.robot.Constants.constShooter.ShooterPositionGroup;
+import frc.robot.Constants.constTransfer;
 import frc.robot.RobotMap.mapShooter;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.InputLog.DoubleInput;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SignalCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
+import frc.robot.utils.WorldState;
 
 public class Shooter extends SubsystemBase {
   TalonFX leftMotor, rightMotor, pivotMotor;
@@ -42,10 +59,23 @@ public class Shooter extends SubsystemBase {
 
   VelocityVoltage velocityRequest;
   VoltageOut voltageRequest;
+
+  // Refreshed once per loop by the SignalCache
+  StatusSignal<Double> leftVelocity, leftStatorCurrent, leftSupplyCurrent;
+  StatusSignal<Double> rightVelocity, rightStatorCurrent, rightSupplyCurrent;
+  StatusSignal<Double> pivotPosition, pivotVelocity, pivotRotorVelocity, pivotStatorCurrent, pivotSupplyCurrent;
+  StatusSignal<Double> pivotTemperature;
+
+  // Read by our logic, so these are logged for replay
+  DoubleInput leftVelocityInput, rightVelocityInput;
+  DoubleInput pivotPositionInput, pivotVelocityInput, pivotRotorVelocityInput, pivotStatorCurrentInput;
+
   private boolean ignoreFlywheelSpeed = false;
-  private Measure<Velocity<Angle>> desiredLeftVelocity = Units.RotationsPerSecond.of(0);
-  private Measure<Velocity<Angle>> desiredRightVelocity = Units.RotationsPerSecond.of(0);
-  private Measure<Angle> lastDesiredPivotAngle = Units.Degrees.of(-3255);
+  // Mutable, so that setting them every loop doesn't allocate
+  private final MutableMeasure<Velocity<Angle>> desiredLeftVelocity = MutableMeasure.zero(Units.RotationsPerSecond);
+  private final MutableMeasure<Velocity<Angle>> desiredRightVelocity = MutableMeasure.zero(Units.RotationsPerSecond);
+  private final MutableMeasure<Angle> lastDesiredPivotAngle = MutableMeasure.ofRelativeUnits(-3255, Units.Degrees);
+  private final NeutralOut neutralRequest = new NeutralOut();
 
   int currentRightSlot = 0;
   int currentLeftSlot = 0;
@@ -53,11 +83,62 @@ public class Shooter extends SubsystemBase {
   public static boolean attemptingZeroing = false;
   public static boolean hasZeroed = false;
 
+  // -- Time to Ready --
+  // Measured from when a different velocity or pivot angle is requested until
+  // readyToShoot()
+  private double readyRequestTime = 0;
+  private boolean waitingForReady = false;
+  private double lastTimeToReady = 0;
+
+  // -- Readiness Prediction --
+  // Estimated from the change in each flywheel's velocity between loops.
+  // <b>Units:</b> Rotations per Second Squared
+  private final LinearFilter leftAccelerationFilter = LinearFilter
+      .movingAverage(constShooter.ACCELERATION_FILTER_TAPS);
+  private final LinearFilter rightAccelerationFilter = LinearFilter
+      .movingAverage(constShooter.ACCELERATION_FILTER_TAPS);
+  private double leftAcceleration = 0;
+  private double rightAcceleration = 0;
+  private double lastLeftVelocity = 0;
+  private double lastRightVelocity = 0;
+  private double lastVelocityTime = 0;
+  // When we started feeding a note that we predicted we'd be ready for, and
+  // when we actually were. <b>Units:</b> Seconds
+  private boolean waitingForPredictedReady = false;
+  private double predictedReadyTime = 0;
+  private double actualReadyTime = 0;
+
+  // -- Pre-Spool --
+  // If the flywheels are spinning while we hold a note, rather than for a shot
+  private boolean preSpooling = false;
+  // How much energy the flywheels have used while pre-spooling. <b>Units:</b>
+  // Joules
+  private double preSpoolEnergy = 0;
+
+  // Only used in simulation
+  FlywheelSim leftFlywheelSim, rightFlywheelSim;
+  SingleJointedArmSim pivotSim;
+
   public Shooter() {
     leftMotor = new TalonFX(mapShooter.SHOOTER_LEFT_MOTOR_CAN, "rio");
     rightMotor = new TalonFX(mapShooter.SHOOTER_RIGHT_MOTOR_CAN, "rio");
     pivotMotor = new TalonFX(mapShooter.SHOOTER_PIVOT_MOTOR_CAN, "rio");
 
+    leftVelocity = SignalCache.register(leftMotor.getVelocity());
+    leftStatorCurrent = SignalCache.register(leftMotor.getStatorCurrent());
+    leftSupplyCurrent = SignalCache.register(leftMotor.getSupplyCurrent());
+
+    rightVelocity = SignalCache.register(rightMotor.getVelocity());
+    rightStatorCurrent = SignalCache.register(rightMotor.getStatorCurrent());
+    rightSupplyCurrent = SignalCache.register(rightMotor.getSupplyCurrent());
+
+    pivotPosition = SignalCache.register(pivotMotor.getPosition());
+    pivotVelocity = SignalCache.register(pivotMotor.getVelocity());
+    pivotRotorVelocity = SignalCache.register(pivotMotor.getRotorVelocity());
+    pivotStatorCurrent = SignalCache.register(pivotMotor.getStatorCurrent());
+    pivotSupplyCurrent = SignalCache.register(pivotMotor.getSupplyCurrent());
+    pivotTemperature = SignalCache.register(pivotMotor.getDeviceTemp());
+
     leftConfig = new TalonFXConfiguration();
     rightConfig = new TalonFXConfiguration();
     pivotConfig = new TalonFXConfiguration();
@@ -70,6 +151,12 @@ public class Shooter extends SubsystemBase {
     musicRequest = new MusicTone(0);
 
     configure();
+    configureInputs();
+    configureTelemetry();
+
+    if (Robot.isSimulation()) {
+      configureSimulation();
+    }
   }
 
   public void configure() {
@@ -120,6 +207,97 @@ public class Shooter extends SubsystemBase {
     pivotConfig.CurrentLimits.StatorCurrentLimit = 50;
 
     pivotMotor.getConfigurator().apply(pivotConfig);
+
+    // -- Status Signals --
+    // The left motor's voltage is only read by the SignalLogger during SysId
+    SignalCache.setUpdateFrequency(constShooter.FLYWHEEL_VELOCITY_FREQUENCY,
+        leftVelocity, rightVelocity, leftMotor.getMotorVoltage());
+    SignalCache.setUpdateFrequency(constShooter.PIVOT_POSITION_FREQUENCY,
+        pivotPosition, pivotVelocity, pivotRotorVelocity);
+    SignalCache.setUpdateFrequency(constShooter.CURRENT_FREQUENCY,
+        leftStatorCurrent, leftSupplyCurrent, rightStatorCurrent, rightSupplyCurrent,
+        pivotStatorCurrent, pivotSupplyCurrent);
+    SignalCache.setUpdateFrequency(constShooter.PIVOT_TEMPERATURE_FREQUENCY, pivotTemperature);
+    SignalCache.optimizeBusUtilization(leftMotor, rightMotor, pivotMotor);
+  }
+
+  private void configureSimulation() {
+    leftFlywheelSim = new FlywheelSim(DCMotor.getFalcon500(1), 1, constShooter.FLYWHEEL_MOI);
+    rightFlywheelSim = new FlywheelSim(DCMotor.getFalcon500(1), 1, constShooter.FLYWHEEL_MOI);
+
+    // The arm sim stops at the limits, which act as our hard stops
+    double pivotLength = constShooter.PIVOT_SIM_LENGTH.in(Units.Meters);
+    pivotSim = new SingleJointedArmSim(DCMotor.getFalcon500(1), constShooter.PIVOT_GEAR_RATIO,
+        SingleJointedArmSim.estimateMOI(pivotLength, constShooter.PIVOT_SIM_MASS.in(Units.Kilograms)),
+        pivotLength,
+        constShooter.PIVOT_BACKWARD_LIMIT.in(Units.Radians),
+        constShooter.PIVOT_FORWARD_LIMIT.in(Units.Radians),
+        true,
+        constShooter.PIVOT_BACKWARD_LIMIT.in(Units.Radians));
+  }
+
+  private void configureInputs() {
+    leftVelocityInput = InputLog.addDouble("Shooter/Left/Velocity", () -> leftVelocity.getValueAsDouble());
+    rightVelocityInput = InputLog.addDouble("Shooter/Right/Velocity", () -> rightVelocity.getValueAsDouble());
+    pivotPositionInput = InputLog.addDouble("Shooter/Pivot/Position", () -> pivotPosition.getValueAsDouble());
+    pivotVelocityInput = InputLog.addDouble("Shooter/Pivot/Velocity", () -> pivotVelocity.getValueAsDouble());
+    pivotRotorVelocityInput = InputLog.addDouble("Shooter/Pivot/Rotor Velocity",
+        () -> pivotRotorVelocity.getValueAsDouble());
+    pivotStatorCurrentInput = InputLog.addDouble("Shooter/Pivot/Stator Current",
+        () -> pivotStatorCurrent.getValueAsDouble());
+  }
+
+  private void configureTelemetry() {
+    Telemetry.addNumber("Shooter/Left/Velocity RPS", Tier.CONTROL,
+        () -> getLeftShooterVelocityRPS());
+    Telemetry.addNumber("Shooter/Left/Desired Velocity RPS", Tier.CONTROL,
+        () -> desiredLeftVelocity.in(Units.RotationsPerSecond));
+    Telemetry.addBoolean("Shooter/Left/Up to Speed", Tier.CONTROL, () -> isLeftShooterUpToSpeed());
+    Telemetry.addNumber("Shooter/Left/PID Slot", Tier.DIAGNOSTIC, () -> currentLeftSlot);
+    Telemetry.addNumber("Shooter/Left/Stator Current", Tier.CURRENT,
+        () -> leftStatorCurrent.getValueAsDouble());
+    Telemetry.addNumber("Shooter/Left/Supply Current", Tier.CURRENT,
+        () -> leftSupplyCurrent.getValueAsDouble());
+
+    Telemetry.addNumber("Shooter/Right/Velocity RPS", Tier.CONTROL,
+        () -> getRightShooterVelocityRPS());
+    Telemetry.addNumber("Shooter/Right/Desired Velocity RPS", Tier.CONTROL,
+        () -> desiredRightVelocity.in(Units.RotationsPerSecond));
+    Telemetry.addBoolean("Shooter/Right/Up to Speed", Tier.CONTROL, () -> isRightShooterUpToSpeed());
+    Telemetry.addNumber("Shooter/Right/PID Slot", Tier.DIAGNOSTIC, () -> currentRightSlot);
+    Telemetry.addNumber("Shooter/Right/Stator Current", Tier.CURRENT,
+        () -> rightStatorCurrent.getValueAsDouble());
+    Telemetry.addNumber("Shooter/Right/Supply Current", Tier.CURRENT,
+        () -> rightSupplyCurrent.getValueAsDouble());
+
+    Telemetry.addNumber("Shooter/Pivot/Position", Tier.CONTROL, () -> getShooterPositionDegrees());
+    Telemetry.addNumber("Shooter/Pivot/Last Desired Angle", Tier.CONTROL,
+        () -> lastDesiredPivotAngle.in(Units.Degrees));
+    Telemetry.addBoolean("Shooter/Pivot/At Desired Position", Tier.CONTROL,
+        () -> isShooterAtPosition(lastDesiredPivotAngle));
+    Telemetry.addNumber("Shooter/Pivot/Stator Current", Tier.CURRENT,
+        () -> pivotStatorCurrent.getValueAsDouble());
+    Telemetry.addNumber("Shooter/Pivot/Supply Current", Tier.CURRENT,
+        () -> pivotSupplyCurrent.getValueAsDouble());
+    Telemetry.addNumber("Shooter/Pivot/Rotor Velocity", Tier.DIAGNOSTIC,
+        () -> pivotRotorVelocity.getValueAsDouble());
+    Telemetry.addNumber("Shooter/Pivot/Temperature", Tier.DIAGNOSTIC,
+        () -> pivotTemperature.getValueAsDouble());
+
+    Telemetry.addBoolean("Shooter/Safe to Move Elevator", Tier.CONTROL, () -> isSafeToMoveElevator());
+    Telemetry.addBoolean("Shooter/Ready to Shoot", Tier.CONTROL, () -> WorldState.isReadyToShoot());
+    Telemetry.addNumber("Shooter/Time to Ready", Tier.CONTROL, () -> lastTimeToReady);
+    Telemetry.addNumber("Shooter/Predicted Ready Time", Tier.CONTROL, () -> predictedReadyTime);
+    Telemetry.addNumber("Shooter/Actual Ready Time", Tier.CONTROL, () -> actualReadyTime);
+    Telemetry.addNumber("Shooter/Ready Prediction Error (ms)", Tier.CONTROL,
+        () -> (actualReadyTime - predictedReadyTime) * 1000);
+    Telemetry.addBoolean("Shooter/Pre-Spooling", Tier.CONTROL, () -> preSpooling);
+    Telemetry.addNumber("Shooter/Pre-Spool Energy (J)", Tier.CURRENT, () -> preSpoolEnergy);
+    Telemetry.addNumber("Shooter/Last Desired Pivot Angle", Tier.CONTROL,
+        () -> lastDesiredPivotAngle.in(Units.Degrees));
+
+    Telemetry.addBoolean("Zeroing/Pivot/Attempting Zeroing", Tier.DIAGNOSTIC, () -> attemptingZeroing);
+    Telemetry.addBoolean("Zeroing/Pivot/Has Zeroed", Tier.DIAGNOSTIC, () -> hasZeroed);
   }
 
   public void setPivotSoftwareLimits(boolean reverse, boolean forward) {
@@ -137,8 +315,10 @@ public class Shooter extends SubsystemBase {
         && desiredRightVelocity.in(Units.RotationsPerSecond) == 0) {
       setShootingNeutralOutput();
     } else {
-      currentLeftSlot = (desiredLeftVelocity.lte(constShooter.LEFT_SLOT_1_THRESH)) ? 1 : 0;
-      currentRightSlot = (desiredRightVelocity.lte(constShooter.RIGHT_SLOT_1_THRESH)) ? 1 : 0;
+      currentLeftSlot = (desiredLeftVelocity.in(Units.RotationsPerSecond) <= constShooter.LEFT_SLOT_1_THRESH
+          .in(Units.RotationsPerSecond)) ? 1 : 0;
+      currentRightSlot = (desiredRightVelocity.in(Units.RotationsPerSecond) <= constShooter.RIGHT_SLOT_1_THRESH
+          .in(Units.RotationsPerSecond)) ? 1 : 0;
 
       leftMotor.setControl(
           motionMagicRequest.withVelocity(desiredLeftVelocity.in(Units.RotationsPerSecond)).withSlot(currentLeftSlot));
@@ -152,39 +332,55 @@ public class Shooter extends SubsystemBase {
    * Sets all of the flywheel motors to neutral.
    */
   public void setShootingNeutralOutput() {
-    setDesiredVelocities(Units.RotationsPerSecond.zero(), Units.RotationsPerSecond.zero());
-    leftMotor.setControl(new NeutralOut());
-    rightMotor.setControl(new NeutralOut());
+    setDesiredVelocities(0, 0);
+    leftMotor.setControl(neutralRequest);
+    rightMotor.setControl(neutralRequest);
   }
 
   public void setPivotNeutralOutput() {
-    pivotMotor.setControl(new NeutralOut());
+    pivotMotor.setControl(neutralRequest);
   }
 
   /**
    * @return The current velocity of the left shooter motor.
    */
   public Measure<Velocity<Angle>> getLeftShooterVelocity() {
-    return Units.RotationsPerSecond.of(leftMotor.getVelocity().getValueAsDouble());
+    return Units.RotationsPerSecond.of(leftVelocityInput.get());
   }
 
   /**
    * @return The current velocity of the right shooter motor.
    */
   public Measure<Velocity<Angle>> getRightShooterVelocity() {
-    return Units.RotationsPerSecond.of(rightMotor.getVelocity().getValueAsDouble());
+    return Units.RotationsPerSecond.of(rightVelocityInput.get());
+  }
+
+  /**
+   * @return The current velocity of the left shooter motor, without allocating a
+   *         Measure. <b>Units:</b> Rotations per second
+   */
+  public double getLeftShooterVelocityRPS() {
+    return leftVelocityInput.get();
+  }
+
+  /**
+   * @return The current velocity of the right shooter motor, without allocating
+   *         a Measure. <b>Units:</b> Rotations per second
+   */
+  public double getRightShooterVelocityRPS() {
+    return rightVelocityInput.get();
   }
 
   public Measure<Velocity<Angle>> getPivotVelocity() {
-    return Units.RotationsPerSecond.of(pivotMotor.getVelocity().getValueAsDouble());
+    return Units.RotationsPerSecond.of(pivotVelocityInput.get());
   }
 
   public Measure<Velocity<Angle>> getPivotRotorVelocity() {
-    return Units.RotationsPerSecond.of(pivotMotor.getRotorVelocity().getValueAsDouble());
+    return Units.RotationsPerSecond.of(pivotRotorVelocityInput.get());
   }
 
   public Measure<Voltage> getPivotCurrent() {
-    return Units.Volts.of(pivotMotor.getStatorCurrent().getValueAsDouble());
+    return Units.Volts.of(pivotStatorCurrentInput.get());
   }
 
   /**
@@ -194,7 +390,8 @@ public class Shooter extends SubsystemBase {
     if (desiredLeftVelocity.baseUnitMagnitude() == 0) {
       return false;
     }
-    return (desiredLeftVelocity.minus(getLeftShooterVelocity())).lte(constShooter.UP_TO_SPEED_TOLERANCE);
+    return desiredLeftVelocity.in(Units.RotationsPerSecond)
+        - leftVelocityInput.get() <= constShooter.UP_TO_SPEED_TOLERANCE.in(Units.RotationsPerSecond);
   }
 
   /**
@@ -205,7 +402,8 @@ public class Shooter extends SubsystemBase {
       return false;
     }
 
-    return (desiredRightVelocity.minus(getRightShooterVelocity())).lte(constShooter.UP_TO_SPEED_TOLERANCE);
+    return desiredRightVelocity.in(Units.RotationsPerSecond)
+        - rightVelocityInput.get() <= constShooter.UP_TO_SPEED_TOLERANCE.in(Units.RotationsPerSecond);
   }
 
   /**
@@ -220,11 +418,19 @@ public class Shooter extends SubsystemBase {
    * @return The current position of the shooter in rotations
    */
   public Measure<Angle> getShooterPosition() {
-    return Units.Rotations.of(pivotMotor.getPosition().getValueAsDouble());
+    return Units.Rotations.of(pivotPositionInput.get());
+  }
+
+  /**
+   * @return The current position of the shooter, without allocating a Measure.
+   *         <b>Units:</b> Degrees
+   */
+  public double getShooterPositionDegrees() {
+    return Units.Degrees.convertFrom(pivotPositionInput.get(), Units.Rotations);
   }
 
   public boolean isSafeToMoveElevator() {
-    return getShooterPosition().lte(constShooter.NEUTRAL_OUT_THRESHOLD);
+    return pivotPositionInput.get() <= constShooter.NEUTRAL_OUT_THRESHOLD.in(Units.Rotations);
   }
 
   /**
@@ -234,7 +440,7 @@ public class Shooter extends SubsystemBase {
     if (lastDesiredPivotAngle.in(Units.Degrees) == -3255) {
       return false;
     }
-    return (Math.abs(getShooterPosition().minus(position).in(Units.Rotations)) < constShooter.AT_POSITION_TOLERANCE
+    return (Math.abs(pivotPositionInput.get() - position.in(Units.Rotations)) < constShooter.AT_POSITION_TOLERANCE
         .in(Units.Rotations));
 
     // TODO: test if the code below works and makes our lives easier
@@ -243,11 +449,61 @@ public class Shooter extends SubsystemBase {
   }
 
   public void setLeftDesiredVelocity(Measure<Velocity<Angle>> desiredVelocity) {
-    desiredLeftVelocity = desiredVelocity;
+    setDesiredVelocity(desiredLeftVelocity, desiredVelocity.in(Units.RotationsPerSecond));
   }
 
   public void setRightDesiredVelocity(Measure<Velocity<Angle>> desiredVelocity) {
-    desiredRightVelocity = desiredVelocity;
+    setDesiredVelocity(desiredRightVelocity, desiredVelocity.in(Units.RotationsPerSecond));
+  }
+
+  /**
+   * @param desiredVelocity <b>Units:</b> Rotations per Second
+   */
+  private void setDesiredVelocity(MutableMeasure<Velocity<Angle>> currentDesiredVelocity, double desiredVelocity) {
+    if (preSpooling) {
+      // A shot was just prepped, so Time to Ready restarts here even if the pivot
+      // started it while pre-spooling, or the speed is the same
+      preSpooling = false;
+      waitingForReady = false;
+      startReadyTimer();
+    } else if (Math.abs(desiredVelocity - currentDesiredVelocity.in(Units.RotationsPerSecond))
+        > constShooter.UP_TO_SPEED_TOLERANCE.in(Units.RotationsPerSecond)) {
+      startReadyTimer();
+    }
+    currentDesiredVelocity.mut_replace(desiredVelocity, Units.RotationsPerSecond);
+  }
+
+  /**
+   * Spins the flywheels while we're holding a note, so they're partway up to
+   * speed when we prep a shot. We aren't ready to shoot while pre-spooling, and
+   * the Time to Ready timer only starts when a shot is prepped.
+   */
+  public void setPreSpoolVelocities(Measure<Velocity<Angle>> leftVelocity, Measure<Velocity<Angle>> rightVelocity) {
+    setPreSpoolVelocities(leftVelocity.in(Units.RotationsPerSecond), rightVelocity.in(Units.RotationsPerSecond));
+  }
+
+  /**
+   * @param leftVelocity  <b>Units:</b> Rotations per Second
+   * @param rightVelocity <b>Units:</b> Rotations per Second
+   * @see #setPreSpoolVelocities(Measure, Measure)
+   */
+  public void setPreSpoolVelocities(double leftVelocity, double rightVelocity) {
+    desiredLeftVelocity.mut_replace(leftVelocity, Units.RotationsPerSecond);
+    desiredRightVelocity.mut_replace(rightVelocity, Units.RotationsPerSecond);
+    preSpooling = true;
+    waitingForReady = false;
+    getUpToSpeed();
+  }
+
+  public boolean isPreSpooling() {
+    return preSpooling;
+  }
+
+  private void startReadyTimer() {
+    if (!waitingForReady) {
+      readyRequestTime = Timer.getFPGATimestamp();
+      waitingForReady = true;
+    }
   }
 
   public void setDesiredVelocities(Measure<Velocity<Angle>> desiredLeftVelocity,
@@ -256,6 +512,18 @@ public class Shooter extends SubsystemBase {
     setRightDesiredVelocity(desiredRightVelocity);
   }
 
+  /**
+   * Sets the desired speeds for the flywheels without allocating, for commands
+   * that set them every loop.
+   *
+   * @param desiredLeftVelocity  <b>Units:</b> Rotations per Second
+   * @param desiredRightVelocity <b>Units:</b> Rotations per Second
+   */
+  public void setDesiredVelocities(double desiredLeftVelocity, double desiredRightVelocity) {
+    setDesiredVelocity(this.desiredLeftVelocity, desiredLeftVelocity);
+    setDesiredVelocity(this.desiredRightVelocity, desiredRightVelocity);
+  }
+
   /**
    * Sets the desired speeds for the flywheels, as well as the desired pivot
    * position for the shooter, and attempts to get up to speed.
@@ -300,8 +568,20 @@ public class Shooter extends SubsystemBase {
   }
 
   public void setPivotPosition(Measure<Angle> position) {
-    lastDesiredPivotAngle = position;
-    pivotMotor.setControl(motionMagicPivotRequest.withPosition(position.in(Units.Rotations)));
+    setPivotPositionDegrees(position.in(Units.Degrees));
+  }
+
+  /**
+   * @param position <b>Units:</b> Degrees
+   * @see #setPivotPosition(Measure)
+   */
+  public void setPivotPositionDegrees(double position) {
+    if (Math.abs(position - lastDesiredPivotAngle.in(Units.Degrees)) > constShooter.AT_POSITION_TOLERANCE
+        .in(Units.Degrees)) {
+      startReadyTimer();
+    }
+    lastDesiredPivotAngle.mut_replace(position, Units.Degrees);
+    pivotMotor.setControl(motionMagicPivotRequest.withPosition(lastDesiredPivotAngle.in(Units.Rotations)));
   }
 
   /**
@@ -312,35 +592,87 @@ public class Shooter extends SubsystemBase {
   }
 
   /**
-   * Calculates the desired angle needed to lock onto the speaker.
-   * 
-   * @param robotPose  The current pose of the robot
-   * @param fieldPoses The poses of the field elements, matching your alliance
-   *                   color
-   * 
-   * @return The desired angle required to lock onto the speaker
+   * @return How long it took to be ready to shoot after the last new position
+   *         was requested. <b>Units:</b> Seconds
    */
-  public Measure<Angle> getDesiredAngleToLock(Pose2d robotPose, Pose3d[] fieldPoses) {
+  public double getLastTimeToReady() {
+    return lastTimeToReady;
+  }
 
-    Pose3d targetPose = fieldPoses[0];
+  public boolean readyToShoot() {
+    return !preSpooling && isLeftShooterUpToSpeed() && isRightShooterUpToSpeed()
+        && isShooterAtPosition(lastDesiredPivotAngle);
+  }
 
-    // Get the pitch pose (field relative)
-    Pose3d pitchPose = new Pose3d(robotPose).transformBy(constShooter.ROBOT_TO_PIVOT);
+  /**
+   * Predicts if we'll be ready to shoot after the given time, so that a note can
+   * be fed early enough to reach the flywheels the moment they're ready.
+   *
+   * <p>
+   * Each flywheel keeps its current acceleration (it only ever speeds up toward
+   * its target), and the pivot brakes into its target at its Motion Magic
+   * acceleration. A pivot that is still speeding up is predicted to stop short,
+   * so this never fires early while the pivot is far away. Like readyToShoot(),
+   * this is never true while pre-spooling.
+   * </p>
+   *
+   * @param lookahead How far ahead to predict
+   * @return If both flywheels will be up to speed and the pivot will be at its
+   *         desired position
+   */
+  public boolean willBeReadyToShoot(Measure<Time> lookahead) {
+    double time = lookahead.in(Units.Seconds);
+    return !preSpooling && willFlywheelBeUpToSpeed(desiredLeftVelocity, leftVelocityInput.get(), leftAcceleration, time)
+        && willFlywheelBeUpToSpeed(desiredRightVelocity, rightVelocityInput.get(), rightAcceleration, time)
+        && willPivotBeAtPosition(time);
+  }
 
-    // Get distances from the pitch pose to the target pose and then calculate the
-    // required angle
-    // Theres probably a WPILib method for this
-    double distX = Math.abs(targetPose.getX() - pitchPose.getX());
-    double distY = Math.abs(targetPose.getY() - pitchPose.getY());
-    double distanceFromSpeaker = Math.hypot(distX, distY);
-    SmartDashboard.putNumber("DISTANCE_FROM_SPEAKER", distanceFromSpeaker);
-    Measure<Angle> desiredLockingAngle = Units.Degrees.of(constShooter.DISTANCE_MAP.get(distanceFromSpeaker));
+  /**
+   * @return If a note fed now will reach the flywheels when we're ready to
+   *         shoot. With PREDICT_READINESS, that can be before readyToShoot()
+   */
+  public boolean readyToFeed() {
+    return readyToShoot()
+        || (constShooter.PREDICT_READINESS && willBeReadyToShoot(constTransfer.FEED_TO_CONTACT_TIME));
+  }
 
-    return desiredLockingAngle;
+  private static boolean willFlywheelBeUpToSpeed(Measure<Velocity<Angle>> desiredVelocity, double velocity,
+      double acceleration, double time) {
+    if (desiredVelocity.baseUnitMagnitude() == 0) {
+      return false;
+    }
+    double predictedVelocity = velocity + Math.max(acceleration, 0) * time;
+    return desiredVelocity.in(Units.RotationsPerSecond) - predictedVelocity <= constShooter.UP_TO_SPEED_TOLERANCE
+        .in(Units.RotationsPerSecond);
   }
 
-  public boolean readyToShoot() {
-    return isLeftShooterUpToSpeed() && isRightShooterUpToSpeed() && isShooterAtPosition(lastDesiredPivotAngle);
+  private boolean willPivotBeAtPosition(double time) {
+    if (lastDesiredPivotAngle.in(Units.Degrees) == -3255) {
+      return false;
+    }
+
+    double velocity = pivotVelocityInput.get();
+    double deceleration = pivotConfig.MotionMagic.MotionMagicAcceleration;
+    double brakingTime = Math.min(time, Math.abs(velocity) / deceleration);
+    double predictedPosition = pivotPositionInput.get() + velocity * brakingTime
+        - Math.signum(velocity) * deceleration * brakingTime * brakingTime / 2;
+
+    return Math.abs(predictedPosition - lastDesiredPivotAngle.in(Units.Rotations)) < constShooter.AT_POSITION_TOLERANCE
+        .in(Units.Rotations);
+  }
+
+  /**
+   * Records that a note started feeding into the flywheels, so the predicted and
+   * actual times we were ready to shoot can be compared.
+   *
+   * @param feedToContactTime How long until the note reaches the flywheels
+   */
+  public void startedFeeding(Measure<Time> feedToContactTime) {
+    if (readyToShoot()) {
+      return;
+    }
+    predictedReadyTime = Timer.getFPGATimestamp() + feedToContactTime.in(Units.Seconds);
+    waitingForPredictedReady = true;
   }
 
   // -- SysID
@@ -367,32 +699,77 @@ public class Shooter extends SubsystemBase {
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
-    SmartDashboard.putNumber("Shooter/Left/Velocity RPS", getLeftShooterVelocity().in(Units.RotationsPerSecond));
-    SmartDashboard.putNumber("Shooter/Left/Desired Velocity RPS", desiredLeftVelocity.in(Units.RotationsPerSecond));
-    SmartDashboard.putBoolean("Shooter/Left/Up to Speed", isLeftShooterUpToSpeed());
-    SmartDashboard.putNumber("Shooter/Left/PID Slot", currentLeftSlot);
-    SmartDashboard.putNumber("Shooter/Left/Stator Current", leftMotor.getStatorCurrent().getValueAsDouble());
-    SmartDashboard.putNumber("Shooter/Left/Supply Current", leftMotor.getSupplyCurrent().getValueAsDouble());
-
-    SmartDashboard.putNumber("Shooter/Right/Velocity RPS", getRightShooterVelocity().in(Units.RotationsPerSecond));
-    SmartDashboard.putNumber("Shooter/Right/Desired Velocity RPS", desiredRightVelocity.in(Units.RotationsPerSecond));
-    SmartDashboard.putBoolean("Shooter/Right/Up to Speed", isRightShooterUpToSpeed());
-    SmartDashboard.putNumber("Shooter/Right/PID Slot", currentRightSlot);
-    SmartDashboard.putNumber("Shooter/Right/Stator Current", rightMotor.getStatorCurrent().getValueAsDouble());
-    SmartDashboard.putNumber("Shooter/Right/Supply Current", rightMotor.getSupplyCurrent().getValueAsDouble());
-
-    SmartDashboard.putNumber("Shooter/Pivot/Position", getShooterPosition().in(Units.Degrees));
-    SmartDashboard.putNumber("Shooter/Pivot/Last Desired Angle", lastDesiredPivotAngle.in(Units.Degrees));
-    SmartDashboard.putBoolean("Shooter/Pivot/At Desired Position", isShooterAtPosition(lastDesiredPivotAngle));
-    SmartDashboard.putNumber("Shooter/Pivot/Stator Current", pivotMotor.getStatorCurrent().getValueAsDouble());
-    SmartDashboard.putNumber("Shooter/Pivot/Supply Current", pivotMotor.getSupplyCurrent().getValueAsDouble());
-    SmartDashboard.putNumber("Shooter/Pivot/Rotor Velocity", pivotMotor.getRotorVelocity().getValueAsDouble());
-
-    SmartDashboard.putBoolean("Shooter/Safe to Move Elevator", isSafeToMoveElevator());
-    SmartDashboard.putBoolean("Shooter/Ready to Shoot", readyToShoot());
-    SmartDashboard.putNumber("Shooter/Last Desired Pivot Angle", lastDesiredPivotAngle.in(Units.Degrees));
-
-    SmartDashboard.putBoolean("Zeroing/Pivot/Attempting Zeroing", attemptingZeroing);
-    SmartDashboard.putBoolean("Zeroing/Pivot/Has Zeroed", hasZeroed);
+    // We can't be ready to shoot without spinning the flywheels
+    if (desiredLeftVelocity.baseUnitMagnitude() == 0 && desiredRightVelocity.baseUnitMagnitude() == 0) {
+      waitingForReady = false;
+    } else if (waitingForReady && readyToShoot()) {
+      lastTimeToReady = Timer.getFPGATimestamp() - readyRequestTime;
+      waitingForReady = false;
+    }
+
+    double now = Timer.getFPGATimestamp();
+    if (lastVelocityTime != 0 && now > lastVelocityTime) {
+      leftAcceleration = leftAccelerationFilter
+          .calculate((leftVelocityInput.get() - lastLeftVelocity) / (now - lastVelocityTime));
+      rightAcceleration = rightAccelerationFilter
+          .calculate((rightVelocityInput.get() - lastRightVelocity) / (now - lastVelocityTime));
+    }
+    lastLeftVelocity = leftVelocityInput.get();
+    lastRightVelocity = rightVelocityInput.get();
+    lastVelocityTime = now;
+
+    if (waitingForPredictedReady && readyToShoot()) {
+      actualReadyTime = now;
+      waitingForPredictedReady = false;
+    }
+
+    if (preSpooling) {
+      preSpoolEnergy += (leftSupplyCurrent.getValueAsDouble() + rightSupplyCurrent.getValueAsDouble())
+          * RobotController.getBatteryVoltage() * TimedRobot.kDefaultPeriod;
+    }
+
+    LoopProfiler.mark("Shooter");
+  }
+
+  @Override
+  public void simulationPeriodic() {
+    // While replaying, every input comes from the log instead
+    if (InputLog.isReplaying()) {
+      return;
+    }
+
+    // The sim states are in the rotor's direction, so the inverts are already
+    // handled by the TalonFX
+    TalonFXSimState leftSimState = leftMotor.getSimState();
+    TalonFXSimState rightSimState = rightMotor.getSimState();
+    TalonFXSimState pivotSimState = pivotMotor.getSimState();
+    leftSimState.setSupplyVoltage(RobotController.getBatteryVoltage());
+    rightSimState.setSupplyVoltage(RobotController.getBatteryVoltage());
+    pivotSimState.setSupplyVoltage(RobotController.getBatteryVoltage());
+
+    // -- Flywheels --
+    leftFlywheelSim.setInputVoltage(leftSimState.getMotorVoltage());
+    rightFlywheelSim.setInputVoltage(rightSimState.getMotorVoltage());
+    leftFlywheelSim.update(TimedRobot.kDefaultPeriod);
+    rightFlywheelSim.update(TimedRobot.kDefaultPeriod);
+
+    double leftRotorVelocity = Units.RadiansPerSecond.of(leftFlywheelSim.getAngularVelocityRadPerSec())
+        .in(Units.RotationsPerSecond);
+    double rightRotorVelocity = Units.RadiansPerSecond.of(rightFlywheelSim.getAngularVelocityRadPerSec())
+        .in(Units.RotationsPerSecond);
+    leftSimState.setRotorVelocity(leftRotorVelocity);
+    leftSimState.addRotorPosition(leftRotorVelocity * TimedRobot.kDefaultPeriod);
+    rightSimState.setRotorVelocity(rightRotorVelocity);
+    rightSimState.addRotorPosition(rightRotorVelocity * TimedRobot.kDefaultPeriod);
+
+    // -- Pivot --
+    pivotSim.setInputVoltage(pivotSimState.getMotorVoltage());
+    pivotSim.update(TimedRobot.kDefaultPeriod);
+
+    pivotSimState.setRawRotorPosition(
+        Units.Radians.of(pivotSim.getAngleRads()).in(Units.Rotations) * constShooter.PIVOT_GEAR_RATIO);
+    pivotSimState.setRotorVelocity(
+        Units.RadiansPerSecond.of(pivotSim.getVelocityRadPerSec()).in(Units.RotationsPerSecond)
+            * constShooter.PIVOT_GEAR_RATIO);
   }
 }
@@ -4,7 +4,11 @@
 
 package frc.robot.subsystems;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import frc.robot.Constants.constStateMachine;
@@ -18,6 +22,9 @@ import frc.robot.commands.States.PrepTargetState;
 import frc.robot.commands.States.PrepVision;
 import frc.robot.commands.States.Shooting;
 import frc.robot.commands.States.StoreFeeder;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
 
 public class StateMachine extends SubsystemBase {
   public static RobotState currentState;
@@ -31,6 +38,11 @@ public class StateMachine extends SubsystemBase {
   Shooter subShooter;
   StateMachine subStateMachine = this;
 
+  private final EnumMap<RobotState, Command> stateCommands = new EnumMap<RobotState, Command>(RobotState.class);
+  private final EnumMap<TargetState, Command> targetStateCommands = new EnumMap<TargetState, Command>(
+      TargetState.class);
+  private final Command invalidStateCommand = Commands.print("ITS SO OVER D: Invalid State Provided :3");
+
   /** Creates a new StateMachine. */
   public StateMachine(Climber subClimber,
       Drivetrain subDrivetrain, Elevator subElevator, Intake subIntake, LEDs subLEDs, Transfer subTransfer,
@@ -45,6 +57,11 @@ public class StateMachine extends SubsystemBase {
     this.subLEDs = subLEDs;
     this.subTransfer = subTransfer;
     this.subShooter = subShooter;
+
+    createStateCommands();
+
+    Telemetry.addString("CURRENT ROBOT STATE", Tier.CONTROL, () -> getRobotState().toString());
+    Telemetry.addString("CURRENT TARGET STATE", Tier.CONTROL, () -> getTargetState().toString());
   }
 
   public void setRobotState(RobotState robotState) {
@@ -63,283 +80,72 @@ public class StateMachine extends SubsystemBase {
     return currentTargetState;
   }
 
+  /**
+   * Creates the command for every state once, so that trying a state never
+   * allocates. Commands are reused, so callers must not decorate the returned
+   * command (use deferredProxy(...).until(...) instead).
+   */
+  private void createStateCommands() {
+    stateCommands.put(RobotState.NONE,
+        new NoneState(subStateMachine, subClimber, subElevator, subIntake, subLEDs, subShooter, subTransfer));
+    stateCommands.put(RobotState.INTAKING, new Intaking(subStateMachine, subIntake, subShooter, subTransfer));
+    stateCommands.put(RobotState.INTAKE_SOURCE, new IntakeSource(subStateMachine, subShooter, subTransfer));
+    stateCommands.put(RobotState.STORE_FEEDER,
+        new StoreFeeder(subStateMachine, subIntake, subLEDs, subTransfer, subShooter));
+    stateCommands.put(RobotState.EJECTING, new Ejecting(subStateMachine, subIntake, subElevator, subTransfer,
+        subShooter));
+    stateCommands.put(RobotState.SHOOTING, new Shooting(subStateMachine, subElevator, subShooter, subTransfer,
+        subIntake));
+
+    for (TargetState targetState : TargetState.values()) {
+      Command prepCommand;
+      if (targetState.equals(TargetState.PREP_VISION)) {
+        prepCommand = new PrepVision(subStateMachine, subDrivetrain, subShooter);
+      } else {
+        prepCommand = new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs, targetState);
+      }
+      targetStateCommands.put(targetState, prepCommand);
+      stateCommands.put(constStateMachine.TARGET_TO_ROBOT_STATE.get(targetState), prepCommand);
+    }
+  }
+
   /**
    * Determines which command to run for a desired state depending on if our
    * current state.
    * 
-   * @see <a
-   *      href=https://www.tldraw.com/ro/DX06u039erL_iV6q0ARSn?d=v-1103.-1504.5212.2506.page>
-   *      Our State Machine Diagram
-   *      </a>
+   * <p>
+   * The returned command is shared between calls, so it should only be
+   * scheduled through Commands.deferredProxy() and never decorated directly. If
+   * it's already running, it keeps running instead of starting over.
+   * </p>
+   * 
+   * @see constStateMachine#ALLOWED_TRANSITIONS
    * @param desiredState The state you would like to go to, which may not be
    *                     possible from your current state
    * @return The Command to run for that desired state
    */
   public Command tryState(RobotState desiredState) {
-
-    // TODO: Write this functionality in a later pr
-    if (isGivenStateTargetState(desiredState)) {
-      // functionality is always the same for a target state
+    if (!isTransitionAllowed(currentState, desiredState)) {
+      return invalidStateCommand;
     }
 
-    switch (desiredState) {
-      case NONE:
-        switch (currentState) {
-          case INTAKE_SOURCE:
-          case INTAKING:
-          case EJECTING:
-          case SHOOTING:
-          case NONE:
-            return new NoneState(subStateMachine, subClimber, subElevator, subIntake, subLEDs, subShooter, subTransfer);
-        }
-        break;
-
-      case INTAKING:
-        switch (currentState) {
-          case NONE:
-          case INTAKE_SOURCE:
-          case SHOOTING:
-            return new Intaking(subStateMachine, subIntake, subShooter, subTransfer);
-        }
-        break;
-
-      case INTAKE_SOURCE:
-        switch (currentState) {
-          case NONE:
-          case INTAKE_SOURCE:
-            return new IntakeSource(subStateMachine, subShooter, subTransfer);
-        }
-
-      case STORE_FEEDER:
-        switch (currentState) {
-          case STORE_FEEDER:
-          case INTAKING:
-          case INTAKE_SOURCE:
-          case PREP_SHUFFLE:
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case PREP_AMP_SHOOTER:
-          case PREP_SPIKE:
-          case PREP_WING:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new StoreFeeder(subStateMachine, subIntake, subLEDs, subTransfer, subShooter);
-        }
-        break;
-
-      // No more climber :(
-      case CLIMBING:
-        break;
-
-      case EJECTING:
-        switch (currentState) {
-          case NONE:
-          case INTAKING:
-          case INTAKE_SOURCE:
-          case STORE_FEEDER:
-          case PREP_SHUFFLE:
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case PREP_AMP_SHOOTER:
-          case PREP_SPIKE:
-          case PREP_WING:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new Ejecting(subStateMachine, subIntake, subElevator, subTransfer, subShooter);
-        }
-        break;
-
-      case SHOOTING:
-        switch (currentState) {
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case PREP_SHUFFLE:
-          case PREP_AMP:
-          case PREP_AMP_SHOOTER:
-          case PREP_SPIKE:
-          case PREP_WING:
-          case PREP_SUB_BACKWARDS:
-          case PREP_NONE:
-          case CLIMBING:
-          case SHOOTING:
-            return new Shooting(subStateMachine, subElevator, subShooter, subTransfer, subIntake);
-        }
-        break;
-
-      // -- PREPS --
-      case PREP_SHUFFLE:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case PREP_AMP_SHOOTER:
-          case PREP_SPIKE:
-          case PREP_WING:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_SHUFFLE);
-        }
-        break;
-
-      case PREP_SPEAKER:
-        switch (currentState) {
-          case NONE:
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case STORE_FEEDER:
-          case PREP_SHUFFLE:
-          case PREP_AMP_SHOOTER:
-          case PREP_SPIKE:
-          case PREP_WING:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_SPEAKER);
-        }
-        break;
-
-      case PREP_AMP:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case PREP_SHUFFLE:
-          case PREP_AMP_SHOOTER:
-          case PREP_SPIKE:
-          case PREP_WING:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_AMP);
-        }
-        break;
-
-      case PREP_AMP_SHOOTER:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_AMP_SHOOTER:
-          case PREP_SHUFFLE:
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case PREP_SPIKE:
-          case PREP_WING:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_AMP_SHOOTER);
-        }
-        break;
-
-      case PREP_SPIKE:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_SHUFFLE:
-          case PREP_SPIKE:
-          case PREP_SPEAKER:
-          case PREP_VISION:
-          case PREP_AMP_SHOOTER:
-          case PREP_WING:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_SPIKE);
-        }
-        break;
-
-      case PREP_WING:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_SHUFFLE:
-          case PREP_SPEAKER:
-          case PREP_WING:
-          case PREP_VISION:
-          case PREP_SPIKE:
-          case PREP_AMP_SHOOTER:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_WING);
-
-        }
-        break;
-
-      case PREP_SUB_BACKWARDS:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_SHUFFLE:
-          case PREP_SPEAKER:
-          case PREP_WING:
-          case PREP_VISION:
-          case PREP_SPIKE:
-          case PREP_AMP_SHOOTER:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_SUB_BACKWARDS);
-
-        }
-        break;
-
-      case PREP_VISION:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_SHUFFLE:
-          case PREP_SPEAKER:
-          case PREP_WING:
-          case PREP_VISION:
-          case PREP_SPIKE:
-          case PREP_AMP_SHOOTER:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepVision(subStateMachine, subDrivetrain, subShooter);
-
-        }
-        break;
-
-      case PREP_NONE:
-        switch (currentState) {
-          case NONE:
-          case STORE_FEEDER:
-          case PREP_SHUFFLE:
-          case PREP_SPEAKER:
-          case PREP_WING:
-          case PREP_VISION:
-          case PREP_SPIKE:
-          case PREP_AMP_SHOOTER:
-          case PREP_AMP:
-          case PREP_NONE:
-          case PREP_SUB_BACKWARDS:
-            return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs,
-                TargetState.PREP_NONE);
-        }
-        break;
+    Command stateCommand = stateCommands.get(desiredState);
+    if (stateCommand == null) {
+      return invalidStateCommand;
     }
-    return Commands.print("ITS SO OVER D: Invalid State Provided :3");
+    return stateCommand;
+  }
+
+  /**
+   * @return If the given transition exists in our state machine diagram
+   */
+  public static boolean isTransitionAllowed(RobotState currentState, RobotState desiredState) {
+    return constStateMachine.ALLOWED_TRANSITIONS.get(desiredState).contains(currentState);
   }
 
   public Command tryTargetState(StateMachine subStateMachine, Intake subIntake, LEDs subLEDs,
       Shooter subShooter, Transfer subTransfer, Elevator subElevator, Drivetrain subDrivetrain) {
-    if (currentTargetState.equals(TargetState.PREP_VISION)) {
-      return new PrepVision(subStateMachine, subDrivetrain, subShooter);
-    }
-    return new PrepTargetState(subElevator, subStateMachine, subShooter, subTransfer, subLEDs, currentTargetState);
+    return targetStateCommands.get(currentTargetState);
   }
 
   /**
@@ -350,14 +156,58 @@ public class StateMachine extends SubsystemBase {
   }
 
   public boolean isGivenStateTargetState(RobotState givenState) {
-    for (TargetState targetState : TargetState.values()) {
-      RobotState possibleRobotState = constStateMachine.TARGET_TO_ROBOT_STATE.get(targetState);
-      if (givenState.equals(possibleRobotState)) {
-        return true;
+    return constStateMachine.TARGET_ROBOT_STATES.contains(givenState);
+  }
+
+  /**
+   * Renders our allowed transitions as a Graphviz DOT graph. An edge goes from
+   * the current state to the desired state.
+   */
+  public static String getTransitionGraphDot() {
+    StringBuilder dot = new StringBuilder("digraph StateMachine {\n");
+
+    for (RobotState desiredState : RobotState.values()) {
+      for (RobotState fromState : constStateMachine.ALLOWED_TRANSITIONS.get(desiredState)) {
+        dot.append("  ").append(fromState).append(" -> ").append(desiredState).append(";\n");
       }
     }
+    return dot.append("}\n").toString();
+  }
 
-    return false;
+  /**
+   * Renders our allowed transitions as JSON, mapping each desired state to the
+   * states that can transition to it.
+   */
+  public static String getTransitionGraphJson() {
+    StringBuilder json = new StringBuilder("{\n");
+
+    RobotState[] robotStates = RobotState.values();
+    for (int i = 0; i < robotStates.length; i++) {
+      json.append("  \"").append(robotStates[i]).append("\": [");
+
+      boolean first = true;
+      for (RobotState fromState : constStateMachine.ALLOWED_TRANSITIONS.get(robotStates[i])) {
+        json.append(first ? "\"" : ", \"").append(fromState).append('"');
+        first = false;
+      }
+      json.append((i < robotStates.length - 1) ? "],\n" : "]\n");
+    }
+    return json.append("}\n").toString();
+  }
+
+  /**
+   * Writes the transition graph to the given directory as state-machine.dot and
+   * state-machine.json. StateMachineTest writes it to build/state-machine/ on
+   * every ./gradlew test.
+   */
+  public static void exportTransitionGraph(Path directory) {
+    try {
+      Files.createDirectories(directory);
+      Files.writeString(directory.resolve("state-machine.dot"), getTransitionGraphDot());
+      Files.writeString(directory.resolve("state-machine.json"), getTransitionGraphJson());
+    } catch (IOException e) {
+      System.out.println("State machine graph could not be exported :<");
+    }
   }
 
   public static enum RobotState {
@@ -394,7 +244,6 @@ public class StateMachine extends SubsystemBase {
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
-    SmartDashboard.putString("CURRENT ROBOT STATE", getRobotState().toString());
-    SmartDashboard.putString("CURRENT TARGET STATE", getTargetState().toString());
+    LoopProfiler.mark("StateMachine");
   }
 }
@@ -4,6 +4,7 @@
 
 package frc.robot.subsystems;
 
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.NeutralOut;
 import com.ctre.phoenix6.hardware.TalonFX;
@@ -12,10 +13,16 @@ import au.grapplerobotics.ConfigurationFailedException;
 import au.grapplerobotics.LaserCan;
 import au.grapplerobotics.LaserCan.Measurement;
 import edu.wpi.first.units.Units;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Robot;
 import frc.robot.Constants.constTransfer;
 import frc.robot.RobotMap.mapTransfer;
+import frc.robot.utils.InputLog;
+import frc.robot.utils.InputLog.DoubleInput;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.SignalCache;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
 
 public class Transfer extends SubsystemBase {
   TalonFX feederMotor;
@@ -23,13 +30,35 @@ public class Transfer extends SubsystemBase {
   LaserCan noteSensor;
   boolean hasGamePiece;
 
+  // Refreshed once per loop by the SignalCache
+  StatusSignal<Double> feederSupplyCurrent, feederStatorCurrent;
+
+  // Read by our logic, so this is logged for replay. -1 when the LaserCAN has no
+  // measurement
+  DoubleInput noteDistanceInput;
+
+  private double feederSpeed = 0;
+
+  // Only used in simulation, where the LaserCAN never has a measurement
+  private double simulatedNoteDistance = -1;
+
   /** Creates a new Transfer. */
   public Transfer() {
     feederMotor = new TalonFX(mapTransfer.TRANSFER_MOTOR_CAN, "rio");
+    feederSupplyCurrent = SignalCache.register(feederMotor.getSupplyCurrent());
+    feederStatorCurrent = SignalCache.register(feederMotor.getStatorCurrent());
 
     noteSensor = new LaserCan(mapTransfer.NOTE_SENSOR_CAN);
 
     configure();
+    noteDistanceInput = InputLog.addDouble("Transfer/Laser Can/Distance", () -> {
+      if (Robot.isSimulation()) {
+        return simulatedNoteDistance;
+      }
+      Measurement measurement = noteSensor.getMeasurement();
+      return (measurement != null) ? measurement.distance_mm : -1;
+    });
+    configureTelemetry();
   }
 
   public void configure() {
@@ -45,6 +74,10 @@ public class Transfer extends SubsystemBase {
 
     feederMotor.getConfigurator().apply(feederConfig);
 
+    // -- Status Signals --
+    SignalCache.setUpdateFrequency(constTransfer.CURRENT_FREQUENCY, feederSupplyCurrent, feederStatorCurrent);
+    SignalCache.optimizeBusUtilization(feederMotor);
+
     try {
       noteSensor.setTimingBudget(constTransfer.TIMING_BUDGET);
     } catch (ConfigurationFailedException e) {
@@ -53,22 +86,58 @@ public class Transfer extends SubsystemBase {
     }
   }
 
+  private void configureTelemetry() {
+    Telemetry.addBoolean("Game Piece Stored", Tier.CONTROL, () -> getGamePieceStored());
+    Telemetry.addNumber("Transfer/Supply Current", Tier.CURRENT,
+        () -> feederSupplyCurrent.getValueAsDouble());
+    Telemetry.addNumber("Transfer/Stator Current", Tier.CURRENT,
+        () -> feederStatorCurrent.getValueAsDouble());
+
+    Telemetry.addNumber("Transfer/Laser Can/Distance", Tier.CONTROL, () -> noteDistanceInput.get());
+    Telemetry.addNumber("Transfer/Laser Can/Ambient Light", Tier.DIAGNOSTIC, () -> {
+      Measurement measurement = noteSensor.getMeasurement();
+      return (measurement != null) ? measurement.ambient : -1;
+    });
+    Telemetry.addNumber("Transfer/Laser Can/Timing Budget", Tier.DIAGNOSTIC, () -> {
+      Measurement measurement = noteSensor.getMeasurement();
+      return (measurement != null) ? measurement.budget_ms : -1;
+    });
+  }
+
   public void setFeederSpeed(double speed) {
+    feederSpeed = speed;
     feederMotor.set(speed);
   }
 
   public void setFeederNeutralOutput() {
+    feederSpeed = 0;
     feederMotor.setControl(new NeutralOut());
   }
 
+  /**
+   * @return The last speed the feeder was set to, from -1 to 1
+   */
+  public double getFeederSpeed() {
+    return feederSpeed;
+  }
+
+  /**
+   * Sets what the simulated LaserCAN sees. Only used in simulation.
+   *
+   * @param hasGamePiece If there is a note in the transfer
+   */
+  public void setSimulatedGamePiece(boolean hasGamePiece) {
+    simulatedNoteDistance = (hasGamePiece) ? 0 : constTransfer.PIECE_DETECTED_DIST_THRESH.in(Units.Millimeters) * 2;
+  }
+
   public boolean getGamePieceStored() {
-    Measurement measurement = noteSensor.getMeasurement();
     if (hasGamePiece) {
       return hasGamePiece;
     }
 
-    if (measurement != null) {
-      return measurement.distance_mm <= constTransfer.PIECE_DETECTED_DIST_THRESH.in(Units.Millimeters);
+    double noteDistance = noteDistanceInput.get();
+    if (noteDistance >= 0) {
+      return noteDistance <= constTransfer.PIECE_DETECTED_DIST_THRESH.in(Units.Millimeters);
     }
 
     return false;
@@ -81,13 +150,6 @@ public class Transfer extends SubsystemBase {
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
-    SmartDashboard.putBoolean("Game Piece Stored", getGamePieceStored());
-    SmartDashboard.putNumber("Transfer/Supply Current", feederMotor.getSupplyCurrent().getValueAsDouble());
-    SmartDashboard.putNumber("Transfer/Stator Current", feederMotor.getStatorCurrent().getValueAsDouble());
-    if (noteSensor.getMeasurement() != null) {
-      SmartDashboard.putNumber("Transfer/Laser Can/Distance", noteSensor.getMeasurement().distance_mm);
-      SmartDashboard.putNumber("Transfer/Laser Can/Ambient Light", noteSensor.getMeasurement().ambient);
-      SmartDashboard.putNumber("Transfer/Laser Can/Timing Budget", noteSensor.getMeasurement().budget_ms);
-    }
+    LoopProfiler.mark("Transfer");
   }
 }
@@ -0,0 +1,370 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+import com.pathplanner.lib.commands.PathPlannerAuto;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.PathPlannerTrajectory;
+import com.pathplanner.lib.util.PIDConstants;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants.constDrivetrain;
+import frc.robot.Constants.constField;
+import frc.robot.RobotPreferences.prefDrivetrain;
+import frc.robot.commands.FollowTrajectory;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.utils.Telemetry.Tier;
+
+/**
+ * Parses every PathPlanner path and auto in the deploy directory once, on a
+ * background thread while the subsystems are being constructed, and hands out
+ * commands and starting poses from memory.
+ *
+ * <p>
+ * Each path is kept for both alliances, so getting a starting pose at the start
+ * of auto doesn't read or flip a path file. Once our alliance is known, each
+ * path's trajectory is generated for both alliances while disabled. Autos that
+ * only follow paths (all of ours) follow those trajectories with
+ * {@link FollowTrajectory}. Anything else falls back to a PathPlannerAuto,
+ * which parses its own files.
+ * </p>
+ *
+ * <p>
+ * PathPlanner builds each event marker's command while parsing a path, so
+ * every NamedCommand must be registered before {@link #start()}, and nothing
+ * else should be composing commands until {@link #awaitLoaded()} returns.
+ * </p>
+ */
+public final class AutoCache {
+  private static final String PATH_EXTENSION = ".path";
+  private static final String AUTO_EXTENSION = ".auto";
+
+  // Only written by the loader thread, and only read after it's joined
+  private static final HashMap<String, PathPlannerPath> bluePaths = new HashMap<String, PathPlannerPath>();
+  private static final HashMap<String, PathPlannerPath> redPaths = new HashMap<String, PathPlannerPath>();
+  private static final HashMap<String, List<String>> autoPaths = new HashMap<String, List<String>>();
+  private static final HashMap<String, Pose2d> autoStartingPoses = new HashMap<String, Pose2d>();
+
+  // Only used on the main thread
+  private static final HashMap<String, CompactTrajectory> blueTrajectories = new HashMap<String, CompactTrajectory>();
+  private static final HashMap<String, CompactTrajectory> redTrajectories = new HashMap<String, CompactTrajectory>();
+  private static List<String> pendingTrajectories;
+  private static double trajectoryTime = 0;
+
+  private static Thread loader;
+  private static boolean loaded = false;
+  private static volatile double loadTime = 0;
+  private static double waitTime = 0;
+
+  private AutoCache() {
+  }
+
+  /**
+   * Starts parsing every path and auto on a background thread.
+   */
+  public static void start() {
+    loader = new Thread(AutoCache::load, "Auto Cache");
+    loader.setDaemon(true);
+    loader.start();
+
+    Telemetry.addNumber("Auto Cache/Load Time (ms)", Tier.DIAGNOSTIC, () -> loadTime);
+    Telemetry.addNumber("Auto Cache/Wait Time (ms)", Tier.DIAGNOSTIC, () -> waitTime);
+    // Every trajectory has been generated once this stops going up
+    Telemetry.addNumber("Auto Cache/Trajectory Time (ms)", Tier.DIAGNOSTIC, () -> trajectoryTime);
+  }
+
+  /**
+   * Waits for the background thread to finish parsing. If it was never
+   * started, everything is parsed on this thread instead.
+   */
+  public static void awaitLoaded() {
+    if (loaded) {
+      return;
+    }
+
+    long startTime = System.nanoTime();
+    if (loader == null) {
+      load();
+    } else {
+      try {
+        loader.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the auto cache");
+      }
+    }
+    waitTime = (System.nanoTime() - startTime) / 1e6;
+    loaded = true;
+  }
+
+  private static void load() {
+    long startTime = System.nanoTime();
+    File pathplannerDirectory = new File(Filesystem.getDeployDirectory(), "pathplanner");
+
+    for (String pathName : listFiles(new File(pathplannerDirectory, "paths"), PATH_EXTENSION)) {
+      try {
+        PathPlannerPath path = PathPlannerPath.fromPathFile(pathName);
+        bluePaths.put(pathName, path);
+        redPaths.put(pathName, path.flipPath());
+      } catch (RuntimeException e) {
+        DataLogManager.log("Auto cache could not parse path " + pathName + ": " + e.getMessage());
+      }
+    }
+
+    JSONParser parser = new JSONParser();
+    for (String autoName : listFiles(new File(pathplannerDirectory, "autos"), AUTO_EXTENSION)) {
+      try (Reader reader = new FileReader(new File(pathplannerDirectory, "autos/" + autoName + AUTO_EXTENSION))) {
+        JSONObject auto = (JSONObject) parser.parse(reader);
+
+        List<String> pathNames = new ArrayList<String>();
+        if (addPathNames((JSONObject) auto.get("command"), pathNames)) {
+          autoPaths.put(autoName, pathNames);
+        }
+
+        JSONObject startingPose = (JSONObject) auto.get("startingPose");
+        if (startingPose != null) {
+          JSONObject position = (JSONObject) startingPose.get("position");
+          autoStartingPoses.put(autoName, new Pose2d(
+              ((Number) position.get("x")).doubleValue(),
+              ((Number) position.get("y")).doubleValue(),
+              Rotation2d.fromDegrees(((Number) startingPose.get("rotation")).doubleValue())));
+        }
+      } catch (Exception e) {
+        DataLogManager.log("Auto cache could not parse auto " + autoName + ": " + e.getMessage());
+      }
+    }
+
+    loadTime = (System.nanoTime() - startTime) / 1e6;
+  }
+
+  /**
+   * Adds every path an auto command follows, in order.
+   *
+   * @return False if the command does anything other than follow cached paths
+   *         one after another
+   */
+  private static boolean addPathNames(JSONObject command, List<String> pathNames) {
+    JSONObject data = (JSONObject) command.get("data");
+    switch ((String) command.get("type")) {
+      case "path":
+        String pathName = (String) data.get("pathName");
+        pathNames.add(pathName);
+        return bluePaths.containsKey(pathName);
+
+      case "sequential":
+        for (Object child : (JSONArray) data.get("commands")) {
+          if (!addPathNames((JSONObject) child, pathNames)) {
+            return false;
+          }
+        }
+        return true;
+
+      default:
+        return false;
+    }
+  }
+
+  private static List<String> listFiles(File directory, String extension) {
+    List<String> names = new ArrayList<String>();
+    String[] files = directory.list();
+    if (files == null) {
+      return names;
+    }
+    for (String file : files) {
+      if (file.endsWith(extension)) {
+        names.add(file.substring(0, file.length() - extension.length()));
+      }
+    }
+    return names;
+  }
+
+  /**
+   * @param autoName The name of the .auto file, without the extension
+   * @return A new command that runs the auto, following the trajectories for
+   *         whichever alliance we're on when it starts
+   */
+  public static Command getAuto(Drivetrain subDrivetrain, String autoName) {
+    awaitLoaded();
+
+    List<String> pathNames = autoPaths.get(autoName);
+    if (pathNames == null) {
+      return new PathPlannerAuto(autoName);
+    }
+
+    Command[] commands = new Command[pathNames.size()];
+    for (int i = 0; i < commands.length; i++) {
+      commands[i] = new FollowTrajectory(subDrivetrain, pathNames.get(i));
+    }
+    return (commands.length == 1) ? commands[0] : Commands.sequence(commands).withName(autoName);
+  }
+
+  /**
+   * @param pathName The name of the .path file, without the extension
+   * @return The path, already flipped if we're on the red alliance
+   */
+  public static PathPlannerPath getPath(String pathName) {
+    awaitLoaded();
+
+    PathPlannerPath path = (constField.isRedAlliance() ? redPaths : bluePaths).get(pathName);
+    if (path == null) {
+      path = PathPlannerPath.fromPathFile(pathName);
+      return constField.isRedAlliance() ? path.flipPath() : path;
+    }
+    return path;
+  }
+
+  /**
+   * Generates the blue and red trajectories for one more path. Called every
+   * disabled loop once our alliance is known, so the work is spread out and
+   * every trajectory is ready before auto.
+   */
+  public static void generateNextTrajectory() {
+    if (pendingTrajectories == null) {
+      awaitLoaded();
+      pendingTrajectories = new ArrayList<String>(bluePaths.keySet());
+    }
+    if (pendingTrajectories.isEmpty()) {
+      return;
+    }
+
+    long startTime = System.nanoTime();
+    generateTrajectories(pendingTrajectories.remove(pendingTrajectories.size() - 1));
+    trajectoryTime += (System.nanoTime() - startTime) / 1e6;
+  }
+
+  private static void generateTrajectories(String pathName) {
+    if (blueTrajectories.containsKey(pathName)) {
+      return;
+    }
+    blueTrajectories.put(pathName, CompactTrajectory.generate(bluePaths.get(pathName)));
+    redTrajectories.put(pathName, CompactTrajectory.generate(redPaths.get(pathName)));
+  }
+
+  /**
+   * @param pathName The name of the .path file, without the extension
+   * @return The trajectory for the path on our current alliance. If it wasn't
+   *         generated while disabled, it's generated now.
+   */
+  public static CompactTrajectory getTrajectory(String pathName) {
+    awaitLoaded();
+
+    if (!blueTrajectories.containsKey(pathName)) {
+      if (!bluePaths.containsKey(pathName)) {
+        PathPlannerPath path = PathPlannerPath.fromPathFile(pathName);
+        bluePaths.put(pathName, path);
+        redPaths.put(pathName, path.flipPath());
+      }
+      DataLogManager.log("Auto cache: generating trajectory for " + pathName + " while enabled");
+      generateTrajectories(pathName);
+    }
+    return (constField.isRedAlliance() ? redTrajectories : blueTrajectories).get(pathName);
+  }
+
+  /**
+   * Measures how long following a path takes each loop, with PathPlanner's
+   * trajectory and controller compared to our pre-generated trajectories.
+   * Also measures what PathPlanner does each time a red path starts (flip it
+   * and generate its trajectory), which our trajectories skip entirely.
+   *
+   * <p>
+   * This only needs the deploy directory, so it doesn't need the HAL. Run with:
+   * FOLLOWING_BENCHMARK=5 ./gradlew benchmark (the number is how many times
+   * to follow every path)
+   * </p>
+   *
+   * @param repeats How many times to follow every path
+   * @return A summary of the results
+   */
+  public static String measureFollowingCost(int repeats) {
+    awaitLoaded();
+
+    PPHolonomicDriveController controller = new PPHolonomicDriveController(
+        new PIDConstants(prefDrivetrain.autoDriveP, prefDrivetrain.autoDriveI, prefDrivetrain.autoDriveD),
+        new PIDConstants(prefDrivetrain.autoSteerP, prefDrivetrain.autoSteerI, prefDrivetrain.autoSteerD),
+        constDrivetrain.TRAJECTORY_SAMPLE_PERIOD.in(Units.Seconds),
+        constDrivetrain.THEORETICAL_MAX_DRIVE_SPEED,
+        Math.hypot(constDrivetrain.WHEELBASE / 2, constDrivetrain.TRACK_WIDTH / 2));
+    TrajectoryFollower follower = new TrajectoryFollower();
+    double period = constDrivetrain.TRAJECTORY_SAMPLE_PERIOD.in(Units.Seconds);
+
+    long pathPlannerLoopTime = 0;
+    long compactLoopTime = 0;
+    long flipTime = 0;
+    long loops = 0;
+    long starts = 0;
+    // Keeps the results used, so the JIT can't skip the work
+    double checksum = 0;
+
+    for (int repeat = 0; repeat < repeats; repeat++) {
+      for (PathPlannerPath path : redPaths.values()) {
+        long startTime = System.nanoTime();
+        PathPlannerPath flippedPath = path.flipPath();
+        PathPlannerTrajectory trajectory = flippedPath.getTrajectory(new ChassisSpeeds(),
+            flippedPath.getPreviewStartingHolonomicPose().getRotation());
+        flipTime += System.nanoTime() - startTime;
+        starts++;
+
+        CompactTrajectory compactTrajectory = CompactTrajectory.generate(path);
+        int pathLoops = (int) Math.ceil(trajectory.getTotalTimeSeconds() / period);
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < pathLoops; i++) {
+          PathPlannerTrajectory.State state = trajectory.sample(i * period);
+          checksum += controller.calculateRobotRelativeSpeeds(state.getTargetHolonomicPose(), state)
+              .vxMetersPerSecond;
+        }
+        pathPlannerLoopTime += System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < pathLoops; i++) {
+          PathPlannerTrajectory.State state = trajectory.sample(i * period);
+          follower.calculate(state.getTargetHolonomicPose(), compactTrajectory, i * period);
+          checksum += follower.getXSpeed();
+        }
+        compactLoopTime += System.nanoTime() - startTime;
+        loops += pathLoops;
+      }
+    }
+
+    // Sampling the PathPlanner trajectory for the robot's pose is in both
+    // timings, so it cancels out of the comparison
+    return String.format("Path following cost over %d loops (checksum %.1f):"
+        + "\n  PathPlanner: %.2fus per loop"
+        + "\n  Pre-generated: %.2fus per loop"
+        + "\n  PathPlanner flip and generate at path start: %.2fus per path (pre-generated: none)",
+        loops, checksum, (pathPlannerLoopTime / 1e3) / loops, (compactLoopTime / 1e3) / loops,
+        (flipTime / 1e3) / starts);
+  }
+
+  /**
+   * @param autoName The name of the .auto file, without the extension
+   * @return The starting pose set in the auto, on the blue alliance
+   */
+  public static Pose2d getAutoStartingPose(String autoName) {
+    awaitLoaded();
+
+    Pose2d startingPose = autoStartingPoses.get(autoName);
+    return (startingPose != null) ? startingPose : PathPlannerAuto.getStaringPoseFromAutoFile(autoName);
+  }
+}
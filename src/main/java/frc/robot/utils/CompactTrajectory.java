@@ -0,0 +1,210 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.pathplanner.lib.path.EventMarker;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.PathPlannerTrajectory;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.constDrivetrain;
+
+/**
+ * A PathPlanner trajectory, generated once for one alliance and stored as
+ * primitive arrays sampled at a fixed period.
+ *
+ * <p>
+ * Sampling it is an index and a linear interpolation, so following it doesn't
+ * search, flip or allocate. Each event marker is turned into the time that
+ * PathPlanner would have triggered it, assuming the robot is on the
+ * trajectory.
+ * </p>
+ */
+public class CompactTrajectory {
+  // PathPlanner generates a path point every 5% of the way between waypoints
+  private static final double PATH_POINT_RESOLUTION = 0.05;
+
+  /**
+   * The target of a trajectory at one time, in the Field Coordinate System.
+   * Reused between samples.
+   */
+  public static class State {
+    /**
+     * <b>Units:</b> Meters
+     */
+    public double x;
+    /**
+     * <b>Units:</b> Meters
+     */
+    public double y;
+    /**
+     * <b>Units:</b> Radians
+     */
+    public double rotation;
+    /**
+     * <b>Units:</b> Meters per Second
+     */
+    public double xVelocity;
+    /**
+     * <b>Units:</b> Meters per Second
+     */
+    public double yVelocity;
+  }
+
+  private final double samplePeriod;
+  private final double totalTime;
+  private final double endVelocity;
+  private final double[] x;
+  private final double[] y;
+  private final double[] rotation;
+  private final double[] xVelocity;
+  private final double[] yVelocity;
+
+  // Sorted by time
+  private final double[] eventTimes;
+  private final Command[] eventCommands;
+
+  private CompactTrajectory(PathPlannerPath path, PathPlannerTrajectory trajectory) {
+    samplePeriod = constDrivetrain.TRAJECTORY_SAMPLE_PERIOD.in(Units.Seconds);
+    totalTime = trajectory.getTotalTimeSeconds();
+    endVelocity = path.getGoalEndState().getVelocity();
+
+    int sampleCount = (int) Math.ceil(totalTime / samplePeriod) + 1;
+    x = new double[sampleCount];
+    y = new double[sampleCount];
+    rotation = new double[sampleCount];
+    xVelocity = new double[sampleCount];
+    yVelocity = new double[sampleCount];
+
+    for (int i = 0; i < sampleCount; i++) {
+      PathPlannerTrajectory.State state = trajectory.sample(Math.min(i * samplePeriod, totalTime));
+      x[i] = state.positionMeters.getX();
+      y[i] = state.positionMeters.getY();
+      rotation[i] = state.targetHolonomicRotation.getRadians();
+      xVelocity[i] = state.velocityMps * state.heading.getCos();
+      yVelocity[i] = state.velocityMps * state.heading.getSin();
+    }
+
+    List<EventMarker> markers = path.getEventMarkers();
+    double[] times = new double[markers.size()];
+    Command[] commands = new Command[markers.size()];
+    int eventCount = 0;
+    for (EventMarker marker : markers) {
+      int pointIndex = (int) Math.round(marker.getWaypointRelativePos() / PATH_POINT_RESOLUTION);
+      Translation2d markerPosition = path.getPoint(Math.min(pointIndex, path.numPoints() - 1)).position;
+      double triggerTime = findTriggerTime(markerPosition);
+      if (triggerTime < 0) {
+        continue;
+      }
+
+      // Insertion sort, there are only ever a few markers
+      int index = eventCount++;
+      while (index > 0 && times[index - 1] > triggerTime) {
+        times[index] = times[index - 1];
+        commands[index] = commands[index - 1];
+        index--;
+      }
+      times[index] = triggerTime;
+      commands[index] = marker.getCommand();
+    }
+    eventTimes = Arrays.copyOf(times, eventCount);
+    eventCommands = Arrays.copyOf(commands, eventCount);
+  }
+
+  /**
+   * Generates a trajectory for a path, starting from rest. Flip the path first
+   * for the red alliance.
+   *
+   * @param path The path to follow
+   * @return The trajectory, sampled every TRAJECTORY_SAMPLE_PERIOD
+   */
+  public static CompactTrajectory generate(PathPlannerPath path) {
+    return new CompactTrajectory(path,
+        path.getTrajectory(new ChassisSpeeds(), path.getPreviewStartingHolonomicPose().getRotation()));
+  }
+
+  /**
+   * Finds when the robot first enters the trigger distance of a marker, the
+   * same way PathPlanner checks it every loop. A marker that the robot starts
+   * inside of never triggers.
+   *
+   * @return The time of the first sample inside the trigger distance, or -1 if
+   *         it never triggers. <b>Units:</b> Seconds
+   */
+  private double findTriggerTime(Translation2d markerPosition) {
+    double triggerDistance = constDrivetrain.EVENT_MARKER_TRIGGER_DISTANCE.in(Units.Meters);
+    double lastDistance = Math.hypot(x[0] - markerPosition.getX(), y[0] - markerPosition.getY());
+
+    for (int i = 0; i < x.length; i++) {
+      double distance = Math.hypot(x[i] - markerPosition.getX(), y[i] - markerPosition.getY());
+      if (distance <= triggerDistance && lastDistance > triggerDistance) {
+        return Math.min(i * samplePeriod, totalTime);
+      }
+      lastDistance = distance;
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the target at a time, interpolating between the samples around it.
+   *
+   * @param time  The time since the trajectory started. <b>Units:</b> Seconds
+   * @param state The state to write the target into
+   */
+  public void sample(double time, State state) {
+    double position = MathUtil.clamp(time, 0, totalTime) / samplePeriod;
+    int index = Math.min((int) position, x.length - 1);
+    int nextIndex = Math.min(index + 1, x.length - 1);
+    double fraction = position - index;
+
+    state.x = x[index] + (x[nextIndex] - x[index]) * fraction;
+    state.y = y[index] + (y[nextIndex] - y[index]) * fraction;
+    state.rotation = MathUtil.angleModulus(
+        rotation[index] + MathUtil.angleModulus(rotation[nextIndex] - rotation[index]) * fraction);
+    state.xVelocity = xVelocity[index] + (xVelocity[nextIndex] - xVelocity[index]) * fraction;
+    state.yVelocity = yVelocity[index] + (yVelocity[nextIndex] - yVelocity[index]) * fraction;
+  }
+
+  /**
+   * @return <b>Units:</b> Seconds
+   */
+  public double getTotalTime() {
+    return totalTime;
+  }
+
+  /**
+   * @return The velocity the path ends at. <b>Units:</b> Meters per Second
+   */
+  public double getEndVelocity() {
+    return endVelocity;
+  }
+
+  public int getEventCount() {
+    return eventCommands.length;
+  }
+
+  /**
+   * @param index Which event, in the order they trigger
+   * @return When the event triggers. <b>Units:</b> Seconds
+   */
+  public double getEventTime(int index) {
+    return eventTimes[index];
+  }
+
+  /**
+   * @param index Which event, in the order they trigger
+   * @return The command the event marker runs
+   */
+  public Command getEventCommand(int index) {
+    return eventCommands[index];
+  }
+}
@@ -0,0 +1,180 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.constField;
+import frc.robot.Constants.constSimulation;
+import frc.robot.Constants.constTransfer;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.Transfer;
+
+/**
+ * Simulates the notes on the field and inside of the robot, by driving the
+ * Intake's note sensor and the Transfer's LaserCAN.
+ *
+ * <p>
+ * A note on the field is picked up when the intake is running and the robot
+ * drives over it. It reaches the transfer after INTAKE_TO_TRANSFER_TIME, as
+ * long as the feeder is pulling it in. A note in the transfer reaches the
+ * flywheels FEED_TO_CONTACT_TIME after the feeder starts shooting it. It's shot
+ * once they're spinning, and counts as scored if the shooter was ready to shoot
+ * at that moment.
+ * </p>
+ */
+public class GamePieceSim {
+  private enum NoteLocation {
+    NONE, INTAKE, TRANSFER, FEEDING, SHOOTER
+  }
+
+  private final Drivetrain subDrivetrain;
+  private final Intake subIntake;
+  private final Transfer subTransfer;
+  private final Shooter subShooter;
+
+  private final boolean[] notesOnField = new boolean[constField.NOTE_POSITIONS.length];
+  private NoteLocation noteLocation = NoteLocation.NONE;
+  private double noteMoveTime = 0;
+  private boolean scoring = false;
+
+  // -- Results --
+  private int notesShot = 0;
+  private int notesScored = 0;
+  private double[] shotTimes = new double[16];
+
+  public GamePieceSim(Drivetrain subDrivetrain, Intake subIntake, Transfer subTransfer, Shooter subShooter) {
+    this.subDrivetrain = subDrivetrain;
+    this.subIntake = subIntake;
+    this.subTransfer = subTransfer;
+    this.subShooter = subShooter;
+
+    reset(null);
+  }
+
+  /**
+   * Puts every note back on the field, with a preload in the transfer.
+   *
+   * @param random Used to remove centerline notes that the other alliance
+   *               already took. If null, every note is on the field.
+   */
+  public void reset(Random random) {
+    Arrays.fill(notesOnField, true);
+    if (random != null) {
+      for (int i = constField.FIRST_CENTERLINE_NOTE; i <= constField.LAST_CENTERLINE_NOTE; i++) {
+        notesOnField[i] = random.nextDouble() >= constSimulation.CENTERLINE_NOTE_MISSING_CHANCE;
+      }
+    }
+
+    moveNote(NoteLocation.TRANSFER);
+    notesShot = 0;
+    notesScored = 0;
+  }
+
+  private void moveNote(NoteLocation location) {
+    noteLocation = location;
+    noteMoveTime = Timer.getFPGATimestamp();
+
+    subIntake.setSimulatedGamePiece(location == NoteLocation.INTAKE);
+    subTransfer.setSimulatedGamePiece(location == NoteLocation.TRANSFER);
+  }
+
+  /**
+   * Moves the notes for this loop. Should be called once per loop in
+   * simulation.
+   */
+  public void update() {
+    double timeSinceMove = Timer.getFPGATimestamp() - noteMoveTime;
+
+    switch (noteLocation) {
+      case NONE:
+        if (subIntake.getRollerSpeed() > 0) {
+          pickUpNote();
+        }
+        break;
+
+      case INTAKE:
+        if (subTransfer.getFeederSpeed() > 0
+            && timeSinceMove >= constSimulation.INTAKE_TO_TRANSFER_TIME.in(Units.Seconds)) {
+          moveNote(NoteLocation.TRANSFER);
+        } else if (subIntake.getRollerSpeed() < 0) {
+          moveNote(NoteLocation.NONE);
+        }
+        break;
+
+      case TRANSFER:
+        if (subTransfer.getFeederSpeed() > 0) {
+          moveNote(NoteLocation.FEEDING);
+        } else if (subTransfer.getFeederSpeed() < 0) {
+          // Ejected
+          moveNote(NoteLocation.NONE);
+        }
+        break;
+
+      case FEEDING:
+        if (timeSinceMove >= constTransfer.FEED_TO_CONTACT_TIME.in(Units.Seconds)
+            && subShooter.getLeftShooterVelocity().gte(constSimulation.MIN_SHOT_VELOCITY)
+            && subShooter.getRightShooterVelocity().gte(constSimulation.MIN_SHOT_VELOCITY)) {
+          scoring = subShooter.readyToShoot();
+          moveNote(NoteLocation.SHOOTER);
+        }
+        break;
+
+      case SHOOTER:
+        if (timeSinceMove >= constSimulation.SHOT_TIME.in(Units.Seconds)) {
+          recordShot();
+          moveNote(NoteLocation.NONE);
+        }
+        break;
+    }
+  }
+
+  private void pickUpNote() {
+    Translation2d robotPosition = subDrivetrain.getPose().getTranslation();
+    double intakeRadius = constSimulation.INTAKE_RADIUS.in(Units.Meters);
+
+    for (int i = 0; i < notesOnField.length; i++) {
+      if (notesOnField[i] && constField.NOTE_POSITIONS[i].getDistance(robotPosition) <= intakeRadius) {
+        notesOnField[i] = false;
+        moveNote(NoteLocation.INTAKE);
+        return;
+      }
+    }
+  }
+
+  private void recordShot() {
+    if (notesShot == shotTimes.length) {
+      shotTimes = Arrays.copyOf(shotTimes, notesShot * 2);
+    }
+    shotTimes[notesShot] = Timer.getFPGATimestamp();
+    notesShot++;
+
+    if (scoring) {
+      notesScored++;
+    }
+  }
+
+  public int getNotesShot() {
+    return notesShot;
+  }
+
+  public int getNotesScored() {
+    return notesScored;
+  }
+
+  /**
+   * @param index Which shot, starting at 0
+   * @return The FPGA time that the note left the shooter. <b>Units:</b> Seconds
+   */
+  public double getShotTime(int index) {
+    return shotTimes[index];
+  }
+}
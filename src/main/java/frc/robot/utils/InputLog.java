@@ -0,0 +1,268 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * The IO layer between our subsystems and the hardware. Every value that our
+ * logic reads from a sensor or motor is registered here as an input, and
+ * subsystems read the input instead of the hardware.
+ *
+ * <p>
+ * On the robot (and in normal simulation), each input reads its hardware once
+ * per loop and writes the value to the DataLog under /Inputs/. While replaying
+ * a log with {@link #startReplay(LogReplay)}, inputs never touch the hardware
+ * and return the values recorded in the log instead, so the StateMachine and
+ * commands see exactly what they saw during the match.
+ * </p>
+ */
+public final class InputLog {
+  public static final String LOG_PREFIX = "/Inputs/";
+  public static final String LOOP_KEY = LOG_PREFIX + "Loop";
+
+  // The most the Driver Station sends for one controller
+  public static final int MAX_JOYSTICK_AXES = 12;
+  public static final int MAX_JOYSTICK_POVS = 12;
+
+  private static final ArrayList<DoubleInput> doubleInputs = new ArrayList<DoubleInput>();
+  private static final ArrayList<BooleanInput> booleanInputs = new ArrayList<BooleanInput>();
+  private static final ArrayList<IntegerInput> integerInputs = new ArrayList<IntegerInput>();
+
+  private static LogReplay replay = null;
+  private static IntegerLogEntry loopEntry;
+  private static long loopCount = 0;
+  private static long loopTimestamp = 0;
+
+  private InputLog() {
+  }
+
+  /**
+   * A number read from hardware (or from the log while replaying).
+   */
+  public static final class DoubleInput {
+    private final String key;
+    private final DoubleSupplier source;
+    private DoubleLogEntry entry;
+    private double value;
+
+    /**
+     * Creates an input that is only updated when {@link #update()} is called.
+     * Use {@link InputLog#addDouble(String, DoubleSupplier)} for inputs that
+     * should be updated at the start of every loop.
+     */
+    public DoubleInput(String key, DoubleSupplier source) {
+      this.key = LOG_PREFIX + key;
+      this.source = source;
+      this.value = isReplaying() ? 0 : source.getAsDouble();
+    }
+
+    public void update() {
+      if (isReplaying()) {
+        value = replay.getDouble(key, value);
+        return;
+      }
+
+      if (entry == null) {
+        entry = new DoubleLogEntry(DataLogManager.getLog(), key);
+      }
+      value = source.getAsDouble();
+      entry.append(value, loopTimestamp);
+    }
+
+    public double get() {
+      return value;
+    }
+  }
+
+  /**
+   * A boolean read from hardware (or from the log while replaying).
+   */
+  public static final class BooleanInput {
+    private final String key;
+    private final BooleanSupplier source;
+    private BooleanLogEntry entry;
+    private boolean value;
+
+    /**
+     * Creates an input that is only updated when {@link #update()} is called.
+     * Use {@link InputLog#addBoolean(String, BooleanSupplier)} for inputs that
+     * should be updated at the start of every loop.
+     */
+    public BooleanInput(String key, BooleanSupplier source) {
+      this.key = LOG_PREFIX + key;
+      this.source = source;
+      this.value = isReplaying() ? false : source.getAsBoolean();
+    }
+
+    public void update() {
+      if (isReplaying()) {
+        value = replay.getBoolean(key, value);
+        return;
+      }
+
+      if (entry == null) {
+        entry = new BooleanLogEntry(DataLogManager.getLog(), key);
+      }
+      value = source.getAsBoolean();
+      entry.append(value, loopTimestamp);
+    }
+
+    public boolean get() {
+      return value;
+    }
+  }
+
+  /**
+   * A whole number read from hardware (or from the log while replaying).
+   */
+  public static final class IntegerInput {
+    private final String key;
+    private final LongSupplier source;
+    private IntegerLogEntry entry;
+    private long value;
+
+    /**
+     * Creates an input that is only updated when {@link #update()} is called.
+     * Use {@link InputLog#addInteger(String, LongSupplier)} for inputs that
+     * should be updated at the start of every loop.
+     */
+    public IntegerInput(String key, LongSupplier source) {
+      this.key = LOG_PREFIX + key;
+      this.source = source;
+      this.value = isReplaying() ? 0 : source.getAsLong();
+    }
+
+    public void update() {
+      if (isReplaying()) {
+        value = replay.getInteger(key, value);
+        return;
+      }
+
+      if (entry == null) {
+        entry = new IntegerLogEntry(DataLogManager.getLog(), key);
+      }
+      value = source.getAsLong();
+      entry.append(value, loopTimestamp);
+    }
+
+    public long get() {
+      return value;
+    }
+  }
+
+  public static DoubleInput addDouble(String key, DoubleSupplier source) {
+    DoubleInput input = new DoubleInput(key, source);
+    doubleInputs.add(input);
+    return input;
+  }
+
+  public static BooleanInput addBoolean(String key, BooleanSupplier source) {
+    BooleanInput input = new BooleanInput(key, source);
+    booleanInputs.add(input);
+    return input;
+  }
+
+  public static IntegerInput addInteger(String key, LongSupplier source) {
+    IntegerInput input = new IntegerInput(key, source);
+    integerInputs.add(input);
+    return input;
+  }
+
+  /**
+   * Logs every axis, button and POV of the controller on the given port, as the
+   * Driver Station sent them this loop. Axes and POVs past the ones the
+   * controller has are logged as 0 and -1, so nothing is read that isn't
+   * plugged in.
+   */
+  public static void addJoystick(int port) {
+    String prefix = getJoystickKey(port);
+
+    addInteger(prefix + "Axis Count", () -> DriverStation.getStickAxisCount(port));
+    for (int i = 0; i < MAX_JOYSTICK_AXES; i++) {
+      int axis = i;
+      addDouble(prefix + "Axis " + axis,
+          () -> (axis < DriverStation.getStickAxisCount(port)) ? DriverStation.getStickAxis(port, axis) : 0);
+    }
+
+    addInteger(prefix + "Button Count", () -> DriverStation.getStickButtonCount(port));
+    // Every button is a bit, with button 1 as the lowest
+    addInteger(prefix + "Buttons", () -> DriverStation.getStickButtons(port));
+
+    addInteger(prefix + "POV Count", () -> DriverStation.getStickPOVCount(port));
+    for (int i = 0; i < MAX_JOYSTICK_POVS; i++) {
+      int pov = i;
+      addInteger(prefix + "POV " + pov,
+          () -> (pov < DriverStation.getStickPOVCount(port)) ? DriverStation.getStickPOV(port, pov) : -1);
+    }
+  }
+
+  /**
+   * @return The start of the key of every input logged by
+   *         {@link #addJoystick(int)} for the given port, without the LOG_PREFIX
+   */
+  public static String getJoystickKey(int port) {
+    return "DriverStation/Joystick " + port + "/";
+  }
+
+  /**
+   * Switches every input over to the values in the given log. Must be called
+   * before any subsystems are created.
+   */
+  public static void startReplay(LogReplay logReplay) {
+    replay = logReplay;
+  }
+
+  public static boolean isReplaying() {
+    return replay != null;
+  }
+
+  /**
+   * Updates every input registered with addDouble(), addBoolean() or
+   * addInteger(). Should be
+   * called once per loop, after the SignalCache is refreshed and before the
+   * CommandScheduler runs.
+   */
+  public static void update() {
+    if (!isReplaying()) {
+      // Every input in a loop is logged with the same timestamp, which is how
+      // the replay finds the values for each loop
+      loopTimestamp = WPIUtilJNI.now();
+      if (loopEntry == null) {
+        loopEntry = new IntegerLogEntry(DataLogManager.getLog(), LOOP_KEY);
+      }
+      loopEntry.append(loopCount, loopTimestamp);
+    }
+    loopCount++;
+
+    for (int i = 0; i < doubleInputs.size(); i++) {
+      doubleInputs.get(i).update();
+    }
+    for (int i = 0; i < booleanInputs.size(); i++) {
+      booleanInputs.get(i).update();
+    }
+    for (int i = 0; i < integerInputs.size(); i++) {
+      integerInputs.get(i).update();
+    }
+  }
+
+  /**
+   * @return The timestamp that inputs updated this loop are logged with.
+   *         <b>Units:</b> Microseconds
+   */
+  public static long getLoopTimestamp() {
+    return loopTimestamp;
+  }
+}
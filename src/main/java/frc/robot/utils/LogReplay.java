@@ -0,0 +1,189 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.util.datalog.DataLogRecord.StartRecordData;
+
+/**
+ * Holds every input recorded by {@link InputLog} in a .wpilog file, and steps
+ * through them one robot loop at a time.
+ *
+ * <p>
+ * The whole log is read into primitive arrays up front, so stepping through it
+ * doesn't touch the disk or allocate.
+ * </p>
+ */
+public class LogReplay {
+  /**
+   * Every record for one input, in the order they were logged.
+   */
+  private static final class InputRecords {
+    long[] timestamps = new long[64];
+    double[] values = new double[64];
+    int size = 0;
+    int cursor = 0;
+
+    void add(long timestamp, double value) {
+      if (size == timestamps.length) {
+        timestamps = Arrays.copyOf(timestamps, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      timestamps[size] = timestamp;
+      values[size] = value;
+      size++;
+    }
+
+    /**
+     * Moves to the last record at or before the given timestamp.
+     *
+     * @return If there is a record at or before the timestamp
+     */
+    boolean seek(long timestamp) {
+      while (cursor + 1 < size && timestamps[cursor + 1] <= timestamp) {
+        cursor++;
+      }
+      return size > 0 && timestamps[cursor] <= timestamp;
+    }
+  }
+
+  private final HashMap<String, InputRecords> inputs = new HashMap<String, InputRecords>();
+  private final InputRecords loops;
+  private int loopIndex = -1;
+  private long loopTimestamp = 0;
+
+  private LogReplay(InputRecords loops) {
+    this.loops = loops;
+  }
+
+  /**
+   * Reads every input out of a .wpilog file.
+   *
+   * @param logPath The .wpilog file to read
+   * @return The replay, ready to step to the first loop
+   * @throws IOException If the file can't be read or isn't a DataLog
+   */
+  public static LogReplay load(Path logPath) throws IOException {
+    DataLogReader reader = new DataLogReader(logPath.toString());
+    if (!reader.isValid()) {
+      throw new IOException(logPath + " is not a valid .wpilog file");
+    }
+
+    HashMap<Integer, String> entryNames = new HashMap<Integer, String>();
+    HashMap<Integer, String> entryTypes = new HashMap<Integer, String>();
+    HashMap<String, InputRecords> inputs = new HashMap<String, InputRecords>();
+
+    for (DataLogRecord record : reader) {
+      if (record.isStart()) {
+        StartRecordData startData = record.getStartData();
+        if (startData.name.startsWith(InputLog.LOG_PREFIX)) {
+          entryNames.put(startData.entry, startData.name);
+          entryTypes.put(startData.entry, startData.type);
+        }
+        continue;
+      }
+      if (record.isControl()) {
+        continue;
+      }
+
+      String name = entryNames.get(record.getEntry());
+      if (name == null) {
+        continue;
+      }
+
+      double value;
+      switch (entryTypes.get(record.getEntry())) {
+        case "double":
+          value = record.getDouble();
+          break;
+        case "boolean":
+          value = record.getBoolean() ? 1 : 0;
+          break;
+        case "int64":
+          value = record.getInteger();
+          break;
+        default:
+          continue;
+      }
+      inputs.computeIfAbsent(name, key -> new InputRecords()).add(record.getTimestamp(), value);
+    }
+
+    InputRecords loops = inputs.remove(InputLog.LOOP_KEY);
+    if (loops == null) {
+      throw new IOException(logPath + " has no inputs. Was it recorded with the InputLog?");
+    }
+
+    LogReplay replay = new LogReplay(loops);
+    replay.inputs.putAll(inputs);
+    return replay;
+  }
+
+  /**
+   * Moves to the next recorded loop.
+   *
+   * @return False if there are no more loops in the log
+   */
+  public boolean nextLoop() {
+    if (loopIndex + 1 >= loops.size) {
+      return false;
+    }
+    loopIndex++;
+    loopTimestamp = loops.timestamps[loopIndex];
+    return true;
+  }
+
+  /**
+   * @param key          The full log key of the input
+   * @param defaultValue The value to use if the input wasn't logged yet
+   * @return The value of the input during the current loop
+   */
+  public double getDouble(String key, double defaultValue) {
+    InputRecords records = inputs.get(key);
+    if (records == null || !records.seek(loopTimestamp)) {
+      return defaultValue;
+    }
+    return records.values[records.cursor];
+  }
+
+  /**
+   * @param key          The full log key of the input
+   * @param defaultValue The value to use if the input wasn't logged yet
+   * @return The value of the input during the current loop
+   */
+  public boolean getBoolean(String key, boolean defaultValue) {
+    return getDouble(key, defaultValue ? 1 : 0) != 0;
+  }
+
+  /**
+   * @param key          The full log key of the input
+   * @param defaultValue The value to use if the input wasn't logged yet
+   * @return The value of the input during the current loop
+   */
+  public long getInteger(String key, long defaultValue) {
+    return (long) getDouble(key, defaultValue);
+  }
+
+  public int getLoopCount() {
+    return loops.size;
+  }
+
+  public int getLoopIndex() {
+    return loopIndex;
+  }
+
+  /**
+   * @return The time the current loop was recorded at. <b>Units:</b>
+   *         Microseconds
+   */
+  public long getLoopTimestamp() {
+    return loopTimestamp;
+  }
+}
@@ -0,0 +1,378 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.utils.Telemetry.Tier;
+
+/**
+ * Times each part of our robot loop, so that a loop overrun can be traced back
+ * to the subsystem or command that caused it.
+ *
+ * <p>
+ * The loop is split up by calling {@link #mark(String)} at the end of each
+ * part. The time since the previous mark is added to that source, so a mark
+ * costs one System.nanoTime() call and a lookup. Subsystems mark at the end of
+ * their periodic(), and every running command is marked after its execute()
+ * through {@link CommandScheduler#onCommandExecute}.
+ * </p>
+ *
+ * <p>
+ * Each source keeps a preallocated histogram of its time per loop, and
+ * publishes its p50, p99 and max to the dashboard. Whenever a loop is the
+ * slowest one so far, its full breakdown is written to the DataLog under
+ * /Profiler/Worst Loop.
+ * </p>
+ *
+ * <p>
+ * It also counts how many bytes the robot thread allocates each loop, since
+ * garbage made every loop is what eventually pauses us for a collection.
+ * </p>
+ */
+public final class LoopProfiler {
+  // Sources past this are combined, so the histograms never grow
+  private static final int MAX_SOURCES = 64;
+  private static final String OVERFLOW_SOURCE = "Other Commands";
+
+  // Each power of two is split into 4 buckets, so a bucket is at most 25% wide
+  private static final int SUB_BUCKET_BITS = 2;
+  private static final int BUCKET_COUNT = 64 << SUB_BUCKET_BITS;
+
+  /**
+   * One part of the loop that we time.
+   */
+  private static final class Source {
+    final String name;
+    final long[] histogram = new long[BUCKET_COUNT];
+    long sampleCount = 0;
+    long maxTime = 0;
+
+    // Time spent in this source during the current loop
+    long loopTime = 0;
+    boolean touched = false;
+
+    Source(String name) {
+      this.name = name;
+    }
+
+    void record(long time) {
+      histogram[bucketOf(time)]++;
+      sampleCount++;
+      maxTime = Math.max(maxTime, time);
+    }
+
+    /**
+     * @return The upper bound of the bucket holding the given percentile.
+     *         <b>Units:</b> Milliseconds
+     */
+    double getPercentile(double percentile) {
+      if (sampleCount == 0) {
+        return 0;
+      }
+
+      long rank = (long) Math.ceil(sampleCount * percentile);
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += histogram[i];
+        if (seen >= rank) {
+          return Math.min(bucketUpperBound(i), maxTime) / 1e6;
+        }
+      }
+      return maxTime / 1e6;
+    }
+  }
+
+  private static final HashMap<String, Source> namedSources = new HashMap<String, Source>();
+  private static final WeakHashMap<Command, Source> commandSources = new WeakHashMap<Command, Source>();
+  private static final Source[] sources = new Source[MAX_SOURCES];
+  private static int sourceCount = 0;
+
+  private static long loopStartTime = 0;
+  private static long lastMarkTime = 0;
+  private static long worstLoopTime = 0;
+  private static long lastLoopTime = 0;
+  private static long loopCount = 0;
+  private static boolean benchmarking = false;
+
+  private static StringLogEntry worstLoopEntry;
+  private static DoubleLogEntry loopTimeEntry;
+
+  // Null if this JVM can't count allocations per thread
+  private static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+  private static long loopStartAllocatedBytes = 0;
+  private static long lastLoopAllocatedBytes = 0;
+  private static DoubleLogEntry allocatedBytesEntry;
+
+  private LoopProfiler() {
+  }
+
+  /**
+   * Starts timing every command's execute(). Should be called once, after our
+   * button bindings are created.
+   */
+  public static void start() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.onCommandExecute(command -> mark(command));
+
+    // Triggers are polled after the subsystems and before the commands. This
+    // runs after every binding that exists now, so it covers them all
+    scheduler.getDefaultButtonLoop().bind(() -> mark("Triggers"));
+
+    worstLoopEntry = new StringLogEntry(DataLogManager.getLog(), "/Profiler/Worst Loop");
+    loopTimeEntry = new DoubleLogEntry(DataLogManager.getLog(), "/Profiler/Loop Time (ms)");
+    allocatedBytesEntry = new DoubleLogEntry(DataLogManager.getLog(), "/Profiler/Allocated Bytes");
+
+    Telemetry.addNumber("Profiler/Loop Time (ms)", Tier.CONTROL, () -> lastLoopTime / 1e6);
+    Telemetry.addNumber("Profiler/Worst Loop Time (ms)", Tier.DIAGNOSTIC, () -> worstLoopTime / 1e6);
+    Telemetry.addNumber("Profiler/Allocated Bytes", Tier.DIAGNOSTIC, () -> lastLoopAllocatedBytes);
+  }
+
+  /**
+   * Marks the start of a loop. Should be the first thing in robotPeriodic().
+   */
+  public static void beginLoop() {
+    loopStartTime = System.nanoTime();
+    lastMarkTime = loopStartTime;
+    loopStartAllocatedBytes = getAllocatedBytes();
+  }
+
+  /**
+   * Adds the time since the last mark to the given source.
+   *
+   * @param name The name of the part of the loop that just finished
+   */
+  public static void mark(String name) {
+    long now = System.nanoTime();
+    Source source = namedSources.get(name);
+    if (source == null) {
+      source = addSource(name);
+      namedSources.put(name, source);
+    }
+    addTime(source, now);
+  }
+
+  private static void mark(Command command) {
+    long now = System.nanoTime();
+    Source source = commandSources.get(command);
+    if (source == null) {
+      // Commands with the same name share a source
+      source = namedSources.get(command.getName());
+      if (source == null) {
+        source = addSource(command.getName());
+        namedSources.put(command.getName(), source);
+      }
+      commandSources.put(command, source);
+    }
+    addTime(source, now);
+  }
+
+  private static void addTime(Source source, long now) {
+    source.loopTime += now - lastMarkTime;
+    source.touched = true;
+    lastMarkTime = now;
+  }
+
+  private static Source addSource(String name) {
+    if (sourceCount == MAX_SOURCES - 1 && !name.equals(OVERFLOW_SOURCE)) {
+      Source overflow = namedSources.get(OVERFLOW_SOURCE);
+      if (overflow == null) {
+        overflow = addSource(OVERFLOW_SOURCE);
+        namedSources.put(OVERFLOW_SOURCE, overflow);
+      }
+      return overflow;
+    }
+
+    Source source = new Source(name);
+    sources[sourceCount++] = source;
+    if (benchmarking) {
+      return source;
+    }
+
+    String key = "Profiler/" + name;
+    Telemetry.addNumber(key + "/p50 (ms)", Tier.DIAGNOSTIC, () -> source.getPercentile(0.5));
+    Telemetry.addNumber(key + "/p99 (ms)", Tier.DIAGNOSTIC, () -> source.getPercentile(0.99));
+    Telemetry.addNumber(key + "/Max (ms)", Tier.DIAGNOSTIC, () -> source.maxTime / 1e6);
+    return source;
+  }
+
+  /**
+   * Records every source that ran this loop. Should be the last thing in
+   * robotPeriodic().
+   */
+  public static void endLoop() {
+    lastLoopTime = System.nanoTime() - loopStartTime;
+    lastLoopAllocatedBytes = getAllocatedBytes() - loopStartAllocatedBytes;
+    loopCount++;
+
+    for (int i = 0; i < sourceCount; i++) {
+      Source source = sources[i];
+      if (source.touched) {
+        source.record(source.loopTime);
+      }
+    }
+
+    if (!benchmarking) {
+      loopTimeEntry.append(lastLoopTime / 1e6);
+      if (threadBean != null) {
+        allocatedBytesEntry.append(lastLoopAllocatedBytes);
+      }
+      if (lastLoopTime > worstLoopTime) {
+        worstLoopTime = lastLoopTime;
+        worstLoopEntry.append(describeLoop());
+      }
+    }
+
+    for (int i = 0; i < sourceCount; i++) {
+      sources[i].loopTime = 0;
+      sources[i].touched = false;
+    }
+  }
+
+  /**
+   * @return Every source that ran this loop, slowest first. Only called for a
+   *         new worst loop, so it is allowed to allocate.
+   */
+  private static String describeLoop() {
+    Source[] ran = new Source[sourceCount];
+    int ranCount = 0;
+    for (int i = 0; i < sourceCount; i++) {
+      if (sources[i].touched) {
+        ran[ranCount++] = sources[i];
+      }
+    }
+    Arrays.sort(ran, 0, ranCount, (a, b) -> Long.compare(b.loopTime, a.loopTime));
+
+    StringBuilder description = new StringBuilder();
+    description.append(String.format("Loop %d: %.3fms", loopCount, lastLoopTime / 1e6));
+    for (int i = 0; i < ranCount; i++) {
+      description.append(String.format("\n  %s: %.3fms", ran[i].name, ran[i].loopTime / 1e6));
+    }
+    return description.toString();
+  }
+
+  private static int bucketOf(long time) {
+    if (time < (1 << SUB_BUCKET_BITS)) {
+      return (int) Math.max(time, 0);
+    }
+    int highestBit = 63 - Long.numberOfLeadingZeros(time);
+    int subBucket = (int) (time >>> (highestBit - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+    return (highestBit << SUB_BUCKET_BITS) | subBucket;
+  }
+
+  private static long bucketUpperBound(int bucket) {
+    if (bucket < (1 << SUB_BUCKET_BITS)) {
+      return bucket + 1;
+    }
+    int highestBit = bucket >>> SUB_BUCKET_BITS;
+    int subBucket = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+    return ((long) ((1 << SUB_BUCKET_BITS) + subBucket + 1)) << (highestBit - SUB_BUCKET_BITS);
+  }
+
+  /**
+   * Measures how much time the profiler itself adds to a loop, by running empty
+   * loops with the given number of marks each. The benchmark's sources are
+   * removed and every histogram is cleared afterwards, so this should only be
+   * run while the robot isn't looping, such as from LoopBenchmark.
+   *
+   * @param loops        How many loops to run
+   * @param marksPerLoop How many marks to make each loop
+   * @return The average overhead of a loop. <b>Units:</b> Microseconds
+   */
+  public static double measureOverhead(int loops, int marksPerLoop) {
+    String[] names = new String[marksPerLoop];
+    for (int i = 0; i < marksPerLoop; i++) {
+      names[i] = "Benchmark " + i;
+    }
+
+    int realSourceCount = sourceCount;
+    benchmarking = true;
+    long startTime = System.nanoTime();
+    for (int loop = 0; loop < loops; loop++) {
+      beginLoop();
+      for (int i = 0; i < marksPerLoop; i++) {
+        mark(names[i]);
+      }
+      endLoop();
+    }
+    long elapsedTime = System.nanoTime() - startTime;
+    benchmarking = false;
+
+    for (int i = realSourceCount; i < sourceCount; i++) {
+      namedSources.remove(sources[i].name);
+      sources[i] = null;
+    }
+    sourceCount = realSourceCount;
+
+    for (int i = 0; i < sourceCount; i++) {
+      Arrays.fill(sources[i].histogram, 0);
+      sources[i].sampleCount = 0;
+      sources[i].maxTime = 0;
+    }
+    loopCount = 0;
+    lastLoopTime = 0;
+
+    return (elapsedTime / 1e3) / loops;
+  }
+
+  /**
+   * Measures how many bytes some work allocates each time it runs, such as a
+   * command's execute(). The work is run a few times first, so that the JIT
+   * compiler has had its chance to remove allocations that don't escape.
+   *
+   * @param work       The work to measure
+   * @param iterations How many times to run it
+   * @return The average bytes allocated per run, or -1 if this JVM can't count
+   *         allocations
+   */
+  public static double measureAllocation(Runnable work, int iterations) {
+    if (threadBean == null) {
+      return -1;
+    }
+
+    for (int i = 0; i < iterations; i++) {
+      work.run();
+    }
+
+    long startBytes = getAllocatedBytes();
+    for (int i = 0; i < iterations; i++) {
+      work.run();
+    }
+    return (double) (getAllocatedBytes() - startBytes) / iterations;
+  }
+
+  /**
+   * @return If this JVM can count how many bytes each thread allocates
+   */
+  public static boolean canCountAllocations() {
+    return threadBean != null;
+  }
+
+  /**
+   * @return How many bytes the current thread has allocated so far, or 0 if
+   *         this JVM can't count allocations
+   */
+  public static long getAllocatedBytes() {
+    return (threadBean != null) ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+  }
+
+  private static com.sun.management.ThreadMXBean getThreadBean() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean;
+      }
+    }
+    return null;
+  }
+}
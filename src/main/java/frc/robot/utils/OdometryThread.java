@@ -0,0 +1,273 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.Pigeon2;
+import com.frcteam3255.components.swerve.SN_SwerveModule;
+
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.constDrivetrain;
+
+/**
+ * Samples the swerve module positions and Pigeon yaw faster than our 20ms loop,
+ * so that the pose estimator sees every movement during fast autos instead of
+ * one sample per loop.
+ *
+ * <p>
+ * The thread waits for new data from the Swerve CANivore, and stores each
+ * sample (with the time it was measured) in a ring buffer. Once per loop, the
+ * Drivetrain calls {@link #applySamples(SwerveDrivePoseEstimator, PoseHistory)}
+ * to add every sample since the last loop to the pose estimator.
+ * </p>
+ *
+ * <p>
+ * The thread waits on its own clones of the module and Pigeon signals, so it
+ * never refreshes or reads the signals SuperCORE uses on the main thread. The
+ * lock only guards the ring buffer.
+ * </p>
+ */
+public class OdometryThread extends Thread {
+  private final int moduleCount;
+  private StatusSignal<Double> yaw;
+  private StatusSignal<Double>[] drivePositions, steerPositions;
+  private BaseStatusSignal[] signals;
+
+  // Drive motor rotations to meters, the same as SN_SwerveModule
+  private double driveRotationsToMeters;
+
+  // Only used by the thread, to read each sample before it's added
+  private final double[] readDistances;
+  private final double[] readAngles;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // -- Ring Buffer --
+  // Preallocated, so our sampling code never allocates
+  private final int capacity;
+  private final double[] timestamps;
+  private final double[] yaws;
+  private final double[][] distances;
+  private final double[][] angles;
+  private int head = 0;
+  private int size = 0;
+
+  // Reused when applying samples. The pose estimator copies the positions.
+  // Rotation2d can't be changed, so a new one is only made when a measured
+  // angle actually changed since the last sample, which a module that isn't
+  // steering never does
+  private final SwerveModulePosition[] samplePositions;
+  private final double[] sampleAngles;
+  private Rotation2d sampleYaw = new Rotation2d();
+  private double sampleYawDegrees = 0;
+
+  private long sampleCount = 0;
+  private long droppedSampleCount = 0;
+  private long failedWaitCount = 0;
+  private int lastAppliedSampleCount = 0;
+
+  @SuppressWarnings("unchecked")
+  public OdometryThread(SN_SwerveModule[] modules, Pigeon2 pigeon) {
+    this(modules.length, constDrivetrain.ODOMETRY_BUFFER_SIZE);
+
+    yaw = pigeon.getYaw().clone();
+
+    drivePositions = new StatusSignal[moduleCount];
+    steerPositions = new StatusSignal[moduleCount];
+
+    signals = new BaseStatusSignal[1 + (moduleCount * 2)];
+    signals[0] = yaw;
+    for (int i = 0; i < moduleCount; i++) {
+      drivePositions[i] = modules[i].driveMotor.getPosition().clone();
+      steerPositions[i] = modules[i].steerMotor.getPosition().clone();
+
+      signals[1 + (i * 2)] = drivePositions[i];
+      signals[2 + (i * 2)] = steerPositions[i];
+    }
+    BaseStatusSignal.setUpdateFrequencyForAll(constDrivetrain.ODOMETRY_FREQUENCY, signals);
+
+    driveRotationsToMeters = constDrivetrain.WHEEL_CIRCUMFERENCE
+        / constDrivetrain.SWERVE_CONSTANTS.driveGearRatio;
+  }
+
+  /**
+   * Creates the ring buffer without any signals to wait on, so samples can be
+   * added with {@link #addSample(double, double, double[], double[])} instead.
+   * Used by our tests, which don't have a CANivore.
+   */
+  OdometryThread(int moduleCount, int capacity) {
+    this.moduleCount = moduleCount;
+    this.capacity = capacity;
+
+    readDistances = new double[moduleCount];
+    readAngles = new double[moduleCount];
+
+    timestamps = new double[capacity];
+    yaws = new double[capacity];
+    distances = new double[capacity][moduleCount];
+    angles = new double[capacity][moduleCount];
+
+    samplePositions = new SwerveModulePosition[moduleCount];
+    sampleAngles = new double[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      samplePositions[i] = new SwerveModulePosition();
+    }
+
+    setName("Odometry");
+    setDaemon(true);
+  }
+
+  @Override
+  public void run() {
+    // Wait up to two periods, so a missed frame doesn't stall the thread
+    double timeout = 2.0 / constDrivetrain.ODOMETRY_FREQUENCY;
+
+    while (!isInterrupted()) {
+      // Only this thread touches these clones, so the wait doesn't need the lock
+      StatusCode status = BaseStatusSignal.waitForAll(timeout, signals);
+      if (!status.isOK()) {
+        // After a timeout or CAN error, the signals still hold the last sample
+        failedWaitCount++;
+        continue;
+      }
+
+      // The signals arrive together, so the sample was measured when they were
+      // on average. Their latency is in the same clock as the pose estimator's
+      double latency = 0;
+      for (BaseStatusSignal signal : signals) {
+        latency += signal.getTimestamp().getLatency();
+      }
+      double timestamp = Timer.getFPGATimestamp() - (latency / signals.length);
+
+      for (int i = 0; i < moduleCount; i++) {
+        readDistances[i] = drivePositions[i].getValueAsDouble() * driveRotationsToMeters;
+        readAngles[i] = Units.rotationsToRadians(steerPositions[i].getValueAsDouble());
+      }
+      addSample(timestamp, yaw.getValueAsDouble(), readDistances, readAngles);
+    }
+  }
+
+  /**
+   * Adds a sample to the ring buffer, dropping the oldest one if the main loop
+   * has fallen behind.
+   *
+   * @param timestamp       When the sample was measured. <b>Units:</b> Seconds
+   * @param yawDegrees      The yaw of the Pigeon. <b>Units:</b> Degrees
+   * @param moduleDistances How far each drive wheel has rolled. Copied, so it
+   *                        can be reused. <b>Units:</b> Meters
+   * @param moduleAngles    The angle of each module. Copied, so it can be
+   *                        reused. <b>Units:</b> Radians
+   */
+  void addSample(double timestamp, double yawDegrees, double[] moduleDistances, double[] moduleAngles) {
+    lock.lock();
+    try {
+      int index = (head + size) % capacity;
+      if (size == capacity) {
+        head = (head + 1) % capacity;
+        droppedSampleCount++;
+      } else {
+        size++;
+      }
+
+      timestamps[index] = timestamp;
+      yaws[index] = yawDegrees;
+      for (int i = 0; i < moduleCount; i++) {
+        distances[index][i] = moduleDistances[i];
+        angles[index][i] = moduleAngles[i];
+      }
+      sampleCount++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds every sample taken since the last call to the given pose estimator, in
+   * the order they were taken. Replaces SN_SuperSwerve's own update while the
+   * thread is running, so it should be called once per loop instead of it.
+   *
+   * @param poseEstimator The pose estimator to update
+   * @param poseHistory   Gets the estimated pose after every sample
+   */
+  public void applySamples(SwerveDrivePoseEstimator poseEstimator, PoseHistory poseHistory) {
+    lock.lock();
+    try {
+      lastAppliedSampleCount = size;
+
+      while (size > 0) {
+        for (int i = 0; i < moduleCount; i++) {
+          samplePositions[i].distanceMeters = distances[head][i];
+          if (sampleAngles[i] != angles[head][i]) {
+            sampleAngles[i] = angles[head][i];
+            samplePositions[i].angle = new Rotation2d(sampleAngles[i]);
+          }
+        }
+        if (sampleYawDegrees != yaws[head]) {
+          sampleYawDegrees = yaws[head];
+          sampleYaw = Rotation2d.fromDegrees(sampleYawDegrees);
+        }
+
+        poseEstimator.updateWithTime(timestamps[head], sampleYaw, samplePositions);
+        poseHistory.add(timestamps[head], poseEstimator.getEstimatedPosition());
+
+        head = (head + 1) % capacity;
+        size--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+  /**
+   * Throws away every sample that hasn't been applied yet. Should be called when
+   * the pose is reset, since those samples were taken before the reset.
+   */
+  public void clearSamples() {
+    lock.lock();
+    try {
+      head = 0;
+      size = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return The lock that guards the samples. Hold this while resetting the pose
+   *         estimator, so no sample is applied across the reset.
+   */
+  public ReentrantLock getLock() {
+    return lock;
+  }
+
+  public long getSampleCount() {
+    return sampleCount;
+  }
+
+  public long getDroppedSampleCount() {
+    return droppedSampleCount;
+  }
+
+  /**
+   * @return How many times the signals didn't all arrive in time
+   */
+  public long getFailedWaitCount() {
+    return failedWaitCount;
+  }
+
+  /**
+   * @return How many samples were added to the pose estimator last loop
+   */
+  public int getLastAppliedSampleCount() {
+    return lastAppliedSampleCount;
+  }
+}
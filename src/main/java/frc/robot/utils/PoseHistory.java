@@ -0,0 +1,122 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * A ring buffer of our recent poses, so that a measurement taken in the past
+ * (like a camera frame) can be matched with where we were when it was taken.
+ *
+ * <p>
+ * Samples are stored in primitive arrays, so adding one and looking one up
+ * never allocate. Lookups walk back from the newest sample, since they are
+ * almost always for the last few hundred milliseconds.
+ * </p>
+ */
+public class PoseHistory {
+  private final double[] timestamps;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] headings;
+
+  // Index of the newest sample
+  private int newest = -1;
+  private int size = 0;
+
+  /**
+   * @param capacity How many samples to keep
+   */
+  public PoseHistory(int capacity) {
+    timestamps = new double[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    headings = new double[capacity];
+  }
+
+  /**
+   * Adds a sample. Samples older than the newest one are ignored.
+   *
+   * @param timestamp When the pose was measured. <b>Units:</b> Seconds
+   * @param pose      The pose at that time
+   */
+  public void add(double timestamp, Pose2d pose) {
+    if (size > 0 && timestamp <= timestamps[newest]) {
+      return;
+    }
+
+    newest = (newest + 1) % timestamps.length;
+    timestamps[newest] = timestamp;
+    xs[newest] = pose.getX();
+    ys[newest] = pose.getY();
+    headings[newest] = pose.getRotation().getRadians();
+    size = Math.min(size + 1, timestamps.length);
+  }
+
+  /**
+   * Throws away every sample. Should be called when the pose is reset.
+   */
+  public void clear() {
+    newest = -1;
+    size = 0;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return The index of the newest sample at or before the timestamp, or of the
+   *         oldest sample if the timestamp is before all of them
+   */
+  private int findSampleBefore(double timestamp) {
+    int index = newest;
+    for (int i = 1; i < size && timestamps[index] > timestamp; i++) {
+      index = (index - 1 + timestamps.length) % timestamps.length;
+    }
+    return index;
+  }
+
+  /**
+   * @param timestamp <b>Units:</b> Seconds
+   * @return Our heading at the given time, interpolated between the samples
+   *         around it. Clamped to the oldest and newest samples.
+   *         <b>Units:</b> Radians
+   */
+  public double getHeading(double timestamp) {
+    if (size == 0) {
+      return 0;
+    }
+
+    int before = findSampleBefore(timestamp);
+    if (before == newest || timestamps[before] >= timestamp) {
+      return headings[before];
+    }
+
+    int after = (before + 1) % timestamps.length;
+    double fraction = (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+    return MathUtil.angleModulus(
+        headings[before] + MathUtil.angleModulus(headings[after] - headings[before]) * fraction);
+  }
+
+  /**
+   * @param timestamp <b>Units:</b> Seconds
+   * @return How fast we were turning at the given time, from the samples around
+   *         it. <b>Units:</b> Radians per Second
+   */
+  public double getHeadingRate(double timestamp) {
+    if (size < 2) {
+      return 0;
+    }
+
+    int before = findSampleBefore(timestamp);
+    if (before == newest) {
+      before = (newest - 1 + timestamps.length) % timestamps.length;
+    }
+    int after = (before + 1) % timestamps.length;
+    return MathUtil.angleModulus(headings[after] - headings[before]) / (timestamps[after] - timestamps[before]);
+  }
+}
@@ -0,0 +1,200 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.units.Units;
+import frc.robot.Constants.constShooter;
+
+/**
+ * Calculates how to shoot into the SPEAKER while the robot is moving.
+ *
+ * <p>
+ * A note keeps the robot's velocity after it leaves the shooter, so instead of
+ * aiming at the SPEAKER we aim at a "virtual target": the SPEAKER moved
+ * backwards by how far the robot will travel while the note is in the air. The
+ * time of flight depends on the distance to the virtual target, so the two are
+ * solved together by repeating the lookup until the time of flight stops
+ * changing.
+ * </p>
+ *
+ * <p>
+ * Every lookup goes through a dense table that is built once at startup from
+ * {@link constShooter#SHOT_TABLE}. Entries are evenly spaced, so finding a
+ * distance is a multiplication instead of a search. Nothing is allocated
+ * while solving.
+ * </p>
+ */
+public class ShotSolver {
+  private final double minDistance;
+  private final double resolution;
+  private final double[] pivotAngles;
+  private final double[] leftVelocities;
+  private final double[] rightVelocities;
+  private final double[] timesOfFlight;
+
+  // -- Last Solution --
+  private double distance = 0;
+  private double timeOfFlight = 0;
+  private double pivotAngle = 0;
+  private double leftVelocity = 0;
+  private double rightVelocity = 0;
+  private int iterations = 0;
+  private double virtualTargetX = 0;
+  private double virtualTargetY = 0;
+
+  public ShotSolver() {
+    minDistance = constShooter.SHOT_TABLE_MIN_DISTANCE.in(Units.Meters);
+    resolution = constShooter.SHOT_TABLE_RESOLUTION.in(Units.Meters);
+
+    int size = (int) Math.ceil((constShooter.SHOT_TABLE_MAX_DISTANCE.in(Units.Meters) - minDistance) / resolution) + 1;
+    pivotAngles = new double[size];
+    leftVelocities = new double[size];
+    rightVelocities = new double[size];
+    timesOfFlight = new double[size];
+
+    double noteExitVelocity = constShooter.NOTE_EXIT_VELOCITY.in(Units.MetersPerSecond);
+
+    for (int i = 0; i < size; i++) {
+      double entryDistance = minDistance + (i * resolution);
+
+      pivotAngles[i] = constShooter.SHOT_TABLE.getPivotAngle(entryDistance);
+      leftVelocities[i] = constShooter.SHOT_TABLE.getLeftVelocity(entryDistance);
+      rightVelocities[i] = constShooter.SHOT_TABLE.getRightVelocity(entryDistance);
+      timesOfFlight[i] = entryDistance / (noteExitVelocity * Math.cos(Math.toRadians(pivotAngles[i])));
+    }
+  }
+
+  /**
+   * Linearly interpolates a value out of one of the tables. Distances outside of
+   * the table use the closest entry, matching the SHOT_TABLE.
+   */
+  private double lookup(double[] table, double lookupDistance) {
+    double index = (lookupDistance - minDistance) / resolution;
+
+    if (index <= 0) {
+      return table[0];
+    }
+    if (index >= table.length - 1) {
+      return table[table.length - 1];
+    }
+
+    int lowerIndex = (int) index;
+    double fraction = index - lowerIndex;
+    return table[lowerIndex] + ((table[lowerIndex + 1] - table[lowerIndex]) * fraction);
+  }
+
+  /**
+   * Solves for the shot from the given robot state. The results can be read with
+   * the getters until the next call.
+   *
+   * @param robotPose   The current pose of the robot
+   * @param fieldSpeeds The current velocity of the robot, relative to the field
+   * @param targetPose  The pose of the SPEAKER, matching our alliance color
+   */
+  public void solve(Pose2d robotPose, ChassisSpeeds fieldSpeeds, Pose2d targetPose) {
+    // The note leaves from the pivot, not the center of the robot
+    double heading = robotPose.getRotation().getRadians();
+    double pivotOffset = constShooter.ROBOT_TO_PIVOT.getX();
+    double pivotX = robotPose.getX() + (pivotOffset * Math.cos(heading));
+    double pivotY = robotPose.getY() + (pivotOffset * Math.sin(heading));
+
+    double targetX = targetPose.getX();
+    double targetY = targetPose.getY();
+    double virtualX = targetX;
+    double virtualY = targetY;
+
+    double lastTimeOfFlight = 0;
+    iterations = 0;
+
+    do {
+      virtualX = targetX - (fieldSpeeds.vxMetersPerSecond * lastTimeOfFlight);
+      virtualY = targetY - (fieldSpeeds.vyMetersPerSecond * lastTimeOfFlight);
+      distance = Math.hypot(virtualX - pivotX, virtualY - pivotY);
+
+      timeOfFlight = lookup(timesOfFlight, distance);
+      iterations++;
+
+      if (Math.abs(timeOfFlight - lastTimeOfFlight) < constShooter.SHOT_SOLVER_TOLERANCE.in(Units.Seconds)) {
+        break;
+      }
+      lastTimeOfFlight = timeOfFlight;
+    } while (iterations < constShooter.SHOT_SOLVER_MAX_ITERATIONS);
+
+    pivotAngle = lookup(pivotAngles, distance);
+    leftVelocity = lookup(leftVelocities, distance);
+    rightVelocity = lookup(rightVelocities, distance);
+    virtualTargetX = virtualX;
+    virtualTargetY = virtualY;
+  }
+
+  /**
+   * The virtual target is the point to aim the drivetrain at. This is the
+   * SPEAKER, offset by how far the robot will move while the note is in the air.
+   *
+   * @return The X coordinate of the virtual target, in the Field Coordinate
+   *         System. <b>Units:</b> Meters
+   */
+  public double getVirtualTargetX() {
+    return virtualTargetX;
+  }
+
+  /**
+   * @return The Y coordinate of the virtual target, in the Field Coordinate
+   *         System. <b>Units:</b> Meters
+   * @see #getVirtualTargetX()
+   */
+  public double getVirtualTargetY() {
+    return virtualTargetY;
+  }
+
+  /**
+   * @return The pivot angle for the last solution. <b>Units:</b> Degrees
+   */
+  public double getPivotAngle() {
+    return pivotAngle;
+  }
+
+  /**
+   * @return The left flywheel velocity for the last solution. <b>Units:</b>
+   *         Rotations per second
+   */
+  public double getLeftVelocity() {
+    return leftVelocity;
+  }
+
+  /**
+   * @return The right flywheel velocity for the last solution. <b>Units:</b>
+   *         Rotations per second
+   */
+  public double getRightVelocity() {
+    return rightVelocity;
+  }
+
+  /**
+   * @return The distance from the pivot to the virtual target. <b>Units:</b>
+   *         Meters
+   */
+  public double getDistance() {
+    return distance;
+  }
+
+  /**
+   * @return The estimated time the note will be in the air. <b>Units:</b>
+   *         Seconds
+   */
+  public double getTimeOfFlight() {
+    return timeOfFlight;
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  public int getTableSize() {
+    return pivotAngles.length;
+  }
+}
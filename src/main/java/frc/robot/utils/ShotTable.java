@@ -0,0 +1,233 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+/**
+ * Our calibrated shots, interpolated by the distance to the SPEAKER.
+ *
+ * <p>
+ * Each row is a distance and the pivot angle and flywheel velocities that
+ * scored from there. The rows are stored as parallel double arrays and found
+ * with a binary search, so a lookup never boxes or allocates (unlike the
+ * TreeMap inside an InterpolatingDoubleTreeMap). Distances outside of the
+ * table use the closest row.
+ * </p>
+ *
+ * <p>
+ * Values between rows are either linearly interpolated, or follow a monotone
+ * cubic spline (Fritsch-Carlson). The spline is smooth through every row, and
+ * never overshoots between two of them, so it can't ask for an angle past the
+ * ones we calibrated.
+ * </p>
+ */
+public class ShotTable {
+  public enum Interpolation {
+    LINEAR, MONOTONE_CUBIC
+  }
+
+  // -- Columns --
+  /**
+   * <b>Units:</b> Degrees
+   */
+  public static final int PIVOT_ANGLE = 0;
+  /**
+   * <b>Units:</b> Rotations per Second
+   */
+  public static final int LEFT_VELOCITY = 1;
+  /**
+   * <b>Units:</b> Rotations per Second
+   */
+  public static final int RIGHT_VELOCITY = 2;
+  public static final int COLUMN_COUNT = 3;
+
+  private final Interpolation interpolation;
+  private final double[][] rows;
+  private final double[] distances;
+  private final double[][] values;
+  // The slope of each column at each row. Only used for MONOTONE_CUBIC
+  private final double[][] tangents;
+
+  /**
+   * @param interpolation How to interpolate between rows
+   * @param rows          Each row is { distance (meters), pivot angle (degrees),
+   *                      left velocity (rps), right velocity (rps) }, sorted by
+   *                      distance
+   */
+  public ShotTable(Interpolation interpolation, double[][] rows) {
+    if (rows.length < 2) {
+      throw new IllegalArgumentException("A shot table needs at least 2 rows");
+    }
+
+    this.interpolation = interpolation;
+    this.rows = rows;
+    distances = new double[rows.length];
+    values = new double[COLUMN_COUNT][rows.length];
+
+    for (int i = 0; i < rows.length; i++) {
+      if (rows[i].length != COLUMN_COUNT + 1) {
+        throw new IllegalArgumentException("Shot table row " + i + " should have " + (COLUMN_COUNT + 1) + " values");
+      }
+      if (i > 0 && rows[i][0] <= rows[i - 1][0]) {
+        throw new IllegalArgumentException("Shot table distances must be increasing, but row " + i + " is not");
+      }
+
+      distances[i] = rows[i][0];
+      for (int column = 0; column < COLUMN_COUNT; column++) {
+        values[column][i] = rows[i][column + 1];
+      }
+    }
+
+    tangents = new double[COLUMN_COUNT][];
+    if (interpolation == Interpolation.MONOTONE_CUBIC) {
+      for (int column = 0; column < COLUMN_COUNT; column++) {
+        tangents[column] = calculateMonotoneTangents(distances, values[column]);
+      }
+    }
+  }
+
+  /**
+   * @return The same rows, interpolated a different way
+   */
+  public ShotTable withInterpolation(Interpolation interpolation) {
+    return new ShotTable(interpolation, rows);
+  }
+
+  public Interpolation getInterpolation() {
+    return interpolation;
+  }
+
+  /**
+   * @return How many calibrated rows there are
+   */
+  public int size() {
+    return distances.length;
+  }
+
+  /**
+   * @return The distance of one row. <b>Units:</b> Meters
+   */
+  public double getRowDistance(int row) {
+    return distances[row];
+  }
+
+  /**
+   * @return The calibrated value of one column in one row
+   */
+  public double getRowValue(int column, int row) {
+    return values[column][row];
+  }
+
+  /**
+   * @param column   One of the column constants, such as PIVOT_ANGLE
+   * @param distance The distance to the SPEAKER. <b>Units:</b> Meters
+   * @return The value of that column at that distance
+   */
+  public double get(int column, double distance) {
+    double[] columnValues = values[column];
+    int last = distances.length - 1;
+
+    if (distance <= distances[0]) {
+      return columnValues[0];
+    }
+    if (distance >= distances[last]) {
+      return columnValues[last];
+    }
+
+    int lower = findRow(distance);
+    double width = distances[lower + 1] - distances[lower];
+    double t = (distance - distances[lower]) / width;
+
+    if (interpolation == Interpolation.LINEAR) {
+      return columnValues[lower] + ((columnValues[lower + 1] - columnValues[lower]) * t);
+    }
+
+    // Cubic Hermite basis functions
+    double t2 = t * t;
+    double t3 = t2 * t;
+    double[] columnTangents = tangents[column];
+    return ((2 * t3 - 3 * t2 + 1) * columnValues[lower])
+        + ((t3 - 2 * t2 + t) * width * columnTangents[lower])
+        + ((-2 * t3 + 3 * t2) * columnValues[lower + 1])
+        + ((t3 - t2) * width * columnTangents[lower + 1]);
+  }
+
+  /**
+   * @param distance <b>Units:</b> Meters
+   * @return <b>Units:</b> Degrees
+   */
+  public double getPivotAngle(double distance) {
+    return get(PIVOT_ANGLE, distance);
+  }
+
+  /**
+   * @param distance <b>Units:</b> Meters
+   * @return <b>Units:</b> Rotations per Second
+   */
+  public double getLeftVelocity(double distance) {
+    return get(LEFT_VELOCITY, distance);
+  }
+
+  /**
+   * @param distance <b>Units:</b> Meters
+   * @return <b>Units:</b> Rotations per Second
+   */
+  public double getRightVelocity(double distance) {
+    return get(RIGHT_VELOCITY, distance);
+  }
+
+  /**
+   * Finds the last row at or below the given distance, which must be inside of
+   * the table. Each step halves the range without branching on which half it
+   * keeps, so the JIT compiler can use a conditional move.
+   */
+  private int findRow(double distance) {
+    int base = 0;
+    int length = distances.length - 1;
+    while (length > 1) {
+      int half = length >>> 1;
+      base = (distances[base + half] <= distance) ? base + half : base;
+      length -= half;
+    }
+    return base;
+  }
+
+  /**
+   * Picks a slope at each row so that the spline through them never overshoots
+   * (Fritsch-Carlson).
+   */
+  private static double[] calculateMonotoneTangents(double[] x, double[] y) {
+    int count = x.length;
+    double[] secants = new double[count - 1];
+    for (int i = 0; i < count - 1; i++) {
+      secants[i] = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
+    }
+
+    double[] slopes = new double[count];
+    slopes[0] = secants[0];
+    slopes[count - 1] = secants[count - 2];
+    for (int i = 1; i < count - 1; i++) {
+      // A row that is a peak or a valley has to be flat
+      slopes[i] = (secants[i - 1] * secants[i] <= 0) ? 0 : (secants[i - 1] + secants[i]) / 2;
+    }
+
+    for (int i = 0; i < count - 1; i++) {
+      if (secants[i] == 0) {
+        slopes[i] = 0;
+        slopes[i + 1] = 0;
+        continue;
+      }
+
+      double alpha = slopes[i] / secants[i];
+      double beta = slopes[i + 1] / secants[i];
+      double magnitude = (alpha * alpha) + (beta * beta);
+      if (magnitude > 9) {
+        double scale = 3 / Math.sqrt(magnitude);
+        slopes[i] = scale * alpha * secants[i];
+        slopes[i + 1] = scale * beta * secants[i];
+      }
+    }
+    return slopes;
+  }
+}
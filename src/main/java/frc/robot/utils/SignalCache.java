@@ -0,0 +1,147 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.ParentDevice;
+
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants;
+
+/**
+ * Holds every Phoenix 6 status signal that our mechanisms read and refreshes
+ * them all in a single batch at the start of each loop. Subsystems should keep
+ * the signal returned by {@link #register(StatusSignal)} and read it with
+ * getValueAsDouble(), which returns the value from the last refresh instead of
+ * asking the device again.
+ *
+ * <p>
+ * Every value read during a loop comes from the same refresh, so two commands
+ * checking the same getter will always agree with each other.
+ * </p>
+ *
+ * <b>Note:</b> A batched refresh only works for signals on the same CAN bus.
+ * Only register signals from devices on the "rio" bus. The swerve modules are
+ * on the Swerve CANivore and are refreshed by SuperCORE.
+ */
+public final class SignalCache {
+  private static BaseStatusSignal[] signals = new BaseStatusSignal[0];
+
+  private static long refreshCount = 0;
+  private static double lastRefreshTime = 0;
+
+  // The rate we asked for each signal, and each optimized device, so that
+  // re-running a configure() doesn't count either twice
+  private static final IdentityHashMap<BaseStatusSignal, Double> frequencies = new IdentityHashMap<>();
+  private static final Set<ParentDevice> optimizedDevices = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private SignalCache() {
+  }
+
+  /**
+   * Adds a signal to the batch that is refreshed every loop.
+   *
+   * @param signal The signal to refresh every loop
+   * @return The same signal, so it can be stored in a field as it's registered
+   */
+  public static <T> StatusSignal<T> register(StatusSignal<T> signal) {
+    signals = Arrays.copyOf(signals, signals.length + 1);
+    signals[signals.length - 1] = signal;
+    return signal;
+  }
+
+  /**
+   * Sets how often the given signals are sent over CAN. Should be called from a
+   * subsystem's configure(), before
+   * {@link #optimizeBusUtilization(ParentDevice...)}.
+   *
+   * @param frequency The rate to send the signals at. <b>Units:</b> Hertz
+   * @param signals   The signals to set the rate of
+   */
+  public static void setUpdateFrequency(double frequency, BaseStatusSignal... signals) {
+    BaseStatusSignal.setUpdateFrequencyForAll(frequency, signals);
+
+    for (BaseStatusSignal signal : signals) {
+      frequencies.put(signal, frequency);
+    }
+  }
+
+  /**
+   * Turns off every status signal on the given devices that hasn't been given a
+   * rate with {@link #setUpdateFrequency(double, BaseStatusSignal...)}. Does
+   * nothing if {@link Constants#OPTIMIZE_CAN_BUS_UTILIZATION} is false.
+   *
+   * @param devices The devices to optimize
+   */
+  public static void optimizeBusUtilization(ParentDevice... devices) {
+    if (!Constants.OPTIMIZE_CAN_BUS_UTILIZATION) {
+      return;
+    }
+
+    for (ParentDevice device : devices) {
+      device.optimizeBusUtilization();
+      optimizedDevices.add(device);
+    }
+  }
+
+  /**
+   * Refreshes every registered signal. Should be called once per loop, before
+   * the CommandScheduler runs.
+   */
+  public static void refreshAll() {
+    long startTime = RobotController.getFPGATime();
+
+    if (signals.length > 0) {
+      BaseStatusSignal.refreshAll(signals);
+    }
+    refreshCount++;
+
+    lastRefreshTime = (RobotController.getFPGATime() - startTime) / 1000.0;
+  }
+
+  /**
+   * @return The number of times the signals have been refreshed since the robot
+   *         started. This should go up by exactly one every loop.
+   */
+  public static long getRefreshCount() {
+    return refreshCount;
+  }
+
+  public static int getSignalCount() {
+    return signals.length;
+  }
+
+  /**
+   * @return How long the last refresh took. <b>Units:</b> Milliseconds
+   */
+  public static double getLastRefreshTime() {
+    return lastRefreshTime;
+  }
+
+  /**
+   * @return The total rate of every signal given a rate with
+   *         {@link #setUpdateFrequency(double, BaseStatusSignal...)}. Phoenix
+   *         sends several signals in each status frame, so this is more than
+   *         the frames on the bus. Use the bus utilization for the actual load.
+   *         <b>Units:</b> Updates per second
+   */
+  public static double getSignalUpdateRate() {
+    double updateRate = 0;
+    for (double frequency : frequencies.values()) {
+      updateRate += frequency;
+    }
+    return updateRate;
+  }
+
+  public static int getOptimizedDeviceCount() {
+    return optimizedDevices.size();
+  }
+}
@@ -0,0 +1,188 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * A central registry for everything we put on the dashboard. Values are
+ * registered once (with their NetworkTables publisher resolved at that time)
+ * and are then published by {@link #update()} at the rate of their
+ * {@link Tier}. A value is only sent when it has changed since it was last
+ * published.
+ *
+ * <p>
+ * All keys are published under /SmartDashboard/, so they show up in the same
+ * place that SmartDashboard.putX() would have put them.
+ * </p>
+ */
+public final class Telemetry {
+  private static final String TABLE_PREFIX = "/SmartDashboard/";
+
+  /**
+   * How often a value is published. Rates assume a 20ms robot loop.
+   */
+  public static enum Tier {
+    /** Every loop (50 Hz). Values that we react to while driving. */
+    CONTROL(1),
+    /** Every 5 loops (10 Hz). Currents and other electrical values. */
+    CURRENT(5),
+    /** Every 50 loops (1 Hz). Values we only look at while debugging. */
+    DIAGNOSTIC(50);
+
+    public final int loopsPerUpdate;
+
+    private Tier(int loopsPerUpdate) {
+      this.loopsPerUpdate = loopsPerUpdate;
+    }
+  }
+
+  private static interface Entry {
+    void publish();
+  }
+
+  private static final class NumberEntry implements Entry {
+    final DoublePublisher publisher;
+    final DoubleSupplier supplier;
+    boolean hasPublished = false;
+    double lastValue;
+
+    NumberEntry(String key, DoubleSupplier supplier) {
+      this.publisher = NetworkTableInstance.getDefault().getDoubleTopic(TABLE_PREFIX + key).publish();
+      this.supplier = supplier;
+    }
+
+    @Override
+    public void publish() {
+      double value = supplier.getAsDouble();
+      if (!hasPublished || Double.doubleToLongBits(value) != Double.doubleToLongBits(lastValue)) {
+        publisher.set(value);
+        lastValue = value;
+        hasPublished = true;
+      }
+    }
+  }
+
+  private static final class BooleanEntry implements Entry {
+    final BooleanPublisher publisher;
+    final BooleanSupplier supplier;
+    boolean hasPublished = false;
+    boolean lastValue;
+
+    BooleanEntry(String key, BooleanSupplier supplier) {
+      this.publisher = NetworkTableInstance.getDefault().getBooleanTopic(TABLE_PREFIX + key).publish();
+      this.supplier = supplier;
+    }
+
+    @Override
+    public void publish() {
+      boolean value = supplier.getAsBoolean();
+      if (!hasPublished || value != lastValue) {
+        publisher.set(value);
+        lastValue = value;
+        hasPublished = true;
+      }
+    }
+  }
+
+  private static final class StringEntry implements Entry {
+    final StringPublisher publisher;
+    final Supplier<String> supplier;
+    String lastValue = null;
+
+    StringEntry(String key, Supplier<String> supplier) {
+      this.publisher = NetworkTableInstance.getDefault().getStringTopic(TABLE_PREFIX + key).publish();
+      this.supplier = supplier;
+    }
+
+    @Override
+    public void publish() {
+      String value = supplier.get();
+      // Our strings are almost always enum names, so checking the reference first
+      // skips the comparison most of the time
+      if (value != lastValue && (value == null || !value.equals(lastValue))) {
+        publisher.set(value);
+        lastValue = value;
+      }
+    }
+  }
+
+  // Tier.values() copies the array every call, so keep our own
+  private static final Tier[] tiers = Tier.values();
+
+  @SuppressWarnings("unchecked")
+  private static final ArrayList<Entry>[] entries = new ArrayList[tiers.length];
+  static {
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = new ArrayList<Entry>();
+    }
+  }
+
+  private static long loopCount = 0;
+
+  private static final DoublePublisher publishTimePublisher = NetworkTableInstance.getDefault()
+      .getDoubleTopic(TABLE_PREFIX + "Telemetry/Publish Time (ms)").publish();
+  private static final IntegerPublisher entryCountPublisher = NetworkTableInstance.getDefault()
+      .getIntegerTopic(TABLE_PREFIX + "Telemetry/Entries").publish();
+
+  private Telemetry() {
+  }
+
+  public static void addNumber(String key, Tier tier, DoubleSupplier supplier) {
+    entries[tier.ordinal()].add(new NumberEntry(key, supplier));
+  }
+
+  public static void addBoolean(String key, Tier tier, BooleanSupplier supplier) {
+    entries[tier.ordinal()].add(new BooleanEntry(key, supplier));
+  }
+
+  public static void addString(String key, Tier tier, Supplier<String> supplier) {
+    entries[tier.ordinal()].add(new StringEntry(key, supplier));
+  }
+
+  /**
+   * Publishes every registered value whose tier is due this loop. Should be
+   * called once per loop, after the CommandScheduler has run.
+   */
+  public static void update() {
+    long startTime = RobotController.getFPGATime();
+    int entryCount = 0;
+
+    for (Tier tier : tiers) {
+      entryCount += entries[tier.ordinal()].size();
+
+      if (loopCount % tier.loopsPerUpdate == 0) {
+        publish(tier);
+      }
+    }
+    loopCount++;
+
+    entryCountPublisher.set(entryCount);
+    publishTimePublisher.set((RobotController.getFPGATime() - startTime) / 1000.0);
+  }
+
+  /**
+   * Publishes every registered value in a tier, whether or not it's due this
+   * loop. {@link #update()} should be used instead during a match.
+   *
+   * @param tier The tier to publish
+   */
+  public static void publish(Tier tier) {
+    ArrayList<Entry> tierEntries = entries[tier.ordinal()];
+    for (int i = 0; i < tierEntries.size(); i++) {
+      tierEntries.get(i).publish();
+    }
+  }
+}
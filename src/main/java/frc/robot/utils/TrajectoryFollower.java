@@ -0,0 +1,83 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.units.Units;
+import frc.robot.Constants.constDrivetrain;
+import frc.robot.RobotPreferences.prefDrivetrain;
+
+/**
+ * Calculates the field relative speeds to follow a {@link CompactTrajectory},
+ * with the same feedforward and PID control as PathPlanner's holonomic
+ * controller and our auto PID constants.
+ */
+public class TrajectoryFollower {
+  private final PIDController xController;
+  private final PIDController yController;
+  private final PIDController rotationController;
+  private final CompactTrajectory.State target = new CompactTrajectory.State();
+
+  private double xSpeed = 0;
+  private double ySpeed = 0;
+  private double rotationSpeed = 0;
+
+  public TrajectoryFollower() {
+    double period = constDrivetrain.TRAJECTORY_SAMPLE_PERIOD.in(Units.Seconds);
+    xController = new PIDController(prefDrivetrain.autoDriveP, prefDrivetrain.autoDriveI,
+        prefDrivetrain.autoDriveD, period);
+    yController = new PIDController(prefDrivetrain.autoDriveP, prefDrivetrain.autoDriveI,
+        prefDrivetrain.autoDriveD, period);
+    rotationController = new PIDController(prefDrivetrain.autoSteerP, prefDrivetrain.autoSteerI,
+        prefDrivetrain.autoSteerD, period);
+    rotationController.enableContinuousInput(-Math.PI, Math.PI);
+  }
+
+  public void reset() {
+    xController.reset();
+    yController.reset();
+    rotationController.reset();
+  }
+
+  /**
+   * Calculates the speeds to follow the trajectory for this loop.
+   *
+   * @param pose       The current pose of the robot
+   * @param trajectory The trajectory to follow
+   * @param time       The time since the trajectory started. <b>Units:</b>
+   *                   Seconds
+   */
+  public void calculate(Pose2d pose, CompactTrajectory trajectory, double time) {
+    trajectory.sample(time, target);
+
+    xSpeed = target.xVelocity + xController.calculate(pose.getX(), target.x);
+    ySpeed = target.yVelocity + yController.calculate(pose.getY(), target.y);
+    rotationSpeed = rotationController.calculate(pose.getRotation().getRadians(), target.rotation);
+  }
+
+  /**
+   * @return The speed to drive at, in the Field Coordinate System.
+   *         <b>Units:</b> Meters per Second
+   */
+  public double getXSpeed() {
+    return xSpeed;
+  }
+
+  /**
+   * @return The speed to drive at, in the Field Coordinate System.
+   *         <b>Units:</b> Meters per Second
+   */
+  public double getYSpeed() {
+    return ySpeed;
+  }
+
+  /**
+   * @return <b>Units:</b> Radians per Second
+   */
+  public double getRotationSpeed() {
+    return rotationSpeed;
+  }
+}
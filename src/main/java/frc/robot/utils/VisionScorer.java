@@ -0,0 +1,99 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.units.Units;
+import frc.robot.Constants.constLimelight;
+
+/**
+ * Decides how much to trust each vision measurement, by scaling our base
+ * standard deviations up for measurements that are likely to be worse.
+ *
+ * <p>
+ * Each weight scales one source of error, and a weight of 0 ignores it:
+ * </p>
+ * <ul>
+ * <li>Distance: error grows with the square of the average tag distance</li>
+ * <li>Tag count: more tags divide the error down</li>
+ * <li>Area: a single small tag is less trustworthy than a single large one</li>
+ * <li>Rotation rate: motion blur and latency hurt while we're turning</li>
+ * <li>Ambiguity: a single tag can flip between two solutions</li>
+ * </ul>
+ * <p>
+ * The weights are tuned offline with the VisionEvaluator.
+ * </p>
+ */
+public class VisionScorer {
+  // Keeps the area weight from blowing up for tags that are barely visible
+  private static final double MIN_TAG_AREA = 0.01;
+
+  private double distanceWeight;
+  private double areaWeight;
+  private double rotationRateWeight;
+  private double ambiguityWeight;
+
+  // Reused for every measurement
+  private final Matrix<N3, N1> stdDevs = new Matrix<N3, N1>(Nat.N3(), Nat.N1());
+
+  public VisionScorer(double distanceWeight, double areaWeight, double rotationRateWeight,
+      double ambiguityWeight) {
+    setWeights(distanceWeight, areaWeight, rotationRateWeight, ambiguityWeight);
+  }
+
+  public void setWeights(double distanceWeight, double areaWeight, double rotationRateWeight,
+      double ambiguityWeight) {
+    this.distanceWeight = distanceWeight;
+    this.areaWeight = areaWeight;
+    this.rotationRateWeight = rotationRateWeight;
+    this.ambiguityWeight = ambiguityWeight;
+  }
+
+  /**
+   * @param tagCount     How many tags the measurement saw
+   * @param avgTagDist   <b>Units:</b> Meters
+   * @param avgTagArea   <b>Units:</b> Percent of the image
+   * @param ambiguity    The pose ambiguity of the tag, if there was only one.
+   *                     From 0 to 1
+   * @param rotationRate How fast we were turning when the frame was captured.
+   *                     <b>Units:</b> Degrees per Second
+   * @return How much to multiply our base standard deviations by. Always at
+   *         least 1 for a single tag
+   */
+  public double getScale(int tagCount, double avgTagDist, double avgTagArea, double ambiguity,
+      double rotationRate) {
+    double scale = (1 + distanceWeight * avgTagDist * avgTagDist) / Math.max(tagCount, 1);
+
+    if (tagCount == 1) {
+      scale *= 1 + areaWeight / Math.max(avgTagArea, MIN_TAG_AREA);
+      scale *= 1 + ambiguityWeight * ambiguity;
+    }
+
+    scale *= 1 + rotationRateWeight * Math.abs(rotationRate)
+        / constLimelight.MAX_ANGULAR_VELOCITY.in(Units.DegreesPerSecond);
+    return scale;
+  }
+
+  /**
+   * Calculates the standard deviations to add one measurement with.
+   *
+   * @param scale           From {@link #getScale}
+   * @param positionStdDevs Our base standard deviation for X and Y.
+   *                        <b>Units:</b> Meters
+   * @param headingStdDevs  Our base standard deviation for the heading.
+   *                        <b>Units:</b> Radians
+   * @return The standard deviations. Reused, so pass it to the pose estimator
+   *         before calling this again
+   */
+  public Matrix<N3, N1> getStdDevs(double scale, double positionStdDevs, double headingStdDevs) {
+    stdDevs.set(0, 0, positionStdDevs * scale);
+    stdDevs.set(1, 0, positionStdDevs * scale);
+    stdDevs.set(2, 0, headingStdDevs * scale);
+    return stdDevs;
+  }
+}
@@ -0,0 +1,158 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import java.util.Random;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.constLimelight;
+import frc.robot.Constants.constSimulation;
+import frc.robot.subsystems.Drivetrain;
+
+/**
+ * Stands in for each of our Limelights in simulation, by publishing bot pose
+ * frames to the same local NetworkTables topics the real ones would.
+ *
+ * <p>
+ * Each camera sees the AprilTags that face it, are inside of its horizontal
+ * field of view and are close enough. Its pose estimate is the robot's pose
+ * when the frame was captured plus noise that grows with the distance to the
+ * tags, published on the first loop VISION_LATENCY later. Both MegaTag topics
+ * get the same estimate. The robot's pose comes from our pose estimator, since
+ * there is no separate ground truth in simulation, so this tests the ingestion
+ * and fusion path rather than the accuracy of the estimate.
+ * </p>
+ */
+public class VisionSim {
+  private final Drivetrain subDrivetrain;
+  private final AprilTagFieldLayout tagLayout = AprilTagFields.k2024Crescendo.loadAprilTagLayoutField();
+  private final Random random = new Random();
+
+  private final DoubleArrayPublisher[] megaTag1Publishers;
+  private final DoubleArrayPublisher[] megaTag2Publishers;
+  // The frame each camera captured last and hasn't published yet
+  private final double[][] pendingFrames;
+  private final boolean[] framePending;
+  private double lastCaptureTime = 0;
+
+  public VisionSim(Drivetrain subDrivetrain) {
+    this.subDrivetrain = subDrivetrain;
+
+    int cameraCount = constLimelight.LIMELIGHT_NAMES.length;
+    megaTag1Publishers = new DoubleArrayPublisher[cameraCount];
+    megaTag2Publishers = new DoubleArrayPublisher[cameraCount];
+    pendingFrames = new double[cameraCount][11];
+    framePending = new boolean[cameraCount];
+
+    for (int i = 0; i < cameraCount; i++) {
+      NetworkTable table = NetworkTableInstance.getDefault().getTable(constLimelight.LIMELIGHT_NAMES[i]);
+      megaTag1Publishers[i] = table.getDoubleArrayTopic("botpose_wpiblue").publish();
+      megaTag2Publishers[i] = table.getDoubleArrayTopic("botpose_orb_wpiblue").publish();
+    }
+  }
+
+  /**
+   * Publishes any frames that have finished processing and captures new ones.
+   * Should be called once per simulated loop.
+   */
+  public void update() {
+    double now = Timer.getFPGATimestamp();
+
+    if (now - lastCaptureTime >= constSimulation.VISION_LATENCY.in(Units.Seconds)) {
+      publishPendingFrames(now);
+    }
+
+    if (now - lastCaptureTime >= constSimulation.VISION_FRAME_PERIOD.in(Units.Seconds)) {
+      // A frame that is still processing is published early rather than lost
+      publishPendingFrames(now);
+      lastCaptureTime = now;
+
+      Pose2d robotPose = subDrivetrain.getPose();
+      for (int i = 0; i < pendingFrames.length; i++) {
+        framePending[i] = captureFrame(robotPose, i, pendingFrames[i]);
+      }
+    }
+  }
+
+  /**
+   * Makes the noise repeatable, for benchmarks.
+   */
+  public void setSeed(long seed) {
+    random.setSeed(seed);
+  }
+
+  private void publishPendingFrames(double now) {
+    for (int i = 0; i < pendingFrames.length; i++) {
+      if (framePending[i]) {
+        // Our loops don't line up with VISION_LATENCY, so report how long it was
+        pendingFrames[i][6] = (now - lastCaptureTime) * 1000;
+        megaTag1Publishers[i].set(pendingFrames[i]);
+        megaTag2Publishers[i].set(pendingFrames[i]);
+        framePending[i] = false;
+      }
+    }
+  }
+
+  /**
+   * Fills in a bot pose frame for one camera, in the Limelight's format.
+   *
+   * @return False if the camera can't see any tags
+   */
+  private boolean captureFrame(Pose2d robotPose, int cameraIndex, double[] frame) {
+    Pose2d cameraPose = new Pose3d(robotPose).transformBy(constLimelight.ROBOT_TO_LIMELIGHTS[cameraIndex])
+        .toPose2d();
+    double halfFieldOfView = constSimulation.LIMELIGHT_HORIZONTAL_FOV.in(Units.Radians) / 2;
+    double maxDistance = constSimulation.VISION_MAX_TAG_DISTANCE.in(Units.Meters);
+
+    int tagCount = 0;
+    double totalDistance = 0;
+    double totalArea = 0;
+    for (AprilTag tag : tagLayout.getTags()) {
+      Pose2d tagPose = tag.pose.toPose2d();
+      Translation2d cameraToTag = tagPose.getTranslation().minus(cameraPose.getTranslation());
+      double distance = cameraToTag.getNorm();
+      if (distance > maxDistance || distance == 0) {
+        continue;
+      }
+
+      // The tag has to be in front of the camera, and facing it
+      Rotation2d bearing = cameraToTag.getAngle().minus(cameraPose.getRotation());
+      if (Math.abs(bearing.getRadians()) > halfFieldOfView
+          || cameraToTag.getX() * tagPose.getRotation().getCos()
+              + cameraToTag.getY() * tagPose.getRotation().getSin() >= 0) {
+        continue;
+      }
+
+      tagCount++;
+      totalDistance += distance;
+      totalArea += constSimulation.VISION_TAG_AREA_AT_ONE_METER / (distance * distance);
+    }
+
+    if (tagCount == 0) {
+      return false;
+    }
+
+    double avgTagDist = totalDistance / tagCount;
+    double noise = constSimulation.VISION_NOISE_PER_METER * avgTagDist / Math.sqrt(tagCount);
+    frame[0] = robotPose.getX() + random.nextGaussian() * noise;
+    frame[1] = robotPose.getY() + random.nextGaussian() * noise;
+    frame[5] = robotPose.getRotation().getDegrees() + Math.toDegrees(random.nextGaussian() * noise);
+    frame[7] = tagCount;
+    frame[9] = avgTagDist;
+    frame[10] = totalArea / tagCount;
+    return true;
+  }
+}
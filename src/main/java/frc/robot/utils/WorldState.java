@@ -0,0 +1,95 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.Transfer;
+
+/**
+ * A snapshot of the robot's state that our triggers, commands and LEDs all ask
+ * about, taken once per loop so that each predicate is only evaluated once.
+ * Cheap reads, like the robot state, are left to the subsystems.
+ *
+ * <p>
+ * The snapshot is taken after every subsystem's periodic(), by the first
+ * binding on the scheduler's button loop, so the triggers polled right after
+ * it see exactly what they would have calculated themselves. Commands run
+ * later in the loop, so anything they change is seen on the next loop.
+ * Commands that have to see a change made earlier in the same loop (such as a
+ * note being marked as shot) should ask the subsystem directly.
+ * </p>
+ *
+ * <p>
+ * Set {@link Constants#SHARE_WORLD_STATE} to false to evaluate every predicate
+ * each time it is asked for, to compare the Triggers time in the LoopProfiler.
+ * </p>
+ */
+public final class WorldState {
+  private static Drivetrain subDrivetrain;
+  private static Shooter subShooter;
+  private static Transfer subTransfer;
+
+  // -- Snapshot --
+  private static boolean facingSpeaker = false;
+  private static boolean facingShuffle = false;
+  private static boolean readyToShoot = false;
+  private static boolean readyToFeed = false;
+  private static boolean gamePieceStored = false;
+
+  private WorldState() {
+  }
+
+  /**
+   * Starts taking a snapshot every loop. Should be called before any trigger is
+   * bound, so that the snapshot is taken before they are polled.
+   */
+  public static void start(Drivetrain subDrivetrain, Shooter subShooter, Transfer subTransfer) {
+    WorldState.subDrivetrain = subDrivetrain;
+    WorldState.subShooter = subShooter;
+    WorldState.subTransfer = subTransfer;
+
+    CommandScheduler.getInstance().getDefaultButtonLoop().bind(() -> update());
+  }
+
+  /**
+   * Takes a new snapshot.
+   */
+  public static void update() {
+    if (Constants.SHARE_WORLD_STATE) {
+      facingSpeaker = subDrivetrain.isDrivetrainFacingSpeaker();
+      facingShuffle = subDrivetrain.isDrivetrainFacingShuffle();
+      readyToShoot = subShooter.readyToShoot();
+      readyToFeed = readyToShoot || subShooter.readyToFeed();
+      gamePieceStored = subTransfer.getGamePieceStored();
+    }
+    LoopProfiler.mark("World State");
+  }
+
+  public static boolean isFacingSpeaker() {
+    return Constants.SHARE_WORLD_STATE ? facingSpeaker : subDrivetrain.isDrivetrainFacingSpeaker();
+  }
+
+  public static boolean isFacingShuffle() {
+    return Constants.SHARE_WORLD_STATE ? facingShuffle : subDrivetrain.isDrivetrainFacingShuffle();
+  }
+
+  public static boolean isReadyToShoot() {
+    return Constants.SHARE_WORLD_STATE ? readyToShoot : subShooter.readyToShoot();
+  }
+
+  /**
+   * @see Shooter#readyToFeed()
+   */
+  public static boolean isReadyToFeed() {
+    return Constants.SHARE_WORLD_STATE ? readyToFeed : subShooter.readyToFeed();
+  }
+
+  public static boolean isGamePieceStored() {
+    return Constants.SHARE_WORLD_STATE ? gamePieceStored : subTransfer.getGamePieceStored();
+  }
+}
@@ -0,0 +1,132 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.constShooter;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.Shooter;
+import frc.robot.utils.LoopProfiler;
+import frc.robot.utils.Telemetry;
+import frc.robot.utils.Telemetry.Tier;
+
+/**
+ * Allocations every loop are what eventually cost us a garbage collection, so
+ * our hot paths shouldn't allocate anything once the JIT has warmed up. Each is
+ * run on this thread while the robot's timing is paused.
+ */
+class HotPathAllocationTest {
+  // Enough runs for the JIT to fully compile each path first
+  private static final int ITERATIONS = 20000;
+  // Allows for a stray allocation over the whole run. <b>Units:</b> Bytes
+  private static final double MAX_BYTES_PER_LOOP = 1;
+
+  private static Drivetrain subDrivetrain;
+  private static Shooter subShooter;
+  private static Elevator subElevator;
+
+  @BeforeAll
+  static void boot() {
+    SimRobot.boot();
+    assumeTrue(LoopProfiler.canCountAllocations(), "This JVM can't count allocations");
+
+    subDrivetrain = SimRobot.getDrivetrain();
+    subShooter = SimRobot.getShooter();
+    subElevator = SimRobot.getElevator();
+  }
+
+  @AfterAll
+  static void stopShooter() {
+    if (subShooter != null) {
+      subShooter.setShootingNeutralOutput();
+    }
+  }
+
+  @Test
+  void shooterChecksDontAllocate() {
+    double idleVelocity = constShooter.PRE_SPOOL_IDLE_VELOCITY.in(Units.RotationsPerSecond);
+    double bytes = LoopProfiler.measureAllocation(() -> {
+      subShooter.setPreSpoolVelocities(idleVelocity, idleVelocity);
+      subShooter.isLeftShooterUpToSpeed();
+      subShooter.isRightShooterUpToSpeed();
+      subShooter.readyToShoot();
+    }, ITERATIONS);
+
+    assertTrue(bytes < MAX_BYTES_PER_LOOP, "Shooter allocated " + bytes + " bytes per loop");
+  }
+
+  @Test
+  void drivetrainAimingDoesntAllocate() {
+    double bytes = LoopProfiler.measureAllocation(() -> {
+      subDrivetrain.getVelocityToSnapDegrees(90);
+      subDrivetrain.getAngleToSpeakerDegrees();
+      subDrivetrain.getAngleToShuffleDegrees();
+      subDrivetrain.getVelocityToChainDegrees();
+    }, ITERATIONS);
+
+    assertTrue(bytes < MAX_BYTES_PER_LOOP, "Drivetrain allocated " + bytes + " bytes per loop");
+  }
+
+  @Test
+  void telemetryGettersDontAllocate() {
+    double bytes = LoopProfiler.measureAllocation(() -> {
+      subShooter.getLeftShooterVelocityRPS();
+      subShooter.getRightShooterVelocityRPS();
+      subShooter.getShooterPositionDegrees();
+      subShooter.isSafeToMoveElevator();
+      subElevator.getElevatorPositionMeters();
+      subElevator.isSafeToMoveShooterAboveLimit();
+    }, ITERATIONS);
+
+    assertTrue(bytes < MAX_BYTES_PER_LOOP, "Telemetry getters allocated " + bytes + " bytes per loop");
+  }
+
+  /**
+   * The CONTROL tier is published every loop and the CURRENT tier every 5, so
+   * neither should allocate.
+   */
+  @Test
+  void telemetryDoesntAllocate() {
+    double controlBytes = LoopProfiler.measureAllocation(() -> Telemetry.publish(Tier.CONTROL), ITERATIONS);
+    assertTrue(controlBytes < MAX_BYTES_PER_LOOP, "CONTROL telemetry allocated " + controlBytes + " bytes per loop");
+
+    double currentBytes = LoopProfiler.measureAllocation(() -> Telemetry.publish(Tier.CURRENT), ITERATIONS);
+    assertTrue(currentBytes < MAX_BYTES_PER_LOOP, "CURRENT telemetry allocated " + currentBytes + " bytes per loop");
+  }
+
+  /**
+   * A few DIAGNOSTIC values (the alliance, the CAN bus status and the Laser Can
+   * measurement) come from libraries that allocate. They're only read once a
+   * second, so the whole update is only reported.
+   */
+  @Test
+  void reportTelemetryUpdateAllocation() {
+    double bytes = LoopProfiler.measureAllocation(Telemetry::update, ITERATIONS);
+
+    System.out.println("Telemetry.update(): " + bytes + " bytes per loop");
+  }
+
+  /**
+   * Drive still hands SN_SuperSwerve a new Translation2d, and SN_SuperSwerve
+   * allocates its own module states, so this is only reported.
+   */
+  @Test
+  void reportDriveAllocation() {
+    Command drive = subDrivetrain.getDefaultCommand();
+    drive.initialize();
+    double bytes = LoopProfiler.measureAllocation(drive::execute, ITERATIONS);
+
+    System.out.println("Drive: " + bytes + " bytes per loop");
+  }
+}
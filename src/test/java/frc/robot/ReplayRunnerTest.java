@@ -0,0 +1,182 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import frc.robot.RobotMap.mapControllers;
+import frc.robot.subsystems.StateMachine.RobotState;
+import frc.robot.utils.InputLog;
+
+/**
+ * Replays logs the same way REPLAY_LOG does, each in its own JVM, and checks
+ * the decisions our code made.
+ */
+class ReplayRunnerTest {
+  private static final Path OUTPUT_DIRECTORY = Path.of("build", "test-results", "replay");
+  private static final int LOOPS = 400;
+  private static final long LOOP_PERIOD = 20000;
+
+  // Long enough for zeroing to time out in teleop, since nothing in the log
+  // says the mechanisms hit their hard stops
+  private static final int BUTTON_PRESSED_LOOP = 350;
+  private static final int BUTTON_RELEASED_LOOP = 400;
+  private static final int BUTTON_LOOPS = 450;
+  // Intake from source
+  private static final int INTAKE_SOURCE_BUTTON = 2;
+
+  @Test
+  void replayingTheSameLogGivesTheSameOutputs() throws IOException, InterruptedException {
+    Files.createDirectories(OUTPUT_DIRECTORY);
+    Path logPath = writeMatchLog();
+
+    List<String> firstOutputs = replay(logPath, OUTPUT_DIRECTORY.resolve("first.tsv"));
+    List<String> secondOutputs = replay(logPath, OUTPUT_DIRECTORY.resolve("second.tsv"));
+
+    assertEquals(LOOPS, firstOutputs.size(), "The first replay didn't run every loop");
+    assertEquals(firstOutputs, secondOutputs);
+
+    // Make sure the log made our code do something worth comparing
+    Set<String> distinctOutputs = new HashSet<String>();
+    for (String line : firstOutputs) {
+      distinctOutputs.add(line.substring(line.indexOf('\t') + 1));
+    }
+    assertTrue(distinctOutputs.size() > 1, "Every loop had the same outputs");
+  }
+
+  @Test
+  void driverButtonsAreReplayed() throws IOException, InterruptedException {
+    Files.createDirectories(OUTPUT_DIRECTORY);
+    List<String> outputs = replay(writeButtonLog(), OUTPUT_DIRECTORY.resolve("buttons.tsv"));
+    assertEquals(BUTTON_LOOPS, outputs.size(), "The replay didn't run every loop");
+
+    // A couple loops for the button to be polled and the state to be scheduled
+    assertEquals(RobotState.NONE.toString(), getRobotState(outputs, BUTTON_PRESSED_LOOP - 1));
+    assertEquals(RobotState.INTAKE_SOURCE.toString(), getRobotState(outputs, BUTTON_PRESSED_LOOP + 2));
+    assertEquals(RobotState.INTAKE_SOURCE.toString(), getRobotState(outputs, BUTTON_RELEASED_LOOP - 1));
+    assertEquals(RobotState.NONE.toString(), getRobotState(outputs, BUTTON_RELEASED_LOOP + 2));
+  }
+
+  /**
+   * Writes a short match with the InputLog's keys: disabled, then auto, then
+   * teleop, collecting and storing a note while driving across the field.
+   */
+  private static Path writeMatchLog() {
+    DataLog log = new DataLog(OUTPUT_DIRECTORY.toString(), "match.wpilog");
+
+    IntegerLogEntry loop = new IntegerLogEntry(log, InputLog.LOOP_KEY);
+    BooleanLogEntry enabled = new BooleanLogEntry(log, InputLog.LOG_PREFIX + "DriverStation/Enabled");
+    BooleanLogEntry autonomous = new BooleanLogEntry(log, InputLog.LOG_PREFIX + "DriverStation/Autonomous");
+    BooleanLogEntry test = new BooleanLogEntry(log, InputLog.LOG_PREFIX + "DriverStation/Test");
+    BooleanLogEntry redAlliance = new BooleanLogEntry(log, InputLog.LOG_PREFIX + "DriverStation/Red Alliance");
+    BooleanLogEntry intakeNoteSensor = new BooleanLogEntry(log, InputLog.LOG_PREFIX + "Intake/Note Sensor");
+    DoubleLogEntry transferNoteDistance = new DoubleLogEntry(log,
+        InputLog.LOG_PREFIX + "Transfer/Laser Can/Distance");
+    DoubleLogEntry poseX = new DoubleLogEntry(log, InputLog.LOG_PREFIX + "Drivetrain/Pose/X");
+    DoubleLogEntry poseY = new DoubleLogEntry(log, InputLog.LOG_PREFIX + "Drivetrain/Pose/Y");
+    DoubleLogEntry poseRotation = new DoubleLogEntry(log, InputLog.LOG_PREFIX + "Drivetrain/Pose/Rotation");
+    DoubleLogEntry fieldSpeedX = new DoubleLogEntry(log, InputLog.LOG_PREFIX + "Drivetrain/Field Speeds/X");
+
+    for (int i = 0; i < LOOPS; i++) {
+      long timestamp = 1000000 + (i * LOOP_PERIOD);
+
+      loop.append(i, timestamp);
+      enabled.append(i >= 50 && i < 380, timestamp);
+      autonomous.append(i < 200, timestamp);
+      test.append(false, timestamp);
+      redAlliance.append(false, timestamp);
+      intakeNoteSensor.append(i >= 250 && i < 260, timestamp);
+      transferNoteDistance.append((i >= 260 && i < 340) ? 0 : 500, timestamp);
+      poseX.append(1.5 + (i * 0.01), timestamp);
+      poseY.append(5.5, timestamp);
+      poseRotation.append(180, timestamp);
+      fieldSpeedX.append(0.5, timestamp);
+    }
+    log.close();
+
+    return OUTPUT_DIRECTORY.resolve("match.wpilog");
+  }
+
+  /**
+   * Writes a teleop match where the driver holds the intake from source button
+   * and lets go, with the InputLog's keys for the driver's controller.
+   */
+  private static Path writeButtonLog() {
+    DataLog log = new DataLog(OUTPUT_DIRECTORY.toString(), "buttons.wpilog");
+    String joystick = InputLog.LOG_PREFIX + InputLog.getJoystickKey(mapControllers.DRIVER_USB);
+
+    IntegerLogEntry loop = new IntegerLogEntry(log, InputLog.LOOP_KEY);
+    BooleanLogEntry enabled = new BooleanLogEntry(log, InputLog.LOG_PREFIX + "DriverStation/Enabled");
+    DoubleLogEntry transferNoteDistance = new DoubleLogEntry(log,
+        InputLog.LOG_PREFIX + "Transfer/Laser Can/Distance");
+    IntegerLogEntry axisCount = new IntegerLogEntry(log, joystick + "Axis Count");
+    IntegerLogEntry buttonCount = new IntegerLogEntry(log, joystick + "Button Count");
+    IntegerLogEntry buttons = new IntegerLogEntry(log, joystick + "Buttons");
+
+    for (int i = 0; i < BUTTON_LOOPS; i++) {
+      long timestamp = 1000000 + (i * LOOP_PERIOD);
+      boolean pressed = i >= BUTTON_PRESSED_LOOP && i < BUTTON_RELEASED_LOOP;
+
+      loop.append(i, timestamp);
+      enabled.append(i >= 50, timestamp);
+      transferNoteDistance.append(500, timestamp);
+      // Like our Extreme 3D Pro
+      axisCount.append(4, timestamp);
+      buttonCount.append(12, timestamp);
+      buttons.append(pressed ? (1 << (INTAKE_SOURCE_BUTTON - 1)) : 0, timestamp);
+    }
+    log.close();
+
+    return OUTPUT_DIRECTORY.resolve("buttons.wpilog");
+  }
+
+  /**
+   * @return The RobotState in the given loop's outputs
+   */
+  private static String getRobotState(List<String> outputs, int loop) {
+    String[] columns = outputs.get(loop).split("\t");
+    assertEquals(Integer.toString(loop), columns[0]);
+    return columns[1];
+  }
+
+  /**
+   * Replays a log in a new JVM, the same way REPLAY_LOG does.
+   *
+   * @return The outputs of every loop
+   */
+  private static List<String> replay(Path logPath, Path outputPath) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<String>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(Benchmarks.class.getName());
+
+    ProcessBuilder builder = new ProcessBuilder(command).inheritIO();
+    builder.environment().put("REPLAY_LOG", logPath.toAbsolutePath().toString());
+    builder.environment().put("REPLAY_OUTPUT", outputPath.toAbsolutePath().toString());
+    builder.environment().remove("HALSIM_EXTENSIONS");
+
+    Files.deleteIfExists(outputPath);
+    assertEquals(0, builder.start().waitFor(), "The replay failed");
+    return Files.readAllLines(outputPath);
+  }
+}
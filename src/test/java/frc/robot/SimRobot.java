@@ -0,0 +1,108 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.nio.file.Path;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.Transfer;
+
+/**
+ * Boots the whole robot in simulation for a test, the same way AutoBenchmark
+ * boots each of its runs. Simulated time stays paused, so the robot only runs
+ * when a test steps it.
+ *
+ * <p>
+ * Our subsystems are static, so the robot can only be booted once per JVM.
+ * build.gradle forks a new JVM for every test class.
+ * </p>
+ */
+public final class SimRobot {
+  private static final Path OUTPUT_DIRECTORY = Path.of("build", "test-results", "logs");
+
+  private static Robot robot;
+
+  private SimRobot() {
+  }
+
+  /**
+   * Boots the robot on the blue alliance and runs a few disabled loops, so
+   * robotInit() has finished and the alliance is set. Does nothing if it has
+   * already been booted.
+   */
+  public static Robot boot() {
+    if (robot != null) {
+      return robot;
+    }
+
+    if (!HAL.initialize(500, 0)) {
+      throw new IllegalStateException("Failed to initialize the HAL");
+    }
+
+    // Before robotInit() starts the log in src/main
+    NetworkTableInstance.getDefault().startLocal();
+    DataLogManager.start(OUTPUT_DIRECTORY.toString(), "test.wpilog");
+
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.notifyNewData();
+
+    robot = new Robot();
+    Thread robotThread = new Thread(robot::startCompetition, "Test Robot");
+    robotThread.setDaemon(true);
+    robotThread.start();
+    SimHooks.waitForProgramStart();
+
+    step(10);
+    return robot;
+  }
+
+  public static RobotContainer getRobotContainer() {
+    return robot.getRobotContainer();
+  }
+
+  public static Drivetrain getDrivetrain() {
+    return robot.getRobotContainer().getDrivetrain();
+  }
+
+  public static Shooter getShooter() {
+    return robot.getRobotContainer().getShooter();
+  }
+
+  public static Elevator getElevator() {
+    return robot.getRobotContainer().getElevator();
+  }
+
+  public static Transfer getTransfer() {
+    return robot.getRobotContainer().getTransfer();
+  }
+
+  /**
+   * Runs the given number of robot loops.
+   */
+  public static void step(int loops) {
+    for (int i = 0; i < loops; i++) {
+      SimHooks.stepTiming(robot.getPeriod());
+    }
+  }
+
+  /**
+   * Changes the Driver Station mode. The robot sees it on its next loop.
+   */
+  public static void setMode(boolean enabled, boolean autonomous) {
+    DriverStationSim.setAutonomous(autonomous);
+    DriverStationSim.setEnabled(enabled);
+    DriverStationSim.notifyNewData();
+  }
+}
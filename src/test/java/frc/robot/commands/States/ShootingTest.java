@@ -0,0 +1,93 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.States;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants.constShooter;
+import frc.robot.Constants.constShooter.ShooterPositionGroup;
+import frc.robot.Constants.constTransfer;
+import frc.robot.RobotContainer;
+import frc.robot.SimRobot;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.StateMachine;
+import frc.robot.subsystems.StateMachine.RobotState;
+import frc.robot.subsystems.Transfer;
+
+/**
+ * Shoots from a prep with the simulated shooter spinning up from a stop, to
+ * check that the note starts feeding before we're ready to shoot.
+ */
+class ShootingTest {
+  // <b>Units:</b> Seconds
+  private static final double SHOT_TIMEOUT = 1.5;
+
+  private static Shooter subShooter;
+  private static Transfer subTransfer;
+  private static StateMachine subStateMachine;
+
+  @BeforeAll
+  static void boot() {
+    SimRobot.boot();
+    subShooter = SimRobot.getShooter();
+    subTransfer = SimRobot.getTransfer();
+    subStateMachine = RobotContainer.subStateMachine;
+  }
+
+  @AfterEach
+  void disable() {
+    CommandScheduler.getInstance().cancelAll();
+    SimRobot.setMode(false, false);
+    SimRobot.step(1);
+  }
+
+  @Test
+  void feedsBeforeReadyToShoot() {
+    assumeTrue(constShooter.PREDICT_READINESS, "Readiness prediction is turned off");
+
+    SimRobot.setMode(true, false);
+    SimRobot.step(1);
+    // Zeroing is scheduled when we enable, and would hold the pivot down
+    CommandScheduler.getInstance().cancelAll();
+
+    // Held the same way a prep command holds it
+    ShooterPositionGroup shot = constShooter.PREP_SPIKE;
+    CommandScheduler.getInstance().schedule(Commands.run(() -> subShooter.setDesiredPosition(shot), subShooter));
+    subStateMachine.setRobotState(RobotState.PREP_SPIKE);
+    CommandScheduler.getInstance().schedule(subStateMachine.tryState(RobotState.SHOOTING));
+
+    int maxLoops = (int) Math.ceil(SHOT_TIMEOUT / TimedRobot.kDefaultPeriod);
+    int feedLoop = -1;
+    int readyLoop = -1;
+    for (int loop = 0; loop < maxLoops && readyLoop < 0; loop++) {
+      SimRobot.step(1);
+      if (feedLoop < 0 && subTransfer.getFeederSpeed() == constTransfer.SHOOTING_SPEED) {
+        feedLoop = loop;
+        assertFalse(subShooter.readyToShoot(), "Only started feeding once we were ready to shoot");
+      }
+      if (subShooter.readyToShoot()) {
+        readyLoop = loop;
+      }
+    }
+
+    assertTrue(readyLoop >= 0, "Not ready to shoot after " + SHOT_TIMEOUT + "s");
+    assertTrue(feedLoop >= 0 && feedLoop < readyLoop, "Didn't start feeding before we were ready to shoot");
+    // Feeding much earlier than the note takes to reach the flywheels would shoot
+    // before we're ready. The acceleration is filtered, so allow a couple loops
+    double earlyTime = (readyLoop - feedLoop) * TimedRobot.kDefaultPeriod;
+    assertTrue(earlyTime <= constTransfer.FEED_TO_CONTACT_TIME.in(Units.Seconds) + 2 * TimedRobot.kDefaultPeriod,
+        "Started feeding " + earlyTime + "s before we were ready to shoot");
+  }
+}
@@ -0,0 +1,128 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants.constElevator;
+import frc.robot.Constants.constShooter;
+import frc.robot.RobotContainer;
+import frc.robot.SimRobot;
+import frc.robot.subsystems.StateMachine.RobotState;
+
+/**
+ * Drives the simulated elevator into its hard stops, against gravity, and
+ * through PREP_AMP.
+ */
+class ElevatorTest {
+  // <b>Units:</b> Seconds
+  private static final double PREP_AMP_TIMEOUT = 2;
+
+  private static Elevator subElevator;
+  private static Shooter subShooter;
+
+  @BeforeAll
+  static void boot() {
+    SimRobot.boot();
+    subElevator = SimRobot.getElevator();
+    subShooter = SimRobot.getShooter();
+  }
+
+  @BeforeEach
+  void enable() {
+    SimRobot.setMode(true, false);
+    SimRobot.step(1);
+    // Zeroing is scheduled when we enable, and would drive the elevator down
+    CommandScheduler.getInstance().cancelAll();
+    SimRobot.step(1);
+  }
+
+  @AfterEach
+  void disable() {
+    CommandScheduler.getInstance().cancelAll();
+    subElevator.setSoftwareLimits(true, true);
+    RobotContainer.subStateMachine.setRobotState(RobotState.NONE);
+    SimRobot.setMode(false, false);
+    // Let the carriage fall back down, so the next test starts at the bottom
+    SimRobot.step(250);
+  }
+
+  @Test
+  void hardStopsHoldTheCarriage() {
+    // Only the hard stops, so the software limits can't stop it first
+    subElevator.setSoftwareLimits(false, false);
+
+    runFor(Commands.run(() -> subElevator.setVoltage(Units.Volts.of(6)), subElevator), 1);
+    assertEquals(constElevator.FORWARD_LIMIT.in(Units.Meters), subElevator.getElevatorPosition().in(Units.Meters),
+        constElevator.AT_POSITION_TOLERANCE.in(Units.Meters));
+
+    runFor(Commands.run(() -> subElevator.setVoltage(Units.Volts.of(-6)), subElevator), 1);
+    assertEquals(constElevator.BACKWARD_LIMIT.in(Units.Meters), subElevator.getElevatorPosition().in(Units.Meters),
+        constElevator.AT_POSITION_TOLERANCE.in(Units.Meters));
+  }
+
+  @Test
+  void holdsPositionAgainstGravity() {
+    double position = 0.3;
+    runFor(Commands.run(() -> subElevator.setElevatorPosition(Units.Meters.of(position)), subElevator), 2);
+
+    assertTrue(subElevator.isElevatorAtPosition(Units.Meters.of(position)), "Elevator sagged below its position");
+  }
+
+  @Test
+  void fallsWithoutPower() {
+    double position = 0.4;
+    runFor(Commands.run(() -> subElevator.setElevatorPosition(Units.Meters.of(position)), subElevator), 2);
+    assertTrue(subElevator.isElevatorAtPosition(Units.Meters.of(position)));
+
+    // With no voltage, only the motor's back EMF slows the carriage down
+    runFor(Commands.run(() -> subElevator.setVoltage(Units.Volts.zero()), subElevator), 1);
+    assertTrue(position - subElevator.getElevatorPosition().in(Units.Meters) > constElevator.AT_POSITION_TOLERANCE
+        .in(Units.Meters), "Elevator didn't fall without power");
+  }
+
+  @Test
+  void prepAmpIsReadyInTime() {
+    Command prepAmp = RobotContainer.subStateMachine.tryState(RobotState.PREP_AMP);
+    CommandScheduler.getInstance().schedule(prepAmp);
+
+    // The elevator goes up first, and the shooter only moves once it's there
+    int maxLoops = (int) Math.ceil(PREP_AMP_TIMEOUT / TimedRobot.kDefaultPeriod);
+    int loops = 0;
+    while ((prepAmp.isScheduled() || !subShooter.isShooterAtPosition(constShooter.PREP_AMP.shooterAngle))
+        && loops < maxLoops) {
+      SimRobot.step(1);
+      loops++;
+    }
+
+    assertTrue(subElevator.isElevatorAtPosition(constShooter.PREP_AMP.elevatorPosition),
+        "Elevator not at PREP_AMP after " + PREP_AMP_TIMEOUT + "s");
+    assertTrue(subShooter.isShooterAtPosition(constShooter.PREP_AMP.shooterAngle),
+        "Shooter not at PREP_AMP after " + PREP_AMP_TIMEOUT + "s");
+    assertTrue(subElevator.getLastTimeToPosition() <= loops * TimedRobot.kDefaultPeriod);
+    System.out.println("PREP_AMP took " + loops * TimedRobot.kDefaultPeriod + "s, and the elevator took "
+        + subElevator.getLastTimeToPosition() + "s of that");
+  }
+
+  /**
+   * Runs the given command for the given number of seconds, then cancels it.
+   */
+  private static void runFor(Command command, double seconds) {
+    CommandScheduler.getInstance().schedule(command);
+    SimRobot.step((int) Math.ceil(seconds / TimedRobot.kDefaultPeriod));
+    command.cancel();
+  }
+}
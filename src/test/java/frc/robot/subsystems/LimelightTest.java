@@ -0,0 +1,123 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.constLimelight;
+import frc.robot.SimRobot;
+
+/**
+ * Fuses frames from more Limelights than the robot has. Each camera is stood
+ * in for by publishing bot pose frames to its NetworkTables topic, like
+ * VisionSim does, and the Limelight is run by the test instead of the
+ * scheduler so nothing is published between publishing and reading.
+ */
+class LimelightTest {
+  private static final String[] CAMERA_NAMES = { "limelight-test-front", "limelight-test-back" };
+
+  private static Drivetrain subDrivetrain;
+  private static Limelight subLimelight;
+  private static DoubleArrayPublisher[] publishers;
+
+  @BeforeAll
+  static void boot() {
+    SimRobot.boot();
+    subDrivetrain = SimRobot.getDrivetrain();
+
+    Transform3d robotToCamera = constLimelight.ROBOT_TO_LIMELIGHTS[0];
+    subLimelight = new Limelight(subDrivetrain, CAMERA_NAMES, new Transform3d[] { robotToCamera, robotToCamera });
+    CommandScheduler.getInstance().unregisterSubsystem(subLimelight);
+
+    publishers = new DoubleArrayPublisher[CAMERA_NAMES.length];
+    for (int i = 0; i < CAMERA_NAMES.length; i++) {
+      publishers[i] = NetworkTableInstance.getDefault().getTable(CAMERA_NAMES[i])
+          .getDoubleArrayTopic("botpose_wpiblue").publish();
+    }
+  }
+
+  @BeforeEach
+  void step() {
+    // Moves time past the frames the last test published, since a topic ignores
+    // values older than the one it has
+    SimRobot.step(5);
+  }
+
+  @Test
+  void everyCameraIsFused() {
+    Pose2d start = subDrivetrain.getPose();
+    Pose2d seen = new Pose2d(start.getX() + 0.5, start.getY() + 0.3, start.getRotation());
+    long acceptedUpdates = subLimelight.getAcceptedUpdates();
+
+    long now = RobotController.getFPGATime();
+    publishers[0].set(createFrame(seen, 20), now);
+    publishers[1].set(createFrame(seen, 20), now);
+    subLimelight.periodic();
+
+    assertEquals(acceptedUpdates + 2, subLimelight.getAcceptedUpdates());
+    double startDistance = start.getTranslation().getDistance(seen.getTranslation());
+    assertTrue(subDrivetrain.getPose().getTranslation().getDistance(seen.getTranslation()) < startDistance,
+        "Pose didn't move toward what the cameras saw");
+  }
+
+  @Test
+  void everyFrameSinceTheLastLoopIsRead() {
+    Pose2d pose = subDrivetrain.getPose();
+    long acceptedUpdates = subLimelight.getAcceptedUpdates();
+
+    long now = RobotController.getFPGATime();
+    publishers[0].set(createFrame(pose, 20), now - 40000);
+    publishers[0].set(createFrame(pose, 20), now - 20000);
+    publishers[0].set(createFrame(pose, 20), now);
+    subLimelight.periodic();
+
+    assertEquals(acceptedUpdates + 3, subLimelight.getAcceptedUpdates());
+  }
+
+  @Test
+  void framesAreAddedOldestFirstAcrossCameras() {
+    Pose2d pose = subDrivetrain.getPose();
+    Pose2d frontPose = new Pose2d(pose.getX() + 0.01, pose.getY(), pose.getRotation());
+    Pose2d backPose = new Pose2d(pose.getX() - 0.01, pose.getY(), pose.getRotation());
+
+    // Both arrive together, but the back camera's frame was captured earlier,
+    // so the front camera's is the last one added
+    long now = RobotController.getFPGATime();
+    publishers[0].set(createFrame(frontPose, 10), now);
+    publishers[1].set(createFrame(backPose, 80), now);
+    subLimelight.periodic();
+
+    assertEquals(frontPose, subLimelight.getPoseEstimate().pose);
+    assertEquals(now / 1e6 - 0.01, subLimelight.getPoseEstimate().timestampSeconds, 1e-6);
+  }
+
+  /**
+   * A MegaTag 1 frame in the Limelight's format, that sees two tags.
+   *
+   * @param latency <b>Units:</b> Milliseconds
+   */
+  private static double[] createFrame(Pose2d pose, double latency) {
+    double[] frame = new double[11];
+    frame[0] = pose.getX();
+    frame[1] = pose.getY();
+    frame[5] = pose.getRotation().getDegrees();
+    frame[6] = latency;
+    frame[7] = 2;
+    frame[9] = 3;
+    frame[10] = 0.2;
+    return frame;
+  }
+}
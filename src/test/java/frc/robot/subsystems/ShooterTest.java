@@ -0,0 +1,181 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants.constShooter;
+import frc.robot.Constants.constShooter.ShooterPositionGroup;
+import frc.robot.SimRobot;
+import frc.robot.commands.Zeroing.ZeroShooterPivot;
+
+/**
+ * Spins up the simulated flywheels and pivot, and zeroes the pivot against its
+ * hard stop. Each shot is held by a command, the same way our prep commands
+ * hold it, so PreSpool can't take the Shooter back.
+ */
+class ShooterTest {
+  // Generous, since this is the sim's motor model and not our real flywheels.
+  // <b>Units:</b> Seconds
+  private static final double SPIN_UP_TIMEOUT = 1.5;
+  // How far off the pivot's encoder is before zeroing. <b>Units:</b> Degrees
+  private static final double PIVOT_SENSOR_ERROR = 25;
+
+  private static Shooter subShooter;
+
+  @BeforeAll
+  static void boot() {
+    SimRobot.boot();
+    subShooter = SimRobot.getShooter();
+  }
+
+  @BeforeEach
+  void enable() {
+    SimRobot.setMode(true, false);
+    SimRobot.step(1);
+  }
+
+  @AfterEach
+  void disable() {
+    CommandScheduler.getInstance().cancelAll();
+    SimRobot.setMode(false, false);
+    // Let the flywheels coast down, so the next test spins up from a stop
+    SimRobot.step(250);
+  }
+
+  @Test
+  void slowShotsUseSlot1() {
+    ShooterPositionGroup shot = constShooter.PREP_SUB;
+    assertTrue(shot.leftVelocity.lte(constShooter.LEFT_SLOT_1_THRESH));
+    assertTrue(shot.rightVelocity.lte(constShooter.RIGHT_SLOT_1_THRESH));
+
+    subShooter.setDesiredPosition(shot);
+    assertEquals(1, subShooter.currentLeftSlot);
+    assertEquals(1, subShooter.currentRightSlot);
+  }
+
+  @Test
+  void fastShotsUseSlot0() {
+    ShooterPositionGroup shot = constShooter.PREP_SPIKE;
+    assertTrue(shot.leftVelocity.gt(constShooter.LEFT_SLOT_1_THRESH));
+    assertTrue(shot.rightVelocity.gt(constShooter.RIGHT_SLOT_1_THRESH));
+
+    subShooter.setDesiredPosition(shot);
+    assertEquals(0, subShooter.currentLeftSlot);
+    assertEquals(0, subShooter.currentRightSlot);
+  }
+
+  @Test
+  void slotSwitchesAtThreshold() {
+    double threshold = constShooter.LEFT_SLOT_1_THRESH.in(Units.RotationsPerSecond);
+
+    subShooter.setDesiredVelocities(threshold, threshold);
+    subShooter.getUpToSpeed();
+    assertEquals(1, subShooter.currentLeftSlot);
+
+    subShooter.setDesiredVelocities(threshold + 1, threshold + 1);
+    subShooter.getUpToSpeed();
+    assertEquals(0, subShooter.currentLeftSlot);
+
+    subShooter.setDesiredVelocities(threshold - 1, threshold - 1);
+    subShooter.getUpToSpeed();
+    assertEquals(1, subShooter.currentLeftSlot);
+  }
+
+  @Test
+  void slowShotIsReadyInTime() {
+    assertReadyInTime(constShooter.PREP_SUB);
+  }
+
+  @Test
+  void fastShotIsReadyInTime() {
+    assertReadyInTime(constShooter.PREP_SPIKE);
+  }
+
+  @Test
+  void timeToReadyStartsWhenPreSpoolHandsOff() {
+    ShooterPositionGroup shot = constShooter.PREP_SUB;
+
+    // Pre-spooling at the shot's speeds, with the pivot already there
+    CommandScheduler.getInstance().schedule(Commands.run(() -> {
+      subShooter.setPreSpoolVelocities(shot.leftVelocity, shot.rightVelocity);
+      subShooter.setPivotPosition(shot.shooterAngle);
+    }, subShooter));
+    SimRobot.step(50);
+    assertFalse(subShooter.readyToShoot(), "Ready to shoot while pre-spooling");
+
+    // Everything is already there, so we're ready almost as soon as it's prepped
+    CommandScheduler.getInstance().schedule(Commands.run(() -> subShooter.setDesiredPosition(shot), subShooter));
+    SimRobot.step(5);
+    assertTrue(subShooter.readyToShoot());
+    assertTrue(subShooter.getLastTimeToReady() <= 5 * TimedRobot.kDefaultPeriod,
+        "Time to Ready included " + subShooter.getLastTimeToReady() + "s of pre-spooling");
+  }
+
+  @Test
+  void zeroingResetsThePivotAtItsHardStop() {
+    // Zeroing is scheduled when we enable, so start from a known pivot angle
+    // instead
+    CommandScheduler.getInstance().cancelAll();
+    double liftedAngle = 40;
+    CommandScheduler.getInstance()
+        .schedule(Commands.run(() -> subShooter.setPivotPositionDegrees(liftedAngle), subShooter));
+    SimRobot.step(50);
+    assertEquals(liftedAngle, subShooter.getShooterPositionDegrees(),
+        constShooter.AT_POSITION_TOLERANCE.in(Units.Degrees));
+
+    // Like a pivot that skipped on its belt, so the encoder reads high
+    subShooter.setPivotSensorAngle(Units.Degrees.of(liftedAngle + PIVOT_SENSOR_ERROR));
+    Shooter.hasZeroed = false;
+
+    Command zeroShooterPivot = new ZeroShooterPivot(subShooter);
+    CommandScheduler.getInstance().schedule(zeroShooterPivot);
+    int maxLoops = (int) Math.ceil(constShooter.ZEROING_TIMEOUT.in(Units.Seconds) / TimedRobot.kDefaultPeriod);
+    int loops = 0;
+    while (zeroShooterPivot.isScheduled() && loops < maxLoops) {
+      SimRobot.step(1);
+      loops++;
+    }
+    // For the reset position to be read back
+    SimRobot.step(1);
+
+    assertFalse(zeroShooterPivot.isScheduled(),
+        "Pivot didn't stop at its hard stop after " + constShooter.ZEROING_TIMEOUT.in(Units.Seconds) + "s");
+    assertTrue(Shooter.hasZeroed);
+    assertEquals(constShooter.ZEROED_ANGLE.in(Units.Degrees), subShooter.getShooterPositionDegrees(),
+        constShooter.AT_POSITION_TOLERANCE.in(Units.Degrees));
+  }
+
+  private static void assertReadyInTime(ShooterPositionGroup shot) {
+    assertFalse(subShooter.readyToShoot(), "Ready to shoot before spinning up");
+
+    CommandScheduler.getInstance().schedule(Commands.run(() -> subShooter.setDesiredPosition(shot), subShooter));
+
+    int maxLoops = (int) Math.ceil(SPIN_UP_TIMEOUT / TimedRobot.kDefaultPeriod);
+    int loops = 0;
+    while (!subShooter.readyToShoot() && loops < maxLoops) {
+      SimRobot.step(1);
+      loops++;
+    }
+
+    assertTrue(subShooter.readyToShoot(), "Not ready to shoot after " + SPIN_UP_TIMEOUT + "s");
+
+    // The Time to Ready timer should agree with how long we actually waited
+    SimRobot.step(1);
+    assertEquals(loops * TimedRobot.kDefaultPeriod, subShooter.getLastTimeToReady(), 2 * TimedRobot.kDefaultPeriod);
+  }
+}
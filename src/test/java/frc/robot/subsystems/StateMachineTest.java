@@ -0,0 +1,110 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants.constStateMachine;
+import frc.robot.subsystems.StateMachine.RobotState;
+
+class StateMachineTest {
+  private static final Path GRAPH_DIRECTORY = Path.of("build", "state-machine");
+
+  /**
+   * Every transition in the switch statement tryState() used before
+   * ALLOWED_TRANSITIONS, mapping each desired state to the states it could be
+   * reached from. INTAKE_SOURCE was missing a break, so it also fell through to
+   * STORE_FEEDER's cases. That fall through was never in our diagram, so it is
+   * left out here.
+   */
+  private static final EnumMap<RobotState, EnumSet<RobotState>> SWITCH_TRANSITIONS = new EnumMap<RobotState, EnumSet<RobotState>>(
+      RobotState.class);
+
+  private static final RobotState[] ALL_PREPS = { RobotState.PREP_NONE, RobotState.PREP_AMP,
+      RobotState.PREP_AMP_SHOOTER, RobotState.PREP_SHUFFLE, RobotState.PREP_SPEAKER, RobotState.PREP_VISION,
+      RobotState.PREP_SPIKE, RobotState.PREP_WING, RobotState.PREP_SUB_BACKWARDS };
+
+  static {
+    expect(RobotState.NONE, RobotState.INTAKE_SOURCE, RobotState.INTAKING, RobotState.EJECTING,
+        RobotState.SHOOTING, RobotState.NONE);
+    expect(RobotState.INTAKING, RobotState.NONE, RobotState.INTAKE_SOURCE, RobotState.SHOOTING);
+    expect(RobotState.INTAKE_SOURCE, RobotState.NONE, RobotState.INTAKE_SOURCE);
+    expect(RobotState.STORE_FEEDER, RobotState.STORE_FEEDER, RobotState.INTAKING, RobotState.INTAKE_SOURCE);
+    expect(RobotState.STORE_FEEDER, ALL_PREPS);
+    expect(RobotState.CLIMBING);
+    expect(RobotState.EJECTING, RobotState.NONE, RobotState.INTAKING, RobotState.INTAKE_SOURCE,
+        RobotState.STORE_FEEDER);
+    expect(RobotState.EJECTING, ALL_PREPS);
+    expect(RobotState.SHOOTING, RobotState.CLIMBING, RobotState.SHOOTING);
+    expect(RobotState.SHOOTING, ALL_PREPS);
+
+    for (RobotState prep : ALL_PREPS) {
+      expect(prep, RobotState.NONE, RobotState.STORE_FEEDER);
+      expect(prep, ALL_PREPS);
+    }
+    SWITCH_TRANSITIONS.get(RobotState.PREP_AMP).remove(RobotState.PREP_AMP);
+    SWITCH_TRANSITIONS.get(RobotState.PREP_SHUFFLE).remove(RobotState.PREP_SHUFFLE);
+  }
+
+  private static void expect(RobotState desiredState, RobotState... fromStates) {
+    EnumSet<RobotState> expected = SWITCH_TRANSITIONS.computeIfAbsent(desiredState,
+        state -> EnumSet.noneOf(RobotState.class));
+    for (RobotState fromState : fromStates) {
+      expected.add(fromState);
+    }
+  }
+
+  @Test
+  void everyStateHasTransitions() {
+    for (RobotState desiredState : RobotState.values()) {
+      assertNotNull(constStateMachine.ALLOWED_TRANSITIONS.get(desiredState), desiredState + " has no transitions");
+    }
+  }
+
+  @Test
+  void everyTransitionMatchesTheSwitch() {
+    for (RobotState desiredState : RobotState.values()) {
+      for (RobotState fromState : RobotState.values()) {
+        assertEquals(SWITCH_TRANSITIONS.get(desiredState).contains(fromState),
+            StateMachine.isTransitionAllowed(fromState, desiredState), fromState + " -> " + desiredState);
+      }
+    }
+  }
+
+  @Test
+  void intakeSourceDoesNotFallThroughToStoreFeeder() {
+    assertFalse(StateMachine.isTransitionAllowed(RobotState.STORE_FEEDER, RobotState.INTAKE_SOURCE));
+    assertFalse(StateMachine.isTransitionAllowed(RobotState.INTAKING, RobotState.INTAKE_SOURCE));
+    for (RobotState prep : ALL_PREPS) {
+      assertFalse(StateMachine.isTransitionAllowed(prep, RobotState.INTAKE_SOURCE), prep + " -> INTAKE_SOURCE");
+    }
+  }
+
+  @Test
+  void exportsEveryTransition() throws IOException {
+    StateMachine.exportTransitionGraph(GRAPH_DIRECTORY);
+    String dot = Files.readString(GRAPH_DIRECTORY.resolve("state-machine.dot"));
+    String json = Files.readString(GRAPH_DIRECTORY.resolve("state-machine.json"));
+
+    for (RobotState desiredState : RobotState.values()) {
+      assertTrue(json.contains("\"" + desiredState + "\": ["), desiredState + " is missing from the JSON");
+      for (RobotState fromState : SWITCH_TRANSITIONS.get(desiredState)) {
+        assertTrue(dot.contains("  " + fromState + " -> " + desiredState + ";\n"),
+            fromState + " -> " + desiredState + " is missing from the graph");
+      }
+    }
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Drives a made up robot along a weaving, spinning path and estimates its pose
+ * from odometry sampled once per loop (like SN_SuperSwerve) and at 250 Hz
+ * through the OdometryThread's buffer, then compares both against where it
+ * actually went.
+ *
+ * <p>
+ * The samples are added by the test instead of the thread, since there are no
+ * Phoenix signals to wait on in simulation.
+ * </p>
+ */
+class OdometryThreadTest {
+  // <b>Units:</b> Seconds
+  private static final double LOOP_PERIOD = 0.02;
+  private static final double DURATION = 5;
+  // Steps of the ground truth, and how many make up one thread sample
+  private static final double TRUTH_PERIOD = 0.0005;
+  private static final int TRUTH_STEPS_PER_SAMPLE = 8;
+  private static final int SAMPLES_PER_LOOP = 5;
+
+  private static final double HALF_WHEELBASE = 0.3;
+  private static final SwerveDriveKinematics kinematics = new SwerveDriveKinematics(
+      new Translation2d(HALF_WHEELBASE, HALF_WHEELBASE),
+      new Translation2d(HALF_WHEELBASE, -HALF_WHEELBASE),
+      new Translation2d(-HALF_WHEELBASE, HALF_WHEELBASE),
+      new Translation2d(-HALF_WHEELBASE, -HALF_WHEELBASE));
+
+  @Test
+  void sampling250HzTracksBetterThan50Hz() {
+    SwerveDrivePoseEstimator loopEstimator = createEstimator();
+    SwerveDrivePoseEstimator threadEstimator = createEstimator();
+    PoseHistory poseHistory = new PoseHistory(64);
+    OdometryThread odometryThread = new OdometryThread(4, 32);
+
+    Pose2d truePose = new Pose2d();
+    double[] distances = new double[4];
+    double[] angles = new double[4];
+    SwerveModulePosition[] loopPositions = new SwerveModulePosition[4];
+
+    int loops = (int) Math.round(DURATION / LOOP_PERIOD);
+    double time = 0;
+    for (int loop = 0; loop < loops; loop++) {
+      for (int sample = 0; sample < SAMPLES_PER_LOOP; sample++) {
+        for (int step = 0; step < TRUTH_STEPS_PER_SAMPLE; step++) {
+          truePose = stepTruth(truePose, time, distances, angles);
+          time += TRUTH_PERIOD;
+        }
+        odometryThread.addSample(time, truePose.getRotation().getDegrees(), distances, angles);
+      }
+
+      odometryThread.applySamples(threadEstimator, poseHistory);
+      assertEquals(SAMPLES_PER_LOOP, odometryThread.getLastAppliedSampleCount());
+
+      // Only what the modules measured as the loop ran
+      for (int i = 0; i < 4; i++) {
+        loopPositions[i] = new SwerveModulePosition(distances[i], new Rotation2d(angles[i]));
+      }
+      loopEstimator.updateWithTime(time, truePose.getRotation(), loopPositions);
+    }
+
+    double loopError = getError(loopEstimator, truePose);
+    double threadError = getError(threadEstimator, truePose);
+    System.out.println("After " + DURATION + "s, 50 Hz odometry was off by " + loopError
+        + "m and 250 Hz odometry was off by " + threadError + "m");
+
+    assertTrue(threadError < loopError / 2, "250 Hz odometry wasn't much better than 50 Hz");
+    assertEquals(0, odometryThread.getDroppedSampleCount());
+    // The history has every sample, so it matches the estimator at the end
+    assertEquals(threadEstimator.getEstimatedPosition().getRotation().getRadians(),
+        poseHistory.getHeading(time), 1e-9);
+  }
+
+  @Test
+  void oldestSamplesAreDroppedWhenTheLoopFallsBehind() {
+    OdometryThread odometryThread = new OdometryThread(4, 8);
+    double[] distances = new double[4];
+    double[] angles = new double[4];
+
+    for (int sample = 0; sample < 10; sample++) {
+      distances[0] = sample;
+      odometryThread.addSample(sample * 0.004, 0, distances, angles);
+    }
+
+    SwerveDrivePoseEstimator estimator = createEstimator();
+    PoseHistory poseHistory = new PoseHistory(16);
+    odometryThread.applySamples(estimator, poseHistory);
+
+    assertEquals(10, odometryThread.getSampleCount());
+    assertEquals(2, odometryThread.getDroppedSampleCount());
+    assertEquals(8, odometryThread.getLastAppliedSampleCount());
+  }
+
+  /**
+   * The robot's speeds at the given time: always driving forward, but weaving
+   * and spinning back and forth, so the modules never stop or flip.
+   */
+  private static ChassisSpeeds getSpeeds(double time) {
+    return new ChassisSpeeds(
+        2.5 + 1.5 * Math.sin(2 * Math.PI * time),
+        0.5 * Math.cos(2 * Math.PI * 0.7 * time),
+        1.5 * Math.sin(2 * Math.PI * 0.9 * time));
+  }
+
+  /**
+   * Moves the robot along its path for one ground truth step, and rolls its
+   * wheels the same amount.
+   *
+   * @return The pose after the step
+   */
+  private static Pose2d stepTruth(Pose2d pose, double time, double[] distances, double[] angles) {
+    ChassisSpeeds speeds = getSpeeds(time + (TRUTH_PERIOD / 2));
+
+    SwerveModuleState[] states = kinematics.toSwerveModuleStates(speeds);
+    for (int i = 0; i < 4; i++) {
+      distances[i] += states[i].speedMetersPerSecond * TRUTH_PERIOD;
+      angles[i] = states[i].angle.getRadians();
+    }
+
+    return pose.exp(new Twist2d(speeds.vxMetersPerSecond * TRUTH_PERIOD, speeds.vyMetersPerSecond * TRUTH_PERIOD,
+        speeds.omegaRadiansPerSecond * TRUTH_PERIOD));
+  }
+
+  private static SwerveDrivePoseEstimator createEstimator() {
+    SwerveModulePosition[] positions = new SwerveModulePosition[4];
+    for (int i = 0; i < 4; i++) {
+      positions[i] = new SwerveModulePosition();
+    }
+    // Only odometry, so the standard deviations don't matter
+    return new SwerveDrivePoseEstimator(kinematics, new Rotation2d(), positions, new Pose2d(),
+        VecBuilder.fill(0.1, 0.1, 0.1), VecBuilder.fill(0.9, 0.9, 0.9));
+  }
+
+  /**
+   * @return How far the estimated position is from the true one. <b>Units:</b>
+   *         Meters
+   */
+  private static double getError(SwerveDrivePoseEstimator estimator, Pose2d truePose) {
+    return estimator.getEstimatedPosition().getTranslation().getDistance(truePose.getTranslation());
+  }
+}
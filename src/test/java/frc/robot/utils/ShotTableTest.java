@@ -0,0 +1,110 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.interpolation.InterpolatingDoubleTreeMap;
+import frc.robot.Constants.constShooter;
+import frc.robot.utils.ShotTable.Interpolation;
+
+/**
+ * Checks the SHOT_TABLE against our calibrated shots, which used to be the
+ * DISTANCE_MAP.
+ */
+class ShotTableTest {
+  /**
+   * Every shot we calibrated: the distance to the SPEAKER (in meters) and the
+   * pivot angle (in degrees). Copied rather than read from the SHOT_TABLE, so a
+   * row that gets changed or dropped there is caught here.
+   */
+  private static final double[][] CALIBRATED_SHOTS = {
+      { 1.2827, 42.0 },
+      { 1.5875, 40.0 },
+      { 1.8923, 34.0 },
+      { 2.1971, 28.5 },
+      { 2.5019, 27.5 },
+      { 2.8067, 25.0 },
+      { 3.1115, 23.0 },
+      { 3.4163, 19.0 },
+      { 3.7211, 18.5 },
+      { 4.0259, 18.0 },
+      { 4.3307, 16.5 },
+      { 4.6355, 16.0 },
+      { 4.9403, 15.0 },
+      { 5.2451, 14.0 },
+      { 5.5499, 13.5 },
+      { 5.8547, 13.5 },
+      { 6.1595, 12.5 } };
+
+  // Every millimeter from 0.5 to 7 meters, past both ends of the table
+  private static final int MIN_MILLIMETERS = 500;
+  private static final int MAX_MILLIMETERS = 7000;
+
+  private static final ShotTable linearTable = constShooter.SHOT_TABLE.withInterpolation(Interpolation.LINEAR);
+  private static final ShotTable cubicTable = constShooter.SHOT_TABLE
+      .withInterpolation(Interpolation.MONOTONE_CUBIC);
+
+  @Test
+  void everyCalibratedShotIsInTheTable() {
+    assertEquals(CALIBRATED_SHOTS.length, constShooter.SHOT_TABLE.size());
+
+    for (int row = 0; row < CALIBRATED_SHOTS.length; row++) {
+      assertEquals(CALIBRATED_SHOTS[row][0], constShooter.SHOT_TABLE.getRowDistance(row));
+      assertEquals(CALIBRATED_SHOTS[row][1], constShooter.SHOT_TABLE.getRowValue(ShotTable.PIVOT_ANGLE, row));
+    }
+  }
+
+  @Test
+  void calibratedShotsComeBackExactly() {
+    for (double[] shot : CALIBRATED_SHOTS) {
+      assertEquals(shot[1], linearTable.getPivotAngle(shot[0]), "Linear at " + shot[0] + "m");
+      assertEquals(shot[1], cubicTable.getPivotAngle(shot[0]), "Monotone cubic at " + shot[0] + "m");
+    }
+
+    for (int row = 0; row < linearTable.size(); row++) {
+      double distance = linearTable.getRowDistance(row);
+      for (int column = 0; column < ShotTable.COLUMN_COUNT; column++) {
+        assertEquals(linearTable.getRowValue(column, row), linearTable.get(column, distance));
+        assertEquals(linearTable.getRowValue(column, row), cubicTable.get(column, distance));
+      }
+    }
+  }
+
+  @Test
+  void linearMatchesTheDistanceMap() {
+    InterpolatingDoubleTreeMap distanceMap = new InterpolatingDoubleTreeMap();
+    for (double[] shot : CALIBRATED_SHOTS) {
+      distanceMap.put(shot[0], shot[1]);
+    }
+
+    for (int millimeters = MIN_MILLIMETERS; millimeters <= MAX_MILLIMETERS; millimeters++) {
+      double distance = millimeters / 1000.0;
+      assertEquals(distanceMap.get(distance), linearTable.getPivotAngle(distance), 1e-9, "At " + distance + "m");
+    }
+  }
+
+  @Test
+  void monotoneCubicStaysBetweenItsRows() {
+    for (int millimeters = MIN_MILLIMETERS; millimeters <= MAX_MILLIMETERS; millimeters++) {
+      double distance = millimeters / 1000.0;
+      double cubic = cubicTable.getPivotAngle(distance);
+
+      // The rows on either side of this distance bound the spline
+      int upperRow = 0;
+      while (upperRow < CALIBRATED_SHOTS.length - 1 && CALIBRATED_SHOTS[upperRow][0] < distance) {
+        upperRow++;
+      }
+      double lowerValue = CALIBRATED_SHOTS[Math.max(upperRow - 1, 0)][1];
+      double upperValue = CALIBRATED_SHOTS[upperRow][1];
+
+      assertTrue(cubic >= Math.min(lowerValue, upperValue) - 1e-9 && cubic <= Math.max(lowerValue, upperValue) + 1e-9,
+          "Overshot to " + cubic + " degrees at " + distance + "m");
+    }
+  }
+}
@@ -0,0 +1,45 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import frc.robot.SimRobot;
+
+class SignalCacheTest {
+  @BeforeAll
+  static void boot() {
+    SimRobot.boot();
+  }
+
+  @Test
+  void mechanismSignalsAreRegistered() {
+    assertTrue(SignalCache.getSignalCount() > 0, "No status signals were registered");
+  }
+
+  @Test
+  void refreshesOncePerLoop() {
+    long refreshCount = SignalCache.getRefreshCount();
+    SimRobot.step(50);
+    assertEquals(refreshCount + 50, SignalCache.getRefreshCount());
+  }
+
+  @Test
+  void refreshesOncePerLoopWhileEnabled() {
+    SimRobot.setMode(true, false);
+    SimRobot.step(1);
+
+    long refreshCount = SignalCache.getRefreshCount();
+    SimRobot.step(50);
+    assertEquals(refreshCount + 50, SignalCache.getRefreshCount());
+
+    SimRobot.setMode(false, false);
+    SimRobot.step(1);
+  }
+}